@@ -58,6 +58,8 @@ SDK_VERSIONS="${VERSIONS//,/ }"
 BENCHMARKS=(
     "io.milvus.benchmark.PoolBenchmark"
     "io.milvus.benchmark.SearchBenchmark"
+    "io.milvus.benchmark.SchemaCacheBenchmark"
+    "io.milvus.benchmark.BloomFilterBenchmark"
 )
 
 # --- Check prerequisites ---
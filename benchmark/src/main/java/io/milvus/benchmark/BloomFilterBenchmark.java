@@ -0,0 +1,197 @@
+package io.milvus.benchmark;
+
+import com.google.gson.JsonObject;
+import io.milvus.common.utils.BloomFilterUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how fast a bloom filter blob is built on the client. It does not talk to Milvus: every
+ * variant builds the same filter, once member by member, once through the batch APIs, and once
+ * through the batch APIs split across threads.
+ */
+public class BloomFilterBenchmark extends BenchmarkBase {
+
+    private int memberCount = 10_000_000;
+    private double fpr = BloomFilterUtils.DEFAULT_FPR;
+    private int stringLength = 24;
+    private int[] parallelisms = {1, 4, 8};
+    private int rounds = 5;
+
+    private final List<BenchmarkResult> allResults = new ArrayList<>();
+    private long[] int64Members;
+    private String[] stringMembers;
+    private byte[] utf8Members;
+    private int[] utf8Offsets;
+
+    public static void main(String[] args) throws Exception {
+        new BloomFilterBenchmark().execute(args);
+    }
+
+    @Override
+    protected String name() {
+        return "Milvus Java SDK Bloom Filter Benchmark";
+    }
+
+    @Override
+    protected void applyConfig(JsonObject config) {
+        if (config.has("memberCount")) memberCount = config.get("memberCount").getAsInt();
+        if (config.has("fpr")) fpr = config.get("fpr").getAsDouble();
+        if (config.has("stringLength")) stringLength = config.get("stringLength").getAsInt();
+        if (config.has("rounds")) rounds = config.get("rounds").getAsInt();
+        if (config.has("parallelisms")) {
+            parallelisms = new int[config.getAsJsonArray("parallelisms").size()];
+            for (int i = 0; i < parallelisms.length; i++) {
+                parallelisms[i] = config.getAsJsonArray("parallelisms").get(i).getAsInt();
+            }
+        }
+    }
+
+    @Override
+    protected void prepare() {
+        System.out.println("[Setup] Members: " + memberCount + ", fpr: " + fpr
+                + ", string length: " + stringLength);
+        Random random = new Random(42);
+        int64Members = new long[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            int64Members[i] = random.nextLong();
+        }
+
+        stringMembers = new String[memberCount];
+        utf8Offsets = new int[memberCount + 1];
+        for (int i = 0; i < memberCount; i++) {
+            String prefix = Long.toHexString(int64Members[i]);
+            StringBuilder member = new StringBuilder(stringLength).append(prefix);
+            while (member.length() < stringLength) {
+                member.append('x');
+            }
+            stringMembers[i] = member.toString();
+            utf8Offsets[i + 1] = utf8Offsets[i] + stringMembers[i].getBytes(StandardCharsets.UTF_8).length;
+        }
+        utf8Members = new byte[utf8Offsets[memberCount]];
+        for (int i = 0; i < memberCount; i++) {
+            byte[] encoded = stringMembers[i].getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(encoded, 0, utf8Members, utf8Offsets[i], encoded.length);
+        }
+        System.out.println("  Filter size: "
+                + BloomFilterUtils.estimateBlobSize(memberCount, fpr) + " bytes");
+        System.out.println();
+    }
+
+    @Override
+    protected void run() {
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("======== Round " + round + " / " + rounds + " ========");
+            try {
+                allResults.add(measure("int64, per member", 1, () -> {
+                    BloomFilterUtils.Builder builder = new BloomFilterUtils.Builder(memberCount, fpr);
+                    for (long member : int64Members) {
+                        builder.addInt64(member);
+                    }
+                    return builder.build();
+                }));
+                for (int parallelism : parallelisms) {
+                    allResults.add(measure("int64, batch", parallelism, () ->
+                            new BloomFilterUtils.Builder(memberCount, fpr)
+                                    .parallelism(parallelism)
+                                    .addInt64(int64Members)
+                                    .build()));
+                }
+                allResults.add(measure("string, per member", 1, () -> {
+                    BloomFilterUtils.Builder builder = new BloomFilterUtils.Builder(memberCount, fpr);
+                    for (String member : stringMembers) {
+                        builder.addString(member);
+                    }
+                    return builder.build();
+                }));
+                for (int parallelism : parallelisms) {
+                    allResults.add(measure("utf8, batch", parallelism, () ->
+                            new BloomFilterUtils.Builder(memberCount, fpr)
+                                    .parallelism(parallelism)
+                                    .addUtf8(utf8Members, utf8Offsets)
+                                    .build()));
+                }
+            } catch (Exception e) {
+                System.out.println("Error in round " + round + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    protected void printSummary() {
+        System.out.println("=== Benchmark Summary (" + rounds + " rounds) ===");
+
+        StringBuilder md = new StringBuilder();
+        md.append("# BloomFilterBenchmark Results\n\n");
+        md.append("- **Date**: ").append(timestamp()).append("\n");
+        md.append("- **SDK Version**: ").append(sdkVersion).append("\n");
+        md.append("- **Members**: ").append(memberCount).append("\n");
+        md.append("- **FPR**: ").append(fpr).append("\n");
+        md.append("- **String length**: ").append(stringLength).append("\n");
+        md.append("- **Repeats**: ").append(rounds).append("\n\n");
+        md.append("## Results\n\n");
+        md.append("| Variant | Threads | Rounds | Avg Build Time | Avg Throughput |\n");
+        md.append("|---------|---------|--------|----------------|----------------|\n");
+
+        String header = String.format("  %-20s | %7s | %6s | %14s | %18s",
+                "Variant", "Threads", "Rounds", "Avg Build Time", "Avg Throughput");
+        String separator = new String(new char[header.length()]).replace('\0', '-');
+        System.out.println(separator);
+        System.out.println(header);
+        System.out.println(separator);
+        List<String> seen = new ArrayList<>();
+        for (BenchmarkResult result : allResults) {
+            String key = result.variant + "/" + result.threads;
+            if (seen.contains(key)) {
+                continue;
+            }
+            seen.add(key);
+            int count = 0;
+            double sumTimeMs = 0;
+            for (BenchmarkResult r : allResults) {
+                if (r.variant.equals(result.variant) && r.threads == result.threads) {
+                    count++;
+                    sumTimeMs += r.totalTimeMs;
+                }
+            }
+            double avgTimeMs = sumTimeMs / count;
+            double throughput = avgTimeMs > 0 ? memberCount / avgTimeMs * 1000 : 0;
+            System.out.printf("  %-20s | %7d | %6d | %11.0f ms | %12.0f member/s%n",
+                    result.variant, result.threads, count, avgTimeMs, throughput);
+            md.append(String.format("| %s | %d | %d | %.0f ms | %.0f member/s |\n",
+                    result.variant, result.threads, count, avgTimeMs, throughput));
+        }
+        System.out.println(separator);
+
+        writeResultsFile(md.toString());
+    }
+
+    private BenchmarkResult measure(String variant, int threads, Build build) {
+        long start = System.nanoTime();
+        byte[] blob = build.run();
+        long totalTimeMs = (System.nanoTime() - start) / 1_000_000;
+        BenchmarkResult result = new BenchmarkResult(variant, threads, totalTimeMs);
+        System.out.println("    " + variant + ", " + threads + " threads: " + totalTimeMs + " ms, "
+                + blob.length + " bytes");
+        return result;
+    }
+
+    private interface Build {
+        byte[] run();
+    }
+
+    static class BenchmarkResult {
+        final String variant;
+        final int threads;
+        final long totalTimeMs;
+
+        BenchmarkResult(String variant, int threads, long totalTimeMs) {
+            this.variant = variant;
+            this.threads = threads;
+            this.totalTimeMs = totalTimeMs;
+        }
+    }
+}
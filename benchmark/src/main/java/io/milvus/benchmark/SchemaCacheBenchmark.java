@@ -0,0 +1,250 @@
+package io.milvus.benchmark;
+
+import com.google.gson.JsonObject;
+import io.milvus.common.utils.cache.SchemaCache;
+import io.milvus.grpc.DescribeCollectionResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of the process-wide schema cache under contention. It does not talk to Milvus:
+ * every thread runs the lookup each insert/upsert/search does before sending its RPC, on a skewed
+ * (Zipf-like) key distribution, with a small share of forced refreshes.
+ */
+public class SchemaCacheBenchmark extends BenchmarkBase {
+
+    private static final String ENDPOINT = "localhost:19530";
+    private static final String DATABASE = "default";
+
+    private int capacity = SchemaCache.DEFAULT_CAPACITY;
+    private int keyCount = 8192;
+    private double zipfExponent = 1.0;
+    private int[] threadCounts = {1, 4, 16, 64};
+    private int operationsPerThread = 1_000_000;
+    private double refreshRatio = 0.001;
+    private int rounds = 5;
+
+    private final List<BenchmarkResult> allResults = new ArrayList<>();
+    private String[] collectionNames;
+
+    public static void main(String[] args) throws Exception {
+        new SchemaCacheBenchmark().execute(args);
+    }
+
+    @Override
+    protected String name() {
+        return "Milvus Java SDK Schema Cache Benchmark";
+    }
+
+    @Override
+    protected void applyConfig(JsonObject config) {
+        if (config.has("capacity")) capacity = config.get("capacity").getAsInt();
+        if (config.has("keyCount")) keyCount = config.get("keyCount").getAsInt();
+        if (config.has("zipfExponent")) zipfExponent = config.get("zipfExponent").getAsDouble();
+        if (config.has("operationsPerThread")) operationsPerThread = config.get("operationsPerThread").getAsInt();
+        if (config.has("refreshRatio")) refreshRatio = config.get("refreshRatio").getAsDouble();
+        if (config.has("rounds")) rounds = config.get("rounds").getAsInt();
+        if (config.has("threadCounts")) {
+            threadCounts = new int[config.getAsJsonArray("threadCounts").size()];
+            for (int i = 0; i < threadCounts.length; i++) {
+                threadCounts[i] = config.getAsJsonArray("threadCounts").get(i).getAsInt();
+            }
+        }
+    }
+
+    @Override
+    protected void prepare() {
+        System.out.println("[Setup] Capacity: " + capacity + ", keys: " + keyCount
+                + ", zipf exponent: " + zipfExponent);
+        collectionNames = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            collectionNames[i] = "collection_" + i;
+        }
+        System.out.println();
+    }
+
+    @Override
+    protected void run() {
+        int[][] workloads = new int[maxThreads()][];
+        for (int t = 0; t < workloads.length; t++) {
+            workloads[t] = zipfSequence(new Random(t), operationsPerThread);
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("======== Round " + round + " / " + rounds + " ========");
+            for (int threads : threadCounts) {
+                try {
+                    allResults.add(runBenchmark(threads, workloads));
+                } catch (Exception e) {
+                    System.out.println("Error in round " + round + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void printSummary() {
+        System.out.println("=== Benchmark Summary (" + rounds + " rounds) ===");
+
+        StringBuilder md = new StringBuilder();
+        md.append("# SchemaCacheBenchmark Results\n\n");
+        md.append("- **Date**: ").append(timestamp()).append("\n");
+        md.append("- **SDK Version**: ").append(sdkVersion).append("\n");
+        md.append("- **Capacity**: ").append(capacity).append("\n");
+        md.append("- **Keys**: ").append(keyCount).append(" (zipf exponent ").append(zipfExponent).append(")\n");
+        md.append("- **Operations per thread**: ").append(operationsPerThread).append("\n");
+        md.append("- **Refresh ratio**: ").append(refreshRatio).append("\n");
+        md.append("- **Repeats**: ").append(rounds).append("\n\n");
+        md.append("## Results\n\n");
+        md.append("| Threads | Rounds | Avg Total Time | Avg Throughput | Avg Hit Rate |\n");
+        md.append("|---------|--------|----------------|----------------|--------------|\n");
+
+        String header = String.format("  %-8s | %6s | %14s | %16s | %12s",
+                "Threads", "Rounds", "Avg Total Time", "Avg Throughput", "Avg Hit Rate");
+        String separator = new String(new char[header.length()]).replace('\0', '-');
+        System.out.println(separator);
+        System.out.println(header);
+        System.out.println(separator);
+        for (int threads : threadCounts) {
+            int count = 0;
+            double sumTimeMs = 0;
+            double sumThroughput = 0;
+            double sumHitRate = 0;
+            for (BenchmarkResult r : allResults) {
+                if (r.threads == threads) {
+                    count++;
+                    sumTimeMs += r.totalTimeMs;
+                    sumThroughput += r.getOpsPerSecond();
+                    sumHitRate += r.getHitRate();
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            System.out.printf("  %-8d | %6d | %11.0f ms | %12.0f op/s | %11.2f%%%n",
+                    threads, count, sumTimeMs / count, sumThroughput / count, sumHitRate / count * 100);
+            md.append(String.format("| %d | %d | %.0f ms | %.0f op/s | %.2f%% |\n",
+                    threads, count, sumTimeMs / count, sumThroughput / count, sumHitRate / count * 100));
+        }
+        System.out.println(separator);
+
+        writeResultsFile(md.toString());
+    }
+
+    private BenchmarkResult runBenchmark(int threads, int[][] workloads) throws InterruptedException {
+        System.out.println("  Running: " + threads + " threads, " + operationsPerThread + " lookups each");
+
+        SchemaCache cache = new SchemaCache(capacity);
+        Object loadScope = new Object();
+        AtomicLong loads = new AtomicLong(0);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(threads);
+        int refreshEvery = refreshRatio > 0 ? (int) Math.max(1, Math.round(1 / refreshRatio)) : Integer.MAX_VALUE;
+
+        for (int t = 0; t < threads; t++) {
+            int[] workload = workloads[t];
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < workload.length; i++) {
+                        int key = workload[i];
+                        String collectionName = collectionNames[key];
+                        cache.getOrLoad(ENDPOINT, DATABASE, collectionName, i % refreshEvery == 0,
+                                loadScope, () -> {
+                                    loads.incrementAndGet();
+                                    return DescribeCollectionResponse.newBuilder()
+                                            .setCollectionName(collectionName)
+                                            .setCollectionID(key)
+                                            .build();
+                                });
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        finished.await();
+        long totalTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        BenchmarkResult result = new BenchmarkResult(threads, totalTimeMs,
+                (long) threads * operationsPerThread, loads.get());
+        System.out.println("    " + result.toSummary());
+        return result;
+    }
+
+    private int maxThreads() {
+        int max = 1;
+        for (int threads : threadCounts) {
+            max = Math.max(max, threads);
+        }
+        return max;
+    }
+
+    // key indices drawn from a Zipf distribution by inverting its cumulative weights
+    private int[] zipfSequence(Random random, int length) {
+        double[] cumulative = new double[keyCount];
+        double sum = 0;
+        for (int i = 0; i < keyCount; i++) {
+            sum += 1.0 / Math.pow(i + 1, zipfExponent);
+            cumulative[i] = sum;
+        }
+        int[] sequence = new int[length];
+        for (int i = 0; i < length; i++) {
+            double target = random.nextDouble() * sum;
+            int low = 0;
+            int high = keyCount - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            sequence[i] = low;
+        }
+        return sequence;
+    }
+
+    static class BenchmarkResult {
+        final int threads;
+        final long totalTimeMs;
+        final long operationCount;
+        final long loadCount;
+
+        BenchmarkResult(int threads, long totalTimeMs, long operationCount, long loadCount) {
+            this.threads = threads;
+            this.totalTimeMs = totalTimeMs;
+            this.operationCount = operationCount;
+            this.loadCount = loadCount;
+        }
+
+        double getOpsPerSecond() {
+            return totalTimeMs > 0 ? (double) operationCount / totalTimeMs * 1000 : 0;
+        }
+
+        double getHitRate() {
+            return operationCount > 0 ? 1.0 - (double) loadCount / operationCount : 0;
+        }
+
+        String toSummary() {
+            return String.format("%.0f ms, %.0f op/s, %.2f%% hit rate",
+                    (double) totalTimeMs, getOpsPerSecond(), getHitRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,626 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.arrow;
+
+import com.google.protobuf.ByteString;
+import io.milvus.exception.IllegalResponseException;
+import io.milvus.grpc.ArrayArray;
+import io.milvus.grpc.BoolArray;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DoubleArray;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.IntArray;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.SparseFloatArray;
+import io.milvus.grpc.StringArray;
+import io.milvus.grpc.VectorField;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.FieldType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the columnar <code>FieldData</code> of query/search results into Apache Arrow vectors,
+ * without going through the row-oriented <code>RowRecord</code> maps.
+ * <p>
+ * Type mapping:
+ * Bool to Bit, Int8/Int16/Int32/Int64 to signed Int of the same width, Float/Double to FloatingPoint,
+ * VarChar/String/Text/Timestamptz/Geometry(WKT)/JSON to Utf8, Array to List of the element type,
+ * FloatVector to FixedSizeList of Float4, BinaryVector/Float16Vector/BFloat16Vector/Int8Vector to FixedSizeBinary
+ * holding the raw little-endian bytes of each vector, SparseFloatVector to VarBinary holding the server encoding
+ * (pairs of uint32 index and float32 value). Struct fields are not supported.
+ * <p>
+ * The caller owns every returned vector or {@link VectorSchemaRoot} and must close it to release the buffers.
+ */
+public class ArrowConverter {
+    public static final String SCORE_COLUMN = "score";
+    public static final String QUERY_INDEX_COLUMN = "query_index";
+    public static final String DEFAULT_ID_COLUMN = "id";
+
+    private ArrowConverter() {
+    }
+
+    /**
+     * Converts the fields data of a query result into a {@link VectorSchemaRoot}, one column per field.
+     *
+     * @param results   query results returned by the server
+     * @param allocator allocator for the Arrow buffers
+     * @return {@link VectorSchemaRoot}
+     */
+    public static VectorSchemaRoot toVectorSchemaRoot(QueryResults results, BufferAllocator allocator) {
+        return toVectorSchemaRoot(results.getFieldsDataList(), allocator);
+    }
+
+    /**
+     * Converts a list of fields data into a {@link VectorSchemaRoot}, one column per field.
+     * All the fields must have the same row count.
+     *
+     * @param fieldsData fields data returned by the server
+     * @param allocator  allocator for the Arrow buffers
+     * @return {@link VectorSchemaRoot}
+     */
+    public static VectorSchemaRoot toVectorSchemaRoot(List<FieldData> fieldsData, BufferAllocator allocator) {
+        List<FieldVector> vectors = new ArrayList<>();
+        try {
+            for (FieldData fieldData : fieldsData) {
+                vectors.add(toFieldVector(fieldData, allocator));
+            }
+            return newRoot(vectors);
+        } catch (RuntimeException e) {
+            closeAll(vectors);
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a search result into a single {@link VectorSchemaRoot} holding the hits of all the target vectors.
+     * The leading columns are {@link #QUERY_INDEX_COLUMN} (index of the target vector of each hit), the primary key
+     * column and {@link #SCORE_COLUMN}, followed by the output fields.
+     *
+     * @param results   search result data returned by the server
+     * @param allocator allocator for the Arrow buffers
+     * @return {@link VectorSchemaRoot}
+     */
+    public static VectorSchemaRoot toVectorSchemaRoot(SearchResultData results, BufferAllocator allocator) {
+        String idColumn = results.getPrimaryFieldName().isEmpty() ? DEFAULT_ID_COLUMN : results.getPrimaryFieldName();
+        List<FieldVector> vectors = new ArrayList<>();
+        try {
+            vectors.add(queryIndexVector(results.getTopksList(), allocator));
+            vectors.add(idVector(idColumn, results.getIds(), allocator));
+            Float4Vector scores = new Float4Vector(SCORE_COLUMN, allocator);
+            vectors.add(scores);
+            int count = results.getScoresCount();
+            scores.allocateNew(count);
+            for (int i = 0; i < count; i++) {
+                scores.set(i, results.getScores(i));
+            }
+            scores.setValueCount(count);
+
+            for (FieldData fieldData : results.getFieldsDataList()) {
+                // the primary key is already carried by the id column
+                if (fieldData.getFieldName().equals(idColumn)) {
+                    continue;
+                }
+                vectors.add(toFieldVector(fieldData, allocator));
+            }
+            return newRoot(vectors);
+        } catch (RuntimeException e) {
+            closeAll(vectors);
+            throw e;
+        }
+    }
+
+    /**
+     * Converts one field data into an Arrow vector named after the field.
+     *
+     * @param fieldData field data returned by the server
+     * @param allocator allocator for the Arrow buffers
+     * @return {@link FieldVector}
+     */
+    public static FieldVector toFieldVector(FieldData fieldData, BufferAllocator allocator) {
+        DataType dt = fieldData.getType();
+        switch (dt) {
+            case FloatVector:
+                return floatVector(fieldData, allocator);
+            case BinaryVector:
+            case Float16Vector:
+            case BFloat16Vector:
+            case Int8Vector:
+                return fixedBinaryVector(fieldData, allocator);
+            case SparseFloatVector:
+                return sparseVector(fieldData, allocator);
+            case Array:
+                return arrayVector(fieldData, allocator);
+            default:
+                return scalarVector(fieldData, allocator);
+        }
+    }
+
+    private static VectorSchemaRoot newRoot(List<FieldVector> vectors) {
+        int rowCount = vectors.isEmpty() ? 0 : vectors.get(0).getValueCount();
+        for (FieldVector vector : vectors) {
+            if (vector.getValueCount() != rowCount) {
+                String msg = String.format("Row count %d of field '%s' doesn't match row count %d of field '%s'",
+                        vector.getValueCount(), vector.getName(), rowCount, vectors.get(0).getName());
+                throw new IllegalResponseException(msg);
+            }
+        }
+        VectorSchemaRoot root = new VectorSchemaRoot(vectors);
+        root.setRowCount(rowCount);
+        return root;
+    }
+
+    private static void closeAll(List<FieldVector> vectors) {
+        for (FieldVector vector : vectors) {
+            vector.close();
+        }
+    }
+
+    private static IntVector queryIndexVector(List<Long> topks, BufferAllocator allocator) {
+        int total = 0;
+        for (Long topk : topks) {
+            total += topk.intValue();
+        }
+        IntVector vector = new IntVector(QUERY_INDEX_COLUMN, allocator);
+        vector.allocateNew(total);
+        int row = 0;
+        for (int q = 0; q < topks.size(); q++) {
+            int k = topks.get(q).intValue();
+            for (int j = 0; j < k; j++) {
+                vector.set(row++, q);
+            }
+        }
+        vector.setValueCount(total);
+        return vector;
+    }
+
+    private static FieldVector idVector(String name, IDs ids, BufferAllocator allocator) {
+        if (ids.hasStrId()) {
+            StringArray strIds = ids.getStrId();
+            VarCharVector vector = new VarCharVector(name, allocator);
+            vector.allocateNew(strIds.getDataCount());
+            for (int i = 0; i < strIds.getDataCount(); i++) {
+                setBytes(vector, i, strIds.getDataBytes(i));
+            }
+            vector.setValueCount(strIds.getDataCount());
+            return vector;
+        }
+
+        LongArray intIds = ids.getIntId();
+        BigIntVector vector = new BigIntVector(name, allocator);
+        vector.allocateNew(intIds.getDataCount());
+        for (int i = 0; i < intIds.getDataCount(); i++) {
+            vector.set(i, intIds.getData(i));
+        }
+        vector.setValueCount(intIds.getDataCount());
+        return vector;
+    }
+
+    private static ArrowType scalarType(DataType dt) {
+        switch (dt) {
+            case Bool:
+                return ArrowType.Bool.INSTANCE;
+            case Int8:
+                return new ArrowType.Int(8, true);
+            case Int16:
+                return new ArrowType.Int(16, true);
+            case Int32:
+                return new ArrowType.Int(32, true);
+            case Int64:
+                return new ArrowType.Int(64, true);
+            case Float:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+            case Double:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case VarChar:
+            case String:
+            case Text:
+            case Timestamptz:
+            case Geometry:
+            case JSON:
+                return ArrowType.Utf8.INSTANCE;
+            default:
+                throw new IllegalResponseException(String.format("Data type %s is not supported by Arrow export", dt.name()));
+        }
+    }
+
+    private static FieldVector scalarVector(FieldData fieldData, BufferAllocator allocator) {
+        DataType dt = fieldData.getType();
+        FieldVector vector = FieldType.nullable(scalarType(dt)).createNewSingleVector(fieldData.getFieldName(), allocator, null);
+        try {
+            int count = scalarCount(dt, fieldData.getScalars());
+            if (vector instanceof VarCharVector) {
+                ((VarCharVector) vector).allocateNew(count);
+            } else {
+                vector.setInitialCapacity(count);
+                vector.allocateNew();
+            }
+            writeScalars(vector, dt, fieldData.getScalars(), 0);
+            vector.setValueCount(count);
+
+            // nullable scalars are returned with a placeholder for each null row
+            List<Boolean> validData = fieldData.getValidDataList();
+            if (validData.size() == count) {
+                for (int i = 0; i < count; i++) {
+                    if (!validData.get(i)) {
+                        vector.setNull(i);
+                    }
+                }
+            }
+            return vector;
+        } catch (RuntimeException e) {
+            vector.close();
+            throw e;
+        }
+    }
+
+    private static int scalarCount(DataType dt, ScalarField scalars) {
+        switch (dt) {
+            case Bool:
+                return scalars.getBoolData().getDataCount();
+            case Int8:
+            case Int16:
+            case Int32:
+                return scalars.getIntData().getDataCount();
+            case Int64:
+                return scalars.getLongData().getDataCount();
+            case Float:
+                return scalars.getFloatData().getDataCount();
+            case Double:
+                return scalars.getDoubleData().getDataCount();
+            case VarChar:
+            case String:
+            case Text:
+            case Timestamptz:
+                return scalars.getStringData().getDataCount();
+            case Geometry:
+                return scalars.getGeometryWktData().getDataCount();
+            case JSON:
+                return scalars.getJsonData().getDataCount();
+            default:
+                throw new IllegalResponseException(String.format("Data type %s is not supported by Arrow export", dt.name()));
+        }
+    }
+
+    // writes the values of a ScalarField into the vector from the start index, returns the number of values written,
+    // the fixed width values are copied straight into the data buffer instead of one setSafe() call per value
+    private static int writeScalars(FieldVector vector, DataType dt, ScalarField scalars, int start) {
+        switch (dt) {
+            case Bool: {
+                BoolArray data = scalars.getBoolData();
+                ArrowBuf bits = reserve((BitVector) vector, start, data.getDataCount());
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    if (data.getData(i)) {
+                        BitVectorHelper.setBit(bits, start + i);
+                    }
+                }
+                return data.getDataCount();
+            }
+            case Int8: {
+                IntArray data = scalars.getIntData();
+                ByteBuffer target = dataView(reserve((TinyIntVector) vector, start, data.getDataCount()),
+                        start, TinyIntVector.TYPE_WIDTH, data.getDataCount());
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    target.put((byte) data.getData(i));
+                }
+                return data.getDataCount();
+            }
+            case Int16: {
+                IntArray data = scalars.getIntData();
+                ShortBuffer target = dataView(reserve((SmallIntVector) vector, start, data.getDataCount()),
+                        start, SmallIntVector.TYPE_WIDTH, data.getDataCount()).asShortBuffer();
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    target.put((short) data.getData(i));
+                }
+                return data.getDataCount();
+            }
+            case Int32: {
+                IntArray data = scalars.getIntData();
+                IntBuffer target = dataView(reserve((IntVector) vector, start, data.getDataCount()),
+                        start, IntVector.TYPE_WIDTH, data.getDataCount()).asIntBuffer();
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    target.put(data.getData(i));
+                }
+                return data.getDataCount();
+            }
+            case Int64: {
+                LongArray data = scalars.getLongData();
+                LongBuffer target = dataView(reserve((BigIntVector) vector, start, data.getDataCount()),
+                        start, BigIntVector.TYPE_WIDTH, data.getDataCount()).asLongBuffer();
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    target.put(data.getData(i));
+                }
+                return data.getDataCount();
+            }
+            case Float: {
+                FloatArray data = scalars.getFloatData();
+                FloatBuffer target = dataView(reserve((Float4Vector) vector, start, data.getDataCount()),
+                        start, Float4Vector.TYPE_WIDTH, data.getDataCount()).asFloatBuffer();
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    target.put(data.getData(i));
+                }
+                return data.getDataCount();
+            }
+            case Double: {
+                DoubleArray data = scalars.getDoubleData();
+                DoubleBuffer target = dataView(reserve((Float8Vector) vector, start, data.getDataCount()),
+                        start, Float8Vector.TYPE_WIDTH, data.getDataCount()).asDoubleBuffer();
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    target.put(data.getData(i));
+                }
+                return data.getDataCount();
+            }
+            case VarChar:
+            case String:
+            case Text:
+            case Timestamptz: {
+                VarCharVector target = (VarCharVector) vector;
+                StringArray data = scalars.getStringData();
+                for (int i = 0; i < data.getDataCount(); i++) {
+                    setBytes(target, start + i, data.getDataBytes(i));
+                }
+                return data.getDataCount();
+            }
+            case Geometry: {
+                VarCharVector target = (VarCharVector) vector;
+                int count = scalars.getGeometryWktData().getDataCount();
+                for (int i = 0; i < count; i++) {
+                    setBytes(target, start + i, scalars.getGeometryWktData().getDataBytes(i));
+                }
+                return count;
+            }
+            case JSON: {
+                VarCharVector target = (VarCharVector) vector;
+                int count = scalars.getJsonData().getDataCount();
+                for (int i = 0; i < count; i++) {
+                    setBytes(target, start + i, scalars.getJsonData().getData(i));
+                }
+                return count;
+            }
+            default:
+                throw new IllegalResponseException(String.format("Data type %s is not supported by Arrow export", dt.name()));
+        }
+    }
+
+    // makes room for the values [start, start + count) of a fixed width vector and marks them valid,
+    // returns the data buffer for the caller to copy the values into
+    private static ArrowBuf reserve(BaseFixedWidthVector vector, int start, int count) {
+        while (vector.getValueCapacity() < start + count) {
+            vector.reAlloc();
+        }
+        setValid(vector.getValidityBuffer(), start, count);
+        return vector.getDataBuffer();
+    }
+
+    private static void setValid(ArrowBuf validity, int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            BitVectorHelper.setBit(validity, i);
+        }
+    }
+
+    // a view of the data buffer from the value at the start index, Arrow stores the values as little endian
+    private static ByteBuffer dataView(ArrowBuf data, int start, int typeWidth, int count) {
+        return data.nioBuffer((long) start * typeWidth, count * typeWidth).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // copies the UTF-8 bytes straight from the protobuf buffer, without decoding them into a String
+    private static void setBytes(VarCharVector vector, int index, ByteString bytes) {
+        ByteBuffer buffer = bytes.asReadOnlyByteBuffer();
+        vector.setSafe(index, buffer, buffer.position(), bytes.size());
+    }
+
+    private static FieldVector arrayVector(FieldData fieldData, BufferAllocator allocator) {
+        ArrayArray arrays = fieldData.getScalars().getArrayData();
+        DataType elementType = arrays.getElementType();
+        int count = arrays.getDataCount();
+        ListVector vector = ListVector.empty(fieldData.getFieldName(), allocator);
+        try {
+            FieldVector child = vector.<FieldVector>addOrGetVector(FieldType.nullable(scalarType(elementType))).getVector();
+            vector.setInitialCapacity(count);
+            vector.allocateNew();
+
+            List<Boolean> validData = fieldData.getValidDataList();
+            boolean nullable = validData.size() == count;
+            int childIndex = 0;
+            for (int i = 0; i < count; i++) {
+                if (nullable && !validData.get(i)) {
+                    vector.setNull(i);
+                    continue;
+                }
+                vector.startNewValue(i);
+                int size = writeScalars(child, elementType, arrays.getData(i), childIndex);
+                childIndex += size;
+                vector.endValue(i, size);
+            }
+            child.setValueCount(childIndex);
+            vector.setValueCount(count);
+            return vector;
+        } catch (RuntimeException e) {
+            vector.close();
+            throw e;
+        }
+    }
+
+    private static FieldVector floatVector(FieldData fieldData, BufferAllocator allocator) {
+        VectorField vectors = fieldData.getVectors();
+        int dim = (int) vectors.getDim();
+        FloatArray data = vectors.getFloatVector();
+        int dataRows = dim > 0 ? data.getDataCount() / dim : 0;
+        if (dim > 0 && data.getDataCount() % dim != 0) {
+            String msg = String.format("Returned float vector data array size %d doesn't match dimension %d",
+                    data.getDataCount(), dim);
+            throw new IllegalResponseException(msg);
+        }
+
+        List<Boolean> validData = fieldData.getValidDataList();
+        int rows = validData.isEmpty() ? dataRows : validData.size();
+        FixedSizeListVector vector = FixedSizeListVector.empty(fieldData.getFieldName(), dim, allocator);
+        try {
+            Float4Vector child = vector.<Float4Vector>addOrGetVector(
+                    FieldType.nullable(new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE))).getVector();
+            vector.setInitialCapacity(rows);
+            vector.allocateNew();
+            // room for all the rows, only the child values of the valid rows are marked valid below
+            FloatBuffer target = dataView(reserve(child, rows * dim, 0), 0, Float4Vector.TYPE_WIDTH, rows * dim)
+                    .asFloatBuffer();
+
+            // nullable vectors are returned compacted, only the valid rows carry data
+            int src = 0;
+            for (int row = 0; row < rows; row++) {
+                if (!validData.isEmpty() && !validData.get(row)) {
+                    vector.setNull(row);
+                    continue;
+                }
+                int from = src * dim;
+                int to = row * dim;
+                for (int j = 0; j < dim; j++) {
+                    target.put(to + j, data.getData(from + j));
+                }
+                setValid(child.getValidityBuffer(), to, dim);
+                vector.setNotNull(row);
+                src++;
+            }
+            vector.setValueCount(rows);
+            return vector;
+        } catch (RuntimeException e) {
+            vector.close();
+            throw e;
+        }
+    }
+
+    private static FieldVector fixedBinaryVector(FieldData fieldData, BufferAllocator allocator) {
+        DataType dt = fieldData.getType();
+        VectorField vectors = fieldData.getVectors();
+        int dim = (int) vectors.getDim();
+        ByteString data;
+        int width;
+        switch (dt) {
+            case BinaryVector:
+                data = vectors.getBinaryVector();
+                width = dim / 8;
+                break;
+            case Float16Vector:
+                data = vectors.getFloat16Vector();
+                width = dim * 2;
+                break;
+            case BFloat16Vector:
+                data = vectors.getBfloat16Vector();
+                width = dim * 2;
+                break;
+            default:
+                data = vectors.getInt8Vector();
+                width = dim;
+                break;
+        }
+        if (width <= 0 || data.size() % width != 0) {
+            String msg = String.format("Returned %s data array size %d doesn't match dimension %d",
+                    dt.name(), data.size(), dim);
+            throw new IllegalResponseException(msg);
+        }
+
+        List<Boolean> validData = fieldData.getValidDataList();
+        int rows = validData.isEmpty() ? data.size() / width : validData.size();
+        FixedSizeBinaryVector vector = new FixedSizeBinaryVector(fieldData.getFieldName(), allocator, width);
+        try {
+            vector.allocateNew(rows);
+            ByteBuffer buffer = data.asReadOnlyByteBuffer();
+            if (validData.isEmpty()) {
+                // no null rows, the whole column is one contiguous copy
+                vector.getDataBuffer().setBytes(0, buffer);
+                for (int row = 0; row < rows; row++) {
+                    BitVectorHelper.setBit(vector.getValidityBuffer(), row);
+                }
+            } else {
+                int base = buffer.position();
+                int src = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (!validData.get(row)) {
+                        continue;
+                    }
+                    vector.getDataBuffer().setBytes((long) row * width, buffer, base + src * width, width);
+                    BitVectorHelper.setBit(vector.getValidityBuffer(), row);
+                    src++;
+                }
+            }
+            vector.setValueCount(rows);
+            return vector;
+        } catch (RuntimeException e) {
+            vector.close();
+            throw e;
+        }
+    }
+
+    private static FieldVector sparseVector(FieldData fieldData, BufferAllocator allocator) {
+        SparseFloatArray data = fieldData.getVectors().getSparseFloatVector();
+        List<Boolean> validData = fieldData.getValidDataList();
+        int rows = validData.isEmpty() ? data.getContentsCount() : validData.size();
+        VarBinaryVector vector = new VarBinaryVector(fieldData.getFieldName(), allocator);
+        try {
+            vector.allocateNew(rows);
+            int src = 0;
+            for (int row = 0; row < rows; row++) {
+                if (!validData.isEmpty() && !validData.get(row)) {
+                    vector.setNull(row);
+                    continue;
+                }
+                ByteString content = data.getContents(src++);
+                ByteBuffer buffer = content.asReadOnlyByteBuffer();
+                vector.setSafe(row, buffer, buffer.position(), content.size());
+            }
+            vector.setValueCount(rows);
+            return vector;
+        } catch (RuntimeException e) {
+            vector.close();
+            throw e;
+        }
+    }
+}
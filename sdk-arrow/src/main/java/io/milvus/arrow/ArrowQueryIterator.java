@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.arrow;
+
+import io.milvus.orm.iterator.QueryIterator;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+
+/**
+ * Wraps a {@link QueryIterator} and returns each batch as an Arrow {@link VectorSchemaRoot}.
+ * The batches are converted from the columnar query results directly, the iterator never builds row records.
+ * <pre>
+ * try (BufferAllocator allocator = new RootAllocator();
+ *      ArrowQueryIterator iterator = new ArrowQueryIterator(client.queryIterator(request), allocator)) {
+ *     while (true) {
+ *         try (VectorSchemaRoot batch = iterator.next()) {
+ *             if (batch.getRowCount() == 0) {
+ *                 break;
+ *             }
+ *             // process the batch
+ *         }
+ *     }
+ * }
+ * </pre>
+ */
+public class ArrowQueryIterator implements AutoCloseable {
+    private final QueryIterator queryIterator;
+    private final BufferAllocator allocator;
+
+    public ArrowQueryIterator(QueryIterator queryIterator, BufferAllocator allocator) {
+        if (queryIterator == null) {
+            throw new IllegalArgumentException("QueryIterator cannot be null");
+        }
+        if (allocator == null) {
+            throw new IllegalArgumentException("BufferAllocator cannot be null");
+        }
+        this.queryIterator = queryIterator;
+        this.allocator = allocator;
+    }
+
+    /**
+     * Fetches the next batch. A batch with zero rows means the iteration is finished.
+     * The caller owns the returned {@link VectorSchemaRoot} and must close it.
+     *
+     * @return {@link VectorSchemaRoot} of the next batch
+     */
+    public VectorSchemaRoot next() {
+        return ArrowConverter.toVectorSchemaRoot(queryIterator.nextBatch(), allocator);
+    }
+
+    @Override
+    public void close() {
+        queryIterator.close();
+    }
+}
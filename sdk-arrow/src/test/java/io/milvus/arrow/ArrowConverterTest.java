@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.arrow;
+
+import com.google.protobuf.ByteString;
+import io.milvus.grpc.ArrayArray;
+import io.milvus.grpc.BoolArray;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DoubleArray;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.IntArray;
+import io.milvus.grpc.JSONArray;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.MilvusServiceGrpc;
+import io.milvus.grpc.QueryRequest;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.Status;
+import io.milvus.grpc.StringArray;
+import io.milvus.grpc.VectorField;
+import io.milvus.orm.iterator.QueryIterator;
+import io.milvus.orm.iterator.RpcStubWrapper;
+import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import io.milvus.v2.service.vector.request.QueryIteratorReq;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.FixedSizeListVector;
+import org.apache.arrow.vector.complex.ListVector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArrowConverterTest {
+    private BufferAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new RootAllocator();
+    }
+
+    @AfterEach
+    void tearDown() {
+        // every buffer must be released by the vectors, otherwise close() throws
+        allocator.close();
+    }
+
+    @Test
+    void convertsScalarColumnsWithNulls() {
+        List<FieldData> fieldsData = Arrays.asList(
+                longField("id", 1L, 2L, 3L),
+                FieldData.newBuilder()
+                        .setFieldName("flag")
+                        .setType(DataType.Bool)
+                        .setScalars(ScalarField.newBuilder()
+                                .setBoolData(BoolArray.newBuilder().addAllData(Arrays.asList(true, false, true))))
+                        .build(),
+                FieldData.newBuilder()
+                        .setFieldName("age")
+                        .setType(DataType.Int16)
+                        .setScalars(ScalarField.newBuilder()
+                                .setIntData(IntArray.newBuilder().addAllData(Arrays.asList(10, 0, 30))))
+                        .addAllValidData(Arrays.asList(true, false, true))
+                        .build(),
+                FieldData.newBuilder()
+                        .setFieldName("name")
+                        .setType(DataType.VarChar)
+                        .setScalars(ScalarField.newBuilder()
+                                .setStringData(StringArray.newBuilder().addAllData(Arrays.asList("a", "分", ""))))
+                        .build(),
+                FieldData.newBuilder()
+                        .setFieldName("$meta")
+                        .setType(DataType.JSON)
+                        .setIsDynamic(true)
+                        .setScalars(ScalarField.newBuilder()
+                                .setJsonData(JSONArray.newBuilder()
+                                        .addData(ByteString.copyFromUtf8("{\"a\":1}"))
+                                        .addData(ByteString.copyFromUtf8("{}"))
+                                        .addData(ByteString.copyFromUtf8("{\"b\":2}"))))
+                        .build());
+
+        try (VectorSchemaRoot root = ArrowConverter.toVectorSchemaRoot(fieldsData, allocator)) {
+            assertEquals(3, root.getRowCount());
+            assertEquals(3L, ((BigIntVector) root.getVector("id")).get(2));
+            assertEquals(1, ((BitVector) root.getVector("flag")).get(0));
+            assertEquals(0, ((BitVector) root.getVector("flag")).get(1));
+
+            SmallIntVector age = (SmallIntVector) root.getVector("age");
+            assertEquals(10, age.get(0));
+            assertTrue(age.isNull(1));
+            assertEquals(30, age.get(2));
+
+            VarCharVector name = (VarCharVector) root.getVector("name");
+            assertEquals("分", name.getObject(1).toString());
+            assertEquals("", name.getObject(2).toString());
+            assertEquals("{\"b\":2}", root.getVector("$meta").getObject(2).toString());
+        }
+    }
+
+    @Test
+    void convertsArrayColumn() {
+        FieldData arrayField = FieldData.newBuilder()
+                .setFieldName("tags")
+                .setType(DataType.Array)
+                .setScalars(ScalarField.newBuilder()
+                        .setArrayData(ArrayArray.newBuilder()
+                                .setElementType(DataType.Int64)
+                                .addData(ScalarField.newBuilder()
+                                        .setLongData(LongArray.newBuilder().addAllData(Arrays.asList(1L, 2L))))
+                                .addData(ScalarField.newBuilder()
+                                        .setLongData(LongArray.newBuilder()))
+                                .addData(ScalarField.newBuilder()
+                                        .setLongData(LongArray.newBuilder().addData(7L)))))
+                .addAllValidData(Arrays.asList(true, false, true))
+                .build();
+
+        try (VectorSchemaRoot root = ArrowConverter.toVectorSchemaRoot(Collections.singletonList(arrayField), allocator)) {
+            ListVector tags = (ListVector) root.getVector("tags");
+            assertEquals(Arrays.asList(1L, 2L), tags.getObject(0));
+            assertTrue(tags.isNull(1));
+            assertEquals(Collections.singletonList(7L), tags.getObject(2));
+        }
+    }
+
+    @Test
+    void copiesFixedWidthScalarsIntoTheDataBuffers() {
+        List<FieldData> fieldsData = Arrays.asList(
+                FieldData.newBuilder()
+                        .setFieldName("int8")
+                        .setType(DataType.Int8)
+                        .setScalars(ScalarField.newBuilder()
+                                .setIntData(IntArray.newBuilder().addAllData(Arrays.asList(-128, 0, 127))))
+                        .build(),
+                FieldData.newBuilder()
+                        .setFieldName("int32")
+                        .setType(DataType.Int32)
+                        .setScalars(ScalarField.newBuilder()
+                                .setIntData(IntArray.newBuilder().addAllData(Arrays.asList(-1, 1 << 20, Integer.MAX_VALUE))))
+                        .build(),
+                FieldData.newBuilder()
+                        .setFieldName("float")
+                        .setType(DataType.Float)
+                        .setScalars(ScalarField.newBuilder()
+                                .setFloatData(FloatArray.newBuilder().addAllData(Arrays.asList(-1.5f, 0f, 3.25f))))
+                        .build(),
+                FieldData.newBuilder()
+                        .setFieldName("double")
+                        .setType(DataType.Double)
+                        .setScalars(ScalarField.newBuilder()
+                                .setDoubleData(DoubleArray.newBuilder().addAllData(Arrays.asList(-2.5, 1e300, 0.1))))
+                        .build());
+
+        try (VectorSchemaRoot root = ArrowConverter.toVectorSchemaRoot(fieldsData, allocator)) {
+            assertEquals(3, root.getRowCount());
+            assertEquals(-128, ((TinyIntVector) root.getVector("int8")).get(0));
+            assertEquals(127, ((TinyIntVector) root.getVector("int8")).get(2));
+            assertEquals(-1, ((IntVector) root.getVector("int32")).get(0));
+            assertEquals(1 << 20, ((IntVector) root.getVector("int32")).get(1));
+            assertEquals(-1.5f, ((Float4Vector) root.getVector("float")).get(0));
+            assertEquals(3.25f, ((Float4Vector) root.getVector("float")).get(2));
+            assertEquals(1e300, ((Float8Vector) root.getVector("double")).get(1));
+            assertEquals(0, root.getVector("double").getNullCount());
+        }
+    }
+
+    @Test
+    void growsArrayElementsBeyondTheInitialCapacity() {
+        ArrayArray.Builder arrays = ArrayArray.newBuilder().setElementType(DataType.Float);
+        int rows = 64;
+        int size = 500;
+        for (int i = 0; i < rows; i++) {
+            FloatArray.Builder values = FloatArray.newBuilder();
+            for (int j = 0; j < size; j++) {
+                values.addData(i * size + j);
+            }
+            arrays.addData(ScalarField.newBuilder().setFloatData(values));
+        }
+        FieldData arrayField = FieldData.newBuilder()
+                .setFieldName("values")
+                .setType(DataType.Array)
+                .setScalars(ScalarField.newBuilder().setArrayData(arrays))
+                .build();
+
+        try (VectorSchemaRoot root = ArrowConverter.toVectorSchemaRoot(Collections.singletonList(arrayField), allocator)) {
+            ListVector values = (ListVector) root.getVector("values");
+            Float4Vector elements = (Float4Vector) values.getDataVector();
+            assertEquals(rows * size, elements.getValueCount());
+            for (int k = 0; k < rows * size; k++) {
+                assertEquals((float) k, elements.get(k));
+            }
+            assertEquals(size, ((List<?>) values.getObject(rows - 1)).size());
+        }
+    }
+
+    @Test
+    void convertsDenseVectorColumns() {
+        FieldData floatField = FieldData.newBuilder()
+                .setFieldName("vector")
+                .setType(DataType.FloatVector)
+                .setVectors(VectorField.newBuilder()
+                        .setDim(2)
+                        .setFloatVector(FloatArray.newBuilder().addAllData(Arrays.asList(1f, 2f, 5f, 6f))))
+                .addAllValidData(Arrays.asList(true, false, true))
+                .build();
+        FieldData binaryField = FieldData.newBuilder()
+                .setFieldName("binary")
+                .setType(DataType.BinaryVector)
+                .setVectors(VectorField.newBuilder()
+                        .setDim(16)
+                        .setBinaryVector(ByteString.copyFrom(new byte[]{1, 2, 3, 4, 5, 6})))
+                .build();
+
+        try (VectorSchemaRoot root = ArrowConverter.toVectorSchemaRoot(Arrays.asList(floatField, binaryField), allocator)) {
+            assertEquals(3, root.getRowCount());
+
+            FixedSizeListVector vectors = (FixedSizeListVector) root.getVector("vector");
+            assertEquals(Arrays.asList(1f, 2f), vectors.getObject(0));
+            assertTrue(vectors.isNull(1));
+            assertEquals(Arrays.asList(5f, 6f), vectors.getObject(2));
+            assertEquals(1f, ((Float4Vector) vectors.getDataVector()).get(0));
+
+            FixedSizeBinaryVector binary = (FixedSizeBinaryVector) root.getVector("binary");
+            assertArrayEquals(new byte[]{3, 4}, binary.get(1));
+            assertArrayEquals(new byte[]{5, 6}, binary.get(2));
+        }
+    }
+
+    @Test
+    void convertsSearchResults() {
+        SearchResultData results = SearchResultData.newBuilder()
+                .setNumQueries(2)
+                .setTopK(2)
+                .addAllTopks(Arrays.asList(2L, 1L))
+                .setIds(IDs.newBuilder().setIntId(LongArray.newBuilder().addAllData(Arrays.asList(10L, 11L, 12L))))
+                .addAllScores(Arrays.asList(0.9f, 0.8f, 0.7f))
+                .setPrimaryFieldName("pk")
+                .addFieldsData(longField("pk", 10L, 11L, 12L))
+                .addFieldsData(longField("count", 5L, 6L, 7L))
+                .build();
+
+        try (VectorSchemaRoot root = ArrowConverter.toVectorSchemaRoot(results, allocator)) {
+            assertEquals(3, root.getRowCount());
+            assertEquals(4, root.getFieldVectors().size());
+            IntVector queryIndex = (IntVector) root.getVector(ArrowConverter.QUERY_INDEX_COLUMN);
+            assertEquals(0, queryIndex.get(1));
+            assertEquals(1, queryIndex.get(2));
+            assertEquals(12L, ((BigIntVector) root.getVector("pk")).get(2));
+            assertEquals(0.8f, ((Float4Vector) root.getVector(ArrowConverter.SCORE_COLUMN)).get(1));
+            assertEquals(7L, ((BigIntVector) root.getVector("count")).get(2));
+        }
+    }
+
+    @Test
+    void arrowQueryIteratorYieldsOneBatchPerPage() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.query(any(QueryRequest.class))).thenReturn(
+                queryResults(),
+                queryResults(1L, 2L),
+                queryResults(3L),
+                queryResults());
+
+        QueryIterator queryIterator = new QueryIterator(
+                QueryIteratorReq.builder()
+                        .collectionName("test")
+                        .outputFields(Collections.singletonList("id"))
+                        .batchSize(2)
+                        .build(),
+                new RpcStubWrapper(stub, 0L, "host:19530", "default"),
+                CreateCollectionReq.FieldSchema.builder()
+                        .name("id")
+                        .dataType(io.milvus.v2.common.DataType.Int64)
+                        .isPrimaryKey(true)
+                        .build(),
+                1L);
+
+        try (ArrowQueryIterator iterator = new ArrowQueryIterator(queryIterator, allocator)) {
+            try (VectorSchemaRoot batch = iterator.next()) {
+                assertEquals(2, batch.getRowCount());
+                assertEquals(2L, ((BigIntVector) batch.getVector("id")).get(1));
+            }
+            try (VectorSchemaRoot batch = iterator.next()) {
+                assertEquals(1, batch.getRowCount());
+            }
+            try (VectorSchemaRoot batch = iterator.next()) {
+                assertEquals(0, batch.getRowCount());
+                assertFalse(batch.getFieldVectors().iterator().hasNext());
+            }
+        }
+    }
+
+    private static FieldData longField(String name, Long... values) {
+        return FieldData.newBuilder()
+                .setFieldName(name)
+                .setType(DataType.Int64)
+                .setScalars(ScalarField.newBuilder()
+                        .setLongData(LongArray.newBuilder().addAllData(Arrays.asList(values))))
+                .build();
+    }
+
+    private static QueryResults queryResults(Long... ids) {
+        QueryResults.Builder builder = QueryResults.newBuilder()
+                .setStatus(Status.newBuilder().setCode(0).build())
+                .setSessionTs(100L);
+        if (ids.length > 0) {
+            builder.addOutputFields("id").addFieldsData(longField("id", ids));
+        }
+        return builder.build();
+    }
+}
@@ -27,9 +27,11 @@ import io.milvus.bulkwriter.common.utils.V2AdapterUtils;
 import io.milvus.bulkwriter.writer.CSVFileWriter;
 import io.milvus.bulkwriter.writer.FormatFileWriter;
 import io.milvus.bulkwriter.writer.JSONFileWriter;
+import io.milvus.bulkwriter.writer.NumpyFileWriter;
 import io.milvus.bulkwriter.writer.ParquetFileWriter;
 import io.milvus.common.utils.ExceptionUtils;
 import io.milvus.common.utils.Float16Utils;
+import io.milvus.exception.ParamException;
 import io.milvus.v2.common.DataType;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import io.milvus.v2.utils.DataUtils;
@@ -39,37 +41,61 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static io.milvus.param.Constant.DYNAMIC_FIELD_NAME;
 
 public abstract class BulkWriter implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(BulkWriter.class);
+    // a batch smaller than this number of rows per shard is not split across the shards
+    private static final int MIN_SHARD_SLICE_ROWS = 256;
+    // config key of the max number of rows in a file, no limit if not set
+    static final String ROWS_PER_FILE = "rows_per_file";
+
     protected CreateCollectionReq.CollectionSchema collectionSchema;
     protected long chunkSize;
+    // a file is rolled at this number of rows, even if it is smaller than the chunk size
+    private final long rowsPerFile;
 
     protected BulkFileType fileType;
     protected String localPath;
     protected String uuid;
     protected int flushCount;
-    protected FormatFileWriter fileWriter;
     protected final Map<String, Object> config;
 
-    protected long totalSize;
-    protected long totalRowCount;
-    protected ReentrantLock appendLock;
     protected ReentrantLock fileWriteLock;
 
-    protected boolean firstWrite;
+    // each shard writes its own file, one shard unless a shard count is given
+    private final Shard[] shards;
+    private final AtomicLong nextShard = new AtomicLong();
+    // the rows are routed to the shards by this field if the collection has a partition key
+    private final CreateCollectionReq.FieldSchema partitionKeyField;
+    private final ExecutorService shardExecutor;
 
     protected BulkWriter(CreateCollectionReq.CollectionSchema collectionSchema, long chunkSize, BulkFileType fileType, String localPath, Map<String, Object> config) throws IOException {
+        this(collectionSchema, chunkSize, fileType, localPath, config, 1);
+    }
+
+    protected BulkWriter(CreateCollectionReq.CollectionSchema collectionSchema, long chunkSize, BulkFileType fileType, String localPath, Map<String, Object> config, int shardCount) throws IOException {
         this.collectionSchema = collectionSchema;
         this.chunkSize = chunkSize;
+        this.rowsPerFile = config.containsKey(ROWS_PER_FILE) ? ((Number) config.get(ROWS_PER_FILE)).longValue() : 0L;
         this.fileType = fileType;
         this.localPath = localPath;
         this.uuid = UUID.randomUUID().toString();
@@ -82,21 +108,42 @@ public abstract class BulkWriter implements AutoCloseable {
         if (!hasPrimaryField(collectionSchema.getFieldSchemaList())) {
             ExceptionUtils.throwUnExpectedException("primary field is null");
         }
-        appendLock = new ReentrantLock();
+        if (shardCount <= 0) {
+            ExceptionUtils.throwUnExpectedException("shard count must be greater than 0");
+        }
+        this.partitionKeyField = collectionSchema.getFieldSchemaList().stream()
+                .filter(field -> Boolean.TRUE.equals(field.getIsPartitionKey()))
+                .findFirst().orElse(null);
 
         this.makeDir();
         fileWriteLock = new ReentrantLock();
-        fileWriter = null;
-        this.newFileWriter();
-
-        firstWrite = true;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            this.newFileWriter(shards[i]);
+        }
+        this.shardExecutor = shardCount > 1 ? Executors.newFixedThreadPool(shardCount, new ShardThreadFactory()) : null;
     }
 
+    /**
+     * @return the bytes written into the files not committed yet, in all the shards
+     */
     protected Long getTotalSize() {
+        long totalSize = 0;
+        for (Shard shard : shards) {
+            totalSize += shard.totalSize;
+        }
         return totalSize;
     }
 
+    /**
+     * @return the number of rows not committed yet, in all the shards
+     */
     public Long getTotalRowCount() {
+        long totalRowCount = 0;
+        for (Shard shard : shards) {
+            totalRowCount += shard.totalRowCount;
+        }
         return totalRowCount;
     }
 
@@ -104,36 +151,47 @@ public abstract class BulkWriter implements AutoCloseable {
         return chunkSize;
     }
 
-    protected FormatFileWriter getFileWriter() {
-        return fileWriter;
+    protected List<Shard> getShards() {
+        return Collections.unmodifiableList(Arrays.asList(shards));
     }
 
-    protected FormatFileWriter newFileWriter() throws IOException {
-        FormatFileWriter oldFileWriter = fileWriter;
+    /**
+     * Opens the next file of a shard, the caller holds the shard lock.
+     *
+     * @return the previous writer of the shard, null for the first file
+     */
+    protected FormatFileWriter newFileWriter(Shard shard) throws IOException {
+        FormatFileWriter oldFileWriter = shard.fileWriter;
 
         fileWriteLock.lock();
-        createWriterByType();
-        fileWriteLock.unlock();
+        try {
+            shard.fileWriter = createWriterByType();
+        } finally {
+            fileWriteLock.unlock();
+        }
+        // a new file starts with its header, the JSON opening bracket or the CSV header line
+        shard.firstWrite = true;
         return oldFileWriter;
     }
 
-    private void createWriterByType() throws IOException {
+    private FormatFileWriter createWriterByType() throws IOException {
+        // the files of all the shards are numbered in the order they are opened
         flushCount += 1;
         java.nio.file.Path path = Paths.get(localPath);
         java.nio.file.Path filePathPrefix = path.resolve(String.valueOf(flushCount));
 
         switch (fileType) {
             case PARQUET:
-                this.fileWriter = new ParquetFileWriter(collectionSchema, filePathPrefix.toString());
-                break;
+                return new ParquetFileWriter(collectionSchema, filePathPrefix.toString(), config);
             case JSON:
-                this.fileWriter = new JSONFileWriter(collectionSchema, filePathPrefix.toString());
-                break;
+                return new JSONFileWriter(collectionSchema, filePathPrefix.toString());
             case CSV:
-                this.fileWriter = new CSVFileWriter(collectionSchema, filePathPrefix.toString(), config);
-                break;
+                return new CSVFileWriter(collectionSchema, filePathPrefix.toString(), config);
+            case NUMPY:
+                return new NumpyFileWriter(collectionSchema, filePathPrefix.toString());
             default:
                 ExceptionUtils.throwUnExpectedException("Unsupported file type: " + fileType);
+                return null;
         }
     }
 
@@ -157,33 +215,227 @@ public abstract class BulkWriter implements AutoCloseable {
     }
 
     public void appendRow(JsonObject row) throws IOException, InterruptedException {
-        Map<String, Object> rowValues = verifyRow(row);
+        Pair<Map<String, Object>, Integer> verified = verifyRow(row);
+        Map<String, Object> rowValues = verified.getLeft();
         List<String> filePaths = Lists.newArrayList();
 
-        appendLock.lock();
-        fileWriter.appendRow(rowValues, firstWrite);
-        firstWrite = false;
-        if (getTotalSize() > getChunkSize()) {
-            filePaths = commitIfFileReady(true);
+        Shard shard = lockShard(rowValues);
+        try {
+            shard.fileWriter.appendRow(rowValues, shard.firstWrite);
+            shard.firstWrite = false;
+            shard.written(1, verified.getRight());
+            if (isFileFull(shard)) {
+                filePaths = commitIfFileReady(shard, true);
+            }
+        } finally {
+            shard.lock.unlock();
         }
-        appendLock.unlock();
 
         if (CollectionUtils.isNotEmpty(filePaths)) {
             callBackIfCommitReady(filePaths);
         }
     }
 
+    /**
+     * Appends rows given column by column, see {@link ColumnBatch} for the array type of each field.
+     * The batch is verified against the schema once and written without building a map per row,
+     * a batch crossing the chunk size is split across files like the same rows given to {@link #appendRow(JsonObject)}.
+     * <p>
+     * With many shards, a large batch is cut into one slice per shard and the slices are written at the same time.
+     *
+     * @param batch the rows
+     */
+    public void appendBatch(ColumnBatch batch) throws IOException, InterruptedException {
+        Pair<ColumnBatch, int[]> verified = verifyBatch(batch);
+        ColumnBatch columns = verified.getLeft();
+        int[] rowSizes = verified.getRight();
+
+        int rowCount = columns.getRowCount();
+        if (rowCount <= 0) {
+            return;
+        }
+        if (shards.length == 1) {
+            appendToShard(shards[0], columns, rowSizes, 0, rowCount);
+            return;
+        }
 
-    protected abstract List<String> commitIfFileReady(boolean createNewFile) throws IOException;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        if (partitionKeyField != null) {
+            // the rows of a partition key value always go to the same shard
+            Object keyColumn = columns.getColumn(partitionKeyField.getName());
+            List<List<Integer>> shardRows = new ArrayList<>();
+            for (int i = 0; i < shards.length; i++) {
+                shardRows.add(new ArrayList<>());
+            }
+            for (int row = 0; row < rowCount; row++) {
+                shardRows.get(shardOf(ColumnBatch.valueAt(keyColumn, row))).add(row);
+            }
+            for (int i = 0; i < shards.length; i++) {
+                int[] rows = shardRows.get(i).stream().mapToInt(Integer::intValue).toArray();
+                if (rows.length == 0) {
+                    continue;
+                }
+                ColumnBatch shardColumns = columns.select(rows);
+                int[] shardRowSizes = new int[rows.length];
+                for (int k = 0; k < rows.length; k++) {
+                    shardRowSizes[k] = rowSizes[rows[k]];
+                }
+                Shard shard = shards[i];
+                tasks.add(() -> appendToShard(shard, shardColumns, shardRowSizes, 0, rows.length));
+            }
+        } else {
+            int sliceCount = Math.max(1, Math.min(shards.length, rowCount / MIN_SHARD_SLICE_ROWS));
+            int start = (int) Math.floorMod(nextShard.getAndAdd(sliceCount), (long) shards.length);
+            for (int i = 0; i < sliceCount; i++) {
+                int fromRow = (int) ((long) rowCount * i / sliceCount);
+                int toRow = (int) ((long) rowCount * (i + 1) / sliceCount);
+                Shard shard = shards[(start + i) % shards.length];
+                tasks.add(() -> appendToShard(shard, columns, rowSizes, fromRow, toRow));
+            }
+        }
+        runShardTasks(tasks);
+    }
+
+    /**
+     * Appends rows given column by column, a shortcut of {@link #appendBatch(ColumnBatch)}.
+     *
+     * @param columns the columns keyed by field name
+     */
+    public void appendColumns(Map<String, Object> columns) throws IOException, InterruptedException {
+        appendBatch(ColumnBatch.newBuilder().withColumns(columns).build());
+    }
+
+    private Void appendToShard(Shard shard, ColumnBatch columns, int[] rowSizes, int fromRow, int endRow)
+            throws IOException, InterruptedException {
+        while (fromRow < endRow) {
+            List<String> filePaths = Lists.newArrayList();
+
+            shard.lock.lock();
+            try {
+                // write up to the row that crosses the chunk size, as appendRow() would. The file size is
+                // known after the rows are written, the estimated row sizes are scaled by the bytes per
+                // estimated byte of the rows already written to predict the rows that fit in the file
+                int maxRow = endRow;
+                if (shard.sizeRatio <= 0) {
+                    // the first row of the shard tells the bytes per estimated byte
+                    maxRow = fromRow + 1;
+                }
+                if (rowsPerFile > 0) {
+                    maxRow = (int) Math.min(maxRow, fromRow + rowsPerFile - shard.totalRowCount);
+                }
+                double ratio = shard.sizeRatio > 0 ? shard.sizeRatio : 1.0;
+                int toRow = fromRow;
+                long batchSize = 0;
+                do {
+                    batchSize += rowSizes[toRow++];
+                } while (toRow < maxRow && shard.totalSize + batchSize * ratio < getChunkSize());
+                shard.fileWriter.appendColumns(columns, fromRow, toRow, shard.firstWrite);
+                shard.firstWrite = false;
+                shard.written(toRow - fromRow, batchSize);
+                fromRow = toRow;
+                if (isFileFull(shard)) {
+                    filePaths = commitIfFileReady(shard, true);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+
+            if (CollectionUtils.isNotEmpty(filePaths)) {
+                callBackIfCommitReady(filePaths);
+            }
+        }
+        return null;
+    }
+
+    private void runShardTasks(List<Callable<Void>> tasks) throws IOException, InterruptedException {
+        if (tasks.size() == 1) {
+            try {
+                tasks.get(0).call();
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+            return;
+        }
+
+        List<Future<Void>> futures = shardExecutor.invokeAll(tasks);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof InterruptedException) {
+                    throw (InterruptedException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * Picks and locks the shard of a row: the shard of its partition key value if the collection has
+     * a partition key, else the next shard in turn, skipping the shards being written by other threads.
+     */
+    private Shard lockShard(Map<String, Object> rowValues) {
+        if (shards.length == 1) {
+            shards[0].lock.lock();
+            return shards[0];
+        }
+        if (partitionKeyField != null) {
+            Shard shard = shards[shardOf(rowValues.get(partitionKeyField.getName()))];
+            shard.lock.lock();
+            return shard;
+        }
+
+        int start = (int) Math.floorMod(nextShard.getAndIncrement(), (long) shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            Shard shard = shards[(start + i) % shards.length];
+            if (shard.lock.tryLock()) {
+                return shard;
+            }
+        }
+        shards[start].lock.lock();
+        return shards[start];
+    }
+
+    private boolean isFileFull(Shard shard) {
+        return shard.totalSize >= getChunkSize() || (rowsPerFile > 0 && shard.totalRowCount >= rowsPerFile);
+    }
+
+    private int shardOf(Object partitionKey) {
+        return partitionKey == null ? 0 : Math.floorMod(partitionKey.hashCode(), shards.length);
+    }
+
+    protected void shutdownShards() {
+        if (shardExecutor != null) {
+            shardExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Closes the current file of a shard if it has rows, the caller holds the shard lock.
+     *
+     * @param shard         the shard
+     * @param createNewFile true to open the next file of the shard
+     * @return the closed files, null if the shard has no row
+     */
+    protected abstract List<String> commitIfFileReady(Shard shard, boolean createNewFile) throws IOException;
 
     protected abstract void callBackIfCommitReady(List<String> filePaths) throws IOException, InterruptedException;
 
 
-    protected void commit() {
-        appendLock.lock();
-        totalSize = 0;
-        totalRowCount = 0;
-        appendLock.unlock();
+    /**
+     * Resets the size and row count of a shard after its file is committed, the caller holds the shard lock.
+     */
+    protected void commit(Shard shard) {
+        shard.totalSize = 0;
+        shard.totalRowCount = 0;
+        shard.estimatedSize = 0;
     }
 
     protected String getDataPath() {
@@ -203,7 +455,10 @@ public abstract class BulkWriter implements AutoCloseable {
         }
     }
 
-    protected Map<String, Object> verifyRow(JsonObject row) {
+    /**
+     * Verifies a row against the schema and returns the values to write with the size of the row.
+     */
+    protected Pair<Map<String, Object>, Integer> verifyRow(JsonObject row) {
         int rowSize = 0;
         Map<String, Object> rowValues = new HashMap<>();
         List<String> outputFieldNames = V2AdapterUtils.getOutputFieldNames(collectionSchema);
@@ -350,12 +605,396 @@ public abstract class BulkWriter implements AutoCloseable {
             rowSize += strValues.length();
         }
 
-        appendLock.lock();
-        totalSize += rowSize;
-        totalRowCount += 1;
-        appendLock.unlock();
+        return Pair.of(rowValues, rowSize);
+    }
 
-        return rowValues;
+    /**
+     * Verifies a column batch against the schema, applies the nullable and default value rules of
+     * {@link #verifyRow(JsonObject)} and returns the columns in the written order with the size of each row.
+     */
+    protected Pair<ColumnBatch, int[]> verifyBatch(ColumnBatch batch) {
+        if (CollectionUtils.isNotEmpty(collectionSchema.getStructFields())) {
+            ExceptionUtils.throwUnExpectedException("Struct field is not supported by appendBatch, use appendRow");
+        }
+
+        Map<String, CreateCollectionReq.FieldSchema> nameFields = new HashMap<>();
+        for (CreateCollectionReq.FieldSchema field : collectionSchema.getFieldSchemaList()) {
+            nameFields.put(field.getName(), field);
+        }
+        Map<String, Object> input = batch.getColumns();
+        int rowCount = batch.getRowCount();
+        for (Map.Entry<String, Object> entry : input.entrySet()) {
+            String fieldName = entry.getKey();
+            CreateCollectionReq.FieldSchema field = nameFields.get(fieldName);
+            boolean isDynamic = fieldName.equals(DYNAMIC_FIELD_NAME) && collectionSchema.isEnableDynamicField();
+            if (field == null && !isDynamic) {
+                String msg = String.format("The field '%s' is not defined in the collection schema", fieldName);
+                ExceptionUtils.throwUnExpectedException(msg);
+            }
+            if (rowCount < 0 && entry.getValue() instanceof ByteBuffer && field != null) {
+                rowCount = ((ByteBuffer) entry.getValue()).remaining() / Math.max(vectorBytes(field), 1);
+            } else if (rowCount < 0 && entry.getValue() instanceof FloatBuffer && field != null) {
+                int dim = field.getDimension() == null ? 0 : field.getDimension();
+                rowCount = ((FloatBuffer) entry.getValue()).remaining() / Math.max(dim, 1);
+            }
+        }
+        // the row count is checked before any array is allocated with it
+        if (rowCount < 0) {
+            throw new ParamException("The row count of the column batch is unknown, "
+                    + "no column is an array or a vector buffer of a field of the schema");
+        }
+        for (Map.Entry<String, Object> entry : input.entrySet()) {
+            Object column = entry.getValue();
+            CreateCollectionReq.FieldSchema field = nameFields.get(entry.getKey());
+            if (field == null || !(column instanceof ByteBuffer || column instanceof FloatBuffer)) {
+                continue;
+            }
+            boolean isFloat = column instanceof FloatBuffer;
+            long length = ((Buffer) column).remaining();
+            int perVector = isFloat ? (field.getDimension() == null ? 0 : field.getDimension()) : vectorBytes(field);
+            if (perVector <= 0 || length != (long) perVector * rowCount) {
+                String msg = String.format("%s of field '%s' has %d %s, expect %d vectors of %d %s",
+                        isFloat ? "FloatBuffer" : "ByteBuffer", field.getName(), length,
+                        isFloat ? "floats" : "bytes", rowCount, perVector, isFloat ? "floats" : "bytes");
+                throw new ParamException(msg);
+            }
+        }
+
+        int[] rowSizes = new int[rowCount];
+        Map<String, Object> columns = new LinkedHashMap<>();
+        List<String> outputFieldNames = V2AdapterUtils.getOutputFieldNames(collectionSchema);
+        for (CreateCollectionReq.FieldSchema field : collectionSchema.getFieldSchemaList()) {
+            String fieldName = field.getName();
+            Object column = input.get(fieldName);
+            if (field.getIsPrimaryKey() && field.getAutoID()) {
+                if (column != null) {
+                    String msg = String.format("The primary key field '%s' is auto-id, no need to provide", fieldName);
+                    ExceptionUtils.throwUnExpectedException(msg);
+                }
+                continue;
+            }
+            if (outputFieldNames.contains(fieldName)) {
+                if (column != null) {
+                    String msg = String.format("The field '%s'  is function output, no need to provide", fieldName);
+                    ExceptionUtils.throwUnExpectedException(msg);
+                }
+                continue;
+            }
+
+            columns.put(fieldName, verifyColumn(field, column, rowCount, rowSizes));
+        }
+
+        if (collectionSchema.isEnableDynamicField()) {
+            Object column = input.get(DYNAMIC_FIELD_NAME);
+            String[] dynamicValues = new String[rowCount];
+            if (column != null) {
+                if (!(column instanceof String[])) {
+                    String msg = String.format("Dynamic field '%s' column should be String[] of JSON dict", DYNAMIC_FIELD_NAME);
+                    ExceptionUtils.throwUnExpectedException(msg);
+                }
+                checkColumnLength(DYNAMIC_FIELD_NAME, column, rowCount);
+                System.arraycopy(column, 0, dynamicValues, 0, rowCount);
+            }
+            for (int i = 0; i < rowCount; i++) {
+                if (dynamicValues[i] == null) {
+                    dynamicValues[i] = "{}";
+                }
+                rowSizes[i] += dynamicValues[i].length();
+            }
+            columns.put(DYNAMIC_FIELD_NAME, dynamicValues);
+        }
+
+        return Pair.of(new ColumnBatch(columns, rowCount), rowSizes);
+    }
+
+    private Object verifyColumn(CreateCollectionReq.FieldSchema field, Object column, int rowCount, int[] rowSizes) {
+        String fieldName = field.getName();
+        DataType dataType = field.getDataType();
+        Object defaultValue = field.getDefaultValue();
+        if (column == null) {
+            // the same rules as a null value of appendRow(), see verifyRow()
+            if (defaultValue == null) {
+                if (!field.getIsNullable()) {
+                    String msg = String.format("The field '%s' is not nullable, not allow null value", fieldName);
+                    ExceptionUtils.throwUnExpectedException(msg);
+                }
+                return null;
+            }
+            column = Array.newInstance(boxedType(field), rowCount);
+        }
+
+        if (column instanceof ByteBuffer || column instanceof FloatBuffer) {
+            return verifyPackedColumn(field, (Buffer) column, rowCount, rowSizes);
+        }
+        List<Class<?>> columnTypes = columnTypes(field);
+        if (!columnTypes.contains(column.getClass())) {
+            String msg = String.format("Unsupported column type %s for field '%s' of type %s, expect one of %s",
+                    column.getClass().getSimpleName(), fieldName, dataType, columnTypesNames(columnTypes));
+            ExceptionUtils.throwUnExpectedException(msg);
+        }
+        checkColumnLength(fieldName, column, rowCount);
+
+        if (column instanceof Object[]) {
+            column = fillNullValues(field, (Object[]) column);
+        }
+
+        switch (dataType) {
+            case Bool:
+            case Int8:
+            case Int16:
+            case Int32:
+            case Int64:
+            case Float:
+            case Double: {
+                int size = TypeSize.getSize(dataType);
+                boolean hasNull = column instanceof Object[];
+                for (int i = 0; i < rowCount; i++) {
+                    if (!hasNull || ((Object[]) column)[i] != null) {
+                        rowSizes[i] += size;
+                    }
+                }
+                return column;
+            }
+            case VarChar:
+            case String:
+            case Geometry:
+            case Timestamptz:
+            case Text:
+            case JSON: {
+                String[] values = (String[]) column;
+                Integer maxLength = (dataType == DataType.Text || dataType == DataType.JSON) ? null : field.getMaxLength();
+                for (int i = 0; i < rowCount; i++) {
+                    if (values[i] == null) {
+                        continue;
+                    }
+                    if (maxLength != null && values[i].length() > maxLength) {
+                        String msg = String.format("The no.%d value of field '%s' exceeds max length %d", i, fieldName, maxLength);
+                        ExceptionUtils.throwUnExpectedException(msg);
+                    }
+                    rowSizes[i] += values[i].length();
+                }
+                return column;
+            }
+            case FloatVector: {
+                float[][] vectors = (float[][]) column;
+                int dim = field.getDimension() == null ? 0 : field.getDimension();
+                for (int i = 0; i < rowCount; i++) {
+                    if (vectors[i] == null) {
+                        continue;
+                    }
+                    if (vectors[i].length != dim) {
+                        String msg = String.format("Incorrect dimension for field '%s': the no.%d vector's dimension: %d is not equal to field's dimension: %d",
+                                fieldName, i, vectors[i].length, dim);
+                        ExceptionUtils.throwUnExpectedException(msg);
+                    }
+                    rowSizes[i] += dim * 4;
+                }
+                return column;
+            }
+            case BinaryVector:
+            case Float16Vector:
+            case BFloat16Vector:
+            case Int8Vector: {
+                byte[][] vectors = (byte[][]) column;
+                int bytes = vectorBytes(field);
+                boolean toFloats = (dataType == DataType.Float16Vector || dataType == DataType.BFloat16Vector)
+                        && (this.fileType == BulkFileType.CSV || this.fileType == BulkFileType.JSON);
+                float[][] floatVectors = toFloats ? new float[rowCount][] : null;
+                for (int i = 0; i < rowCount; i++) {
+                    if (vectors[i] == null) {
+                        continue;
+                    }
+                    if (vectors[i].length != bytes) {
+                        String msg = String.format("Incorrect byte count for field '%s': the no.%d vector has %d bytes, expect %d bytes",
+                                fieldName, i, vectors[i].length, bytes);
+                        ExceptionUtils.throwUnExpectedException(msg);
+                    }
+                    if (toFloats) {
+                        // for JSON and CSV, float16/bfloat16 vector is parsed as float values in text
+                        floatVectors[i] = new float[bytes / 2];
+                        halfToFloats(dataType, ByteBuffer.wrap(vectors[i]), 0, floatVectors[i], 0, bytes / 2);
+                        rowSizes[i] += bytes * 2;
+                    } else if (dataType == DataType.Float16Vector || dataType == DataType.BFloat16Vector) {
+                        rowSizes[i] += bytes * 2;
+                    } else {
+                        rowSizes[i] += bytes;
+                    }
+                }
+                return toFloats ? floatVectors : column;
+            }
+            default:
+                String msg = String.format("Field '%s' of type %s is not supported by appendBatch, use appendRow", fieldName, dataType);
+                ExceptionUtils.throwUnExpectedException(msg);
+        }
+        return null;
+    }
+
+    private Object[] fillNullValues(CreateCollectionReq.FieldSchema field, Object[] values) {
+        Object defaultValue = field.getDefaultValue();
+        Object[] filled = values;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                continue;
+            }
+            if (defaultValue == null) {
+                if (!field.getIsNullable()) {
+                    String msg = String.format("The field '%s' is not nullable, not allow null value, the no.%d value is null",
+                            field.getName(), i);
+                    ExceptionUtils.throwUnExpectedException(msg);
+                }
+                continue;
+            }
+            // the caller's array is not modified
+            if (filled == values) {
+                filled = Arrays.copyOf(values, values.length);
+            }
+            filled[i] = convertDefaultValue(field, defaultValue);
+        }
+        return filled;
+    }
+
+    private static Object convertDefaultValue(CreateCollectionReq.FieldSchema field, Object defaultValue) {
+        switch (field.getDataType()) {
+            case Int8:
+            case Int16:
+                return ((Number) defaultValue).shortValue();
+            case Int32:
+                return ((Number) defaultValue).intValue();
+            case Int64:
+                return ((Number) defaultValue).longValue();
+            case Float:
+                return ((Number) defaultValue).floatValue();
+            case Double:
+                return ((Number) defaultValue).doubleValue();
+            case Bool:
+                return defaultValue;
+            default:
+                return String.valueOf(defaultValue);
+        }
+    }
+
+    private static Class<?> boxedType(CreateCollectionReq.FieldSchema field) {
+        List<Class<?>> columnTypes = columnTypes(field);
+        return columnTypes.get(columnTypes.size() - 1).getComponentType();
+    }
+
+    // the first type is the primitive array, the second type is the object array
+    private static List<Class<?>> columnTypes(CreateCollectionReq.FieldSchema field) {
+        switch (field.getDataType()) {
+            case Bool:
+                return Arrays.asList(boolean[].class, Boolean[].class);
+            case Int8:
+            case Int16:
+                return Arrays.asList(short[].class, Short[].class);
+            case Int32:
+                return Arrays.asList(int[].class, Integer[].class);
+            case Int64:
+                return Arrays.asList(long[].class, Long[].class);
+            case Float:
+                return Arrays.asList(float[].class, Float[].class);
+            case Double:
+                return Arrays.asList(double[].class, Double[].class);
+            case VarChar:
+            case String:
+            case Geometry:
+            case Timestamptz:
+            case Text:
+            case JSON:
+                return Arrays.asList(String[].class, String[].class);
+            case FloatVector:
+                return Collections.singletonList(float[][].class);
+            case BinaryVector:
+            case Float16Vector:
+            case BFloat16Vector:
+            case Int8Vector:
+                return Collections.singletonList(byte[][].class);
+            default:
+                String msg = String.format("Field '%s' of type %s is not supported by appendBatch, use appendRow",
+                        field.getName(), field.getDataType());
+                ExceptionUtils.throwUnExpectedException(msg);
+        }
+        return Collections.emptyList();
+    }
+
+    private static String columnTypesNames(List<Class<?>> columnTypes) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Class<?> type : columnTypes) {
+            names.add(type.getSimpleName());
+        }
+        return names.toString();
+    }
+
+    private static void checkColumnLength(String fieldName, Object column, int rowCount) {
+        int length = Array.getLength(column);
+        if (length != rowCount) {
+            String msg = String.format("Column of field '%s' has %d rows, expect %d rows", fieldName, length, rowCount);
+            ExceptionUtils.throwUnExpectedException(msg);
+        }
+    }
+
+    // a FloatBuffer or ByteBuffer column is kept packed, the writers read the vector of a row at its offset
+    private Object verifyPackedColumn(CreateCollectionReq.FieldSchema field, Buffer column, int rowCount, int[] rowSizes) {
+        DataType dataType = field.getDataType();
+        boolean isFloat = column instanceof FloatBuffer;
+        int bytes = vectorBytes(field);
+        if (isFloat ? dataType != DataType.FloatVector : bytes <= 0) {
+            String msg = String.format("Unsupported column type %s for field '%s' of type %s",
+                    isFloat ? "FloatBuffer" : "ByteBuffer", field.getName(), dataType);
+            ExceptionUtils.throwUnExpectedException(msg);
+        }
+
+        // the buffer length has been checked by verifyBatch()
+        ColumnBatch.PackedVectors vectors;
+        int rowSize;
+        if (isFloat) {
+            int dim = field.getDimension();
+            vectors = new ColumnBatch.PackedVectors((FloatBuffer) column, dim);
+            rowSize = dim * 4;
+        } else if (dataType == DataType.Float16Vector || dataType == DataType.BFloat16Vector) {
+            if (this.fileType == BulkFileType.CSV || this.fileType == BulkFileType.JSON) {
+                // for JSON and CSV, float16/bfloat16 vector is parsed as float values in text
+                float[] floats = new float[rowCount * bytes / 2];
+                halfToFloats(dataType, (ByteBuffer) column, ((ByteBuffer) column).position(), floats, 0, floats.length);
+                vectors = new ColumnBatch.PackedVectors(FloatBuffer.wrap(floats), bytes / 2);
+            } else {
+                vectors = new ColumnBatch.PackedVectors((ByteBuffer) column, bytes);
+            }
+            rowSize = bytes * 2;
+        } else {
+            vectors = new ColumnBatch.PackedVectors((ByteBuffer) column, bytes);
+            rowSize = bytes;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            rowSizes[i] += rowSize;
+        }
+        return vectors;
+    }
+
+    // converts little endian float16/bfloat16 values to float32 values, without boxing them
+    private static void halfToFloats(DataType dataType, ByteBuffer source, int sourceOffset,
+                                     float[] target, int targetOffset, int count) {
+        ByteBuffer halves = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            short half = halves.getShort(sourceOffset + i * 2);
+            target[targetOffset + i] = (dataType == DataType.Float16Vector) ?
+                    Float16Utils.fp16ToFloat(half) : Float16Utils.bf16ToFloat(half);
+        }
+    }
+
+    // the byte count of a vector of a BinaryVector, Float16Vector, BFloat16Vector or Int8Vector field
+    private static int vectorBytes(CreateCollectionReq.FieldSchema field) {
+        int dim = field.getDimension() == null ? 0 : field.getDimension();
+        switch (field.getDataType()) {
+            case BinaryVector:
+                return dim / 8;
+            case Float16Vector:
+            case BFloat16Vector:
+                return dim * 2;
+            case Int8Vector:
+                return dim;
+            default:
+                return 0;
+        }
     }
 
     private Pair<Object, Integer> verifyByDatatype(CreateCollectionReq.FieldSchema field, JsonElement obj) {
@@ -519,4 +1158,66 @@ public abstract class BulkWriter implements AutoCloseable {
         Optional<CreateCollectionReq.FieldSchema> primaryKeyField = fields.stream().filter(CreateCollectionReq.FieldSchema::getIsPrimaryKey).findFirst();
         return primaryKeyField.isPresent();
     }
+
+    /**
+     * A file being written by the writer, with the size and row count of the rows written into it.
+     * The shards are written under their own locks and roll their files independently.
+     */
+    protected static final class Shard {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private FormatFileWriter fileWriter;
+        // the bytes written into the current file, as told by its writer
+        private volatile long totalSize;
+        private volatile long totalRowCount;
+        // the sum of the estimated sizes of the rows in the current file
+        private long estimatedSize;
+        // written bytes per estimated byte, kept across the files of the shard, 0 until a row is written
+        private double sizeRatio;
+        private boolean firstWrite = true;
+
+        private Shard(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        private void written(int rowCount, long rowsEstimatedSize) {
+            totalRowCount += rowCount;
+            estimatedSize += rowsEstimatedSize;
+            totalSize = fileWriter.getWrittenSize();
+            if (estimatedSize > 0 && totalSize > 0) {
+                sizeRatio = (double) totalSize / estimatedSize;
+            }
+        }
+
+        public ReentrantLock getLock() {
+            return lock;
+        }
+
+        public FormatFileWriter getFileWriter() {
+            return fileWriter;
+        }
+
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+        public long getTotalRowCount() {
+            return totalRowCount;
+        }
+    }
+
+    private static final class ShardThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "bulk-writer-shard-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
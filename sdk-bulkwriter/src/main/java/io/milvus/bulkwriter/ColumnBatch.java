@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter;
+
+import io.milvus.exception.ParamException;
+import io.milvus.param.ParamUtils;
+
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A batch of rows given column by column, for {@link BulkWriter#appendBatch(ColumnBatch)}.
+ * <p>
+ * Each column is a Java array keyed by field name, the row i of the batch is the element i of every column:
+ * <ul>
+ *     <li>Bool: <code>boolean[]</code> or <code>Boolean[]</code></li>
+ *     <li>Int8, Int16: <code>short[]</code> or <code>Short[]</code></li>
+ *     <li>Int32: <code>int[]</code> or <code>Integer[]</code></li>
+ *     <li>Int64: <code>long[]</code> or <code>Long[]</code></li>
+ *     <li>Float: <code>float[]</code> or <code>Float[]</code></li>
+ *     <li>Double: <code>double[]</code> or <code>Double[]</code></li>
+ *     <li>VarChar, Text, Geometry, Timestamptz: <code>String[]</code></li>
+ *     <li>JSON and the dynamic field "$meta": <code>String[]</code> of JSON texts, written as is</li>
+ *     <li>FloatVector: <code>float[][]</code>, one array per row, or a <code>FloatBuffer</code> holding all the
+ *     vectors back to back, written from the buffer by offset</li>
+ *     <li>BinaryVector, Float16Vector, BFloat16Vector, Int8Vector: <code>byte[][]</code>, one array per row,
+ *     or a <code>ByteBuffer</code> holding all the vectors back to back, written from the buffer by offset</li>
+ * </ul>
+ * A null element is a null value, only the object arrays can hold one. A column that is not given is
+ * null for all rows. SparseFloatVector, Array and struct fields are not supported, use
+ * {@link BulkWriter#appendRow(com.google.gson.JsonObject)} for them.
+ * <p>
+ * The arrays and buffers are not copied, don't modify them before the batch is appended.
+ */
+public class ColumnBatch {
+    private final Map<String, Object> columns;
+    // -1 if the batch only has buffer columns, the row count then depends on the vector dimension
+    private final int rowCount;
+
+    ColumnBatch(Map<String, Object> columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return the columns keyed by field name, a null column is null for all rows
+     */
+    public Map<String, Object> getColumns() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    public Object getColumn(String fieldName) {
+        return columns.get(fieldName);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the value of a row of a column in the same Java type as the row-based API uses:
+     * boxed scalars, <code>List&lt;Float&gt;</code> for a float vector and <code>ByteBuffer</code>
+     * for a byte vector.
+     *
+     * @param column a column of the batch
+     * @param row    the row index
+     * @return the value, null for a null value
+     */
+    public static Object valueAt(Object column, int row) {
+        if (column == null) {
+            return null;
+        } else if (column instanceof long[]) {
+            return ((long[]) column)[row];
+        } else if (column instanceof int[]) {
+            return ((int[]) column)[row];
+        } else if (column instanceof short[]) {
+            return ((short[]) column)[row];
+        } else if (column instanceof boolean[]) {
+            return ((boolean[]) column)[row];
+        } else if (column instanceof float[]) {
+            return ((float[]) column)[row];
+        } else if (column instanceof double[]) {
+            return ((double[]) column)[row];
+        } else if (column instanceof float[][]) {
+            float[] vector = ((float[][]) column)[row];
+            if (vector == null) {
+                return null;
+            }
+            List<Float> values = new ArrayList<>(vector.length);
+            for (float value : vector) {
+                values.add(value);
+            }
+            return values;
+        } else if (column instanceof byte[][]) {
+            byte[] vector = ((byte[][]) column)[row];
+            return vector == null ? null : ByteBuffer.wrap(vector);
+        } else if (column instanceof PackedVectors) {
+            return ((PackedVectors) column).valueAt(row);
+        }
+        return ((Object[]) column)[row];
+    }
+
+    /**
+     * Copies some rows of the batch into a new batch, in the given order.
+     * The batch must have been verified, its buffer columns turned into {@link PackedVectors}.
+     */
+    ColumnBatch select(int[] rows) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : columns.entrySet()) {
+            selected.put(entry.getKey(), selectRows(entry.getValue(), rows));
+        }
+        return new ColumnBatch(selected, rows.length);
+    }
+
+    private static Object selectRows(Object column, int[] rows) {
+        if (column == null) {
+            return null;
+        }
+        if (column instanceof PackedVectors) {
+            return ((PackedVectors) column).select(rows);
+        }
+        Object selected = Array.newInstance(column.getClass().getComponentType(), rows.length);
+        if (column instanceof long[]) {
+            long[] source = (long[]) column, target = (long[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        } else if (column instanceof int[]) {
+            int[] source = (int[]) column, target = (int[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        } else if (column instanceof short[]) {
+            short[] source = (short[]) column, target = (short[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        } else if (column instanceof boolean[]) {
+            boolean[] source = (boolean[]) column, target = (boolean[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        } else if (column instanceof float[]) {
+            float[] source = (float[]) column, target = (float[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        } else if (column instanceof double[]) {
+            double[] source = (double[]) column, target = (double[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        } else {
+            Object[] source = (Object[]) column, target = (Object[]) selected;
+            for (int i = 0; i < rows.length; i++) {
+                target[i] = source[rows[i]];
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnBatch{" +
+                "columns=" + columns.keySet() +
+                ", rowCount=" + rowCount +
+                '}';
+    }
+
+    /**
+     * The vectors of a verified buffer column, back to back in a <code>FloatBuffer</code> or a <code>ByteBuffer</code>.
+     * The file writers read the vector of a row at its offset, the buffer is not split into an array per row.
+     */
+    public static final class PackedVectors {
+        private final Buffer vectors;
+        private final int width;
+
+        PackedVectors(FloatBuffer vectors, int width) {
+            this.vectors = vectors.slice();
+            this.width = width;
+        }
+
+        PackedVectors(ByteBuffer vectors, int width) {
+            this.vectors = vectors.slice();
+            this.width = width;
+        }
+
+        public boolean isFloat() {
+            return vectors instanceof FloatBuffer;
+        }
+
+        /**
+         * @return the float elements, read with absolute gets, the position is 0
+         */
+        public FloatBuffer getFloats() {
+            return (FloatBuffer) vectors;
+        }
+
+        /**
+         * @return the byte elements, read with absolute gets, the position is 0
+         */
+        public ByteBuffer getBytes() {
+            return (ByteBuffer) vectors;
+        }
+
+        /**
+         * @return the element count of a vector, floats or bytes
+         */
+        public int getWidth() {
+            return width;
+        }
+
+        /**
+         * @return the index of the first element of the vector of a row
+         */
+        public int offset(int row) {
+            return row * width;
+        }
+
+        private Object valueAt(int row) {
+            int offset = offset(row);
+            if (isFloat()) {
+                List<Float> values = new ArrayList<>(width);
+                for (int i = 0; i < width; i++) {
+                    values.add(getFloats().get(offset + i));
+                }
+                return values;
+            }
+            byte[] vector = new byte[width];
+            for (int i = 0; i < width; i++) {
+                vector[i] = getBytes().get(offset + i);
+            }
+            return ByteBuffer.wrap(vector);
+        }
+
+        private PackedVectors select(int[] rows) {
+            if (isFloat()) {
+                FloatBuffer source = getFloats().duplicate();
+                FloatBuffer target = FloatBuffer.allocate(rows.length * width);
+                for (int row : rows) {
+                    ((Buffer) source).limit(offset(row) + width).position(offset(row));
+                    target.put(source);
+                }
+                ((Buffer) target).flip();
+                return new PackedVectors(target, width);
+            }
+            ByteBuffer source = getBytes().duplicate();
+            ByteBuffer target = ByteBuffer.allocate(rows.length * width);
+            for (int row : rows) {
+                ((Buffer) source).limit(offset(row) + width).position(offset(row));
+                target.put(source);
+            }
+            ((Buffer) target).flip();
+            return new PackedVectors(target, width);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link ColumnBatch} class.
+     */
+    public static final class Builder {
+        private static final List<Class<?>> SUPPORTED_TYPES = Arrays.asList(
+                boolean[].class, short[].class, int[].class, long[].class, float[].class, double[].class,
+                Boolean[].class, Short[].class, Integer[].class, Long[].class, Float[].class, Double[].class,
+                String[].class, float[][].class, byte[][].class);
+
+        private final Map<String, Object> columns = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the values of a field, see {@link ColumnBatch} for the array type of each data type.
+         *
+         * @param fieldName field name
+         * @param values    a Java array, or a <code>FloatBuffer</code>/<code>ByteBuffer</code> for a vector field
+         * @return <code>Builder</code>
+         */
+        public Builder withColumn(String fieldName, Object values) {
+            this.columns.put(fieldName, values);
+            return this;
+        }
+
+        /**
+         * Sets the values of many fields.
+         *
+         * @param columns the columns keyed by field name
+         * @return <code>Builder</code>
+         */
+        public Builder withColumns(Map<String, Object> columns) {
+            this.columns.putAll(columns);
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link ColumnBatch} instance.
+         *
+         * @return {@link ColumnBatch}
+         */
+        public ColumnBatch build() throws ParamException {
+            if (columns.isEmpty()) {
+                throw new ParamException("Column batch has no column");
+            }
+
+            int rowCount = -1;
+            for (Map.Entry<String, Object> entry : columns.entrySet()) {
+                String fieldName = entry.getKey();
+                ParamUtils.CheckNullEmptyString(fieldName, "Field name");
+                Object values = entry.getValue();
+                if (values == null) {
+                    throw new ParamException(String.format("Column of field '%s' cannot be null", fieldName));
+                }
+                if (values instanceof ByteBuffer || values instanceof FloatBuffer) {
+                    continue;
+                }
+                if (!SUPPORTED_TYPES.contains(values.getClass())) {
+                    String msg = String.format("Unsupported column type %s of field '%s'",
+                            values.getClass().getSimpleName(), fieldName);
+                    throw new ParamException(msg);
+                }
+
+                int length = Array.getLength(values);
+                if (rowCount >= 0 && length != rowCount) {
+                    String msg = String.format("Column of field '%s' has %d rows, the other columns have %d rows",
+                            fieldName, length, rowCount);
+                    throw new ParamException(msg);
+                }
+                rowCount = length;
+            }
+            return new ColumnBatch(new LinkedHashMap<>(columns), rowCount);
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.google.common.collect.Lists;
 import com.google.gson.JsonObject;
 import io.milvus.bulkwriter.common.clientenum.BulkFileType;
 import io.milvus.bulkwriter.writer.FormatFileWriter;
+import io.milvus.common.utils.ExceptionUtils;
+import io.milvus.exception.MilvusException;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
@@ -32,24 +34,36 @@ import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class LocalBulkWriter extends BulkWriter {
     private static final Logger logger = LoggerFactory.getLogger(LocalBulkWriter.class);
 
-    private final Map<String, Thread> workingThread;
-    private final ReentrantLock workingThreadLock;
+    // the committed files are handed to callBack(fileList) on these threads
+    private final ExecutorService callBackExecutor;
+    // a permit per file being called back or waiting in the queue, a commit blocks only if the queue is full
+    private final Semaphore callBackPermits;
+    private final Set<CompletableFuture<Void>> pendingCallBacks;
+    private final AtomicReference<Throwable> callBackError;
     private final List<List<String>> localFiles;
 
     public LocalBulkWriter(LocalBulkWriterParam bulkWriterParam) throws IOException {
-        super(bulkWriterParam.getCollectionSchema(), bulkWriterParam.getChunkSize(), bulkWriterParam.getFileType(), bulkWriterParam.getLocalPath(), bulkWriterParam.getConfig());
-        this.workingThreadLock = new ReentrantLock();
-        this.workingThread = new HashMap<>();
-        this.localFiles = Lists.newArrayList();
+        this(bulkWriterParam.getCollectionSchema(), bulkWriterParam.getChunkSize(), bulkWriterParam.getFileType(),
+                bulkWriterParam.getLocalPath(), bulkWriterParam.getConfig(), bulkWriterParam.getShardCount());
     }
 
     protected LocalBulkWriter(CreateCollectionReq.CollectionSchema collectionSchema,
@@ -57,10 +71,39 @@ public class LocalBulkWriter extends BulkWriter {
                               BulkFileType fileType,
                               String localPath,
                               Map<String, Object> config) throws IOException {
-        super(collectionSchema, chunkSize, fileType, localPath, config);
-        this.workingThreadLock = new ReentrantLock();
-        this.workingThread = new HashMap<>();
-        this.localFiles = Lists.newArrayList();
+        this(collectionSchema, chunkSize, fileType, localPath, config, 1);
+    }
+
+    protected LocalBulkWriter(CreateCollectionReq.CollectionSchema collectionSchema,
+                              long chunkSize,
+                              BulkFileType fileType,
+                              String localPath,
+                              Map<String, Object> config,
+                              int shardCount) throws IOException {
+        this(collectionSchema, chunkSize, fileType, localPath, config, shardCount, 1, 0);
+    }
+
+    /**
+     * @param callBackThreads   number of files given to callBack(fileList) at the same time
+     * @param callBackQueueSize number of committed files waiting for a callBack thread before a commit blocks
+     */
+    protected LocalBulkWriter(CreateCollectionReq.CollectionSchema collectionSchema,
+                              long chunkSize,
+                              BulkFileType fileType,
+                              String localPath,
+                              Map<String, Object> config,
+                              int shardCount,
+                              int callBackThreads,
+                              int callBackQueueSize) throws IOException {
+        super(collectionSchema, chunkSize, fileType, localPath, config, shardCount);
+        if (callBackThreads <= 0 || callBackQueueSize < 0) {
+            ExceptionUtils.throwUnExpectedException("callBack threads must be greater than 0 and queue size can't be negative");
+        }
+        this.callBackExecutor = Executors.newFixedThreadPool(callBackThreads, new CallBackThreadFactory());
+        this.callBackPermits = new Semaphore(callBackThreads + callBackQueueSize);
+        this.pendingCallBacks = ConcurrentHashMap.newKeySet();
+        this.callBackError = new AtomicReference<>();
+        this.localFiles = Collections.synchronizedList(new ArrayList<>());
     }
 
     @Override
@@ -70,40 +113,57 @@ public class LocalBulkWriter extends BulkWriter {
 
     @Override
     protected void callBackIfCommitReady(List<String> filePaths) throws InterruptedException {
-//        only one thread can enter this section to persist data,
-//        in the _flush() method, the buffer will be swapped to a new one.
-//        in async mode, the flush thread is asynchronously, other threads can
-//        continue to append if the new buffer size is less than target size
-        workingThreadLock.lock();
-        callBack(true, filePaths);
-        workingThreadLock.unlock();
+        // the file is queued, the caller continues to append while it is called back
+        submitCallBack(filePaths);
     }
 
+    /**
+     * Commits the current file of every shard.
+     *
+     * @param async false to wait until all the committed files are called back, the first error of a callBack is thrown
+     */
     public void commit(boolean async) throws InterruptedException {
-        List<String> filePath = commitIfFileReady(false);
-        callBack(async, filePath);
+        for (Shard shard : getShards()) {
+            submitCallBack(commitShard(shard));
+        }
+
+        if (!async) {
+            waitCallBacks();
+            throwCallBackError();
+        }
+        logger.info("CallBack done with async={}", async);
+    }
+
+    private List<String> commitShard(Shard shard) {
+        shard.getLock().lock();
+        try {
+            return commitIfFileReady(shard, false);
+        } finally {
+            shard.getLock().unlock();
+        }
     }
 
-    protected List<String> commitIfFileReady(boolean createNewFile) {
-        if (super.getTotalRowCount() <= 0) {
+    @Override
+    protected List<String> commitIfFileReady(Shard shard, boolean createNewFile) {
+        if (shard.getTotalRowCount() <= 0) {
             String msg = "current_file_total_row_count less than 0, no need to generator a file";
             logger.info(msg);
             return null;
         }
 
-        String filePath = super.getFileWriter().getFilePath();
-        String msg = String.format("Prepare to commit file:%s, current_file_total_row_count: %s, current_file_total_size:%s, create_new_file:%s",
-                filePath, super.getTotalRowCount(), super.getTotalSize(), createNewFile);
+        String filePath = shard.getFileWriter().getFilePath();
+        String msg = String.format("Prepare to commit file:%s, shard:%s, current_file_total_row_count: %s, current_file_total_size:%s, create_new_file:%s",
+                filePath, shard.getIndex(), shard.getTotalRowCount(), shard.getTotalSize(), createNewFile);
         logger.info(msg);
 
-        List<String> fileList = Lists.newArrayList(filePath);
+        List<String> fileList = Lists.newArrayList(shard.getFileWriter().getFilePaths());
         try {
-            FormatFileWriter oldFileWriter = createNewFile ? this.newFileWriter() : super.getFileWriter();
+            FormatFileWriter oldFileWriter = createNewFile ? this.newFileWriter(shard) : shard.getFileWriter();
             oldFileWriter.close();
 
             localFiles.add(fileList);
             // reset the total size and count
-            super.commit();
+            super.commit(shard);
         } catch (IOException e) {
             // this function is running in a thread
             // TODO: interrupt main thread if failed to persist file
@@ -112,42 +172,62 @@ public class LocalBulkWriter extends BulkWriter {
         return fileList;
     }
 
-    private void callBack(boolean async, List<String> fileList) throws InterruptedException {
+    private CompletableFuture<Void> submitCallBack(List<String> fileList) throws InterruptedException {
         if (CollectionUtils.isEmpty(fileList)) {
-            return;
+            return null;
         }
 
-        // _async=True, the flush thread is asynchronously
-        while (!workingThread.isEmpty()) {
-            String msg = String.format("Previous callBack action is not finished, %s is waiting...", Thread.currentThread().getName());
+        if (!callBackPermits.tryAcquire()) {
+            String msg = String.format("CallBack queue is full, %s is waiting...", Thread.currentThread().getName());
             logger.info(msg);
-            TimeUnit.SECONDS.sleep(5);
+            callBackPermits.acquire();
         }
 
-        String msg = String.format("Prepare to callBack, async:%s, fileList:%s", async, fileList);
+        String msg = String.format("Prepare to callBack, fileList:%s", fileList);
         logger.info(msg);
 
-        Runnable runnable = () -> commitIfFileReady(fileList);
-        Thread thread = new Thread(runnable);
-        logger.info("CallBack thread begin, name: {}", thread.getName());
-        workingThread.put(thread.getName(), thread);
-        thread.start();
+        final CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(() -> {
+                try {
+                    callBack(fileList);
+                    logger.info("CallBack done, fileList:{}", fileList);
+                } catch (RuntimeException e) {
+                    callBackError.compareAndSet(null, e);
+                    logger.error("CallBack failed, fileList:{}, error: {}", fileList, e.getMessage());
+                    throw e;
+                } finally {
+                    callBackPermits.release();
+                }
+            }, callBackExecutor);
+        } catch (RejectedExecutionException e) {
+            callBackPermits.release();
+            throw e;
+        }
+        pendingCallBacks.add(future);
+        future.whenComplete((result, error) -> pendingCallBacks.remove(future));
+        return future;
+    }
 
-        if (!async) {
+    private void waitCallBacks() throws InterruptedException {
+        for (CompletableFuture<Void> future : new ArrayList<>(pendingCallBacks)) {
             logger.info("Wait callBack to finish");
-            thread.join();
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // recorded in callBackError
+            }
         }
-
-        logger.info("CallBack done with async={}", async);
     }
 
-    private void commitIfFileReady(List<String> fileList) {
-        if (CollectionUtils.isNotEmpty(fileList)) {
-            callBack(fileList);
+    // the error is thrown once, by commit(false) or close()
+    private void throwCallBackError() {
+        Throwable error = callBackError.getAndSet(null);
+        if (error instanceof MilvusException) {
+            throw (MilvusException) error;
+        } else if (error != null) {
+            ExceptionUtils.throwUnExpectedException("CallBack failed, error: " + error);
         }
-        workingThread.remove(Thread.currentThread().getName());
-        String msg = String.format("Flush thread done, name: %s", Thread.currentThread().getName());
-        logger.info(msg);
     }
 
     protected void callBack(List<String> fileList) {
@@ -163,25 +243,21 @@ public class LocalBulkWriter extends BulkWriter {
     }
 
     protected void exit() throws InterruptedException {
-        // if still has data in memory, default commit
-        workingThreadLock.lock();
-
-        List<String> filePath = commitIfFileReady(false);
-        callBack(true, filePath);
-        workingThreadLock.unlock();
-
-        // wait flush thread
-        if (!workingThread.isEmpty()) {
-            for (String key : workingThread.keySet()) {
-                logger.info("Wait flush thread '{}' to finish", key);
-                Thread thread = workingThread.get(key);
-                if (thread != null) {
-                    thread.join();
-                }
+        try {
+            // if still has data in memory, default commit
+            for (Shard shard : getShards()) {
+                submitCallBack(commitShard(shard));
             }
+
+            // wait the queued and running callBacks
+            waitCallBacks();
+        } finally {
+            callBackExecutor.shutdown();
+            shutdownShards();
+            rmDir();
         }
 
-        rmDir();
+        throwCallBackError();
     }
 
     private void rmDir() {
@@ -212,4 +288,15 @@ public class LocalBulkWriter extends BulkWriter {
         exit();
         logger.info(String.format("LocalBulkWriter done! output local files: %s", getBatchFiles()));
     }
+
+    private static final class CallBackThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "bulk-writer-callback-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
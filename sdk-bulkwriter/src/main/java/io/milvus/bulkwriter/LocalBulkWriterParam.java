@@ -20,11 +20,13 @@
 package io.milvus.bulkwriter;
 
 import io.milvus.bulkwriter.common.clientenum.BulkFileType;
+import io.milvus.bulkwriter.common.clientenum.ParquetCompression;
 import io.milvus.bulkwriter.common.utils.V2AdapterUtils;
 import io.milvus.exception.ParamException;
 import io.milvus.param.ParamUtils;
 import io.milvus.param.collection.CollectionSchemaParam;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -38,6 +40,7 @@ public class LocalBulkWriterParam {
     private final long chunkSize;
     private final BulkFileType fileType;
     private final Map<String, Object> config;
+    private final int shardCount;
 
     private LocalBulkWriterParam(Builder builder) {
         this.collectionSchema = builder.collectionSchema;
@@ -45,6 +48,7 @@ public class LocalBulkWriterParam {
         this.chunkSize = builder.chunkSize;
         this.fileType = builder.fileType;
         this.config = builder.config;
+        this.shardCount = builder.shardCount;
     }
 
     public CreateCollectionReq.CollectionSchema getCollectionSchema() {
@@ -67,6 +71,10 @@ public class LocalBulkWriterParam {
         return config;
     }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
     @Override
     public String toString() {
         return "LocalBulkWriterParam{" +
@@ -74,6 +82,7 @@ public class LocalBulkWriterParam {
                 ", localPath='" + localPath + '\'' +
                 ", chunkSize=" + chunkSize +
                 ", fileType=" + fileType +
+                ", shardCount=" + shardCount +
                 '}';
     }
 
@@ -90,6 +99,7 @@ public class LocalBulkWriterParam {
         private long chunkSize = 128 * 1024 * 1024;
         private BulkFileType fileType = BulkFileType.PARQUET;
         private final Map<String, Object> config = new HashMap<>();
+        private int shardCount = 1;
 
         private Builder() {
         }
@@ -142,6 +152,81 @@ public class LocalBulkWriterParam {
             return this;
         }
 
+        /**
+         * Sets the max number of rows in a file, no limit by default. A file is rolled when it reaches
+         * this number of rows or the chunk size, whichever comes first. Files of the same number of rows
+         * give import tasks of the same cost.
+         *
+         * @param rowsPerFile max number of rows in a file
+         * @return <code>Builder</code>
+         */
+        public Builder withRowsPerFile(long rowsPerFile) {
+            this.config.put(BulkWriter.ROWS_PER_FILE, rowsPerFile);
+            return this;
+        }
+
+        /**
+         * Sets the compression codec of the parquet files, UNCOMPRESSED by default.
+         * A compressed file takes less time to upload and less space in the object storage,
+         * SNAPPY and LZ4 are the cheapest to write, ZSTD gives the smallest files.
+         *
+         * @param compression compression codec
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetCompression(ParquetCompression compression) {
+            this.config.put(ParquetOutputFormat.COMPRESSION, compression);
+            return this;
+        }
+
+        /**
+         * Sets the row group size of the parquet files in bytes, 16 MB by default.
+         *
+         * @param rowGroupSize row group size in bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetRowGroupSize(long rowGroupSize) {
+            this.config.put(ParquetOutputFormat.BLOCK_SIZE, rowGroupSize);
+            return this;
+        }
+
+        /**
+         * Sets the page size of the parquet files in bytes, 2 MB by default.
+         *
+         * @param pageSize page size in bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetPageSize(int pageSize) {
+            this.config.put(ParquetOutputFormat.PAGE_SIZE, pageSize);
+            return this;
+        }
+
+        /**
+         * Enables or disables the dictionary encoding of the parquet files, enabled by default.
+         * Vector values rarely repeat, disabling the dictionary saves the time spent to build it.
+         *
+         * @param enabled true to use the dictionary encoding
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetDictionaryEnabled(boolean enabled) {
+            this.config.put(ParquetOutputFormat.ENABLE_DICTIONARY, enabled);
+            return this;
+        }
+
+        /**
+         * Sets the number of files written at the same time, 1 by default.
+         * Each shard has its own file and lock, the rows of many threads or a large
+         * {@link BulkWriter#appendBatch(ColumnBatch)} are written into the shards in parallel and
+         * each shard rolls its files at the chunk size. The rows are spread over the shards in turn,
+         * or by the hash of the partition key value if the collection has a partition key.
+         *
+         * @param shardCount number of shards
+         * @return <code>Builder</code>
+         */
+        public Builder withShardCount(int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link LocalBulkWriterParam} instance.
          *
@@ -154,6 +239,15 @@ public class LocalBulkWriterParam {
                 throw new ParamException("collectionParam cannot be null");
             }
 
+            if (shardCount <= 0) {
+                throw new ParamException("shardCount must be greater than 0");
+            }
+
+            Object rowsPerFile = config.get(BulkWriter.ROWS_PER_FILE);
+            if (rowsPerFile != null && ((Number) rowsPerFile).longValue() <= 0) {
+                throw new ParamException("rowsPerFile must be greater than 0");
+            }
+
             return new LocalBulkWriterParam(this);
         }
     }
@@ -21,7 +21,6 @@ package io.milvus.bulkwriter;
 
 import com.azure.storage.blob.models.BlobErrorCode;
 import com.azure.storage.blob.models.BlobStorageException;
-import com.google.common.collect.Lists;
 import com.google.gson.JsonObject;
 import io.milvus.bulkwriter.connect.AzureConnectParam;
 import io.milvus.bulkwriter.connect.S3ConnectParam;
@@ -41,6 +40,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -58,14 +58,17 @@ public class RemoteBulkWriter extends LocalBulkWriter {
                 bulkWriterParam.getChunkSize(),
                 bulkWriterParam.getFileType(),
                 generatorLocalPath(),
-                bulkWriterParam.getConfig());
+                bulkWriterParam.getConfig(),
+                bulkWriterParam.getShardCount(),
+                bulkWriterParam.getUploadThreads(),
+                bulkWriterParam.getUploadQueueSize());
         Path path = Paths.get(bulkWriterParam.getRemotePath());
         Path remoteDirPath = path.resolve(getUUID());
         this.remotePath = remoteDirPath.toString();
         this.connectParam = bulkWriterParam.getConnectParam();
         getStorageClient();
 
-        this.remoteFiles = Lists.newArrayList();
+        this.remoteFiles = Collections.synchronizedList(new ArrayList<>());
         logger.info("Remote buffer writer initialized, target path: {}", remotePath);
 
     }
@@ -85,6 +88,9 @@ public class RemoteBulkWriter extends LocalBulkWriter {
         return remotePath;
     }
 
+    /**
+     * @return the uploaded files, in the order their uploads completed
+     */
     @Override
     public List<List<String>> getBatchFiles() {
         return remoteFiles;
@@ -146,7 +152,8 @@ public class RemoteBulkWriter extends LocalBulkWriter {
             filePath.toFile().delete();
 
             Path parentDir = filePath.getParent();
-            if (parentDir != null && !parentDir.toString().equals(localPath)) {
+            // a NUMPY chunk is a directory of files, it is deleted with its last file
+            if (parentDir != null && !parentDir.toString().equals(localPath) && isEmptyDirectory(parentDir)) {
                 try {
                     Files.delete(parentDir);
                     logger.info("Delete empty directory: " + parentDir);
@@ -20,12 +20,14 @@
 package io.milvus.bulkwriter;
 
 import io.milvus.bulkwriter.common.clientenum.BulkFileType;
+import io.milvus.bulkwriter.common.clientenum.ParquetCompression;
 import io.milvus.bulkwriter.common.utils.V2AdapterUtils;
 import io.milvus.bulkwriter.connect.StorageConnectParam;
 import io.milvus.exception.ParamException;
 import io.milvus.param.ParamUtils;
 import io.milvus.param.collection.CollectionSchemaParam;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -40,6 +42,9 @@ public class RemoteBulkWriterParam {
     private final long chunkSize;
     private final BulkFileType fileType;
     private final Map<String, Object> config;
+    private final int shardCount;
+    private final int uploadThreads;
+    private final int uploadQueueSize;
 
     private RemoteBulkWriterParam(Builder builder) {
         this.collectionSchema = builder.collectionSchema;
@@ -48,6 +53,9 @@ public class RemoteBulkWriterParam {
         this.chunkSize = builder.chunkSize;
         this.fileType = builder.fileType;
         this.config = builder.config;
+        this.shardCount = builder.shardCount;
+        this.uploadThreads = builder.uploadThreads;
+        this.uploadQueueSize = builder.uploadQueueSize;
     }
 
     public CreateCollectionReq.CollectionSchema getCollectionSchema() {
@@ -74,6 +82,18 @@ public class RemoteBulkWriterParam {
         return config;
     }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int getUploadThreads() {
+        return uploadThreads;
+    }
+
+    public int getUploadQueueSize() {
+        return uploadQueueSize;
+    }
+
     @Override
     public String toString() {
         return "RemoteBulkWriterParam{" +
@@ -81,6 +101,9 @@ public class RemoteBulkWriterParam {
                 ", remotePath='" + remotePath + '\'' +
                 ", chunkSize=" + chunkSize +
                 ", fileType=" + fileType +
+                ", shardCount=" + shardCount +
+                ", uploadThreads=" + uploadThreads +
+                ", uploadQueueSize=" + uploadQueueSize +
                 '}';
     }
 
@@ -98,6 +121,9 @@ public class RemoteBulkWriterParam {
         private long chunkSize = 128 * 1024 * 1024;
         private BulkFileType fileType = BulkFileType.PARQUET;
         private final Map<String, Object> config = new HashMap<>();
+        private int shardCount = 1;
+        private int uploadThreads = 4;
+        private int uploadQueueSize = 8;
 
         private Builder() {
         }
@@ -155,6 +181,106 @@ public class RemoteBulkWriterParam {
             return this;
         }
 
+        /**
+         * Sets the max number of rows in a file, no limit by default. A file is rolled when it reaches
+         * this number of rows or the chunk size, whichever comes first. Files of the same number of rows
+         * give import tasks of the same cost.
+         *
+         * @param rowsPerFile max number of rows in a file
+         * @return <code>Builder</code>
+         */
+        public Builder withRowsPerFile(long rowsPerFile) {
+            this.config.put(BulkWriter.ROWS_PER_FILE, rowsPerFile);
+            return this;
+        }
+
+        /**
+         * Sets the compression codec of the parquet files, UNCOMPRESSED by default.
+         * A compressed file takes less time to upload and less space in the object storage,
+         * SNAPPY and LZ4 are the cheapest to write, ZSTD gives the smallest files.
+         *
+         * @param compression compression codec
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetCompression(ParquetCompression compression) {
+            this.config.put(ParquetOutputFormat.COMPRESSION, compression);
+            return this;
+        }
+
+        /**
+         * Sets the row group size of the parquet files in bytes, 16 MB by default.
+         *
+         * @param rowGroupSize row group size in bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetRowGroupSize(long rowGroupSize) {
+            this.config.put(ParquetOutputFormat.BLOCK_SIZE, rowGroupSize);
+            return this;
+        }
+
+        /**
+         * Sets the page size of the parquet files in bytes, 2 MB by default.
+         *
+         * @param pageSize page size in bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetPageSize(int pageSize) {
+            this.config.put(ParquetOutputFormat.PAGE_SIZE, pageSize);
+            return this;
+        }
+
+        /**
+         * Enables or disables the dictionary encoding of the parquet files, enabled by default.
+         * Vector values rarely repeat, disabling the dictionary saves the time spent to build it.
+         *
+         * @param enabled true to use the dictionary encoding
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetDictionaryEnabled(boolean enabled) {
+            this.config.put(ParquetOutputFormat.ENABLE_DICTIONARY, enabled);
+            return this;
+        }
+
+        /**
+         * Sets the number of files written at the same time, 1 by default.
+         * Each shard has its own file and lock, the rows of many threads or a large
+         * {@link BulkWriter#appendBatch(ColumnBatch)} are written into the shards in parallel and
+         * each shard rolls its files at the chunk size. The rows are spread over the shards in turn,
+         * or by the hash of the partition key value if the collection has a partition key.
+         *
+         * @param shardCount number of shards
+         * @return <code>Builder</code>
+         */
+        public Builder withShardCount(int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        /**
+         * Sets the number of files uploaded at the same time, 4 by default.
+         * The committed files are uploaded in the background while the writer continues to write the next ones.
+         *
+         * @param uploadThreads number of upload threads
+         * @return <code>Builder</code>
+         */
+        public Builder withUploadThreads(int uploadThreads) {
+            this.uploadThreads = uploadThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of committed files allowed to wait for an upload thread, 8 by default.
+         * When the queue is full, a commit waits until a file is uploaded, this bounds the local disk
+         * space used by the files not uploaded yet.
+         *
+         * @param uploadQueueSize number of files waiting for an upload thread
+         * @return <code>Builder</code>
+         */
+        public Builder withUploadQueueSize(int uploadQueueSize) {
+            this.uploadQueueSize = uploadQueueSize;
+            return this;
+        }
+
         /**
          * Verifies parameters and creates a new {@link RemoteBulkWriterParam} instance.
          *
@@ -171,6 +297,23 @@ public class RemoteBulkWriterParam {
                 throw new ParamException("connectParam cannot be null");
             }
 
+            if (shardCount <= 0) {
+                throw new ParamException("shardCount must be greater than 0");
+            }
+
+            if (uploadThreads <= 0) {
+                throw new ParamException("uploadThreads must be greater than 0");
+            }
+
+            if (uploadQueueSize < 0) {
+                throw new ParamException("uploadQueueSize cannot be negative");
+            }
+
+            Object rowsPerFile = config.get(BulkWriter.ROWS_PER_FILE);
+            if (rowsPerFile != null && ((Number) rowsPerFile).longValue() <= 0) {
+                throw new ParamException("rowsPerFile must be greater than 0");
+            }
+
             return new RemoteBulkWriterParam(this);
         }
     }
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import io.milvus.bulkwriter.storage.MultipartUploadState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The state of the uploads of a {@link VolumeFileManager} kept in a local JSON file, so that a run with the
+ * same manifest continues where a failed run stopped.
+ * <p>
+ * A file is recorded with its remote path, size and modification time, the state of its multipart upload while
+ * it is uploaded, and its SHA-256 content hash once uploaded if the deduplication is on. The hashes are also
+ * indexed by remote path, so that with the deduplication a file at another local path, for example after the
+ * source directory was moved, is skipped if the same content was uploaded to its remote path.
+ * <p>
+ * The changes are coalesced: the manifest is rewritten at most once per save interval by the thread making a
+ * change, and by {@link #flush()} at the end of the upload, through a temporary file moved over the previous
+ * one. A failed run may upload again the parts and files of its last interval.
+ */
+class UploadManifest {
+    private static final Logger logger = LoggerFactory.getLogger(UploadManifest.class);
+    private static final Gson GSON = new Gson();
+    static final long DEFAULT_SAVE_INTERVAL_MILLIS = 1000L;
+
+    private final Path path;
+    // keyed by the absolute path of the local file
+    private final Map<String, FileEntry> files;
+    // the content hash of the uploaded files keyed by remote path, rebuilt from the files when loaded
+    private final Map<String, String> uploadedHashes = new ConcurrentHashMap<>();
+    private final long saveIntervalMillis;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile long lastSaveMillis = 0L;
+
+    private UploadManifest(Path path, Map<String, FileEntry> files, long saveIntervalMillis) {
+        this.path = path;
+        this.files = files;
+        this.saveIntervalMillis = saveIntervalMillis;
+        for (FileEntry entry : files.values()) {
+            if (entry.uploaded && entry.sha256 != null) {
+                // two files uploaded to the same remote path, the last one is unknown so none is trusted
+                uploadedHashes.merge(entry.remotePath, entry.sha256, (a, b) -> a.equals(b) ? a : "");
+            }
+        }
+    }
+
+    /**
+     * Reads the manifest file, a manifest that doesn't exist yet is empty.
+     */
+    static UploadManifest load(String manifestFilePath) {
+        return load(manifestFilePath, DEFAULT_SAVE_INTERVAL_MILLIS);
+    }
+
+    static UploadManifest load(String manifestFilePath, long saveIntervalMillis) {
+        Path path = Paths.get(manifestFilePath).toAbsolutePath();
+        Map<String, FileEntry> files = new ConcurrentHashMap<>();
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                Map<String, FileEntry> loaded = GSON.fromJson(reader, new TypeToken<Map<String, FileEntry>>() {
+                }.getType());
+                if (loaded != null) {
+                    files.putAll(loaded);
+                }
+            } catch (IOException | JsonParseException e) {
+                throw new IllegalArgumentException("Failed to read upload manifest " + path, e);
+            }
+        }
+        UploadManifest manifest = new UploadManifest(path, files, saveIntervalMillis);
+        files.values().forEach(entry -> entry.uploadState.setListener(manifest::changed));
+        return manifest;
+    }
+
+    boolean isManifestFile(String filePath) {
+        Path filePathAbs = Paths.get(filePath).toAbsolutePath();
+        return filePathAbs.equals(path) || filePathAbs.equals(tempPath());
+    }
+
+    /**
+     * A file is uploaded if it was uploaded to the same remote path and hasn't changed since: same size and
+     * modification time, or with the deduplication, the same content hash as the last file uploaded to the
+     * remote path, whatever its local path.
+     */
+    boolean isUploaded(File file, String remotePath, boolean deduplicate) throws IOException {
+        String localPath = file.getAbsolutePath();
+        FileEntry entry = files.get(localPath);
+        if (entry != null && entry.uploaded && remotePath.equals(entry.remotePath) && entry.size == file.length()
+                && entry.lastModified == file.lastModified()) {
+            return true;
+        }
+        String uploadedHash = uploadedHashes.get(remotePath);
+        if (!deduplicate || uploadedHash == null) {
+            return false;
+        }
+        String hash = sha256(file);
+        if (!hash.equals(uploadedHash)) {
+            return false;
+        }
+        // recorded under this local path too, the next run skips it without hashing it
+        FileEntry same = new FileEntry(remotePath, file.length(), file.lastModified());
+        same.sha256 = hash;
+        same.uploaded = true;
+        files.put(localPath, same);
+        changed();
+        return true;
+    }
+
+    /**
+     * Returns the state to upload a file with, the one of the previous run if the file hasn't changed.
+     */
+    MultipartUploadState startFile(File file, String remotePath) {
+        FileEntry entry = files.compute(file.getAbsolutePath(), (key, previous) -> {
+            if (previous != null && !previous.uploaded && remotePath.equals(previous.remotePath)
+                    && previous.size == file.length() && previous.lastModified == file.lastModified()) {
+                return previous;
+            }
+            return new FileEntry(remotePath, file.length(), file.lastModified());
+        });
+        entry.uploadState.setListener(this::changed);
+        changed();
+        return entry.uploadState;
+    }
+
+    void finishFile(File file, boolean deduplicate) throws IOException {
+        FileEntry entry = files.get(file.getAbsolutePath());
+        entry.sha256 = deduplicate ? sha256(file) : null;
+        entry.uploaded = true;
+        if (entry.sha256 != null) {
+            uploadedHashes.put(entry.remotePath, entry.sha256);
+        } else {
+            uploadedHashes.remove(entry.remotePath);
+        }
+        changed();
+    }
+
+    // called after each change, the manifest is saved if the last save is older than the interval
+    private void changed() {
+        dirty.set(true);
+        if (System.currentTimeMillis() - lastSaveMillis >= saveIntervalMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Saves the manifest if it has changes not saved yet.
+     */
+    void flush() {
+        // a change made while saving sets the flag again, it is saved by the next flush
+        if (dirty.getAndSet(false)) {
+            save();
+        }
+    }
+
+    private synchronized void save() {
+        lastSaveMillis = System.currentTimeMillis();
+        Path tempPath = tempPath();
+        try {
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                GSON.toJson(files, writer);
+            }
+            try {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // the upload goes on, a later run uploads again what the manifest misses
+            logger.warn("Failed to save upload manifest {}", path, e);
+        }
+    }
+
+    private Path tempPath() {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    private static String sha256(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[1024 * 1024];
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            int count;
+            while ((count = inputStream.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static class FileEntry {
+        private String remotePath;
+        private long size;
+        private long lastModified;
+        private volatile boolean uploaded;
+        private volatile String sha256;
+        private MultipartUploadState uploadState = new MultipartUploadState();
+
+        private FileEntry() {
+        }
+
+        private FileEntry(String remotePath, long size, long lastModified) {
+            this.remotePath = remotePath;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter;
+
+import io.milvus.common.utils.VectorFileSource;
+import io.milvus.exception.ParamException;
+import io.milvus.param.ParamUtils;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appends the vectors of a {@link VectorFileSource} to a {@link BulkWriter} through
+ * {@link BulkWriter#appendBatch(ColumnBatch)}, one column batch per batch of rows of the file.
+ * <p>
+ * The vectors of a batch are copied once from the mapped file, row by row, into the per-row arrays the
+ * writers take: <code>float[][]</code> for a float32 file, <code>byte[][]</code> of the raw bytes for a
+ * uint8/int8/float16 file. The next batches are read ahead while a batch is written. The other fields of the rows, e.g. the primary key if it is not auto-id,
+ * are given by the <code>columnsSupplier</code> for each batch.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * try (VectorFileSource source = VectorFileSource.open(Paths.get("/data/sift_base.fvecs"))) {
+ *     VectorFileAppender.newBuilder()
+ *             .withVectorFieldName("vector")
+ *             .withColumnsSupplier((firstRow, rowCount) -> Collections.singletonMap("id",
+ *                     LongStream.range(firstRow, firstRow + rowCount).toArray()))
+ *             .build()
+ *             .appendTo(bulkWriter, source);
+ * }
+ * }</pre>
+ */
+public class VectorFileAppender {
+    private final String vectorFieldName;
+    private final int batchSize;
+    private final int readAhead;
+    private final ColumnsSupplier columnsSupplier;
+
+    private VectorFileAppender(Builder builder) {
+        this.vectorFieldName = builder.vectorFieldName;
+        this.batchSize = builder.batchSize;
+        this.readAhead = builder.readAhead;
+        this.columnsSupplier = builder.columnsSupplier;
+    }
+
+    public String getVectorFieldName() {
+        return vectorFieldName;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getReadAhead() {
+        return readAhead;
+    }
+
+    /**
+     * Appends all the vectors of the file.
+     *
+     * @param writer the bulk writer
+     * @param source the vector file
+     * @return the number of appended rows
+     */
+    public long appendTo(BulkWriter writer, VectorFileSource source) throws IOException, InterruptedException {
+        long rowCount = 0L;
+        try (VectorFileSource.BatchIterator batches = source.batches(batchSize, readAhead)) {
+            while (batches.hasNext()) {
+                VectorFileSource.Batch batch = batches.next();
+                writer.appendBatch(toColumnBatch(batch));
+                rowCount += batch.getRowCount();
+            }
+        }
+        return rowCount;
+    }
+
+    ColumnBatch toColumnBatch(VectorFileSource.Batch batch) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        if (columnsSupplier != null) {
+            columns.putAll(columnsSupplier.columns(batch.getFirstRow(), batch.getRowCount()));
+        }
+        // copied from the per-row views, the packed buffer of a .fvecs/.bvecs batch would be a second copy
+        int rowCount = batch.getRowCount();
+        if (batch.getElementType() == VectorFileSource.ElementType.FLOAT32) {
+            float[][] vectors = new float[rowCount][batch.getDimension()];
+            for (int i = 0; i < rowCount; i++) {
+                batch.getFloatVector(i).get(vectors[i]);
+            }
+            columns.put(vectorFieldName, vectors);
+        } else {
+            byte[][] vectors = new byte[rowCount][batch.getDimension() * batch.getElementType().getBytes()];
+            for (int i = 0; i < rowCount; i++) {
+                batch.getVector(i).get(vectors[i]);
+            }
+            columns.put(vectorFieldName, vectors);
+        }
+        return ColumnBatch.newBuilder().withColumns(columns).build();
+    }
+
+    @Override
+    public String toString() {
+        return "VectorFileAppender{" +
+                "vectorFieldName='" + vectorFieldName + '\'' +
+                ", batchSize=" + batchSize +
+                ", readAhead=" + readAhead +
+                '}';
+    }
+
+    /**
+     * Gives the columns of the fields other than the vector field for a batch of rows of the file,
+     * see {@link ColumnBatch} for the array type of each field.
+     */
+    @FunctionalInterface
+    public interface ColumnsSupplier {
+        /**
+         * @param firstRow the index of the first row of the batch in the file
+         * @param rowCount the number of rows of the batch, the length of each column
+         * @return the columns keyed by field name
+         */
+        Map<String, Object> columns(long firstRow, int rowCount);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for {@link VectorFileAppender} class.
+     */
+    public static final class Builder {
+        private String vectorFieldName;
+        private int batchSize = 10000;
+        private int readAhead = 2;
+        private ColumnsSupplier columnsSupplier;
+
+        private Builder() {
+        }
+
+        public Builder withVectorFieldName(String vectorFieldName) {
+            this.vectorFieldName = vectorFieldName;
+            return this;
+        }
+
+        /**
+         * Sets the number of rows of a column batch, 10000 by default.
+         *
+         * @param batchSize the number of rows
+         * @return <code>Builder</code>
+         */
+        public Builder withBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the max number of batches read from the file ahead of the writer, 2 by default, 0 to disable.
+         *
+         * @param readAhead the number of batches
+         * @return <code>Builder</code>
+         */
+        public Builder withReadAhead(int readAhead) {
+            this.readAhead = readAhead;
+            return this;
+        }
+
+        public Builder withColumnsSupplier(ColumnsSupplier columnsSupplier) {
+            this.columnsSupplier = columnsSupplier;
+            return this;
+        }
+
+        /**
+         * Verifies parameters and creates a new {@link VectorFileAppender} instance.
+         *
+         * @return {@link VectorFileAppender}
+         */
+        public VectorFileAppender build() throws ParamException {
+            ParamUtils.CheckNullEmptyString(vectorFieldName, "Vector field name");
+            if (batchSize <= 0) {
+                throw new ParamException("Batch size must be positive");
+            }
+            return new VectorFileAppender(this);
+        }
+    }
+}
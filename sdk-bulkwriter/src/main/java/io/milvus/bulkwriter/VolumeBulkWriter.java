@@ -128,7 +128,8 @@ public class VolumeBulkWriter extends LocalBulkWriter {
             filePath.toFile().delete();
 
             Path parentDir = filePath.getParent();
-            if (parentDir != null && !parentDir.toString().equals(localPath)) {
+            // a NUMPY chunk is a directory of files, it is deleted with its last file
+            if (parentDir != null && !parentDir.toString().equals(localPath) && isEmptyDirectory(parentDir)) {
                 try {
                     Files.delete(parentDir);
                     logger.info("Delete empty directory: " + parentDir);
@@ -21,11 +21,13 @@ package io.milvus.bulkwriter;
 
 import io.milvus.bulkwriter.common.clientenum.BulkFileType;
 import io.milvus.bulkwriter.common.clientenum.ConnectType;
+import io.milvus.bulkwriter.common.clientenum.ParquetCompression;
 import io.milvus.bulkwriter.common.utils.V2AdapterUtils;
 import io.milvus.exception.ParamException;
 import io.milvus.param.ParamUtils;
 import io.milvus.param.collection.CollectionSchemaParam;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -179,6 +181,66 @@ public class VolumeBulkWriterParam {
             return this;
         }
 
+        /**
+         * Sets the max number of rows in a file, no limit by default. A file is rolled when it reaches
+         * this number of rows or the chunk size, whichever comes first. Files of the same number of rows
+         * give import tasks of the same cost.
+         *
+         * @param rowsPerFile max number of rows in a file
+         * @return <code>Builder</code>
+         */
+        public Builder withRowsPerFile(long rowsPerFile) {
+            this.config.put(BulkWriter.ROWS_PER_FILE, rowsPerFile);
+            return this;
+        }
+
+        /**
+         * Sets the compression codec of the parquet files, UNCOMPRESSED by default.
+         * A compressed file takes less time to upload and less space in the object storage,
+         * SNAPPY and LZ4 are the cheapest to write, ZSTD gives the smallest files.
+         *
+         * @param compression compression codec
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetCompression(ParquetCompression compression) {
+            this.config.put(ParquetOutputFormat.COMPRESSION, compression);
+            return this;
+        }
+
+        /**
+         * Sets the row group size of the parquet files in bytes, 16 MB by default.
+         *
+         * @param rowGroupSize row group size in bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetRowGroupSize(long rowGroupSize) {
+            this.config.put(ParquetOutputFormat.BLOCK_SIZE, rowGroupSize);
+            return this;
+        }
+
+        /**
+         * Sets the page size of the parquet files in bytes, 2 MB by default.
+         *
+         * @param pageSize page size in bytes
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetPageSize(int pageSize) {
+            this.config.put(ParquetOutputFormat.PAGE_SIZE, pageSize);
+            return this;
+        }
+
+        /**
+         * Enables or disables the dictionary encoding of the parquet files, enabled by default.
+         * Vector values rarely repeat, disabling the dictionary saves the time spent to build it.
+         *
+         * @param enabled true to use the dictionary encoding
+         * @return <code>Builder</code>
+         */
+        public Builder withParquetDictionaryEnabled(boolean enabled) {
+            this.config.put(ParquetOutputFormat.ENABLE_DICTIONARY, enabled);
+            return this;
+        }
+
         public Builder withCloudEndpoint(String cloudEndpoint) {
             this.cloudEndpoint = cloudEndpoint;
             return this;
@@ -214,6 +276,11 @@ public class VolumeBulkWriterParam {
             ParamUtils.CheckNullEmptyString(apiKey, "apiKey");
             ParamUtils.CheckNullEmptyString(volumeName, "volumeName");
 
+            Object rowsPerFile = config.get(BulkWriter.ROWS_PER_FILE);
+            if (rowsPerFile != null && ((Number) rowsPerFile).longValue() <= 0) {
+                throw new ParamException("rowsPerFile must be greater than 0");
+            }
+
             return new VolumeBulkWriterParam(this);
         }
     }
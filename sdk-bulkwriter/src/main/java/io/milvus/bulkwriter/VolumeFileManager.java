@@ -29,6 +29,7 @@ import io.milvus.bulkwriter.request.volume.UploadFilesRequest;
 import io.milvus.bulkwriter.resolver.EndpointResolver;
 import io.milvus.bulkwriter.response.ApplyVolumeResponse;
 import io.milvus.bulkwriter.restful.DataVolumeUtils;
+import io.milvus.bulkwriter.storage.MultipartUploadState;
 import io.milvus.bulkwriter.storage.StorageClient;
 import io.milvus.bulkwriter.storage.client.MinioStorageClient;
 import io.milvus.exception.ParamException;
@@ -43,13 +44,13 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class VolumeFileManager {
@@ -81,18 +82,26 @@ public class VolumeFileManager {
     public CompletableFuture<UploadFilesResult> uploadFilesAsync(UploadFilesRequest request) {
         String localDirOrFilePath = request.getSourceFilePath();
         Pair<List<String>, Long> localPathPair = FileUtils.processLocalPath(localDirOrFilePath);
+        UploadManifest manifest = null;
+        if (StringUtils.isNotEmpty(request.getManifestFilePath())) {
+            manifest = UploadManifest.load(request.getManifestFilePath());
+            localPathPair = excludeManifestFiles(localPathPair, manifest);
+        }
+        boolean deduplicateByContent = manifest != null && request.isDeduplicateByContent();
         String volumePath = convertDirPath(request.getTargetVolumePath());
         int uploadConcurrency = Math.max(1, request.getUploadConcurrency());
         int maxRetries = Math.max(0, request.getMaxRetries());
         long retryIntervalMillis = Math.max(0L, request.getRetryIntervalMillis());
         long partSizeBytes = Math.max(0L, request.getPartSizeBytes());
+        int partConcurrency = Math.max(1, request.getPartConcurrency());
         long totalBytes = localPathPair.getValue();
         long totalFilesCount = localPathPair.getKey().size();
         long startTime = System.currentTimeMillis();
-        logger.info("Starting volume upload: sourcePath:{}, volumeName:{}, volumePath:{}, totalFileCount:{}, totalFileSize:{} bytes ({}), uploadConcurrency:{}, maxRetries:{}, retryInterval:{}, partSize:{}, startTime:{}",
+        logger.info("Starting volume upload: sourcePath:{}, volumeName:{}, volumePath:{}, totalFileCount:{}, totalFileSize:{} bytes ({}), uploadConcurrency:{}, maxRetries:{}, retryInterval:{}, partSize:{}, partConcurrency:{}, manifest:{}, deduplicateByContent:{}, startTime:{}",
                 localDirOrFilePath, volumeName, volumePath, totalFilesCount, totalBytes, formatBytes(totalBytes),
                 uploadConcurrency, maxRetries, formatDurationMillis(retryIntervalMillis),
-                formatPartSize(partSizeBytes), Instant.ofEpochMilli(startTime));
+                formatPartSize(partSizeBytes), partConcurrency, request.getManifestFilePath(), deduplicateByContent,
+                Instant.ofEpochMilli(startTime));
 
         VolumeSession initialSession;
         try {
@@ -111,15 +120,17 @@ public class VolumeFileManager {
         UploadContext uploadContext = new UploadContext(initialSession);
         ExecutorService uploadExecutor = Executors.newFixedThreadPool(uploadConcurrency);
         UploadProgressTracker progressTracker = new UploadProgressTracker(totalBytes, totalFilesCount, request.getProgressListener());
+        UploadManifest uploadManifest = manifest;
+        Pair<List<String>, Long> uploadPathPair = localPathPair;
 
-        return CompletableFuture.allOf(localPathPair.getKey().stream()
+        return CompletableFuture.allOf(uploadPathPair.getKey().stream()
                         .map(localFilePath -> CompletableFuture.runAsync(() -> {
                             File file = new File(localFilePath);
                             String progressFilePath = file.getAbsolutePath();
                             long fileStartTime = System.currentTimeMillis();
 
                             try {
-                                uploadLocalFileToVolume(localFilePath, localDirOrFilePath, volumePath, maxRetries, retryIntervalMillis, progressTracker, uploadContext, partSizeBytes);
+                                uploadLocalFileToVolume(localFilePath, localDirOrFilePath, volumePath, maxRetries, retryIntervalMillis, progressTracker, uploadContext, partSizeBytes, partConcurrency, uploadManifest, deduplicateByContent);
                                 UploadProgressSnapshot progress = progressTracker.finishFile(progressFilePath, file.length());
                                 long elapsed = System.currentTimeMillis() - fileStartTime;
                                 logger.info("Uploaded file {}/{}: {} ({} bytes) elapsed:{} ms, progress(total bytes): {}/{} bytes, progress(total percentage):{}%, speedBPS:{}, estimatedRemainingTime:{}",
@@ -134,6 +145,9 @@ public class VolumeFileManager {
                 .whenComplete((v, t) -> {
                     uploadExecutor.shutdown();
                     uploadContext.closeSessions();
+                    if (uploadManifest != null) {
+                        uploadManifest.flush();
+                    }
                     if (t != null) {
                         logUploadFailed(localDirOrFilePath, volumePath, startTime);
                     }
@@ -145,7 +159,7 @@ public class VolumeFileManager {
                     VolumeSession session = uploadContext.currentSession();
                     logger.info("Volume upload completed: sourcePath:{}, volumeName:{}, volumePath:{}, totalFileCount:{}, totalFileSize:{} bytes ({}), endTime:{}, totalElapsed:{}",
                             localDirOrFilePath, session.applyVolumeResponse.getVolumeName(), volumePath,
-                            localPathPair.getKey().size(), localPathPair.getValue(), formatBytes(localPathPair.getValue()),
+                            uploadPathPair.getKey().size(), uploadPathPair.getValue(), formatBytes(uploadPathPair.getValue()),
                             Instant.ofEpochMilli(endTime), formatDurationMillis(totalElapsed));
                     return UploadFilesResult.builder()
                             .volumeName(session.applyVolumeResponse.getVolumeName())
@@ -174,6 +188,20 @@ public class VolumeFileManager {
                 Instant.ofEpochMilli(endTime), formatDurationMillis(endTime - startTime));
     }
 
+    // the manifest may be kept in the uploaded directory, it is not uploaded
+    private static Pair<List<String>, Long> excludeManifestFiles(Pair<List<String>, Long> localPathPair,
+                                                                 UploadManifest manifest) {
+        List<String> files = new ArrayList<>();
+        long totalBytes = 0L;
+        for (String localFilePath : localPathPair.getKey()) {
+            if (!manifest.isManifestFile(localFilePath)) {
+                files.add(localFilePath);
+                totalBytes += new File(localFilePath).length();
+            }
+        }
+        return Pair.of(files, totalBytes);
+    }
+
     private static String formatPartSize(long partSizeBytes) {
         if (partSizeBytes <= 0L) {
             return "auto";
@@ -298,7 +326,8 @@ public class VolumeFileManager {
     private void uploadLocalFileToVolume(String localFilePath, String rootPath, String volumePath,
                                          int maxRetries, long retryIntervalMillis,
                                          UploadProgressTracker progressTracker,
-                                         UploadContext uploadContext, long partSizeBytes) {
+                                         UploadContext uploadContext, long partSizeBytes, int partConcurrency,
+                                         UploadManifest manifest, boolean deduplicateByContent) throws IOException {
         File file = new File(localFilePath);
         Path filePath = file.toPath().toAbsolutePath();
         Path root = Paths.get(rootPath).toAbsolutePath();
@@ -312,19 +341,43 @@ public class VolumeFileManager {
 
         VolumeSession session = uploadContext.currentSession();
         String remoteFilePath = session.applyVolumeResponse.getVolumePrefix() + volumePath + relativePath;
-        putObjectWithRetry(file, remoteFilePath, volumePath, maxRetries, retryIntervalMillis, progressTracker, uploadContext, partSizeBytes);
+        if (manifest == null) {
+            putObjectWithRetry(file, remoteFilePath, volumePath, maxRetries, retryIntervalMillis, progressTracker, uploadContext, partSizeBytes, partConcurrency, null);
+            return;
+        }
+
+        if (manifest.isUploaded(file, remoteFilePath, deduplicateByContent)
+                && isOnVolume(file, remoteFilePath, volumePath, uploadContext)) {
+            logger.info("Skipped file already uploaded: {}", localFilePath);
+            return;
+        }
+        MultipartUploadState uploadState = manifest.startFile(file, remoteFilePath);
+        putObjectWithRetry(file, remoteFilePath, volumePath, maxRetries, retryIntervalMillis, progressTracker, uploadContext, partSizeBytes, partConcurrency, uploadState);
+        manifest.finishFile(file, deduplicateByContent);
+    }
+
+    private boolean isOnVolume(File file, String remoteFilePath, String volumePath, UploadContext uploadContext) {
+        try {
+            VolumeSession session = refreshIfExpire(volumePath, uploadContext);
+            Long size = session.storageClient.getObjectEntity(session.applyVolumeResponse.getBucketName(), remoteFilePath);
+            return size != null && size == file.length();
+        } catch (Exception e) {
+            logger.info("File {} recorded as uploaded is not found on the volume, uploading it again", file.getAbsolutePath());
+            return false;
+        }
     }
 
     private void putObjectWithRetry(File file, String remoteFilePath, String volumePath,
                                     int maxRetries, long retryIntervalMillis,
                                     UploadProgressTracker progressTracker,
-                                    UploadContext uploadContext, long partSizeBytes) {
+                                    UploadContext uploadContext, long partSizeBytes, int partConcurrency,
+                                    MultipartUploadState uploadState) {
         String msg = "upload " + file.getAbsolutePath();
         FileUploadProgress progress = new FileUploadProgress(progressTracker, file.getAbsolutePath(), file.length());
         withRetry(msg, () -> {
             progress.reset();
             VolumeSession session = refreshIfExpire(volumePath, uploadContext);
-            session.storageClient.putObject(file, session.applyVolumeResponse.getBucketName(), remoteFilePath, progress, partSizeBytes);
+            session.storageClient.putObject(file, session.applyVolumeResponse.getBucketName(), remoteFilePath, progress, partSizeBytes, partConcurrency, uploadState);
             return null;
         }, volumePath, maxRetries, retryIntervalMillis, uploadContext);
 
@@ -488,6 +541,7 @@ public class VolumeFileManager {
         }
     }
 
+    // updated by the part threads of all the files at the same time, the counters are atomic instead of locked
     private static class UploadProgressTracker {
         private static final long LOG_INTERVAL_MILLIS = 5000L;
         private static final double LOG_PERCENT_STEP = 1.0;
@@ -496,11 +550,11 @@ public class VolumeFileManager {
         private final long totalFiles;
         private final UploadFilesRequest.ProgressListener progressListener;
         private final long startTimeMillis;
-        private final Map<String, Long> fileProgress = new HashMap<>();
-        private final Set<String> completedFiles = new HashSet<>();
-        private long uploadedBytes = 0L;
-        private long lastLogTimeMillis = 0L;
-        private double lastLoggedPercent = -1.0;
+        private final Map<String, AtomicLong> fileProgress = new ConcurrentHashMap<>();
+        private final Set<String> completedFiles = ConcurrentHashMap.newKeySet();
+        private final AtomicLong uploadedBytes = new AtomicLong();
+        private final AtomicLong lastLogTimeMillis = new AtomicLong();
+        private volatile double lastLoggedPercent = -1.0;
 
         private UploadProgressTracker(long totalBytes, long totalFiles,
                                       UploadFilesRequest.ProgressListener progressListener) {
@@ -510,67 +564,63 @@ public class VolumeFileManager {
             this.startTimeMillis = System.currentTimeMillis();
         }
 
-        synchronized void resetFile(String filePath) {
-            long previous = fileProgress.getOrDefault(filePath, 0L);
-            uploadedBytes -= previous;
-            fileProgress.put(filePath, 0L);
+        void resetFile(String filePath) {
+            long previous = fileBytes(filePath).getAndSet(0L);
+            uploadedBytes.addAndGet(-previous);
         }
 
         void updateFile(String filePath, long fileSize, long chunkBytes) {
-            UploadProgress progress = null;
-            synchronized (this) {
-                if (chunkBytes <= 0) {
-                    return;
-                }
-                long previous = fileProgress.getOrDefault(filePath, 0L);
-                long current = Math.min(fileSize, previous + chunkBytes);
-                long delta = current - previous;
-                if (delta <= 0) {
+            if (chunkBytes <= 0) {
+                return;
+            }
+            AtomicLong fileBytes = fileBytes(filePath);
+            long previous;
+            long current;
+            do {
+                previous = fileBytes.get();
+                current = Math.min(fileSize, previous + chunkBytes);
+                if (current <= previous) {
                     return;
                 }
-                fileProgress.put(filePath, current);
-                uploadedBytes += delta;
-                progress = progressIfNeeded(filePath, current, fileSize);
-            }
+            } while (!fileBytes.compareAndSet(previous, current));
+            long uploaded = uploadedBytes.addAndGet(current - previous);
+            UploadProgress progress = progressIfNeeded(filePath, current, fileSize, uploaded);
             if (progress != null) {
                 emitProgress(progress);
             }
         }
 
         UploadProgressSnapshot finishFile(String filePath, long fileSize) {
-            UploadProgress progress;
-            UploadProgressSnapshot snapshot;
-            synchronized (this) {
-                long previous = fileProgress.getOrDefault(filePath, 0L);
-                long current = Math.max(previous, fileSize);
-                fileProgress.put(filePath, current);
-                uploadedBytes += current - previous;
-                completedFiles.add(filePath);
-                double percent = percent();
-                progress = snapshot(filePath, current, fileSize, percent);
-                long speedBps = speedBps(uploadedBytes, System.currentTimeMillis());
-                snapshot = new UploadProgressSnapshot(uploadedBytes, completedFiles.size(), percent,
-                        speedBps, formatDurationMillis(estimatedRemainingTimeMillis(uploadedBytes, speedBps)));
-                markProgressEmitted(percent);
-            }
+            long previous = fileBytes(filePath).getAndAccumulate(fileSize, Math::max);
+            long current = Math.max(previous, fileSize);
+            long uploaded = uploadedBytes.addAndGet(current - previous);
+            completedFiles.add(filePath);
+            double percent = percent(uploaded);
+            UploadProgress progress = snapshot(filePath, current, fileSize, uploaded, percent);
+            long speedBps = speedBps(uploaded, System.currentTimeMillis());
+            UploadProgressSnapshot snapshot = new UploadProgressSnapshot(uploaded, completedFiles.size(), percent,
+                    speedBps, formatDurationMillis(estimatedRemainingTimeMillis(uploaded, speedBps)));
+            markProgressEmitted(percent);
             emitProgress(progress);
             return snapshot;
         }
 
         void finishUpload() {
-            UploadProgress progress;
-            synchronized (this) {
-                progress = snapshot("", 0L, 0L, percent());
-                markProgressEmitted(progress.getPercent());
-            }
+            long uploaded = uploadedBytes.get();
+            UploadProgress progress = snapshot("", 0L, 0L, uploaded, percent(uploaded));
+            markProgressEmitted(progress.getPercent());
             emitProgress(progress);
         }
 
-        private double percent() {
+        private AtomicLong fileBytes(String filePath) {
+            return fileProgress.computeIfAbsent(filePath, k -> new AtomicLong());
+        }
+
+        private double percent(long uploaded) {
             if (totalBytes == 0) {
                 return 100.0;
             }
-            return Math.min(100.0, uploadedBytes * 100.0 / totalBytes);
+            return Math.min(100.0, uploaded * 100.0 / totalBytes);
         }
 
         private long speedBps(long currentUploadedBytes, long nowMillis) {
@@ -589,25 +639,30 @@ public class VolumeFileManager {
             return (long) Math.ceil(remainingBytes * 1000.0 / speedBps);
         }
 
-        private UploadProgress progressIfNeeded(String currentFile, long currentFileUploadedBytes, long currentFileTotalBytes) {
+        private UploadProgress progressIfNeeded(String currentFile, long currentFileUploadedBytes,
+                                                long currentFileTotalBytes, long uploaded) {
             long now = System.currentTimeMillis();
-            double percent = percent();
-            if (percent - lastLoggedPercent >= LOG_PERCENT_STEP || now - lastLogTimeMillis >= LOG_INTERVAL_MILLIS) {
-                lastLogTimeMillis = now;
-                lastLoggedPercent = percent;
-                return snapshot(currentFile, currentFileUploadedBytes, currentFileTotalBytes, percent);
+            long lastTime = lastLogTimeMillis.get();
+            double percent = percent(uploaded);
+            if (percent - lastLoggedPercent < LOG_PERCENT_STEP && now - lastTime < LOG_INTERVAL_MILLIS) {
+                return null;
             }
-            return null;
+            // of the threads crossing the step at the same time, only the one that moves the time emits it
+            if (!lastLogTimeMillis.compareAndSet(lastTime, now)) {
+                return null;
+            }
+            lastLoggedPercent = percent;
+            return snapshot(currentFile, currentFileUploadedBytes, currentFileTotalBytes, uploaded, percent);
         }
 
         private UploadProgress snapshot(String currentFile, long currentFileUploadedBytes,
-                                        long currentFileTotalBytes, double percent) {
-            return new UploadProgress(uploadedBytes, totalBytes, completedFiles.size(), totalFiles,
+                                        long currentFileTotalBytes, long uploaded, double percent) {
+            return new UploadProgress(uploaded, totalBytes, completedFiles.size(), totalFiles,
                     currentFile, currentFileUploadedBytes, currentFileTotalBytes, percent);
         }
 
         private void markProgressEmitted(double percent) {
-            lastLogTimeMillis = System.currentTimeMillis();
+            lastLogTimeMillis.set(System.currentTimeMillis());
             lastLoggedPercent = percent;
         }
 
@@ -23,6 +23,8 @@ public enum BulkFileType {
     PARQUET(1, ".parquet"),
     JSON(2, ".json"),
     CSV(3, ".csv"),
+    // a directory of ".npy" files, one per field
+    NUMPY(4, ".npy"),
     ;
 
     private final Integer code;
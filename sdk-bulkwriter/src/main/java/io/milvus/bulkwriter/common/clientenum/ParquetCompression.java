@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter.common.clientenum;
+
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+
+/**
+ * Compression codecs of the parquet files written by a BulkWriter, all of them can be imported by Milvus.
+ */
+public enum ParquetCompression {
+    UNCOMPRESSED(CompressionCodecName.UNCOMPRESSED),
+    SNAPPY(CompressionCodecName.SNAPPY),
+    ZSTD(CompressionCodecName.ZSTD),
+    // the LZ4 framing of hadoop is deprecated by parquet and not readable by every reader, LZ4_RAW is the portable one
+    LZ4(CompressionCodecName.LZ4_RAW),
+    ;
+
+    private final CompressionCodecName codecName;
+
+    ParquetCompression(CompressionCodecName codecName) {
+        this.codecName = codecName;
+    }
+
+    public CompressionCodecName getCodecName() {
+        return codecName;
+    }
+}
@@ -61,6 +61,25 @@ public class UploadFilesRequest {
      */
     private long partSizeBytes = 0L;
 
+    /**
+     * The maximum number of parts of a file to upload concurrently.
+     */
+    private int partConcurrency = 4;
+
+    /**
+     * Optional local file recording the uploaded files and parts, e.g., /Users/zilliz/upload-manifest.json
+     * A run with the same manifest skips the files already uploaded and unchanged since,
+     * and continues the multipart uploads of the files left unfinished.
+     */
+    private String manifestFilePath = null;
+
+    /**
+     * With a manifest, also skip a file whose content (SHA-256) is the one last uploaded to its remote path:
+     * an uploaded file whose modification time changed, or the same file at another local path. The hash of
+     * each uploaded file is computed and recorded.
+     */
+    private boolean deduplicateByContent = false;
+
     public UploadFilesRequest() {
     }
 
@@ -77,6 +96,9 @@ public class UploadFilesRequest {
         this.retryIntervalMillis = builder.retryIntervalMillis;
         this.progressListener = builder.progressListener;
         this.partSizeBytes = builder.partSizeBytes;
+        this.partConcurrency = builder.partConcurrency;
+        this.manifestFilePath = builder.manifestFilePath;
+        this.deduplicateByContent = builder.deduplicateByContent;
     }
 
     public String getSourceFilePath() {
@@ -135,6 +157,30 @@ public class UploadFilesRequest {
         this.partSizeBytes = partSizeBytes;
     }
 
+    public int getPartConcurrency() {
+        return partConcurrency;
+    }
+
+    public void setPartConcurrency(int partConcurrency) {
+        this.partConcurrency = partConcurrency;
+    }
+
+    public String getManifestFilePath() {
+        return manifestFilePath;
+    }
+
+    public void setManifestFilePath(String manifestFilePath) {
+        this.manifestFilePath = manifestFilePath;
+    }
+
+    public boolean isDeduplicateByContent() {
+        return deduplicateByContent;
+    }
+
+    public void setDeduplicateByContent(boolean deduplicateByContent) {
+        this.deduplicateByContent = deduplicateByContent;
+    }
+
     @Override
     public String toString() {
         return "UploadFilesRequest{" +
@@ -145,6 +191,9 @@ public class UploadFilesRequest {
                 ", retryIntervalMillis=" + retryIntervalMillis +
                 ", progressListener=" + (progressListener != null) +
                 ", partSizeBytes=" + partSizeBytes +
+                ", partConcurrency=" + partConcurrency +
+                ", manifestFilePath='" + manifestFilePath + '\'' +
+                ", deduplicateByContent=" + deduplicateByContent +
                 '}';
     }
 
@@ -160,6 +209,9 @@ public class UploadFilesRequest {
         private long retryIntervalMillis;
         private ProgressListener progressListener;
         private long partSizeBytes;
+        private int partConcurrency;
+        private String manifestFilePath;
+        private boolean deduplicateByContent;
 
         private UploadFilesRequestBuilder() {
             this.sourceFilePath = "";
@@ -169,6 +221,9 @@ public class UploadFilesRequest {
             this.retryIntervalMillis = 5000L;
             this.progressListener = null;
             this.partSizeBytes = 0L;
+            this.partConcurrency = 4;
+            this.manifestFilePath = null;
+            this.deduplicateByContent = false;
         }
 
         public UploadFilesRequestBuilder sourceFilePath(String sourceFilePath) {
@@ -206,6 +261,21 @@ public class UploadFilesRequest {
             return this;
         }
 
+        public UploadFilesRequestBuilder partConcurrency(int partConcurrency) {
+            this.partConcurrency = partConcurrency;
+            return this;
+        }
+
+        public UploadFilesRequestBuilder manifestFilePath(String manifestFilePath) {
+            this.manifestFilePath = manifestFilePath;
+            return this;
+        }
+
+        public UploadFilesRequestBuilder deduplicateByContent(boolean deduplicateByContent) {
+            this.deduplicateByContent = deduplicateByContent;
+            return this;
+        }
+
         public UploadFilesRequest build() {
             return new UploadFilesRequest(this);
         }
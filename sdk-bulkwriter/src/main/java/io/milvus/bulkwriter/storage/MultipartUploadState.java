@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter.storage;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The state of a multipart upload kept across runs: the upload id, the part size and the ids of the parts
+ * already uploaded.
+ * <p>
+ * Given to {@link StorageClient#putObject(java.io.File, String, String, StorageClient.UploadProgressListener,
+ * long, int, MultipartUploadState)}, an upload with the same part size is continued, the parts still held by
+ * the storage are not uploaded again. The state is left as is when the upload fails, so a later run can
+ * continue it, and is cleared when the upload completes. The listener is notified after each change, e.g.
+ * to persist the state.
+ */
+public class MultipartUploadState {
+    private volatile String uploadId;
+    private volatile long partSize;
+    private ConcurrentSkipListMap<Integer, String> partIds = new ConcurrentSkipListMap<>();
+    private transient volatile Runnable listener;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * @return the id of an uploaded part, null if the part is not uploaded
+     */
+    public String getPartId(int partNumber) {
+        return partIds.get(partNumber);
+    }
+
+    /**
+     * @return the ids of the uploaded parts keyed by part number
+     */
+    public SortedMap<Integer, String> getPartIds() {
+        return new TreeMap<>(partIds);
+    }
+
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts a new upload, the parts of the previous one are forgotten.
+     */
+    public void start(String uploadId, long partSize) {
+        this.partIds.clear();
+        this.uploadId = uploadId;
+        this.partSize = partSize;
+        notifyListener();
+    }
+
+    public void partUploaded(int partNumber, String partId) {
+        partIds.put(partNumber, partId);
+        notifyListener();
+    }
+
+    /**
+     * Keeps only the given parts, e.g. the ones the storage still holds.
+     */
+    public void retainParts(Map<Integer, String> parts) {
+        partIds.entrySet().removeIf(entry -> !entry.getValue().equals(parts.get(entry.getKey())));
+        notifyListener();
+    }
+
+    public void clear() {
+        start(null, 0L);
+    }
+
+    private void notifyListener() {
+        Runnable current = listener;
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MultipartUploadState{" +
+                "uploadId='" + uploadId + '\'' +
+                ", partSize=" + partSize +
+                ", partIds=" + partIds +
+                '}';
+    }
+}
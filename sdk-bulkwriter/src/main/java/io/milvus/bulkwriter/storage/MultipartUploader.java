@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter.storage;
+
+import io.milvus.exception.ParamException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads a file in parts for the multipart upload of a {@link StorageClient}.
+ * <p>
+ * The parts are read by positional reads of a FileChannel and uploaded by <code>concurrency</code> tasks
+ * at the same time, run by a thread pool shared by all the uploads so that a file doesn't start its own threads. Each thread reuses one buffer of the part size, so the memory used is at most
+ * concurrency * partSize whatever the file size. A failed part is retried alone, up to
+ * <code>maxPartRetries</code> times. Once a part fails for good the other threads stop after their current
+ * part and the error of the part is thrown, the caller aborts the upload or keeps its
+ * {@link MultipartUploadState} to continue it later.
+ */
+public class MultipartUploader {
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploader.class);
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+    public static final int DEFAULT_MAX_PART_RETRIES = 3;
+    public static final long DEFAULT_RETRY_INTERVAL_MILLIS = 1000L;
+    // a part is read into a byte array
+    public static final long MAX_PART_SIZE = Integer.MAX_VALUE - 8;
+    // idle threads expire, the concurrency of each upload is bounded by the number of tasks it submits
+    private static final ExecutorService PART_EXECUTOR = Executors.newCachedThreadPool(new PartThreadFactory());
+
+    private final int concurrency;
+    private final int maxPartRetries;
+    private final long retryIntervalMillis;
+
+    public MultipartUploader(int concurrency) {
+        this(concurrency, DEFAULT_MAX_PART_RETRIES, DEFAULT_RETRY_INTERVAL_MILLIS);
+    }
+
+    public MultipartUploader(int concurrency, int maxPartRetries, long retryIntervalMillis) {
+        this.concurrency = Math.max(1, concurrency);
+        this.maxPartRetries = Math.max(0, maxPartRetries);
+        this.retryIntervalMillis = Math.max(0L, retryIntervalMillis);
+    }
+
+    public static int partCount(long fileSize, long partSize) {
+        return (int) Math.max(1L, (fileSize + partSize - 1) / partSize);
+    }
+
+    /**
+     * Uploads the parts of a file.
+     *
+     * @param file             the local file
+     * @param partSize         the size of every part but the last one
+     * @param partUploader     uploads a part to the storage
+     * @param progressListener notified with the size of each uploaded part, can be null
+     * @return the ids returned by the part uploader, in the order of the part numbers
+     */
+    public List<String> upload(File file, long partSize, PartUploader partUploader,
+                               StorageClient.UploadProgressListener progressListener) throws Exception {
+        return upload(file, partSize, new MultipartUploadState(), partUploader, progressListener);
+    }
+
+    /**
+     * Uploads the parts of a file that are not in the state yet, each uploaded part is added to the state.
+     *
+     * @param file             the local file
+     * @param partSize         the size of every part but the last one
+     * @param state            the parts already uploaded, they are skipped
+     * @param partUploader     uploads a part to the storage
+     * @param progressListener notified with the size of each uploaded or skipped part, can be null
+     * @return the ids of all the parts, in the order of the part numbers
+     */
+    public List<String> upload(File file, long partSize, MultipartUploadState state, PartUploader partUploader,
+                               StorageClient.UploadProgressListener progressListener) throws Exception {
+        if (partSize <= 0 || partSize > MAX_PART_SIZE) {
+            throw new ParamException("Part size must be between 1 and " + MAX_PART_SIZE + " bytes");
+        }
+        long fileSize = file.length();
+        int partCount = partCount(fileSize, partSize);
+        int bufferSize = (int) Math.min(partSize, fileSize);
+        String[] partIds = new String[partCount];
+        AtomicInteger nextPart = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        int threadCount = Math.min(concurrency, partCount);
+        List<Future<?>> futures = new ArrayList<>(threadCount);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(PART_EXECUTOR.submit(() -> {
+                    byte[] buffer = new byte[bufferSize];
+                    int part;
+                    while (!failed.get() && (part = nextPart.getAndIncrement()) < partCount) {
+                        try {
+                            long position = part * partSize;
+                            int length = (int) Math.min(partSize, fileSize - position);
+                            partIds[part] = state.getPartId(part + 1);
+                            if (partIds[part] == null) {
+                                readFully(channel, buffer, length, position);
+                                partIds[part] = uploadPart(partUploader, part + 1, buffer, length, failed);
+                                state.partUploaded(part + 1, partIds[part]);
+                            }
+                            if (progressListener != null) {
+                                progressListener.onProgress(length);
+                            }
+                        } catch (Exception e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            waitParts(futures, failed);
+        } finally {
+            // the tasks are done unless submitting failed, the shared threads are not shut down
+            failed.set(true);
+            futures.forEach(future -> future.cancel(true));
+        }
+        return Arrays.asList(partIds);
+    }
+
+    // waits for all the threads before the channel is closed, throws the first error
+    private static void waitParts(List<Future<?>> futures, AtomicBoolean failed) throws Exception {
+        Throwable error = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                failed.set(true);
+                futures.forEach(f -> f.cancel(true));
+                throw e;
+            }
+        }
+        if (error instanceof Exception) {
+            throw (Exception) error;
+        } else if (error != null) {
+            throw new ExecutionException(error);
+        }
+    }
+
+    private String uploadPart(PartUploader partUploader, int partNumber, byte[] data, int length,
+                              AtomicBoolean failed) throws Exception {
+        int attempt = 0;
+        while (true) {
+            try {
+                return partUploader.uploadPart(partNumber, data, length);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                attempt++;
+                if (attempt > maxPartRetries || failed.get()) {
+                    throw e;
+                }
+                logger.warn("Attempt {} failed to upload part {}, retry in {} ms", attempt, partNumber, retryIntervalMillis, e);
+                Thread.sleep(retryIntervalMillis);
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, byte[] buffer, int length, long position) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new EOFException("File ends before the part at position " + position + " is read");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface PartUploader {
+        /**
+         * Uploads a part of the file.
+         *
+         * @param partNumber the part number, from 1
+         * @param data       holds the part in its first <code>length</code> bytes, reused once the call returns
+         * @param length     the part size
+         * @return the id of the part to complete the upload with, e.g. its ETag
+         */
+        String uploadPart(int partNumber, byte[] data, int length) throws Exception;
+    }
+
+    private static class PartThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "multipart-upload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
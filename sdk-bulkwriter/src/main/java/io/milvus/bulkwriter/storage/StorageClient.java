@@ -39,6 +39,22 @@ public interface StorageClient {
         putObject(file, bucketName, objectKey, progressListener);
     }
 
+    default void putObject(File file, String bucketName, String objectKey,
+                           UploadProgressListener progressListener, long partSizeBytes,
+                           int partConcurrency) throws Exception {
+        putObject(file, bucketName, objectKey, progressListener, partSizeBytes);
+    }
+
+    /**
+     * Uploads a file, a multipart upload is continued from the state and kept in it if it fails.
+     * A client that can't continue a multipart upload ignores the state.
+     */
+    default void putObject(File file, String bucketName, String objectKey,
+                           UploadProgressListener progressListener, long partSizeBytes,
+                           int partConcurrency, MultipartUploadState uploadState) throws Exception {
+        putObject(file, bucketName, objectKey, progressListener, partSizeBytes, partConcurrency);
+    }
+
     default void close() {
     }
 
@@ -20,19 +20,26 @@
 package io.milvus.bulkwriter.storage.client;
 
 import com.azure.core.credential.TokenCredential;
+import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import io.milvus.bulkwriter.storage.MultipartUploader;
 import io.milvus.bulkwriter.storage.StorageClient;
 import io.milvus.common.utils.ExceptionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
 
 public class AzureStorageClient implements StorageClient {
     private static final Logger logger = LoggerFactory.getLogger(AzureStorageClient.class);
@@ -68,10 +75,58 @@ public class AzureStorageClient implements StorageClient {
         return blobClient.getProperties().getBlobSize();
     }
 
-    public void putObject(File file, String bucketName, String objectKey) throws FileNotFoundException {
-        FileInputStream fileInputStream = new FileInputStream(file);
+    public void putObject(File file, String bucketName, String objectKey) throws Exception {
+        putObject(file, bucketName, objectKey, null, 0L, MultipartUploader.DEFAULT_CONCURRENCY);
+    }
+
+    @Override
+    public void putObject(File file, String bucketName, String objectKey,
+                          UploadProgressListener progressListener) throws Exception {
+        putObject(file, bucketName, objectKey, progressListener, 0L, MultipartUploader.DEFAULT_CONCURRENCY);
+    }
+
+    @Override
+    public void putObject(File file, String bucketName, String objectKey,
+                          UploadProgressListener progressListener, long partSizeBytes) throws Exception {
+        putObject(file, bucketName, objectKey, progressListener, partSizeBytes, MultipartUploader.DEFAULT_CONCURRENCY);
+    }
+
+    @Override
+    public void putObject(File file, String bucketName, String objectKey,
+                          UploadProgressListener progressListener, long partSizeBytes,
+                          int partConcurrency) throws Exception {
         BlobClient blobClient = blobServiceClient.getBlobContainerClient(bucketName).getBlobClient(objectKey);
-        blobClient.upload(fileInputStream, file.length());
+        long blockSize = MinioStorageClient.calculateUploadPartSize(file.length(), partSizeBytes);
+        if (file.length() <= blockSize || blockSize > MultipartUploader.MAX_PART_SIZE) {
+            try (FileInputStream fileInputStream = new FileInputStream(file)) {
+                blobClient.upload(fileInputStream, file.length());
+            }
+            if (progressListener != null) {
+                progressListener.onProgress(file.length());
+            }
+            return;
+        }
+
+        // the blocks are staged in parallel and retried alone, each one with its MD5 checked by the server,
+        // the blob is created when the block list is committed
+        BlockBlobClient blockBlobClient = blobClient.getBlockBlobClient();
+        List<String> blockIds = new MultipartUploader(partConcurrency).upload(file, blockSize,
+                (partNumber, data, length) -> {
+                    String blockId = blockId(partNumber);
+                    MessageDigest md5 = MessageDigest.getInstance("MD5");
+                    md5.update(data, 0, length);
+                    blockBlobClient.stageBlockWithResponse(blockId, new ByteArrayInputStream(data, 0, length), length,
+                            md5.digest(), null, null, Context.NONE);
+                    return blockId;
+                },
+                progressListener);
+        blockBlobClient.commitBlockList(blockIds);
+    }
+
+    // the block ids of a blob must have the same length
+    private static String blockId(int partNumber) {
+        String id = String.format("%08d", partNumber);
+        return Base64.getEncoder().encodeToString(id.getBytes(StandardCharsets.US_ASCII));
     }
 
     public boolean checkBucketExist(String bucketName) {
@@ -22,6 +22,8 @@ package io.milvus.bulkwriter.storage.client;
 import com.google.common.collect.Multimap;
 import io.milvus.bulkwriter.common.clientenum.CloudStorage;
 import io.milvus.bulkwriter.model.CompleteMultipartUploadOutputModel;
+import io.milvus.bulkwriter.storage.MultipartUploadState;
+import io.milvus.bulkwriter.storage.MultipartUploader;
 import io.milvus.bulkwriter.storage.StorageClient;
 import io.milvus.exception.ParamException;
 import io.minio.BucketExistsArgs;
@@ -41,6 +43,7 @@ import io.minio.errors.XmlParserException;
 import io.minio.http.Method;
 import io.minio.messages.CompleteMultipartUpload;
 import io.minio.messages.ErrorResponse;
+import io.minio.messages.ListPartsResult;
 import io.minio.messages.Part;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
@@ -56,6 +59,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
@@ -152,8 +158,27 @@ public class MinioStorageClient extends MinioAsyncClient implements StorageClien
     @Override
     public void putObject(File file, String bucketName, String objectKey,
                           UploadProgressListener progressListener, long partSizeBytes) throws Exception {
+        putObject(file, bucketName, objectKey, progressListener, partSizeBytes, MultipartUploader.DEFAULT_CONCURRENCY);
+    }
+
+    @Override
+    public void putObject(File file, String bucketName, String objectKey,
+                          UploadProgressListener progressListener, long partSizeBytes,
+                          int partConcurrency) throws Exception {
+        putObject(file, bucketName, objectKey, progressListener, partSizeBytes, partConcurrency, null);
+    }
+
+    @Override
+    public void putObject(File file, String bucketName, String objectKey,
+                          UploadProgressListener progressListener, long partSizeBytes,
+                          int partConcurrency, MultipartUploadState uploadState) throws Exception {
         logger.info("uploading file, fileName:{}, size:{} bytes", file.getAbsolutePath(), file.length());
         long uploadPartSize = calculateUploadPartSize(file.length(), partSizeBytes);
+        if (file.length() > uploadPartSize && uploadPartSize <= MultipartUploader.MAX_PART_SIZE) {
+            putMultipartObject(file, bucketName, objectKey, progressListener, uploadPartSize, partConcurrency, uploadState);
+            return;
+        }
+
         try (InputStream fileInputStream = new ProgressInputStream(new FileInputStream(file), progressListener)) {
             PutObjectArgs putObjectArgs = PutObjectArgs.builder()
                     .bucket(bucketName)
@@ -164,6 +189,91 @@ public class MinioStorageClient extends MinioAsyncClient implements StorageClien
         }
     }
 
+    // the parts are uploaded in parallel and retried alone, a byte[] part is sent with its Content-MD5
+    // so the server rejects a part corrupted on the way. With a state, the upload is continued from it
+    // and not aborted when it fails.
+    private void putMultipartObject(File file, String bucketName, String objectKey,
+                                    UploadProgressListener progressListener, long partSize,
+                                    int partConcurrency, MultipartUploadState uploadState) throws Exception {
+        boolean resumable = uploadState != null;
+        MultipartUploadState state = resumable ? uploadState : new MultipartUploadState();
+        if (resumable && !resumeMultipartUpload(bucketName, objectKey, partSize, state)) {
+            state.clear();
+        }
+        if (state.getUploadId() == null) {
+            Multimap<String, String> headers = newMultimap("Content-Type", "application/octet-stream");
+            state.start(createMultipartUploadAsync(bucketName, null, objectKey, headers, null)
+                    .get().result().uploadId(), partSize);
+        }
+
+        String uploadId = state.getUploadId();
+        try {
+            List<String> etags = new MultipartUploader(partConcurrency).upload(file, partSize, state,
+                    (partNumber, data, length) -> uploadPartAsync(bucketName, null, objectKey, data, length,
+                            uploadId, partNumber, null, null).get().etag(),
+                    progressListener);
+            Part[] parts = new Part[etags.size()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new Part(i + 1, etags.get(i));
+            }
+            completeMultipartUploadAsync(bucketName, null, objectKey, uploadId, parts, null, null).get();
+            state.clear();
+        } catch (Exception e) {
+            if (resumable) {
+                logger.warn("Multipart upload {} of {} failed, {} parts are kept to continue it",
+                        uploadId, objectKey, state.getPartIds().size());
+                throw e;
+            }
+            try {
+                abortMultipartUploadAsync(bucketName, null, objectKey, uploadId, null, null).get();
+            } catch (Exception abortException) {
+                logger.warn("Failed to abort multipart upload {} of {}", uploadId, objectKey, abortException);
+            }
+            throw e;
+        }
+    }
+
+    // keeps the parts of the state that the server still holds with the same ETag,
+    // returns false if the upload of the state can't be continued
+    private boolean resumeMultipartUpload(String bucketName, String objectKey, long partSize,
+                                          MultipartUploadState state) {
+        String uploadId = state.getUploadId();
+        if (uploadId == null || state.getPartSize() != partSize) {
+            return false;
+        }
+        Map<Integer, String> serverParts = new HashMap<>();
+        try {
+            Integer partNumberMarker = null;
+            ListPartsResult result;
+            do {
+                result = listPartsAsync(bucketName, null, objectKey, null, partNumberMarker, uploadId, null, null)
+                        .get().result();
+                for (Part part : result.partList()) {
+                    serverParts.put(part.partNumber(), stripQuotes(part.etag()));
+                }
+                partNumberMarker = result.nextPartNumberMarker();
+            } while (result.isTruncated());
+        } catch (Exception e) {
+            logger.warn("Can't continue multipart upload {} of {}, starting a new one", uploadId, objectKey, e);
+            return false;
+        }
+
+        Map<Integer, String> validParts = new HashMap<>();
+        for (Map.Entry<Integer, String> entry : state.getPartIds().entrySet()) {
+            if (stripQuotes(entry.getValue()).equals(serverParts.get(entry.getKey()))) {
+                validParts.put(entry.getKey(), entry.getValue());
+            }
+        }
+        state.retainParts(validParts);
+        logger.info("Continuing multipart upload {} of {}, {} parts already uploaded",
+                uploadId, objectKey, validParts.size());
+        return true;
+    }
+
+    private static String stripQuotes(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+
     @Override
     public void close() {
         if (!closeHttpClient || httpClient == null) {
@@ -1,16 +1,12 @@
 package io.milvus.bulkwriter.writer;
 
 import com.google.common.collect.Lists;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import io.milvus.bulkwriter.common.utils.WriterUtils;
+import io.milvus.bulkwriter.ColumnBatch;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -19,14 +15,20 @@ import static io.milvus.param.Constant.DYNAMIC_FIELD_NAME;
 public class CSVFileWriter implements FormatFileWriter {
     private static final Logger logger = LoggerFactory.getLogger(CSVFileWriter.class);
 
-    private BufferedWriter writer;
+    private CountingWriter writer;
     private CreateCollectionReq.CollectionSchema collectionSchema;
     private String filePath;
-    private Map<String, Object> config;
+    private final String separator;
+    private final String nullKey;
+    // a value is encoded into a reused buffer, no String is created per row or per value
+    private final TextEncoder encoder = new TextEncoder();
+    // the columns in the order of the header line
+    private List<String> header;
 
     public CSVFileWriter(CreateCollectionReq.CollectionSchema collectionSchema, String filePathPrefix, Map<String, Object> config) throws IOException {
         this.collectionSchema = collectionSchema;
-        this.config = config;
+        this.separator = (String) config.getOrDefault("sep", ",");
+        this.nullKey = (String) config.getOrDefault("nullkey", "");
         initFilePath(filePathPrefix);
         initWriter();
     }
@@ -36,52 +38,34 @@ public class CSVFileWriter implements FormatFileWriter {
     }
 
     private void initWriter() throws IOException {
-        this.writer = new BufferedWriter(new java.io.FileWriter(filePath));
+        this.writer = new CountingWriter(filePath);
     }
 
     @Override
     public void appendRow(Map<String, Object> rowValues, boolean firstWrite) throws IOException {
         rowValues.keySet().removeIf(key -> key.equals(DYNAMIC_FIELD_NAME) && !this.collectionSchema.isEnableDynamicField());
-        rowValues.replaceAll((key, value) -> WriterUtils.normalizeValue(value));
 
-        Gson gson = new GsonBuilder().serializeNulls().create();
-        List<String> fieldNameList = Lists.newArrayList(rowValues.keySet());
+        // the values follow the header of the file, it may have been written by appendColumns()
+        List<String> fieldNameList = (firstWrite || header == null) ? Lists.newArrayList(rowValues.keySet()) : header;
 
         try {
-            String separator = (String) config.getOrDefault("sep", ",");
-            String nullKey = (String) config.getOrDefault("nullkey", "");
-
             if (firstWrite) {
-                writer.write(String.join(separator, fieldNameList));
-                writer.newLine();
+                writeHeader(fieldNameList);
             }
 
-            List<String> values = new ArrayList<>();
-            for (String fieldName : fieldNameList) {
-                Object val = rowValues.get(fieldName);
-                String strVal = "";
+            for (int i = 0; i < fieldNameList.size(); i++) {
+                if (i > 0) {
+                    writer.write(separator);
+                }
+                Object val = rowValues.get(fieldNameList.get(i));
+                encoder.reset();
                 if (val == null) {
-                    strVal = nullKey;
-                } else if (val instanceof List || val instanceof Map) {
-                    strVal = gson.toJson(val); // server-side is using json to parse array field and vector field
+                    encoder.append(nullKey);
                 } else {
-                    strVal = val.toString();
+                    encoder.appendText(val);
                 }
-
-                // CSV format, all the single quotation should be replaced by double quotation
-                if (strVal.startsWith("\"") && strVal.endsWith("\"")) {
-                    strVal = strVal.substring(1, strVal.length() - 1);
-                }
-                strVal = strVal.replace("\\\"", "\"");
-                strVal = strVal.replace("\"", "\"\"");
-                if (!strVal.isEmpty()) {
-                    // some fields might be nullable, the strVal is empty, no need to add ""
-                    strVal = "\"" + strVal + "\"";
-                }
-                values.add(strVal);
+                encoder.writeCsvCellTo(writer);
             }
-
-            writer.write(String.join(separator, values));
             writer.newLine();
         } catch (IOException e) {
             logger.error("{} appendRow error when writing to file {}", this.getClass().getSimpleName(), filePath, e);
@@ -89,6 +73,50 @@ public class CSVFileWriter implements FormatFileWriter {
         }
     }
 
+    @Override
+    public void appendColumns(ColumnBatch batch, int fromRow, int toRow, boolean firstWrite) throws IOException {
+        try {
+            if (firstWrite) {
+                writeHeader(Lists.newArrayList(batch.getColumns().keySet()));
+            }
+
+            // the rows follow the header written by the first row, the columns are looked up once
+            Object[] columns = new Object[header.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = batch.getColumn(header.get(i));
+            }
+            for (int row = fromRow; row < toRow; row++) {
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        writer.write(separator);
+                    }
+                    encoder.reset();
+                    if (TextEncoder.isNullAt(columns[i], row)) {
+                        encoder.append(nullKey);
+                    } else {
+                        encoder.appendTextAt(columns[i], row);
+                    }
+                    encoder.writeCsvCellTo(writer);
+                }
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            logger.error("{} appendColumns error when writing to file {}", this.getClass().getSimpleName(), filePath, e);
+            throw e;
+        }
+    }
+
+    private void writeHeader(List<String> fieldNameList) throws IOException {
+        header = fieldNameList;
+        writer.write(String.join(separator, fieldNameList));
+        writer.newLine();
+    }
+
+    @Override
+    public long getWrittenSize() {
+        return writer.getByteCount();
+    }
+
     @Override
     public String getFilePath() {
         return filePath;
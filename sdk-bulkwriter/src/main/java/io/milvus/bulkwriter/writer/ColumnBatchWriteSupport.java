@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter.writer;
+
+import io.milvus.bulkwriter.ColumnBatch;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.GroupWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the records of a {@link ParquetFileWriter}: a {@link Group} for a row given by appendRow(),
+ * a {@link Cursor} on a row of a {@link ColumnBatch} for appendColumns().
+ * <p>
+ * The rows of a batch are sent to the record consumer straight from the column arrays, no Group
+ * and no boxed value is created. A list follows the 3-level layout declared by
+ * ParquetUtils.parseCollectionSchema(): "optional group name (LIST) { repeated group list { optional element } }".
+ */
+class ColumnBatchWriteSupport extends WriteSupport<Object> {
+    private static final String LIST_FIELD = "list";
+    private static final String ELEMENT_FIELD = "element";
+
+    private final MessageType messageType;
+    private RecordConsumer recordConsumer;
+    private GroupWriter groupWriter;
+
+    ColumnBatchWriteSupport(MessageType messageType) {
+        this.messageType = messageType;
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(messageType, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.recordConsumer = recordConsumer;
+        this.groupWriter = new GroupWriter(recordConsumer, messageType);
+    }
+
+    @Override
+    public void write(Object record) {
+        if (record instanceof Group) {
+            groupWriter.write((Group) record);
+        } else {
+            writeRow((Cursor) record);
+        }
+    }
+
+    private void writeRow(Cursor cursor) {
+        int row = cursor.row;
+        recordConsumer.startMessage();
+        for (int i = 0; i < cursor.columns.length; i++) {
+            Object column = cursor.columns[i];
+            if (column == null || isNull(column, row)) {
+                continue;
+            }
+            String fieldName = cursor.fieldNames[i];
+            int fieldIndex = cursor.fieldIndexes[i];
+            recordConsumer.startField(fieldName, fieldIndex);
+            writeValue(column, row);
+            recordConsumer.endField(fieldName, fieldIndex);
+        }
+        recordConsumer.endMessage();
+    }
+
+    private static boolean isNull(Object column, int row) {
+        return column instanceof Object[] && ((Object[]) column)[row] == null;
+    }
+
+    private void writeValue(Object column, int row) {
+        if (column instanceof long[]) {
+            recordConsumer.addLong(((long[]) column)[row]);
+        } else if (column instanceof int[]) {
+            recordConsumer.addInteger(((int[]) column)[row]);
+        } else if (column instanceof short[]) {
+            recordConsumer.addInteger(((short[]) column)[row]);
+        } else if (column instanceof boolean[]) {
+            recordConsumer.addBoolean(((boolean[]) column)[row]);
+        } else if (column instanceof float[]) {
+            recordConsumer.addFloat(((float[]) column)[row]);
+        } else if (column instanceof double[]) {
+            recordConsumer.addDouble(((double[]) column)[row]);
+        } else if (column instanceof float[][]) {
+            writeFloatList(((float[][]) column)[row]);
+        } else if (column instanceof byte[][]) {
+            writeByteList(((byte[][]) column)[row]);
+        } else if (column instanceof ColumnBatch.PackedVectors) {
+            writePackedList((ColumnBatch.PackedVectors) column, row);
+        } else {
+            writeObject(((Object[]) column)[row]);
+        }
+    }
+
+    private void writeObject(Object value) {
+        if (value instanceof String) {
+            recordConsumer.addBinary(Binary.fromString((String) value));
+        } else if (value instanceof Long) {
+            recordConsumer.addLong((Long) value);
+        } else if (value instanceof Integer) {
+            recordConsumer.addInteger((Integer) value);
+        } else if (value instanceof Short) {
+            recordConsumer.addInteger((Short) value);
+        } else if (value instanceof Boolean) {
+            recordConsumer.addBoolean((Boolean) value);
+        } else if (value instanceof Float) {
+            recordConsumer.addFloat((Float) value);
+        } else if (value instanceof Double) {
+            recordConsumer.addDouble((Double) value);
+        } else {
+            throw new IllegalArgumentException("Unsupported column value type: " + value.getClass().getName());
+        }
+    }
+
+    private void writeFloatList(float[] values) {
+        recordConsumer.startGroup();
+        if (values.length > 0) {
+            recordConsumer.startField(LIST_FIELD, 0);
+            for (float value : values) {
+                recordConsumer.startGroup();
+                recordConsumer.startField(ELEMENT_FIELD, 0);
+                recordConsumer.addFloat(value);
+                recordConsumer.endField(ELEMENT_FIELD, 0);
+                recordConsumer.endGroup();
+            }
+            recordConsumer.endField(LIST_FIELD, 0);
+        }
+        recordConsumer.endGroup();
+    }
+
+    // a byte is stored as a signed INT32, the same as appendRow() does
+    private void writeByteList(byte[] values) {
+        recordConsumer.startGroup();
+        if (values.length > 0) {
+            recordConsumer.startField(LIST_FIELD, 0);
+            for (byte value : values) {
+                recordConsumer.startGroup();
+                recordConsumer.startField(ELEMENT_FIELD, 0);
+                recordConsumer.addInteger(value);
+                recordConsumer.endField(ELEMENT_FIELD, 0);
+                recordConsumer.endGroup();
+            }
+            recordConsumer.endField(LIST_FIELD, 0);
+        }
+        recordConsumer.endGroup();
+    }
+
+    // the vector of a row is read from the packed buffer at its offset
+    private void writePackedList(ColumnBatch.PackedVectors vectors, int row) {
+        int offset = vectors.offset(row);
+        recordConsumer.startGroup();
+        if (vectors.getWidth() > 0) {
+            recordConsumer.startField(LIST_FIELD, 0);
+            for (int i = offset; i < offset + vectors.getWidth(); i++) {
+                recordConsumer.startGroup();
+                recordConsumer.startField(ELEMENT_FIELD, 0);
+                if (vectors.isFloat()) {
+                    recordConsumer.addFloat(vectors.getFloats().get(i));
+                } else {
+                    recordConsumer.addInteger(vectors.getBytes().get(i));
+                }
+                recordConsumer.endField(ELEMENT_FIELD, 0);
+                recordConsumer.endGroup();
+            }
+            recordConsumer.endField(LIST_FIELD, 0);
+        }
+        recordConsumer.endGroup();
+    }
+
+    /**
+     * Points at a row of a column batch, reused for all the rows of the batch.
+     */
+    static class Cursor {
+        private final String[] fieldNames;
+        private final int[] fieldIndexes;
+        private final Object[] columns;
+        private int row;
+
+        Cursor(ColumnBatch batch, MessageType messageType) {
+            Map<String, Object> batchColumns = batch.getColumns();
+            this.fieldNames = new String[batchColumns.size()];
+            this.fieldIndexes = new int[batchColumns.size()];
+            this.columns = new Object[batchColumns.size()];
+            int i = 0;
+            for (Map.Entry<String, Object> entry : batchColumns.entrySet()) {
+                fieldNames[i] = entry.getKey();
+                fieldIndexes[i] = messageType.getFieldIndex(entry.getKey());
+                columns[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        void moveTo(int row) {
+            this.row = row;
+        }
+    }
+}
@@ -1,12 +1,46 @@
 package io.milvus.bulkwriter.writer;
 
+import io.milvus.bulkwriter.ColumnBatch;
+
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public interface FormatFileWriter {
     void appendRow(Map<String, Object> rowValues, boolean firstWrite) throws IOException;
 
+    /**
+     * Appends the rows [fromRow, toRow) of a verified column batch. The columns are in the order
+     * the fields are written, a null column is null for all rows.
+     * The default implementation converts each row to a map, the writers override it to write
+     * from the arrays directly.
+     */
+    default void appendColumns(ColumnBatch batch, int fromRow, int toRow, boolean firstWrite) throws IOException {
+        Map<String, Object> columns = batch.getColumns();
+        for (int row = fromRow; row < toRow; row++) {
+            Map<String, Object> rowValues = new HashMap<>();
+            for (Map.Entry<String, Object> entry : columns.entrySet()) {
+                rowValues.put(entry.getKey(), ColumnBatch.valueAt(entry.getValue(), row));
+            }
+            appendRow(rowValues, firstWrite && row == fromRow);
+        }
+    }
+
+    /**
+     * @return the bytes written into the file so far, including the rows still buffered by the writer
+     */
+    long getWrittenSize();
+
     String getFilePath();
 
+    /**
+     * @return the files of the chunk, the file of {@link #getFilePath()} unless the format writes a file per field
+     */
+    default List<String> getFilePaths() {
+        return Collections.singletonList(getFilePath());
+    }
+
     void close() throws IOException;
 }
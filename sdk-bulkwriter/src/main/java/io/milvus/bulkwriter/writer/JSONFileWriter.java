@@ -1,13 +1,10 @@
 package io.milvus.bulkwriter.writer;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import io.milvus.bulkwriter.common.utils.WriterUtils;
+import io.milvus.bulkwriter.ColumnBatch;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.Map;
 
@@ -16,7 +13,9 @@ import static io.milvus.param.Constant.DYNAMIC_FIELD_NAME;
 public class JSONFileWriter implements FormatFileWriter {
     private static final Logger logger = LoggerFactory.getLogger(JSONFileWriter.class);
 
-    private BufferedWriter writer;
+    // a row is encoded into a reused buffer, no String is created per row or per value
+    private final TextEncoder encoder = new TextEncoder();
+    private CountingWriter writer;
     private CreateCollectionReq.CollectionSchema collectionSchema;
     private String filePath;
 
@@ -31,30 +30,69 @@ public class JSONFileWriter implements FormatFileWriter {
     }
 
     private void initWriter() throws IOException {
-        this.writer = new BufferedWriter(new java.io.FileWriter(filePath));
+        this.writer = new CountingWriter(filePath);
     }
 
     @Override
     public void appendRow(Map<String, Object> rowValues, boolean firstWrite) throws IOException {
-        Gson gson = new GsonBuilder().serializeNulls().create();
         rowValues.keySet().removeIf(key -> key.equals(DYNAMIC_FIELD_NAME) && !this.collectionSchema.isEnableDynamicField());
-        rowValues.replaceAll((key, value) -> WriterUtils.normalizeValue(value));
 
         try {
-            if (firstWrite) {
-                writer.write("[\n");
-            } else {
-                writer.write(",");
-                writer.newLine();
-            }
-            String json = gson.toJson(rowValues);
-            writer.write(json);
+            appendSeparator(firstWrite);
+            encoder.reset();
+            encoder.appendJson(rowValues);
+            encoder.writeTo(writer);
         } catch (IOException e) {
             logger.error("{} appendRow error when writing to file {}", this.getClass().getSimpleName(), filePath, e);
             throw e;
         }
     }
 
+    @Override
+    public void appendColumns(ColumnBatch batch, int fromRow, int toRow, boolean firstWrite) throws IOException {
+        Map<String, Object> columns = batch.getColumns();
+        try {
+            for (int row = fromRow; row < toRow; row++) {
+                appendSeparator(firstWrite && row == fromRow);
+                encoder.reset();
+                encoder.append("{");
+                boolean firstColumn = true;
+                for (Map.Entry<String, Object> entry : columns.entrySet()) {
+                    if (!firstColumn) {
+                        encoder.append(",");
+                    }
+                    firstColumn = false;
+                    encoder.appendJson(entry.getKey());
+                    encoder.append(":");
+                    if (TextEncoder.isNullAt(entry.getValue(), row)) {
+                        encoder.appendJson(null);
+                    } else {
+                        encoder.appendJsonAt(entry.getValue(), row);
+                    }
+                }
+                encoder.append("}");
+                encoder.writeTo(writer);
+            }
+        } catch (IOException e) {
+            logger.error("{} appendColumns error when writing to file {}", this.getClass().getSimpleName(), filePath, e);
+            throw e;
+        }
+    }
+
+    private void appendSeparator(boolean firstWrite) throws IOException {
+        if (firstWrite) {
+            writer.write("[\n");
+        } else {
+            writer.write(",");
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public long getWrittenSize() {
+        return writer.getByteCount();
+    }
+
     @Override
     public String getFilePath() {
         return filePath;
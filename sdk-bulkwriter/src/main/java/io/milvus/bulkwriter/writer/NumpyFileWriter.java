@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.milvus.bulkwriter.writer;
+
+import io.milvus.bulkwriter.ColumnBatch;
+import io.milvus.bulkwriter.common.utils.V2AdapterUtils;
+import io.milvus.common.utils.ExceptionUtils;
+import io.milvus.v2.common.DataType;
+import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.milvus.param.Constant.DYNAMIC_FIELD_NAME;
+
+/**
+ * Writes a chunk as a directory of NumPy files, one "field_name.npy" per field, the layout of the
+ * Milvus numpy import.
+ * <p>
+ * A scalar field is a 1-D array, a vector field a 2-D array of shape (rows, width): float32 for a float
+ * vector, uint8 for a binary vector (dim/8 bytes), a float16 or bfloat16 vector (dim*2 bytes), int8
+ * for an int8 vector. VarChar, JSON and the dynamic field are fixed-width unicode arrays ("&lt;U").
+ * <p>
+ * The fixed-width values are streamed to the files behind a header of a reserved size, the header
+ * gets the final shape on close. The strings are kept until close, the width of a unicode array is
+ * the length of its longest string. A NumPy array has no null, a null value is rejected.
+ */
+public class NumpyFileWriter implements FormatFileWriter {
+    private static final Logger logger = LoggerFactory.getLogger(NumpyFileWriter.class);
+
+    private static final byte[] MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0};
+    // magic, version and header length, then the header dict padded with spaces and ended by '\n'
+    private static final int HEADER_BYTES = 128;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final String dirPath;
+    private final Map<String, NpyColumn> columns = new LinkedHashMap<>();
+    private long rowCount;
+
+    public NumpyFileWriter(CreateCollectionReq.CollectionSchema collectionSchema, String filePathPrefix) throws IOException {
+        this.dirPath = filePathPrefix;
+        Path dir = Paths.get(dirPath);
+        Files.createDirectories(dir);
+
+        if (CollectionUtils.isNotEmpty(collectionSchema.getStructFields())) {
+            ExceptionUtils.throwUnExpectedException("NUMPY file type does not support struct fields");
+        }
+        List<String> outputFieldNames = V2AdapterUtils.getOutputFieldNames(collectionSchema);
+        for (CreateCollectionReq.FieldSchema field : collectionSchema.getFieldSchemaList()) {
+            if ((field.getIsPrimaryKey() && field.getAutoID()) || outputFieldNames.contains(field.getName())) {
+                continue;
+            }
+            Path filePath = dir.resolve(field.getName() + ".npy");
+            columns.put(field.getName(), newColumn(field, filePath));
+        }
+        if (collectionSchema.isEnableDynamicField()) {
+            columns.put(DYNAMIC_FIELD_NAME, new StringColumn(DYNAMIC_FIELD_NAME, dir.resolve(DYNAMIC_FIELD_NAME + ".npy")));
+        }
+    }
+
+    private static NpyColumn newColumn(CreateCollectionReq.FieldSchema field, Path filePath) throws IOException {
+        String name = field.getName();
+        DataType dataType = field.getDataType();
+        int dim = field.getDimension() == null ? 0 : field.getDimension();
+        switch (dataType) {
+            case Bool:
+                return new FixedColumn(name, dataType, filePath, "|b1", 1, 0);
+            case Int8:
+                return new FixedColumn(name, dataType, filePath, "|i1", 1, 0);
+            case Int16:
+                return new FixedColumn(name, dataType, filePath, "<i2", 2, 0);
+            case Int32:
+                return new FixedColumn(name, dataType, filePath, "<i4", 4, 0);
+            case Int64:
+                return new FixedColumn(name, dataType, filePath, "<i8", 8, 0);
+            case Float:
+                return new FixedColumn(name, dataType, filePath, "<f4", 4, 0);
+            case Double:
+                return new FixedColumn(name, dataType, filePath, "<f8", 8, 0);
+            case FloatVector:
+                return new FixedColumn(name, dataType, filePath, "<f4", 4, dim);
+            case BinaryVector:
+                return new FixedColumn(name, dataType, filePath, "|u1", 1, dim / 8);
+            case Float16Vector:
+            case BFloat16Vector:
+                return new FixedColumn(name, dataType, filePath, "|u1", 1, dim * 2);
+            case Int8Vector:
+                return new FixedColumn(name, dataType, filePath, "|i1", 1, dim);
+            case VarChar:
+            case JSON:
+                return new StringColumn(name, filePath);
+            default:
+                String msg = String.format("NUMPY file type does not support the data type %s of field '%s'", dataType, name);
+                ExceptionUtils.throwUnExpectedException(msg);
+                return null;
+        }
+    }
+
+    @Override
+    public void appendRow(Map<String, Object> rowValues, boolean firstWrite) throws IOException {
+        try {
+            for (NpyColumn column : columns.values()) {
+                column.append(rowValues.get(column.name));
+            }
+            rowCount++;
+        } catch (IOException e) {
+            logger.error("{} appendRow error when writing to directory {}", this.getClass().getSimpleName(), dirPath, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void appendColumns(ColumnBatch batch, int fromRow, int toRow, boolean firstWrite) throws IOException {
+        try {
+            for (NpyColumn column : columns.values()) {
+                Object values = batch.getColumn(column.name);
+                for (int row = fromRow; row < toRow; row++) {
+                    column.append(values, row);
+                }
+            }
+            rowCount += toRow - fromRow;
+        } catch (IOException e) {
+            logger.error("{} appendColumns error when writing to directory {}", this.getClass().getSimpleName(), dirPath, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getWrittenSize() {
+        long size = 0;
+        for (NpyColumn column : columns.values()) {
+            size += HEADER_BYTES + column.dataSize(rowCount);
+        }
+        return size;
+    }
+
+    /**
+     * @return the directory of the chunk
+     */
+    @Override
+    public String getFilePath() {
+        return dirPath;
+    }
+
+    @Override
+    public List<String> getFilePaths() {
+        List<String> filePaths = new ArrayList<>();
+        for (NpyColumn column : columns.values()) {
+            filePaths.add(column.filePath.toString());
+        }
+        return filePaths;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (NpyColumn column : columns.values()) {
+            column.close(rowCount);
+        }
+    }
+
+    static byte[] header(String descr, long rowCount, int width) {
+        String shape = width > 0 ? String.format("(%d, %d)", rowCount, width) : String.format("(%d,)", rowCount);
+        StringBuilder dict = new StringBuilder(String.format("{'descr': '%s', 'fortran_order': False, 'shape': %s, }", descr, shape));
+        int dictBytes = HEADER_BYTES - MAGIC.length - 2;
+        while (dict.length() < dictBytes - 1) {
+            dict.append(' ');
+        }
+        dict.append('\n');
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC);
+        buffer.putShort((short) dictBytes);
+        buffer.put(dict.toString().getBytes(StandardCharsets.US_ASCII));
+        buffer.flip();
+        return buffer.array();
+    }
+
+    private static void rejectNull(String name) {
+        String msg = String.format("NUMPY file type does not support null value, field '%s' has a null value", name);
+        ExceptionUtils.throwUnExpectedException(msg);
+    }
+
+    private abstract static class NpyColumn {
+        protected final String name;
+        protected final Path filePath;
+
+        NpyColumn(String name, Path filePath) {
+            this.name = name;
+            this.filePath = filePath;
+        }
+
+        // a value of a row given to appendRow()
+        abstract void append(Object value) throws IOException;
+
+        // a row of a column batch
+        abstract void append(Object column, int row) throws IOException;
+
+        abstract long dataSize(long rowCount);
+
+        abstract void close(long rowCount) throws IOException;
+    }
+
+    /**
+     * A column of fixed-width values, written to the file as they come.
+     */
+    private static class FixedColumn extends NpyColumn {
+        private final DataType dataType;
+        private final String descr;
+        private final int itemBytes;
+        // the number of items of a row, 0 for a scalar
+        private final int width;
+        private final int rowBytes;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        FixedColumn(String name, DataType dataType, Path filePath, String descr, int itemBytes, int width) throws IOException {
+            super(name, filePath);
+            this.dataType = dataType;
+            this.descr = descr;
+            this.itemBytes = itemBytes;
+            this.width = width;
+            this.rowBytes = itemBytes * Math.max(width, 1);
+            this.channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+            // the header is written on close, when the row count is known
+            channel.position(HEADER_BYTES);
+        }
+
+        private void reserve() throws IOException {
+            if (buffer.remaining() < rowBytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        void append(Object value) throws IOException {
+            if (value == null) {
+                rejectNull(name);
+            }
+            reserve();
+            switch (dataType) {
+                case Bool:
+                    buffer.put((byte) ((Boolean) value ? 1 : 0));
+                    break;
+                case Int8:
+                    buffer.put(((Number) value).byteValue());
+                    break;
+                case Int16:
+                    buffer.putShort(((Number) value).shortValue());
+                    break;
+                case Int32:
+                    buffer.putInt(((Number) value).intValue());
+                    break;
+                case Int64:
+                    buffer.putLong(((Number) value).longValue());
+                    break;
+                case Float:
+                    buffer.putFloat(((Number) value).floatValue());
+                    break;
+                case Double:
+                    buffer.putDouble(((Number) value).doubleValue());
+                    break;
+                case FloatVector:
+                    for (Object item : (List<?>) value) {
+                        buffer.putFloat(((Number) item).floatValue());
+                    }
+                    break;
+                default:
+                    // a byte vector, verified to have rowBytes bytes
+                    buffer.put(((ByteBuffer) value).array(), 0, rowBytes);
+            }
+        }
+
+        @Override
+        void append(Object column, int row) throws IOException {
+            if (column instanceof long[]) {
+                reserve();
+                buffer.putLong(((long[]) column)[row]);
+            } else if (column instanceof int[]) {
+                reserve();
+                buffer.putInt(((int[]) column)[row]);
+            } else if (column instanceof short[]) {
+                reserve();
+                if (dataType == DataType.Int8) {
+                    buffer.put((byte) ((short[]) column)[row]);
+                } else {
+                    buffer.putShort(((short[]) column)[row]);
+                }
+            } else if (column instanceof boolean[]) {
+                reserve();
+                buffer.put((byte) (((boolean[]) column)[row] ? 1 : 0));
+            } else if (column instanceof float[]) {
+                reserve();
+                buffer.putFloat(((float[]) column)[row]);
+            } else if (column instanceof double[]) {
+                reserve();
+                buffer.putDouble(((double[]) column)[row]);
+            } else if (column instanceof float[][]) {
+                float[] vector = ((float[][]) column)[row];
+                if (vector == null) {
+                    rejectNull(name);
+                }
+                reserve();
+                for (float item : vector) {
+                    buffer.putFloat(item);
+                }
+            } else if (column instanceof byte[][]) {
+                byte[] vector = ((byte[][]) column)[row];
+                if (vector == null) {
+                    rejectNull(name);
+                }
+                reserve();
+                buffer.put(vector, 0, rowBytes);
+            } else if (column instanceof ColumnBatch.PackedVectors) {
+                // the vector of a row is read from the packed buffer at its offset
+                ColumnBatch.PackedVectors vectors = (ColumnBatch.PackedVectors) column;
+                int offset = vectors.offset(row);
+                reserve();
+                for (int i = offset; i < offset + vectors.getWidth(); i++) {
+                    if (vectors.isFloat()) {
+                        buffer.putFloat(vectors.getFloats().get(i));
+                    } else {
+                        buffer.put(vectors.getBytes().get(i));
+                    }
+                }
+            } else {
+                append(column == null ? null : ((Object[]) column)[row]);
+            }
+        }
+
+        @Override
+        long dataSize(long rowCount) {
+            return rowCount * rowBytes;
+        }
+
+        @Override
+        void close(long rowCount) throws IOException {
+            try {
+                flush();
+                channel.write(ByteBuffer.wrap(header(descr, rowCount, width)), 0);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * A column of strings, a NumPy unicode array has the width of the longest string, the strings
+     * are written on close.
+     */
+    private static class StringColumn extends NpyColumn {
+        private final List<String> values = new ArrayList<>();
+        // the number of code points of the longest string
+        private int width = 1;
+
+        StringColumn(String name, Path filePath) {
+            super(name, filePath);
+        }
+
+        @Override
+        void append(Object value) {
+            if (value == null) {
+                rejectNull(name);
+            }
+            String str = value.toString();
+            width = Math.max(width, str.codePointCount(0, str.length()));
+            values.add(str);
+        }
+
+        @Override
+        void append(Object column, int row) {
+            append(column == null ? null : ((Object[]) column)[row]);
+        }
+
+        @Override
+        long dataSize(long rowCount) {
+            return rowCount * width * 4L;
+        }
+
+        @Override
+        void close(long rowCount) throws IOException {
+            // each string is UTF-32LE, padded with zeros to the width
+            try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(header("<U" + width, rowCount, 0)));
+                int rowBytes = width * 4;
+                ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, rowBytes)).order(ByteOrder.LITTLE_ENDIAN);
+                for (String str : values) {
+                    if (buffer.remaining() < rowBytes) {
+                        writeFully(channel, buffer);
+                    }
+                    int end = buffer.position() + rowBytes;
+                    str.codePoints().forEach(buffer::putInt);
+                    while (buffer.position() < end) {
+                        buffer.putInt(0);
+                    }
+                }
+                writeFully(channel, buffer);
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
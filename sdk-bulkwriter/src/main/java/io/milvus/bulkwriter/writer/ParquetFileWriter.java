@@ -1,14 +1,17 @@
 package io.milvus.bulkwriter.writer;
 
+import io.milvus.bulkwriter.ColumnBatch;
+import io.milvus.bulkwriter.common.clientenum.ParquetCompression;
 import io.milvus.bulkwriter.common.utils.ParquetUtils;
 import io.milvus.common.utils.JsonUtils;
+import io.milvus.exception.ParamException;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.parquet.example.data.Group;
 import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 import org.apache.parquet.hadoop.ParquetWriter;
-import org.apache.parquet.hadoop.example.GroupWriteSupport;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.schema.MessageType;
 import org.slf4j.Logger;
@@ -16,6 +19,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
@@ -23,18 +28,36 @@ import java.util.stream.Collectors;
 
 import static io.milvus.param.Constant.DYNAMIC_FIELD_NAME;
 
+/**
+ * Writes a parquet file. The file layout is set by these config keys, the same keys as parquet-hadoop:
+ * <ul>
+ *     <li>{@link ParquetOutputFormat#COMPRESSION}: a {@link ParquetCompression} or its name, UNCOMPRESSED by default</li>
+ *     <li>{@link ParquetOutputFormat#BLOCK_SIZE}: the row group size in bytes, 16 MB by default</li>
+ *     <li>{@link ParquetOutputFormat#PAGE_SIZE}: the page size in bytes, also used for the dictionary pages, 2 MB by default</li>
+ *     <li>{@link ParquetOutputFormat#ENABLE_DICTIONARY}: whether dictionary encoding is used, true by default</li>
+ * </ul>
+ */
 public class ParquetFileWriter implements FormatFileWriter {
     private static final Logger logger = LoggerFactory.getLogger(ParquetFileWriter.class);
 
-    private ParquetWriter<Group> writer;
+    private static final long DEFAULT_ROW_GROUP_BYTES = 16 * 1024 * 1024;
+    private static final int DEFAULT_PAGE_BYTES = 2 * 1024 * 1024;
+
+    private ParquetWriter<Object> writer;
     private CreateCollectionReq.CollectionSchema collectionSchema;
     private String filePath;
     private MessageType messageType;
     private Map<String, CreateCollectionReq.FieldSchema> nameFieldType;
     private Map<String, CreateCollectionReq.StructFieldSchema> nameStructFieldType;
+    private Map<String, Object> config;
 
     public ParquetFileWriter(CreateCollectionReq.CollectionSchema collectionSchema, String filePathPrefix) throws IOException {
+        this(collectionSchema, filePathPrefix, Collections.emptyMap());
+    }
+
+    public ParquetFileWriter(CreateCollectionReq.CollectionSchema collectionSchema, String filePathPrefix, Map<String, Object> config) throws IOException {
         this.collectionSchema = collectionSchema;
+        this.config = config == null ? Collections.emptyMap() : config;
         initFilePath(filePathPrefix);
         initNameFieldType();
         initMessageType();
@@ -51,25 +74,65 @@ public class ParquetFileWriter implements FormatFileWriter {
     }
 
     private void initWriter() throws IOException {
-        int rowGroupBytes = 16 * 1024 * 1024;
+        CompressionCodecName codec = getCompressionCodec();
+        long rowGroupBytes = getPositiveSize(ParquetOutputFormat.BLOCK_SIZE, DEFAULT_ROW_GROUP_BYTES);
+        long pageBytes = getPositiveSize(ParquetOutputFormat.PAGE_SIZE, DEFAULT_PAGE_BYTES);
+        if (pageBytes > Integer.MAX_VALUE) {
+            throw new ParamException("Parquet page size cannot exceed " + Integer.MAX_VALUE + " bytes");
+        }
+        Object dictionary = config.get(ParquetOutputFormat.ENABLE_DICTIONARY);
+        boolean enableDictionary = dictionary == null ? ParquetWriter.DEFAULT_IS_DICTIONARY_ENABLED
+                : Boolean.parseBoolean(dictionary.toString());
 
-        // declare and define the ParquetWriter.
+        // declare and define the ParquetWriter, the rows of a column batch are written without the Group model
         Configuration configuration = ParquetUtils.getParquetConfiguration();
-        GroupWriteSupport.setSchema(messageType, configuration);
-        GroupWriteSupport writeSupport = new GroupWriteSupport();
         this.writer = new ParquetWriter<>(new Path(filePath),
                 org.apache.parquet.hadoop.ParquetFileWriter.Mode.CREATE,
-                writeSupport,
-                CompressionCodecName.UNCOMPRESSED,
-                rowGroupBytes,
-                2 * 1024 * 1024,
-                2 * 1024 * 1024,
-                ParquetWriter.DEFAULT_IS_DICTIONARY_ENABLED,
+                new ColumnBatchWriteSupport(messageType),
+                codec,
+                (int) Math.min(rowGroupBytes, Integer.MAX_VALUE),
+                (int) pageBytes,
+                (int) pageBytes,
+                enableDictionary,
                 ParquetWriter.DEFAULT_IS_VALIDATING_ENABLED,
                 ParquetWriter.DEFAULT_WRITER_VERSION,
                 configuration);
     }
 
+    private CompressionCodecName getCompressionCodec() {
+        Object compression = config.get(ParquetOutputFormat.COMPRESSION);
+        if (compression == null) {
+            return CompressionCodecName.UNCOMPRESSED;
+        }
+        if (compression instanceof ParquetCompression) {
+            return ((ParquetCompression) compression).getCodecName();
+        }
+        try {
+            return ParquetCompression.valueOf(compression.toString().trim().toUpperCase()).getCodecName();
+        } catch (IllegalArgumentException e) {
+            String msg = String.format("Unsupported parquet compression '%s', supported values: %s",
+                    compression, Arrays.toString(ParquetCompression.values()));
+            throw new ParamException(msg);
+        }
+    }
+
+    private long getPositiveSize(String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        long size;
+        try {
+            size = (value instanceof Number) ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new ParamException(String.format("Illegal value of '%s': %s", key, value));
+        }
+        if (size <= 0) {
+            throw new ParamException(String.format("Value of '%s' must be positive: %s", key, value));
+        }
+        return size;
+    }
+
     private void initNameFieldType() {
         Map<String, CreateCollectionReq.FieldSchema> nameFieldType = collectionSchema.getFieldSchemaList().stream()
                 .collect(Collectors.toMap(CreateCollectionReq.FieldSchema::getName, e -> e));
@@ -109,6 +172,28 @@ public class ParquetFileWriter implements FormatFileWriter {
         }
     }
 
+    @Override
+    public void appendColumns(ColumnBatch batch, int fromRow, int toRow, boolean firstWrite) throws IOException {
+        ColumnBatchWriteSupport.Cursor cursor = new ColumnBatchWriteSupport.Cursor(batch, messageType);
+        try {
+            for (int row = fromRow; row < toRow; row++) {
+                cursor.moveTo(row);
+                writer.write(cursor);
+            }
+        } catch (IOException e) {
+            logger.error("{} appendColumns error when writing to file {}", this.getClass().getSimpleName(), filePath, e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the bytes of the flushed row groups plus the encoded bytes buffered for the current row group
+     */
+    @Override
+    public long getWrittenSize() {
+        return writer.getDataSize();
+    }
+
     @Override
     public String getFilePath() {
         return filePath;
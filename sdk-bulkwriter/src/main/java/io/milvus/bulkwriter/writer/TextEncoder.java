@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter.writer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.milvus.bulkwriter.ColumnBatch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the values of a row as text into a reusable buffer, for {@link JSONFileWriter} and {@link CSVFileWriter}.
+ * <p>
+ * The text is the same as gson writes with serializeNulls(): numbers in the form of Float.toString() and
+ * Double.toString(), strings escaped the html-safe way, a ByteBuffer as a list of signed integers. A number
+ * is formatted by StringBuilder.append() straight into the buffer, no String is created for a value, and
+ * the buffer is copied to the file through a reused char array.
+ */
+class TextEncoder {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    // for the values gson knows but a row doesn't hold
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+    private final StringBuilder text = new StringBuilder(1024);
+    private char[] chars = new char[1024];
+
+    void reset() {
+        text.setLength(0);
+    }
+
+    int length() {
+        return text.length();
+    }
+
+    TextEncoder append(String raw) {
+        text.append(raw);
+        return this;
+    }
+
+    /**
+     * Appends a value as JSON, a string is quoted.
+     */
+    void appendJson(Object value) {
+        if (value == null) {
+            text.append("null");
+        } else if (value instanceof String) {
+            appendString((String) value);
+        } else if (value instanceof Float) {
+            appendFloat((Float) value, true);
+        } else if (value instanceof Double) {
+            appendDouble((Double) value, true);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            text.append(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            text.append(((Boolean) value).booleanValue());
+        } else if (value instanceof List) {
+            text.append('[');
+            List<?> values = (List<?>) value;
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    text.append(',');
+                }
+                appendJson(values.get(i));
+            }
+            text.append(']');
+        } else if (value instanceof Map) {
+            text.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first) {
+                    text.append(',');
+                }
+                first = false;
+                appendString(String.valueOf(entry.getKey()));
+                text.append(':');
+                appendJson(entry.getValue());
+            }
+            text.append('}');
+        } else if (value instanceof ByteBuffer) {
+            // the whole backing array as signed integers, whatever the position of the buffer
+            appendBytes(((ByteBuffer) value).array());
+        } else {
+            text.append(GSON.toJson(value));
+        }
+    }
+
+    /**
+     * Appends a value as a CSV cell text before quoting: a string as is, a list or a map as JSON.
+     */
+    void appendText(Object value) {
+        if (value instanceof String) {
+            text.append((String) value);
+        } else if (value instanceof Float) {
+            appendFloat((Float) value, false);
+        } else if (value instanceof Double) {
+            appendDouble((Double) value, false);
+        } else if (value instanceof List || value instanceof Map || value instanceof ByteBuffer) {
+            appendJson(value);
+        } else {
+            text.append(value);
+        }
+    }
+
+    /**
+     * Appends the value of a row of a {@link ColumnBatch} column as JSON.
+     */
+    void appendJsonAt(Object column, int row) {
+        if (!appendPrimitiveAt(column, row, true)) {
+            appendJson(((Object[]) column)[row]);
+        }
+    }
+
+    /**
+     * Appends the value of a row of a {@link ColumnBatch} column as a CSV cell text.
+     */
+    void appendTextAt(Object column, int row) {
+        if (!appendPrimitiveAt(column, row, false)) {
+            appendText(((Object[]) column)[row]);
+        }
+    }
+
+    static boolean isNullAt(Object column, int row) {
+        return column == null || (column instanceof Object[] && ((Object[]) column)[row] == null);
+    }
+
+    private boolean appendPrimitiveAt(Object column, int row, boolean json) {
+        if (column instanceof long[]) {
+            text.append(((long[]) column)[row]);
+        } else if (column instanceof int[]) {
+            text.append(((int[]) column)[row]);
+        } else if (column instanceof short[]) {
+            text.append(((short[]) column)[row]);
+        } else if (column instanceof boolean[]) {
+            text.append(((boolean[]) column)[row]);
+        } else if (column instanceof float[]) {
+            appendFloat(((float[]) column)[row], json);
+        } else if (column instanceof double[]) {
+            appendDouble(((double[]) column)[row], json);
+        } else if (column instanceof float[][]) {
+            float[] values = ((float[][]) column)[row];
+            text.append('[');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    text.append(',');
+                }
+                appendFloat(values[i], true);
+            }
+            text.append(']');
+        } else if (column instanceof byte[][]) {
+            appendBytes(((byte[][]) column)[row]);
+        } else if (column instanceof ColumnBatch.PackedVectors) {
+            appendPacked((ColumnBatch.PackedVectors) column, row);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // bytes are written as signed integers
+    private void appendBytes(byte[] values) {
+        text.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(values[i]);
+        }
+        text.append(']');
+    }
+
+    // the vector of a row is read from the packed buffer at its offset, bytes are written as signed integers
+    private void appendPacked(ColumnBatch.PackedVectors vectors, int row) {
+        int offset = vectors.offset(row);
+        text.append('[');
+        for (int i = offset; i < offset + vectors.getWidth(); i++) {
+            if (i > offset) {
+                text.append(',');
+            }
+            if (vectors.isFloat()) {
+                appendFloat(vectors.getFloats().get(i), true);
+            } else {
+                text.append(vectors.getBytes().get(i));
+            }
+        }
+        text.append(']');
+    }
+
+    private void appendFloat(float value, boolean json) {
+        if (json && (Float.isNaN(value) || Float.isInfinite(value))) {
+            throw new IllegalArgumentException("JSON forbids NaN and infinities: " + value);
+        }
+        text.append(value);
+    }
+
+    private void appendDouble(double value, boolean json) {
+        if (json && (Double.isNaN(value) || Double.isInfinite(value))) {
+            throw new IllegalArgumentException("JSON forbids NaN and infinities: " + value);
+        }
+        text.append(value);
+    }
+
+    private void appendString(String value) {
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    text.append("\\\"");
+                    break;
+                case '\\':
+                    text.append("\\\\");
+                    break;
+                case '\t':
+                    text.append("\\t");
+                    break;
+                case '\b':
+                    text.append("\\b");
+                    break;
+                case '\n':
+                    text.append("\\n");
+                    break;
+                case '\r':
+                    text.append("\\r");
+                    break;
+                case '\f':
+                    text.append("\\f");
+                    break;
+                case '<':
+                case '>':
+                case '&':
+                case '=':
+                case '\'':
+                case '\u2028':
+                case '\u2029':
+                    appendUnicodeEscape(c);
+                    break;
+                default:
+                    if (c < 0x20) {
+                        appendUnicodeEscape(c);
+                    } else {
+                        text.append(c);
+                    }
+            }
+        }
+        text.append('"');
+    }
+
+    private void appendUnicodeEscape(char c) {
+        text.append("\\u")
+                .append(HEX[(c >> 12) & 0xf])
+                .append(HEX[(c >> 8) & 0xf])
+                .append(HEX[(c >> 4) & 0xf])
+                .append(HEX[c & 0xf]);
+    }
+
+    /**
+     * Writes the text to the writer.
+     */
+    void writeTo(Writer writer) throws IOException {
+        int length = text.length();
+        ensureChars(length);
+        text.getChars(0, length, chars, 0);
+        writer.write(chars, 0, length);
+    }
+
+    /**
+     * Writes the text to the writer as a CSV cell: the surrounding double quotes of the text are dropped,
+     * an escaped double quote is unescaped, then all the double quotes are doubled and the cell is quoted.
+     * An empty text is written as nothing.
+     */
+    void writeCsvCellTo(Writer writer) throws IOException {
+        int from = 0;
+        int to = text.length();
+        if (to - from >= 2 && text.charAt(from) == '"' && text.charAt(to - 1) == '"') {
+            from++;
+            to--;
+        }
+        if (from == to) {
+            return;
+        }
+
+        // at most every char is doubled, plus the quotes of the cell
+        ensureChars((to - from) * 2 + 2);
+        int n = 0;
+        chars[n++] = '"';
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < to && text.charAt(i + 1) == '"') {
+                c = '"';
+                i++;
+            }
+            if (c == '"') {
+                chars[n++] = '"';
+            }
+            chars[n++] = c;
+        }
+        chars[n++] = '"';
+        writer.write(chars, 0, n);
+    }
+
+    private void ensureChars(int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+    }
+}
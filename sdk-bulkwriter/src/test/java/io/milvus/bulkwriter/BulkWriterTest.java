@@ -22,12 +22,15 @@ package io.milvus.bulkwriter;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
 import io.milvus.bulkwriter.common.clientenum.BulkFileType;
+import io.milvus.bulkwriter.common.clientenum.ParquetCompression;
 import io.milvus.bulkwriter.common.utils.GeneratorUtils;
 import io.milvus.bulkwriter.common.utils.ParquetReaderUtils;
 import io.milvus.bulkwriter.common.utils.V2AdapterUtils;
 import io.milvus.common.utils.Float16Utils;
 import io.milvus.common.utils.JsonUtils;
+import io.milvus.common.utils.VectorFileSource;
 import io.milvus.exception.MilvusException;
+import io.milvus.exception.ParamException;
 import io.milvus.param.Constant;
 import io.milvus.param.collection.CollectionSchemaParam;
 import io.milvus.param.collection.FieldType;
@@ -36,6 +39,13 @@ import io.milvus.v2.service.collection.request.AddFieldReq;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.util.Utf8;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -45,10 +55,15 @@ import java.io.IOException;
 import java.io.Reader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
 
 public class BulkWriterTest {
     private static final int DIMENSION = 32;
@@ -1318,4 +1333,958 @@ public class BulkWriterTest {
             Assertions.fail();
         }
     }
+
+    private static CreateCollectionReq.CollectionSchema buildColumnBatchSchema(boolean enableDynamicField) {
+        CreateCollectionReq.CollectionSchema schema = CreateCollectionReq.CollectionSchema.builder()
+                .enableDynamicField(enableDynamicField)
+                .build();
+        schema.addField(AddFieldReq.builder().fieldName("id").dataType(DataType.Int64).isPrimaryKey(true).build());
+        schema.addField(AddFieldReq.builder().fieldName("bool_field").dataType(DataType.Bool).build());
+        schema.addField(AddFieldReq.builder().fieldName("int8_field").dataType(DataType.Int8).build());
+        schema.addField(AddFieldReq.builder().fieldName("int32_field").dataType(DataType.Int32)
+                .isNullable(true).defaultValue(7).build());
+        schema.addField(AddFieldReq.builder().fieldName("float_field").dataType(DataType.Float).build());
+        schema.addField(AddFieldReq.builder().fieldName("double_field").dataType(DataType.Double).build());
+        schema.addField(AddFieldReq.builder().fieldName("varchar_field").dataType(DataType.VarChar)
+                .maxLength(64).isNullable(true).build());
+        schema.addField(AddFieldReq.builder().fieldName("json_field").dataType(DataType.JSON).build());
+        schema.addField(AddFieldReq.builder().fieldName("float_vector_field").dataType(DataType.FloatVector)
+                .dimension(DIMENSION).build());
+        schema.addField(AddFieldReq.builder().fieldName("binary_vector_field").dataType(DataType.BinaryVector)
+                .dimension(DIMENSION).build());
+        schema.addField(AddFieldReq.builder().fieldName("float16_vector_field").dataType(DataType.Float16Vector)
+                .dimension(DIMENSION).build());
+        schema.addField(AddFieldReq.builder().fieldName("int8_vector_field").dataType(DataType.Int8Vector)
+                .dimension(DIMENSION).build());
+        return schema;
+    }
+
+    // the same rows as JsonObjects and as a ColumnBatch
+    private static Pair<List<JsonObject>, ColumnBatch> buildColumnBatchData(int rowCount, boolean enableDynamicField) {
+        long[] ids = new long[rowCount];
+        boolean[] bools = new boolean[rowCount];
+        short[] int8s = new short[rowCount];
+        Integer[] int32s = new Integer[rowCount];
+        float[] floats = new float[rowCount];
+        double[] doubles = new double[rowCount];
+        String[] varchars = new String[rowCount];
+        String[] jsons = new String[rowCount];
+        String[] dynamics = new String[rowCount];
+        float[][] floatVectors = new float[rowCount][];
+        byte[][] binaryVectors = new byte[rowCount][];
+        ByteBuffer float16Vectors = ByteBuffer.allocate(rowCount * DIMENSION * 2);
+        byte[][] int8Vectors = new byte[rowCount][];
+
+        List<JsonObject> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = i;
+            bools[i] = i % 2 == 0;
+            int8s[i] = (short) (i % 128);
+            int32s[i] = i % 3 == 0 ? null : i * 10;
+            floats[i] = i / 3.0f;
+            doubles[i] = i / 7.0;
+            varchars[i] = i % 4 == 0 ? null : "varchar \"" + i + "\"";
+            jsons[i] = String.format("{\"dummy\":%d,\"ok\":\"name_%d\"}", i, i);
+            dynamics[i] = i % 5 == 0 ? null : String.format("{\"dynamic\":\"dynamic_%d\"}", i);
+            List<Float> floatVector = utils.generateFloatVector();
+            floatVectors[i] = new float[DIMENSION];
+            for (int k = 0; k < DIMENSION; k++) {
+                floatVectors[i][k] = floatVector.get(k);
+            }
+            binaryVectors[i] = utils.generateBinaryVector().array();
+            byte[] float16Vector = Float16Utils.f32VectorToFp16Buffer(utils.generateFloatVector()).array();
+            float16Vectors.put(float16Vector);
+            int8Vectors[i] = new byte[DIMENSION];
+            for (int k = 0; k < DIMENSION; k++) {
+                int8Vectors[i][k] = (byte) (k - i);
+            }
+
+            JsonObject row = new JsonObject();
+            row.addProperty("id", ids[i]);
+            row.addProperty("bool_field", bools[i]);
+            row.addProperty("int8_field", int8s[i]);
+            row.addProperty("int32_field", int32s[i]);
+            row.addProperty("float_field", floats[i]);
+            row.addProperty("double_field", doubles[i]);
+            row.addProperty("varchar_field", varchars[i]);
+            row.add("json_field", JsonParser.parseString(jsons[i]));
+            row.add("float_vector_field", JsonUtils.toJsonTree(floatVector));
+            row.add("binary_vector_field", JsonUtils.toJsonTree(binaryVectors[i]));
+            row.add("float16_vector_field", JsonUtils.toJsonTree(float16Vector));
+            row.add("int8_vector_field", JsonUtils.toJsonTree(int8Vectors[i]));
+            if (enableDynamicField && dynamics[i] != null) {
+                row.addProperty("dynamic", "dynamic_" + i);
+            }
+            rows.add(row);
+        }
+        float16Vectors.flip();
+
+        ColumnBatch.Builder builder = ColumnBatch.newBuilder()
+                .withColumn("id", ids)
+                .withColumn("bool_field", bools)
+                .withColumn("int8_field", int8s)
+                .withColumn("int32_field", int32s)
+                .withColumn("float_field", floats)
+                .withColumn("double_field", doubles)
+                .withColumn("varchar_field", varchars)
+                .withColumn("json_field", jsons)
+                .withColumn("float_vector_field", floatVectors)
+                .withColumn("binary_vector_field", binaryVectors)
+                .withColumn("float16_vector_field", float16Vectors)
+                .withColumn("int8_vector_field", int8Vectors);
+        if (enableDynamicField) {
+            builder.withColumn(Constant.DYNAMIC_FIELD_NAME, dynamics);
+        }
+        return Pair.of(rows, builder.build());
+    }
+
+    private static List<String> readOutputRows(BulkFileType fileType, List<List<String>> batchFiles) throws IOException {
+        List<String> outputRows = new ArrayList<>();
+        for (List<String> files : batchFiles) {
+            String filePath = files.get(0);
+            if (fileType == BulkFileType.JSON) {
+                try (Reader reader = Files.newBufferedReader(Paths.get(filePath))) {
+                    List<JsonObject> rows = new Gson().fromJson(reader, new TypeToken<List<JsonObject>>() {
+                    }.getType());
+                    for (JsonObject row : rows) {
+                        // gson JsonObject keeps the key order, sort the keys to compare
+                        outputRows.add(new TreeMap<>(row.asMap()).toString());
+                    }
+                }
+            } else if (fileType == BulkFileType.CSV) {
+                List<String> lines = Files.readAllLines(Paths.get(filePath), StandardCharsets.UTF_8);
+                List<String> header = Arrays.asList(lines.get(0).split(",", -1));
+                for (String line : lines.subList(1, lines.size())) {
+                    Map<String, String> row = new TreeMap<>();
+                    // vectors contain the separator, split by the quoted values
+                    List<String> values = new ArrayList<>();
+                    StringBuilder current = new StringBuilder();
+                    boolean quoted = false;
+                    for (char c : line.toCharArray()) {
+                        if (c == '"') {
+                            quoted = !quoted;
+                        }
+                        if (c == ',' && !quoted) {
+                            values.add(current.toString());
+                            current.setLength(0);
+                        } else {
+                            current.append(c);
+                        }
+                    }
+                    values.add(current.toString());
+                    for (int i = 0; i < header.size(); i++) {
+                        row.put(header.get(i), values.get(i));
+                    }
+                    outputRows.add(row.toString());
+                }
+            } else {
+                new ParquetReaderUtils() {
+                    @Override
+                    public void readRecord(GenericData.Record record) {
+                        outputRows.add(record.toString());
+                    }
+                }.readParquet(filePath);
+            }
+        }
+        return outputRows;
+    }
+
+    @Test
+    void testAppendBatchWritesSameRowsAsAppendRow() {
+        for (BulkFileType fileType : Arrays.asList(BulkFileType.JSON, BulkFileType.CSV, BulkFileType.PARQUET)) {
+            // the avro reader of the test can't read the "$meta" column of parquet
+            boolean enableDynamicField = fileType != BulkFileType.PARQUET;
+            CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(enableDynamicField);
+            Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(20, enableDynamicField);
+            LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                    .withCollectionSchema(schema)
+                    .withLocalPath("/tmp/bulk_writer_column_batch")
+                    .withFileType(fileType)
+                    .build();
+            try (LocalBulkWriter rowWriter = new LocalBulkWriter(param);
+                 LocalBulkWriter batchWriter = new LocalBulkWriter(param)) {
+                writeData(rowWriter, data.getLeft());
+                rowWriter.commit(false);
+                batchWriter.appendBatch(data.getRight());
+                batchWriter.commit(false);
+
+                Assertions.assertEquals(rowWriter.getTotalRowCount(), batchWriter.getTotalRowCount());
+                List<String> expected = readOutputRows(fileType, rowWriter.getBatchFiles());
+                List<String> actual = readOutputRows(fileType, batchWriter.getBatchFiles());
+                Assertions.assertEquals(20, expected.size());
+                Assertions.assertEquals(expected, actual, "output differs for " + fileType);
+            } catch (Exception e) {
+                Assertions.fail(fileType + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testWriteTextEscapesValues() {
+        String[] values = {"a\"b", "\"quoted\"", "back\\slash", "<>&='", "tab\tctl\u0001", "caf\u00e9 \ud83d\ude00", "\"", ""};
+        for (BulkFileType fileType : Arrays.asList(BulkFileType.JSON, BulkFileType.CSV)) {
+            CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(false);
+            Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(values.length, false);
+            String[] varchars = (String[]) data.getRight().getColumn("varchar_field");
+            for (int i = 0; i < values.length; i++) {
+                data.getLeft().get(i).addProperty("varchar_field", values[i]);
+                varchars[i] = values[i];
+            }
+            LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                    .withCollectionSchema(schema)
+                    .withLocalPath("/tmp/bulk_writer_text")
+                    .withFileType(fileType)
+                    .build();
+            try (LocalBulkWriter rowWriter = new LocalBulkWriter(param);
+                 LocalBulkWriter batchWriter = new LocalBulkWriter(param)) {
+                writeData(rowWriter, data.getLeft());
+                rowWriter.commit(false);
+                batchWriter.appendBatch(data.getRight());
+                batchWriter.commit(false);
+
+                List<String> expected = readOutputRows(fileType, rowWriter.getBatchFiles());
+                Assertions.assertEquals(expected, readOutputRows(fileType, batchWriter.getBatchFiles()));
+                if (fileType == BulkFileType.JSON) {
+                    try (Reader reader = Files.newBufferedReader(Paths.get(rowWriter.getBatchFiles().get(0).get(0)))) {
+                        List<JsonObject> rows = new Gson().fromJson(reader, new TypeToken<List<JsonObject>>() {
+                        }.getType());
+                        for (int i = 0; i < values.length; i++) {
+                            Assertions.assertEquals(values[i], rows.get(i).get("varchar_field").getAsString());
+                        }
+                    }
+                } else {
+                    // double quotes are doubled and the cell is quoted, an empty value is an empty cell
+                    String text = new String(Files.readAllBytes(Paths.get(rowWriter.getBatchFiles().get(0).get(0))),
+                            StandardCharsets.UTF_8);
+                    Assertions.assertTrue(text.contains(",\"a\"\"b\","));
+                    Assertions.assertTrue(text.contains(",\"caf\u00e9 \ud83d\ude00\","));
+                }
+            } catch (Exception e) {
+                Assertions.fail(fileType + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testAppendBatchRollsFilesByChunkSize() {
+        for (BulkFileType fileType : Arrays.asList(BulkFileType.JSON, BulkFileType.CSV, BulkFileType.PARQUET)) {
+            boolean enableDynamicField = fileType != BulkFileType.PARQUET;
+            CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(enableDynamicField);
+            Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(10, enableDynamicField);
+            LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                    .withCollectionSchema(schema)
+                    .withLocalPath("/tmp/bulk_writer_column_batch_roll")
+                    .withFileType(fileType)
+                    .withChunkSize(1024)
+                    .build();
+            try (LocalBulkWriter rowWriter = new LocalBulkWriter(param);
+                 LocalBulkWriter batchWriter = new LocalBulkWriter(param)) {
+                writeData(rowWriter, data.getLeft());
+                rowWriter.commit(false);
+                batchWriter.appendBatch(data.getRight());
+                batchWriter.commit(false);
+
+                List<List<String>> batchFiles = batchWriter.getBatchFiles();
+                Assertions.assertTrue(batchFiles.size() > 1);
+                Assertions.assertEquals(rowWriter.getBatchFiles().size(), batchFiles.size());
+                // every file is complete, a rolled JSON file starts with "[" and a rolled CSV file with its header
+                Assertions.assertEquals(readOutputRows(fileType, rowWriter.getBatchFiles()),
+                        readOutputRows(fileType, batchFiles));
+            } catch (Exception e) {
+                Assertions.fail(fileType + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testPackedVectorsSelectRows() {
+        ColumnBatch.PackedVectors floats = new ColumnBatch.PackedVectors(
+                FloatBuffer.wrap(new float[]{0, 0, 1, 1, 2, 2}), 2);
+        ColumnBatch.PackedVectors bytes = new ColumnBatch.PackedVectors(
+                ByteBuffer.wrap(new byte[]{0, 1, 2, 3, 4, 5}), 3);
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("floats", floats);
+        columns.put("bytes", bytes);
+        ColumnBatch selected = new ColumnBatch(columns, 2).select(new int[]{1, 0});
+
+        Assertions.assertEquals(Arrays.asList(1.0f, 1.0f), ColumnBatch.valueAt(selected.getColumn("floats"), 0));
+        Assertions.assertEquals(Arrays.asList(0.0f, 0.0f), ColumnBatch.valueAt(selected.getColumn("floats"), 1));
+        Assertions.assertEquals(ByteBuffer.wrap(new byte[]{3, 4, 5}), ColumnBatch.valueAt(selected.getColumn("bytes"), 0));
+        Assertions.assertEquals(ByteBuffer.wrap(new byte[]{0, 1, 2}), ColumnBatch.valueAt(selected.getColumn("bytes"), 1));
+        // the source rows are read by offset, not consumed
+        Assertions.assertEquals(Arrays.asList(2.0f, 2.0f), ColumnBatch.valueAt(floats, 2));
+    }
+
+    @Test
+    void testAppendBatchRejectsInvalidColumns() throws IOException {
+        CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(false);
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_column_batch_invalid")
+                .withFileType(BulkFileType.PARQUET)
+                .build();
+        ColumnBatch valid = buildColumnBatchData(3, false).getRight();
+        try (LocalBulkWriter writer = new LocalBulkWriter(param)) {
+            // columns of different lengths
+            Assertions.assertThrows(MilvusException.class, () -> ColumnBatch.newBuilder()
+                    .withColumn("id", new long[]{1, 2})
+                    .withColumn("float_field", new float[]{1.0f})
+                    .build());
+            // unsupported array type
+            Assertions.assertThrows(MilvusException.class, () -> ColumnBatch.newBuilder()
+                    .withColumn("id", new char[]{'a'})
+                    .build());
+
+            Map<String, Object> columns = new HashMap<>(valid.getColumns());
+            columns.put("id", new int[]{1, 2, 3});
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(columns));
+
+            Map<String, Object> missing = new HashMap<>(valid.getColumns());
+            missing.remove("float_field");
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(missing));
+
+            Map<String, Object> nullValue = new HashMap<>(valid.getColumns());
+            nullValue.put("float_vector_field", new float[3][]);
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(nullValue));
+
+            Map<String, Object> wrongDim = new HashMap<>(valid.getColumns());
+            wrongDim.put("float_vector_field", new float[3][DIMENSION + 1]);
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(wrongDim));
+
+            Map<String, Object> wrongBytes = new HashMap<>(valid.getColumns());
+            wrongBytes.put("float16_vector_field", ByteBuffer.allocate(3 * DIMENSION));
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(wrongBytes));
+
+            Map<String, Object> unknown = new HashMap<>(valid.getColumns());
+            unknown.put("unknown_field", new long[3]);
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(unknown));
+
+            Map<String, Object> tooLong = new HashMap<>(valid.getColumns());
+            tooLong.put("varchar_field", new String[]{"a", String.join("", Collections.nCopies(65, "b")), null});
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(tooLong));
+
+            // the row count is unknown or not a whole number of vectors
+            Assertions.assertThrows(ParamException.class, () -> writer.appendColumns(new HashMap<>()));
+            Map<String, Object> partialVector = new HashMap<>(valid.getColumns());
+            partialVector.put("float_vector_field", FloatBuffer.allocate(3 * DIMENSION + 1));
+            Assertions.assertThrows(ParamException.class, () -> writer.appendColumns(partialVector));
+
+            // nothing was written by the rejected batches
+            Assertions.assertEquals(0L, writer.getTotalRowCount());
+            writer.appendBatch(valid);
+            Assertions.assertEquals(3L, writer.getTotalRowCount());
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void testAppendBatchRejectsAutoIdAndStructFields() throws IOException {
+        CreateCollectionReq.CollectionSchema schema = buildV2Schema(false, true);
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_column_batch_struct")
+                .withFileType(BulkFileType.PARQUET)
+                .build();
+        try (LocalBulkWriter writer = new LocalBulkWriter(param)) {
+            Assertions.assertThrows(MilvusException.class,
+                    () -> writer.appendColumns(Collections.singletonMap("int16_field", new short[]{1})));
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+
+        CreateCollectionReq.CollectionSchema autoIdSchema = buildColumnBatchSchema(false);
+        autoIdSchema.getField("id").setAutoID(true);
+        LocalBulkWriterParam autoIdParam = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(autoIdSchema)
+                .withLocalPath("/tmp/bulk_writer_column_batch_autoid")
+                .withFileType(BulkFileType.PARQUET)
+                .build();
+        try (LocalBulkWriter writer = new LocalBulkWriter(autoIdParam)) {
+            ColumnBatch batch = buildColumnBatchData(3, false).getRight();
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendBatch(batch));
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void testWriteParquetWithCompressionAndRowGroupSize() {
+        CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(false);
+        Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(500, false);
+        List<String> expected = null;
+        for (ParquetCompression compression : ParquetCompression.values()) {
+            LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                    .withCollectionSchema(schema)
+                    .withLocalPath("/tmp/bulk_writer_parquet_codec")
+                    .withFileType(BulkFileType.PARQUET)
+                    .withParquetCompression(compression)
+                    .withParquetRowGroupSize(64 * 1024)
+                    .withParquetPageSize(8 * 1024)
+                    .withParquetDictionaryEnabled(false)
+                    .build();
+            try (LocalBulkWriter writer = new LocalBulkWriter(param)) {
+                writer.appendBatch(data.getRight());
+                writer.commit(false);
+                String filePath = writer.getBatchFiles().get(0).get(0);
+
+                try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromPath(
+                        new org.apache.hadoop.fs.Path(filePath), new Configuration()))) {
+                    List<BlockMetaData> blocks = reader.getFooter().getBlocks();
+                    Assertions.assertTrue(blocks.size() > 1, "row groups of " + compression);
+                    for (BlockMetaData block : blocks) {
+                        for (ColumnChunkMetaData chunk : block.getColumns()) {
+                            Assertions.assertEquals(compression.getCodecName(), chunk.getCodec());
+                        }
+                    }
+                }
+
+                // every codec is readable and gives the same rows
+                List<String> rows = readOutputRows(BulkFileType.PARQUET, writer.getBatchFiles());
+                Assertions.assertEquals(500, rows.size());
+                if (expected == null) {
+                    expected = rows;
+                }
+                Assertions.assertEquals(expected, rows);
+            } catch (Exception e) {
+                Assertions.fail(compression + ": " + e.getMessage());
+            }
+        }
+
+        LocalBulkWriterParam invalid = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_parquet_codec")
+                .withFileType(BulkFileType.PARQUET)
+                .withConfig(ParquetOutputFormat.COMPRESSION, "brotli")
+                .build();
+        Assertions.assertThrows(MilvusException.class, () -> new LocalBulkWriter(invalid));
+        LocalBulkWriterParam invalidSize = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_parquet_codec")
+                .withFileType(BulkFileType.PARQUET)
+                .withParquetRowGroupSize(0)
+                .build();
+        Assertions.assertThrows(MilvusException.class, () -> new LocalBulkWriter(invalidSize));
+    }
+
+    @Test
+    void testShardedWriterWritesAllRows() {
+        for (BulkFileType fileType : Arrays.asList(BulkFileType.JSON, BulkFileType.CSV, BulkFileType.PARQUET)) {
+            boolean enableDynamicField = fileType != BulkFileType.PARQUET;
+            CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(enableDynamicField);
+            Pair<List<JsonObject>, ColumnBatch> rowData = buildColumnBatchData(400, enableDynamicField);
+            Pair<List<JsonObject>, ColumnBatch> batchData = buildColumnBatchData(2000, enableDynamicField);
+            LocalBulkWriterParam.Builder builder = LocalBulkWriterParam.newBuilder()
+                    .withCollectionSchema(schema)
+                    .withLocalPath("/tmp/bulk_writer_sharded")
+                    .withFileType(fileType)
+                    .withChunkSize(64 * 1024);
+            try (LocalBulkWriter singleWriter = new LocalBulkWriter(builder.build());
+                 LocalBulkWriter shardedWriter = new LocalBulkWriter(builder.withShardCount(4).build())) {
+                writeData(singleWriter, rowData.getLeft());
+                singleWriter.appendBatch(batchData.getRight());
+                singleWriter.commit(false);
+
+                // 4 threads append rows while a batch is split over the shards
+                List<JsonObject> rows = rowData.getLeft();
+                List<Thread> threads = new ArrayList<>();
+                List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+                for (int t = 0; t < 4; t++) {
+                    List<JsonObject> part = rows.subList(t * rows.size() / 4, (t + 1) * rows.size() / 4);
+                    Thread thread = new Thread(() -> {
+                        try {
+                            writeData(shardedWriter, part);
+                        } catch (Throwable e) {
+                            errors.add(e);
+                        }
+                    });
+                    thread.start();
+                    threads.add(thread);
+                }
+                shardedWriter.appendBatch(batchData.getRight());
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                Assertions.assertTrue(errors.isEmpty(), errors.toString());
+                Assertions.assertEquals(2400L, shardedWriter.getTotalRowCount() + countRows(fileType, shardedWriter));
+                shardedWriter.commit(false);
+                Assertions.assertEquals(0L, shardedWriter.getTotalRowCount());
+
+                // the shards roll their own files, every file is complete and no row is lost
+                List<List<String>> batchFiles = shardedWriter.getBatchFiles();
+                Assertions.assertTrue(batchFiles.size() > 4);
+                Set<String> filePaths = new HashSet<>();
+                for (List<String> files : batchFiles) {
+                    Assertions.assertEquals(1, files.size());
+                    Assertions.assertTrue(filePaths.add(files.get(0)));
+                }
+                List<String> expected = readOutputRows(fileType, singleWriter.getBatchFiles());
+                List<String> actual = readOutputRows(fileType, batchFiles);
+                Collections.sort(expected);
+                Collections.sort(actual);
+                Assertions.assertEquals(expected, actual);
+            } catch (Exception e) {
+                Assertions.fail(fileType + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static long countRows(BulkFileType fileType, LocalBulkWriter writer) throws IOException {
+        return readOutputRows(fileType, new ArrayList<>(writer.getBatchFiles())).size();
+    }
+
+    @Test
+    void testShardedWriterRoutesByPartitionKey() {
+        CreateCollectionReq.CollectionSchema schema = CreateCollectionReq.CollectionSchema.builder().build();
+        schema.addField(AddFieldReq.builder().fieldName("id").dataType(DataType.Int64).isPrimaryKey(true).build());
+        schema.addField(AddFieldReq.builder().fieldName("tenant").dataType(DataType.VarChar)
+                .maxLength(64).isPartitionKey(true).build());
+        schema.addField(AddFieldReq.builder().fieldName("vector").dataType(DataType.FloatVector)
+                .dimension(DIMENSION).build());
+
+        int rowCount = 3000;
+        long[] ids = new long[rowCount];
+        String[] tenants = new String[rowCount];
+        float[][] vectors = new float[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = i;
+            tenants[i] = "tenant_" + (i % 13);
+            vectors[i] = new float[DIMENSION];
+            vectors[i][0] = i;
+        }
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_sharded_partition_key")
+                .withFileType(BulkFileType.JSON)
+                .withShardCount(3)
+                .build();
+        try (LocalBulkWriter writer = new LocalBulkWriter(param)) {
+            writer.appendBatch(ColumnBatch.newBuilder()
+                    .withColumn("id", Arrays.copyOfRange(ids, 0, 2000))
+                    .withColumn("tenant", Arrays.copyOfRange(tenants, 0, 2000))
+                    .withColumn("vector", Arrays.copyOfRange(vectors, 0, 2000))
+                    .build());
+            for (int i = 2000; i < rowCount; i++) {
+                JsonObject row = new JsonObject();
+                row.addProperty("id", ids[i]);
+                row.addProperty("tenant", tenants[i]);
+                row.add("vector", JsonUtils.toJsonTree(vectors[i]));
+                writer.appendRow(row);
+            }
+            writer.commit(false);
+
+            // a chunk is never full, each shard has one file and each tenant is in one file
+            List<List<String>> batchFiles = writer.getBatchFiles();
+            Assertions.assertTrue(batchFiles.size() > 1 && batchFiles.size() <= 3);
+            Map<String, String> tenantFiles = new HashMap<>();
+            Set<Long> writtenIds = new HashSet<>();
+            for (List<String> files : batchFiles) {
+                try (Reader reader = Files.newBufferedReader(Paths.get(files.get(0)))) {
+                    List<JsonObject> rows = new Gson().fromJson(reader, new TypeToken<List<JsonObject>>() {
+                    }.getType());
+                    for (JsonObject row : rows) {
+                        String tenant = row.get("tenant").getAsString();
+                        Assertions.assertEquals(files.get(0), tenantFiles.computeIfAbsent(tenant, k -> files.get(0)));
+                        Assertions.assertTrue(writtenIds.add(row.get("id").getAsLong()));
+                        Assertions.assertEquals((float) row.get("id").getAsLong(),
+                                row.getAsJsonArray("vector").get(0).getAsFloat());
+                    }
+                }
+            }
+            Assertions.assertEquals(13, tenantFiles.size());
+            Assertions.assertEquals(rowCount, writtenIds.size());
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+    }
+
+    // records the files called back, each callBack takes some time like an upload
+    private static class SlowCallBackWriter extends LocalBulkWriter {
+        private final long callBackMillis;
+        private final boolean fail;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final List<String> calledBack = Collections.synchronizedList(new ArrayList<>());
+
+        SlowCallBackWriter(CreateCollectionReq.CollectionSchema schema, int callBackThreads, int callBackQueueSize,
+                           long callBackMillis, boolean fail) throws IOException {
+            super(schema, 1024, BulkFileType.JSON, "/tmp/bulk_writer_callback", new HashMap<>(), 1,
+                    callBackThreads, callBackQueueSize);
+            this.callBackMillis = callBackMillis;
+            this.fail = fail;
+        }
+
+        @Override
+        protected void callBack(List<String> fileList) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(callBackMillis);
+                if (fail) {
+                    throw new MilvusException("upload failed", 0);
+                }
+                calledBack.addAll(fileList);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    void testCallBacksRunInParallelWithWriting() {
+        CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(true);
+        Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(20, true);
+        try (SlowCallBackWriter writer = new SlowCallBackWriter(schema, 3, 2, 300, false)) {
+            writer.appendBatch(data.getRight());
+            writer.commit(false);
+
+            // every file is called back before commit(false) returns, several at the same time
+            List<List<String>> batchFiles = writer.getBatchFiles();
+            Assertions.assertTrue(batchFiles.size() > 3);
+            Assertions.assertEquals(batchFiles.size(), writer.calledBack.size());
+            Assertions.assertTrue(writer.maxRunning.get() > 1);
+            Assertions.assertTrue(writer.maxRunning.get() <= 3);
+            Assertions.assertEquals(data.getLeft().size(), readOutputRows(BulkFileType.JSON, batchFiles).size());
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void testCallBackFailureIsThrownByCommit() throws Exception {
+        CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(true);
+        Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(2, true);
+        try (SlowCallBackWriter writer = new SlowCallBackWriter(schema, 1, 0, 10, true)) {
+            writer.appendBatch(data.getRight());
+            MilvusException e = Assertions.assertThrows(MilvusException.class, () -> writer.commit(false));
+            Assertions.assertEquals("upload failed", e.getMessage());
+        }
+
+        // a failure of an async callBack is thrown by close()
+        SlowCallBackWriter writer = new SlowCallBackWriter(schema, 1, 0, 10, true);
+        writer.appendBatch(data.getRight());
+        writer.commit(true);
+        Assertions.assertThrows(MilvusException.class, writer::close);
+    }
+
+    @Test
+    void testFilesRollAtWrittenBytes() {
+        long chunkSize = 64 * 1024;
+        for (BulkFileType fileType : Arrays.asList(BulkFileType.JSON, BulkFileType.CSV, BulkFileType.PARQUET)) {
+            boolean enableDynamicField = fileType != BulkFileType.PARQUET;
+            CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(enableDynamicField);
+            Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(600, enableDynamicField);
+            LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                    .withCollectionSchema(schema)
+                    .withLocalPath("/tmp/bulk_writer_roll_bytes")
+                    .withFileType(fileType)
+                    .withChunkSize(chunkSize)
+                    .build();
+            try (LocalBulkWriter rowWriter = new LocalBulkWriter(param);
+                 LocalBulkWriter batchWriter = new LocalBulkWriter(param)) {
+                writeData(rowWriter, data.getLeft());
+                rowWriter.commit(false);
+                batchWriter.appendBatch(data.getRight());
+                batchWriter.commit(false);
+
+                for (LocalBulkWriter writer : Arrays.asList(rowWriter, batchWriter)) {
+                    List<List<String>> batchFiles = writer.getBatchFiles();
+                    Assertions.assertTrue(batchFiles.size() > 2);
+                    // all the files but the last one are about the chunk size
+                    for (List<String> files : batchFiles.subList(0, batchFiles.size() - 1)) {
+                        long size = Files.size(Paths.get(files.get(0)));
+                        if (fileType == BulkFileType.PARQUET) {
+                            // the rows not flushed yet are counted by their buffered size, the levels of
+                            // the vector lists are smaller once encoded
+                            Assertions.assertTrue(size > chunkSize * 0.5 && size < chunkSize * 1.25, files + ": " + size);
+                        } else {
+                            // a text file ends after the row crossing the chunk size
+                            Assertions.assertTrue(size >= chunkSize && size < chunkSize + 4096, files + ": " + size);
+                        }
+                    }
+                    Assertions.assertEquals(600, readOutputRows(fileType, batchFiles).size());
+                }
+            } catch (Exception e) {
+                Assertions.fail(fileType + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void testFilesRollAtRowsPerFile() {
+        CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(true);
+        Pair<List<JsonObject>, ColumnBatch> data = buildColumnBatchData(35, true);
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_roll_rows")
+                .withFileType(BulkFileType.JSON)
+                .withRowsPerFile(10)
+                .build();
+        try (LocalBulkWriter rowWriter = new LocalBulkWriter(param);
+             LocalBulkWriter batchWriter = new LocalBulkWriter(param)) {
+            writeData(rowWriter, data.getLeft());
+            rowWriter.commit(false);
+            batchWriter.appendBatch(data.getRight());
+            batchWriter.commit(false);
+
+            for (LocalBulkWriter writer : Arrays.asList(rowWriter, batchWriter)) {
+                List<Integer> rowCounts = new ArrayList<>();
+                for (List<String> files : writer.getBatchFiles()) {
+                    rowCounts.add(readOutputRows(BulkFileType.JSON, Collections.singletonList(files)).size());
+                }
+                Assertions.assertEquals(Arrays.asList(10, 10, 10, 5), rowCounts);
+            }
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+
+        Assertions.assertThrows(MilvusException.class, () -> LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_roll_rows")
+                .withRowsPerFile(0)
+                .build());
+    }
+
+    // the header dict and the data of a .npy file
+    private static Pair<String, ByteBuffer> readNpy(String filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath))).order(ByteOrder.LITTLE_ENDIAN);
+        Assertions.assertEquals((byte) 0x93, buffer.get());
+        byte[] magic = new byte[5];
+        buffer.get(magic);
+        Assertions.assertEquals("NUMPY", new String(magic, StandardCharsets.US_ASCII));
+        Assertions.assertEquals(1, buffer.get());
+        Assertions.assertEquals(0, buffer.get());
+        int headerLength = buffer.getShort();
+        byte[] header = new byte[headerLength];
+        buffer.get(header);
+        Assertions.assertEquals(0, buffer.position() % 64);
+        return Pair.of(new String(header, StandardCharsets.US_ASCII).trim(), buffer.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    void testAppendVectorFile() throws Exception {
+        CreateCollectionReq.CollectionSchema schema = CreateCollectionReq.CollectionSchema.builder().build();
+        schema.addField(AddFieldReq.builder().fieldName("id").dataType(DataType.Int64).isPrimaryKey(true).build());
+        schema.addField(AddFieldReq.builder().fieldName("vector").dataType(DataType.FloatVector)
+                .dimension(DIMENSION).build());
+
+        int rowCount = 250;
+        ByteBuffer fvecs = ByteBuffer.allocate(rowCount * (4 + DIMENSION * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rowCount; i++) {
+            fvecs.putInt(DIMENSION);
+            for (int k = 0; k < DIMENSION; k++) {
+                fvecs.putFloat(i + k / 100.0f);
+            }
+        }
+        Path dir = Files.createTempDirectory("bulk_writer_vector_file");
+        Path input = Files.write(dir.resolve("data.fvecs"), fvecs.array());
+
+        VectorFileAppender appender = VectorFileAppender.newBuilder()
+                .withVectorFieldName("vector")
+                .withBatchSize(64)
+                .withColumnsSupplier((firstRow, count) -> Collections.singletonMap("id",
+                        LongStream.range(firstRow, firstRow + count).toArray()))
+                .build();
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath(dir.resolve("output").toString())
+                .withFileType(BulkFileType.NUMPY)
+                .build();
+        try (LocalBulkWriter writer = new LocalBulkWriter(param);
+             VectorFileSource source = VectorFileSource.open(input)) {
+            Assertions.assertEquals(rowCount, appender.appendTo(writer, source));
+            writer.commit(false);
+
+            // the written .npy file is read back the same way
+            List<String> files = writer.getBatchFiles().get(0);
+            String vectorFile = files.stream().filter(file -> file.endsWith("vector.npy")).findFirst().get();
+            try (VectorFileSource output = VectorFileSource.open(Paths.get(vectorFile))) {
+                Assertions.assertEquals(rowCount, output.getRowCount());
+                Assertions.assertEquals(DIMENSION, output.getDimension());
+                FloatBuffer expected = source.read(0, rowCount).getFloatVectors();
+                Assertions.assertEquals(expected, output.read(0, rowCount).getFloatVectors());
+            }
+
+            Map<String, Object> wrongDim = new HashMap<>();
+            wrongDim.put("id", new long[]{1});
+            wrongDim.put("vector", FloatBuffer.allocate(DIMENSION + 1));
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendColumns(wrongDim));
+        }
+        Assertions.assertThrows(MilvusException.class, () -> VectorFileAppender.newBuilder().build());
+    }
+
+    @Test
+    void testWriteNumpy() {
+        CreateCollectionReq.CollectionSchema schema = CreateCollectionReq.CollectionSchema.builder()
+                .enableDynamicField(true)
+                .build();
+        schema.addField(AddFieldReq.builder().fieldName("id").dataType(DataType.Int64).isPrimaryKey(true).build());
+        schema.addField(AddFieldReq.builder().fieldName("bool_field").dataType(DataType.Bool).build());
+        schema.addField(AddFieldReq.builder().fieldName("int8_field").dataType(DataType.Int8).build());
+        schema.addField(AddFieldReq.builder().fieldName("int32_field").dataType(DataType.Int32)
+                .isNullable(true).defaultValue(7).build());
+        schema.addField(AddFieldReq.builder().fieldName("double_field").dataType(DataType.Double).build());
+        schema.addField(AddFieldReq.builder().fieldName("varchar_field").dataType(DataType.VarChar).maxLength(64).build());
+        schema.addField(AddFieldReq.builder().fieldName("json_field").dataType(DataType.JSON).build());
+        schema.addField(AddFieldReq.builder().fieldName("float_vector_field").dataType(DataType.FloatVector)
+                .dimension(DIMENSION).build());
+        schema.addField(AddFieldReq.builder().fieldName("binary_vector_field").dataType(DataType.BinaryVector)
+                .dimension(DIMENSION).build());
+        schema.addField(AddFieldReq.builder().fieldName("float16_vector_field").dataType(DataType.Float16Vector)
+                .dimension(DIMENSION).build());
+
+        int rowCount = 100;
+        long[] ids = new long[rowCount];
+        boolean[] bools = new boolean[rowCount];
+        short[] int8s = new short[rowCount];
+        Integer[] int32s = new Integer[rowCount];
+        double[] doubles = new double[rowCount];
+        String[] varchars = new String[rowCount];
+        String[] jsons = new String[rowCount];
+        String[] dynamics = new String[rowCount];
+        float[][] floatVectors = new float[rowCount][];
+        byte[][] binaryVectors = new byte[rowCount][];
+        byte[][] float16Vectors = new byte[rowCount][];
+        List<JsonObject> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            ids[i] = i * 3L;
+            bools[i] = i % 3 == 0;
+            int8s[i] = (short) (i - 50);
+            int32s[i] = i % 2 == 0 ? null : i;
+            doubles[i] = i / 7.0;
+            // non-ASCII and a surrogate pair, the unicode width counts code points
+            varchars[i] = i == 7 ? "caf\u00e9 \ud83d\ude00" : "v" + i;
+            jsons[i] = String.format("{\"n\":%d}", i);
+            dynamics[i] = String.format("{\"dynamic\":%d}", i);
+            floatVectors[i] = new float[DIMENSION];
+            for (int k = 0; k < DIMENSION; k++) {
+                floatVectors[i][k] = i + k / 100.0f;
+            }
+            binaryVectors[i] = utils.generateBinaryVector().array();
+            float16Vectors[i] = Float16Utils.f32VectorToFp16Buffer(utils.generateFloatVector()).array();
+
+            JsonObject row = new JsonObject();
+            row.addProperty("id", ids[i]);
+            row.addProperty("bool_field", bools[i]);
+            row.addProperty("int8_field", int8s[i]);
+            row.addProperty("int32_field", int32s[i]);
+            row.addProperty("double_field", doubles[i]);
+            row.addProperty("varchar_field", varchars[i]);
+            row.add("json_field", JsonParser.parseString(jsons[i]));
+            row.add("float_vector_field", JsonUtils.toJsonTree(floatVectors[i]));
+            row.add("binary_vector_field", JsonUtils.toJsonTree(binaryVectors[i]));
+            row.add("float16_vector_field", JsonUtils.toJsonTree(float16Vectors[i]));
+            row.addProperty("dynamic", i);
+            rows.add(row);
+        }
+        ColumnBatch batch = ColumnBatch.newBuilder()
+                .withColumn("id", ids)
+                .withColumn("bool_field", bools)
+                .withColumn("int8_field", int8s)
+                .withColumn("int32_field", int32s)
+                .withColumn("double_field", doubles)
+                .withColumn("varchar_field", varchars)
+                .withColumn("json_field", jsons)
+                .withColumn("float_vector_field", floatVectors)
+                .withColumn("binary_vector_field", binaryVectors)
+                .withColumn("float16_vector_field", float16Vectors)
+                .withColumn(Constant.DYNAMIC_FIELD_NAME, dynamics)
+                .build();
+
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_numpy")
+                .withFileType(BulkFileType.NUMPY)
+                .build();
+        try (LocalBulkWriter rowWriter = new LocalBulkWriter(param);
+             LocalBulkWriter batchWriter = new LocalBulkWriter(param)) {
+            writeData(rowWriter, rows);
+            rowWriter.commit(false);
+            batchWriter.appendBatch(batch);
+            batchWriter.commit(false);
+
+            // a chunk is a list of files, one per field
+            List<String> files = rowWriter.getBatchFiles().get(0);
+            Assertions.assertEquals(1, rowWriter.getBatchFiles().size());
+            Assertions.assertEquals(11, files.size());
+            List<String> batchFiles = batchWriter.getBatchFiles().get(0);
+            for (int k = 0; k < files.size(); k++) {
+                Assertions.assertEquals(Paths.get(files.get(k)).getFileName(), Paths.get(batchFiles.get(k)).getFileName());
+                Assertions.assertArrayEquals(Files.readAllBytes(Paths.get(files.get(k))),
+                        Files.readAllBytes(Paths.get(batchFiles.get(k))), files.get(k));
+            }
+
+            Map<String, String> filesByName = new HashMap<>();
+            for (String file : files) {
+                filesByName.put(Paths.get(file).getFileName().toString(), file);
+            }
+            Pair<String, ByteBuffer> id = readNpy(filesByName.get("id.npy"));
+            Assertions.assertEquals("{'descr': '<i8', 'fortran_order': False, 'shape': (100,), }", id.getLeft());
+            Pair<String, ByteBuffer> int8 = readNpy(filesByName.get("int8_field.npy"));
+            Assertions.assertEquals("{'descr': '|i1', 'fortran_order': False, 'shape': (100,), }", int8.getLeft());
+            Pair<String, ByteBuffer> int32 = readNpy(filesByName.get("int32_field.npy"));
+            Pair<String, ByteBuffer> floatVector = readNpy(filesByName.get("float_vector_field.npy"));
+            Assertions.assertEquals("{'descr': '<f4', 'fortran_order': False, 'shape': (100, 32), }", floatVector.getLeft());
+            Pair<String, ByteBuffer> float16Vector = readNpy(filesByName.get("float16_vector_field.npy"));
+            Assertions.assertEquals("{'descr': '|u1', 'fortran_order': False, 'shape': (100, 64), }", float16Vector.getLeft());
+            Pair<String, ByteBuffer> binaryVector = readNpy(filesByName.get("binary_vector_field.npy"));
+            Assertions.assertEquals("{'descr': '|u1', 'fortran_order': False, 'shape': (100, 4), }", binaryVector.getLeft());
+            Pair<String, ByteBuffer> varchar = readNpy(filesByName.get("varchar_field.npy"));
+            Assertions.assertEquals("{'descr': '<U6', 'fortran_order': False, 'shape': (100,), }", varchar.getLeft());
+            Pair<String, ByteBuffer> meta = readNpy(filesByName.get(Constant.DYNAMIC_FIELD_NAME + ".npy"));
+            Assertions.assertTrue(meta.getLeft().startsWith("{'descr': '<U"));
+
+            for (int i = 0; i < rowCount; i++) {
+                Assertions.assertEquals(ids[i], id.getRight().getLong());
+                Assertions.assertEquals(int8s[i], int8.getRight().get());
+                Assertions.assertEquals(int32s[i] == null ? 7 : int32s[i], int32.getRight().getInt());
+                for (int k = 0; k < DIMENSION; k++) {
+                    Assertions.assertEquals(floatVectors[i][k], floatVector.getRight().getFloat());
+                }
+                byte[] fp16 = new byte[DIMENSION * 2];
+                float16Vector.getRight().get(fp16);
+                Assertions.assertArrayEquals(float16Vectors[i], fp16);
+
+                StringBuilder value = new StringBuilder();
+                for (int k = 0; k < 6; k++) {
+                    int codePoint = varchar.getRight().getInt();
+                    if (codePoint != 0) {
+                        value.appendCodePoint(codePoint);
+                    }
+                }
+                Assertions.assertEquals(varchars[i], value.toString());
+            }
+            Assertions.assertFalse(id.getRight().hasRemaining());
+            Assertions.assertFalse(varchar.getRight().hasRemaining());
+        } catch (Exception e) {
+            Assertions.fail(e.getMessage());
+        }
+    }
+
+    @Test
+    void testWriteNumpyRejectsNullAndUnsupportedTypes() throws Exception {
+        CreateCollectionReq.CollectionSchema schema = buildColumnBatchSchema(false);
+        LocalBulkWriterParam param = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(schema)
+                .withLocalPath("/tmp/bulk_writer_numpy")
+                .withFileType(BulkFileType.NUMPY)
+                .build();
+        try (LocalBulkWriter writer = new LocalBulkWriter(param)) {
+            // varchar_field is nullable without default value
+            JsonObject row = buildColumnBatchData(1, false).getLeft().get(0);
+            row.add("varchar_field", JsonNull.INSTANCE);
+            Assertions.assertThrows(MilvusException.class, () -> writer.appendRow(row));
+        }
+
+        CreateCollectionReq.CollectionSchema sparseSchema = CreateCollectionReq.CollectionSchema.builder().build();
+        sparseSchema.addField(AddFieldReq.builder().fieldName("id").dataType(DataType.Int64).isPrimaryKey(true).build());
+        sparseSchema.addField(AddFieldReq.builder().fieldName("sparse").dataType(DataType.SparseFloatVector).build());
+        LocalBulkWriterParam sparseParam = LocalBulkWriterParam.newBuilder()
+                .withCollectionSchema(sparseSchema)
+                .withLocalPath("/tmp/bulk_writer_numpy")
+                .withFileType(BulkFileType.NUMPY)
+                .build();
+        Assertions.assertThrows(MilvusException.class, () -> new LocalBulkWriter(sparseParam));
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter;
+
+import io.milvus.bulkwriter.storage.MultipartUploadState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadManifestTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReloadsUnfinishedUpload() throws Exception {
+        File file = Files.write(tempDir.resolve("data.bin"), new byte[3000]).toFile();
+        String manifestPath = tempDir.resolve("manifest.json").toString();
+
+        UploadManifest manifest = UploadManifest.load(manifestPath);
+        MultipartUploadState state = manifest.startFile(file, "prefix/data.bin");
+        state.start("upload-1", 1000L);
+        state.partUploaded(2, "etag-2");
+        state.partUploaded(1, "etag-1");
+        manifest.flush();
+
+        UploadManifest reloaded = UploadManifest.load(manifestPath);
+        assertFalse(reloaded.isUploaded(file, "prefix/data.bin", false));
+        MultipartUploadState resumed = reloaded.startFile(file, "prefix/data.bin");
+        assertEquals("upload-1", resumed.getUploadId());
+        assertEquals(1000L, resumed.getPartSize());
+        assertEquals("etag-1", resumed.getPartId(1));
+        assertEquals("etag-2", resumed.getPartId(2));
+
+        // another remote path starts over
+        assertNull(UploadManifest.load(manifestPath).startFile(file, "other/data.bin").getUploadId());
+    }
+
+    @Test
+    public void testUploadedFileChangedIsUploadedAgain() throws Exception {
+        File file = Files.write(tempDir.resolve("data.txt"), Collections.singletonList("data")).toFile();
+        String manifestPath = tempDir.resolve("manifest.json").toString();
+        UploadManifest manifest = UploadManifest.load(manifestPath);
+        manifest.startFile(file, "data.txt");
+        manifest.finishFile(file, false);
+        manifest.flush();
+
+        assertTrue(UploadManifest.load(manifestPath).isUploaded(file, "data.txt", false));
+        Files.write(file.toPath(), Collections.singletonList("changed"));
+        assertFalse(UploadManifest.load(manifestPath).isUploaded(file, "data.txt", false));
+    }
+
+    @Test
+    public void testSameContentAtAnotherLocalPathIsSkipped() throws Exception {
+        File file = Files.write(tempDir.resolve("data.txt"), Collections.singletonList("data")).toFile();
+        String manifestPath = tempDir.resolve("manifest.json").toString();
+        UploadManifest manifest = UploadManifest.load(manifestPath);
+        manifest.startFile(file, "data.txt");
+        manifest.finishFile(file, true);
+        manifest.flush();
+
+        // the source directory was moved, the remote path is the same
+        Path moved = Files.createDirectories(tempDir.resolve("moved"));
+        File copy = Files.copy(file.toPath(), moved.resolve("data.txt")).toFile();
+        UploadManifest reloaded = UploadManifest.load(manifestPath);
+        assertFalse(reloaded.isUploaded(copy, "data.txt", false));
+        assertFalse(reloaded.isUploaded(copy, "other/data.txt", true));
+        assertTrue(reloaded.isUploaded(copy, "data.txt", true));
+
+        // another content uploaded to the remote path replaces the hash of the path
+        File changed = Files.write(tempDir.resolve("changed.txt"), Collections.singletonList("changed")).toFile();
+        reloaded.startFile(changed, "data.txt");
+        reloaded.finishFile(changed, true);
+        File third = Files.copy(file.toPath(), tempDir.resolve("third.txt")).toFile();
+        assertFalse(reloaded.isUploaded(third, "data.txt", true));
+    }
+
+    @Test
+    public void testChangesAreSavedOncePerInterval() throws Exception {
+        File file = Files.write(tempDir.resolve("data.bin"), new byte[3000]).toFile();
+        String manifestPath = tempDir.resolve("manifest.json").toString();
+        UploadManifest manifest = UploadManifest.load(manifestPath, 60_000L);
+
+        // the first change is saved, the next ones wait for the interval or a flush
+        MultipartUploadState state = manifest.startFile(file, "data.bin");
+        assertNull(UploadManifest.load(manifestPath).startFile(file, "data.bin").getUploadId());
+        state.start("upload-1", 1000L);
+        state.partUploaded(1, "etag-1");
+        assertNull(UploadManifest.load(manifestPath).startFile(file, "data.bin").getUploadId());
+
+        manifest.flush();
+        MultipartUploadState saved = UploadManifest.load(manifestPath).startFile(file, "data.bin");
+        assertEquals("upload-1", saved.getUploadId());
+        assertEquals("etag-1", saved.getPartId(1));
+    }
+}
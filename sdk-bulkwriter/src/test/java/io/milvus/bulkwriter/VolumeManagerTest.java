@@ -33,12 +33,14 @@ import io.milvus.bulkwriter.response.volume.VolumeInfo;
 import io.milvus.bulkwriter.storage.StorageClient;
 import io.milvus.exception.ParamException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -67,6 +69,9 @@ public class VolumeManagerTest {
         assertEquals(5000L, request.getRetryIntervalMillis());
         assertNull(request.getProgressListener());
         assertEquals(0L, request.getPartSizeBytes());
+        assertEquals(4, request.getPartConcurrency());
+        assertNull(request.getManifestFilePath());
+        assertFalse(request.isDeduplicateByContent());
     }
 
     @Test
@@ -81,6 +86,9 @@ public class VolumeManagerTest {
                 .retryIntervalMillis(100L)
                 .progressListener(progressListener)
                 .partSizeBytes(16L * 1024L * 1024L)
+                .partConcurrency(8)
+                .manifestFilePath("/tmp/manifest.json")
+                .deduplicateByContent(true)
                 .build();
 
         assertEquals(3, request.getUploadConcurrency());
@@ -88,6 +96,9 @@ public class VolumeManagerTest {
         assertEquals(100L, request.getRetryIntervalMillis());
         assertSame(progressListener, request.getProgressListener());
         assertEquals(16L * 1024L * 1024L, request.getPartSizeBytes());
+        assertEquals(8, request.getPartConcurrency());
+        assertEquals("/tmp/manifest.json", request.getManifestFilePath());
+        assertTrue(request.isDeduplicateByContent());
     }
 
     @Test
@@ -265,6 +276,74 @@ public class VolumeManagerTest {
         }
     }
 
+    @Test
+    public void testUploadFilesWithManifestSkipsUploadedFiles(@TempDir Path dir) throws Exception {
+        Path source = Files.createDirectories(dir.resolve("data"));
+        Path fileA = source.resolve("a.txt");
+        Path fileB = source.resolve("b.txt");
+        Files.write(fileA, Collections.singletonList("a"));
+        Files.write(fileB, Collections.singletonList("b"));
+        // kept in the uploaded directory, it must not be uploaded
+        Path manifestPath = source.resolve("manifest.json");
+        ConcurrentVolumeFileManager manager = new ConcurrentVolumeFileManager(new CyclicBarrier(1));
+        UploadFilesRequest request = UploadFilesRequest.builder()
+                .sourceFilePath(source + "/")
+                .targetVolumePath("manifest/")
+                .uploadConcurrency(1)
+                .manifestFilePath(manifestPath.toString())
+                .build();
+
+        manager.uploadFiles(request);
+        assertEquals(Arrays.asList("prefix-manifest/manifest/a.txt", "prefix-manifest/manifest/b.txt"),
+                sorted(manager.uploadsByBucket.get("bucket-manifest")));
+        assertTrue(Files.exists(manifestPath));
+        assertFalse(Files.exists(dir.resolve("data").resolve("manifest.json.tmp")));
+
+        // b changed, a is skipped
+        Files.write(fileB, Collections.singletonList("b2"));
+        manager.uploadsByBucket.get("bucket-manifest").clear();
+        manager.uploadFiles(request);
+        assertEquals(Collections.singletonList("prefix-manifest/manifest/b.txt"),
+                manager.uploadsByBucket.get("bucket-manifest"));
+
+        // a is missing on the volume, it is uploaded again
+        manager.uploadsByBucket.get("bucket-manifest").clear();
+        manager.objectSizes.remove("prefix-manifest/manifest/a.txt");
+        manager.uploadFiles(request);
+        assertEquals(Collections.singletonList("prefix-manifest/manifest/a.txt"),
+                manager.uploadsByBucket.get("bucket-manifest"));
+    }
+
+    @Test
+    public void testUploadFilesWithManifestDeduplicatesByContent(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("data.txt");
+        Files.write(file, Collections.singletonList("data"));
+        ConcurrentVolumeFileManager manager = new ConcurrentVolumeFileManager(new CyclicBarrier(1));
+        UploadFilesRequest.UploadFilesRequestBuilder builder = UploadFilesRequest.builder()
+                .sourceFilePath(file.toString())
+                .targetVolumePath("dedup/")
+                .uploadConcurrency(1)
+                .manifestFilePath(dir.resolve("manifest.json").toString());
+
+        manager.uploadFiles(builder.deduplicateByContent(true).build());
+        assertEquals(1, manager.uploadsByBucket.get("bucket-dedup").size());
+
+        // rewritten with the same content: skipped with the deduplication only
+        assertTrue(file.toFile().setLastModified(file.toFile().lastModified() - 10_000L));
+        manager.uploadFiles(builder.deduplicateByContent(true).build());
+        assertEquals(1, manager.uploadsByBucket.get("bucket-dedup").size());
+
+        assertTrue(file.toFile().setLastModified(file.toFile().lastModified() - 10_000L));
+        manager.uploadFiles(builder.deduplicateByContent(false).build());
+        assertEquals(2, manager.uploadsByBucket.get("bucket-dedup").size());
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        Collections.sort(copy);
+        return copy;
+    }
+
     // ========== CreateVolumeRequest Tests ==========
 
     @Test
@@ -682,6 +761,7 @@ public class VolumeManagerTest {
         private final Map<String, List<String>> uploadsByBucket = new ConcurrentHashMap<>();
         private final Map<String, AtomicInteger> attemptsByBucket = new ConcurrentHashMap<>();
         private final List<String> closedBuckets = new CopyOnWriteArrayList<>();
+        private final Map<String, Long> objectSizes = new ConcurrentHashMap<>();
         private volatile Exception uploadException;
 
         private ConcurrentVolumeFileManager(CyclicBarrier barrier) throws Exception {
@@ -723,7 +803,7 @@ public class VolumeManagerTest {
             attemptsByBucket.putIfAbsent(applyVolumeResponse.getBucketName(), new AtomicInteger(0));
             return new RecordingStorageClient(
                     barrier, applyVolumeResponse.getBucketName(), uploadsByBucket, attemptsByBucket,
-                    closedBuckets, () -> uploadException);
+                    closedBuckets, objectSizes, () -> uploadException);
         }
     }
 
@@ -738,24 +818,31 @@ public class VolumeManagerTest {
         private final Map<String, List<String>> uploadsByBucket;
         private final Map<String, AtomicInteger> attemptsByBucket;
         private final List<String> closedBuckets;
+        private final Map<String, Long> objectSizes;
         private final UploadExceptionSupplier uploadExceptionSupplier;
 
         private RecordingStorageClient(CyclicBarrier barrier, String bucketName,
                                        Map<String, List<String>> uploadsByBucket,
                                        Map<String, AtomicInteger> attemptsByBucket,
                                        List<String> closedBuckets,
+                                       Map<String, Long> objectSizes,
                                        UploadExceptionSupplier uploadExceptionSupplier) {
             this.barrier = barrier;
             this.bucketName = bucketName;
             this.uploadsByBucket = uploadsByBucket;
             this.attemptsByBucket = attemptsByBucket;
             this.closedBuckets = closedBuckets;
+            this.objectSizes = objectSizes;
             this.uploadExceptionSupplier = uploadExceptionSupplier;
         }
 
         @Override
-        public Long getObjectEntity(String bucketName, String objectKey) {
-            return 0L;
+        public Long getObjectEntity(String bucketName, String objectKey) throws IOException {
+            Long size = objectSizes.get(objectKey);
+            if (size == null) {
+                throw new IOException("Object not found: " + objectKey);
+            }
+            return size;
         }
 
         @Override
@@ -778,6 +865,7 @@ public class VolumeManagerTest {
                 throw uploadException;
             }
             uploadsByBucket.get(bucketName).add(objectKey);
+            objectSizes.put(objectKey, file.length());
             if (progressListener != null) {
                 progressListener.onProgress(file.length());
             }
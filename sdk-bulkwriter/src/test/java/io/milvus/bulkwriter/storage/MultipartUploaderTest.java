@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.bulkwriter.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MultipartUploaderTest {
+    @TempDir
+    Path tempDir;
+
+    private byte[] writeFile(int size) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        Files.write(tempDir.resolve("data.bin"), bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testUploadsAllPartsConcurrently() throws Exception {
+        byte[] bytes = writeFile(10_500);
+        File file = tempDir.resolve("data.bin").toFile();
+        Map<Integer, byte[]> parts = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicLong progress = new AtomicLong();
+
+        List<String> ids = new MultipartUploader(3).upload(file, 1000, (partNumber, data, length) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            parts.put(partNumber, Arrays.copyOf(data, length));
+            running.decrementAndGet();
+            return "etag-" + partNumber;
+        }, progress::addAndGet);
+
+        assertEquals(11, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("etag-" + (i + 1), ids.get(i));
+            int from = i * 1000;
+            assertArrayEquals(Arrays.copyOfRange(bytes, from, Math.min(from + 1000, bytes.length)), parts.get(i + 1));
+        }
+        assertEquals(bytes.length, progress.get());
+        assertTrue(maxRunning.get() > 1 && maxRunning.get() <= 3, "max running parts: " + maxRunning.get());
+    }
+
+    @Test
+    public void testRetriesFailedPartAlone() throws Exception {
+        writeFile(5_000);
+        File file = tempDir.resolve("data.bin").toFile();
+        Map<Integer, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        List<String> ids = new MultipartUploader(2, 3, 1L).upload(file, 1000, (partNumber, data, length) -> {
+            int call = calls.computeIfAbsent(partNumber, k -> new AtomicInteger()).incrementAndGet();
+            if (partNumber == 3 && call <= 2) {
+                throw new IOException("connection reset");
+            }
+            return String.valueOf(partNumber);
+        }, null);
+
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), ids);
+        assertEquals(3, calls.get(3).get());
+        for (int partNumber : new int[]{1, 2, 4, 5}) {
+            assertEquals(1, calls.get(partNumber).get());
+        }
+    }
+
+    @Test
+    public void testSkipsPartsOfState() throws Exception {
+        writeFile(5_000);
+        File file = tempDir.resolve("data.bin").toFile();
+        MultipartUploadState state = new MultipartUploadState();
+        state.start("upload-1", 1000);
+        state.partUploaded(1, "old-1");
+        state.partUploaded(4, "old-4");
+        AtomicInteger notified = new AtomicInteger();
+        state.setListener(notified::incrementAndGet);
+        List<Integer> uploaded = new CopyOnWriteArrayList<>();
+        AtomicLong progress = new AtomicLong();
+
+        List<String> ids = new MultipartUploader(2).upload(file, 1000, state, (partNumber, data, length) -> {
+            uploaded.add(partNumber);
+            return "new-" + partNumber;
+        }, progress::addAndGet);
+
+        assertEquals(Arrays.asList("old-1", "new-2", "new-3", "old-4", "new-5"), ids);
+        assertEquals(3, uploaded.size());
+        assertEquals(3, notified.get());
+        assertEquals("new-5", state.getPartId(5));
+        assertEquals(5_000, progress.get());
+    }
+
+    @Test
+    public void testThrowsErrorOfPartFailedForGood() throws Exception {
+        writeFile(20_000);
+        File file = tempDir.resolve("data.bin").toFile();
+        IOException error = new IOException("access denied");
+        AtomicInteger calls = new AtomicInteger();
+
+        IOException thrown = assertThrows(IOException.class,
+                () -> new MultipartUploader(2, 1, 1L).upload(file, 1000, (partNumber, data, length) -> {
+                    calls.incrementAndGet();
+                    if (partNumber == 2) {
+                        throw error;
+                    }
+                    Thread.sleep(10);
+                    return String.valueOf(partNumber);
+                }, null));
+
+        assertSame(error, thrown);
+        // the other parts stop once a part failed for good
+        assertTrue(calls.get() < 20, "parts uploaded: " + calls.get());
+    }
+}
@@ -24,8 +24,12 @@ import io.milvus.v2.exception.MilvusClientException;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntToLongFunction;
 
 /**
  * Builds a client-side Split-Block Bloom Filter (SBBF) blob for the
@@ -102,6 +106,12 @@ public class BloomFilterUtils {
 
     private static final int WORDS_PER_BLOCK = 8;
 
+    /**
+     * A batch insert is split across threads only from this many members on per thread; below it
+     * the per-thread block arrays cost more to allocate and merge than the hashing they save.
+     */
+    private static final int MIN_MEMBERS_PER_THREAD = 1 << 18;
+
     /**
      * The eight odd constants used to derive one bit position per word inside a block. Fixed by
      * the parquet-format spec and mirrored from Arrow C++'s BlockSplitBloomFilter::SALT.
@@ -170,6 +180,40 @@ public class BloomFilterUtils {
         return builder.build();
     }
 
+    /**
+     * Builds a filter over integer members without boxing them.
+     *
+     * @param members the membership set
+     * @param fpr     the false-positive rate, in [{@link #MIN_FPR}, {@link #MAX_FPR}]
+     * @return the MBF1 blob to pass as a filter template value
+     * @throws MilvusClientException if members is null or fpr is out of range
+     */
+    public static byte[] buildInt64BloomFilter(long[] members, double fpr) {
+        if (members == null) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "Bloom filter members cannot be null.");
+        }
+        return new Builder(members.length, fpr).addInt64(members).build();
+    }
+
+    /**
+     * Builds a filter over string members packed into one UTF-8 buffer, see
+     * {@link Builder#addUtf8(byte[], int[])}.
+     *
+     * @param utf8    the UTF-8 bytes of all members, back to back
+     * @param offsets where each member starts, followed by where the last one ends
+     * @param fpr     the false-positive rate, in [{@link #MIN_FPR}, {@link #MAX_FPR}]
+     * @return the MBF1 blob to pass as a filter template value
+     * @throws MilvusClientException if the buffer or offsets are invalid, or fpr is out of range
+     */
+    public static byte[] buildUtf8BloomFilter(byte[] utf8, int[] offsets, double fpr) {
+        if (offsets == null) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "Bloom filter member offsets cannot be null.");
+        }
+        return new Builder(Math.max(offsets.length - 1, 0), fpr).addUtf8(utf8, offsets).build();
+    }
+
     /**
      * Returns the exact number of bytes {@link #buildBloomFilter(List, double)} would produce for
      * n members at the given false-positive rate, without allocating the filter or hashing
@@ -260,14 +304,22 @@ public class BloomFilterUtils {
      *
      * <p>Unlike the convenience method, a Builder accepts both domains, which produces a filter
      * that matches integer and string members alike.
+     *
+     * <p>For tens of millions of members, insert them in batches through {@link #addInt64(long[])}
+     * or {@link #addUtf8(byte[], int[])} and set a {@link #parallelism(int)}: each thread then sets
+     * bits in a block array of its own, and the arrays are OR-merged into the filter at the end of
+     * the batch. Bitwise OR is order-independent, so the blob is identical to a sequential build.
      */
     public static class Builder {
         /** HEADER_SIZE + numBlocks * BYTES_PER_BLOCK: the blob {@link #build()} returns. */
         private final byte[] buf;
         private final int numBlocks;
+        /** Little-endian view of the body, so a word is read and written with one access. */
+        private final IntBuffer words;
         private final long nDeclared;
         private final double fpr;
         private byte domains;
+        private int parallelism = 1;
 
         /**
          * Creates a builder sized for n distinct values at false-positive rate fpr.
@@ -283,6 +335,8 @@ public class BloomFilterUtils {
             int numBytes = optimalNumOfBytes(n, fpr);
             this.buf = new byte[HEADER_SIZE + numBytes];
             this.numBlocks = numBytes / BYTES_PER_BLOCK;
+            this.words = ByteBuffer.wrap(buf, HEADER_SIZE, numBytes).slice()
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
             this.nDeclared = n;
             this.fpr = fpr;
         }
@@ -305,6 +359,73 @@ public class BloomFilterUtils {
             return this;
         }
 
+        /**
+         * Inserts integer values in one batch, see {@link #parallelism(int)}.
+         *
+         * @throws MilvusClientException if values is null
+         */
+        public Builder addInt64(long[] values) {
+            if (values == null) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "Bloom filter members cannot be null.");
+            }
+            if (values.length > 0) {
+                domains |= DOMAIN_INT64;
+                addHashes(values.length, i -> XXHash64.hashInt64(values[i]));
+            }
+            return this;
+        }
+
+        /**
+         * Inserts string values packed into one UTF-8 buffer in one batch, hashing each member in
+         * place instead of encoding it to a byte array of its own. Member i is
+         * {@code utf8[offsets[i], offsets[i + 1])}, so n members take n + 1 offsets. This is the
+         * layout of an Arrow string column, which can be passed as is.
+         *
+         * @param utf8    the UTF-8 bytes of all members, back to back
+         * @param offsets where each member starts, followed by where the last one ends
+         * @throws MilvusClientException if utf8 or offsets is null, or an offset is out of order
+         *                               or out of the buffer
+         */
+        public Builder addUtf8(byte[] utf8, int[] offsets) {
+            if (utf8 == null || offsets == null) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "Bloom filter members cannot be null.");
+            }
+            for (int i = 0; i < offsets.length; i++) {
+                int previous = i == 0 ? 0 : offsets[i - 1];
+                if (offsets[i] < previous || offsets[i] > utf8.length) {
+                    throw new MilvusClientException(ErrorCode.INVALID_PARAMS, String.format(
+                            "Bloom filter member offset %d is %d, out of order or beyond the "
+                                    + "%d-byte buffer.", i, offsets[i], utf8.length));
+                }
+            }
+            int count = offsets.length - 1;
+            if (count > 0) {
+                domains |= DOMAIN_UTF8;
+                ByteBuffer data = ByteBuffer.wrap(utf8).order(ByteOrder.LITTLE_ENDIAN);
+                addHashes(count, i -> XXHash64.hash(data, offsets[i], offsets[i + 1] - offsets[i]));
+            }
+            return this;
+        }
+
+        /**
+         * Sets how many threads a large batch insert may use, the calling thread included. The
+         * other threads come from the fork-join common pool. Each thread but the caller allocates a
+         * block array the size of the filter, so a 64 MiB filter at parallelism 8 briefly needs
+         * another 448 MiB. Defaults to 1.
+         *
+         * @throws MilvusClientException if parallelism is less than 1
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "Bloom filter parallelism must be at least 1: " + parallelism + ".");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
         /** Returns the value domains inserted so far. Zero means nothing was inserted. */
         public byte getDomains() {
             return domains;
@@ -338,25 +459,65 @@ public class BloomFilterUtils {
         }
 
         /**
-         * Sets this hash's eight bits directly in the final MBF1 buffer. Words are
-         * read-modify-written little-endian byte by byte so the body keeps the spec's layout
-         * regardless of the host's native byte order.
+         * Sets this hash's eight bits directly in the final MBF1 buffer. Words go through the
+         * little-endian {@link #words} view so the body keeps the spec's layout regardless of the
+         * host's native byte order.
          */
         private void addHash(long hash) {
-            int offset = HEADER_SIZE + blockIndex(hash, numBlocks) * BYTES_PER_BLOCK;
+            int base = blockIndex(hash, numBlocks) * WORDS_PER_BLOCK;
             int key = (int) hash;
             for (int i = 0; i < WORDS_PER_BLOCK; i++) {
                 int mask = 1 << ((key * SALT[i]) >>> 27);
-                int p = offset + i * 4;
-                int word = (buf[p] & 0xFF)
-                        | (buf[p + 1] & 0xFF) << 8
-                        | (buf[p + 2] & 0xFF) << 16
-                        | (buf[p + 3] & 0xFF) << 24;
-                word |= mask;
-                buf[p] = (byte) word;
-                buf[p + 1] = (byte) (word >>> 8);
-                buf[p + 2] = (byte) (word >>> 16);
-                buf[p + 3] = (byte) (word >>> 24);
+                words.put(base + i, words.get(base + i) | mask);
+            }
+        }
+
+        /** Same as {@link #addHash(long)}, into a thread's own block array. */
+        private void addHash(int[] blockWords, long hash) {
+            int base = blockIndex(hash, numBlocks) * WORDS_PER_BLOCK;
+            int key = (int) hash;
+            for (int i = 0; i < WORDS_PER_BLOCK; i++) {
+                blockWords[base + i] |= 1 << ((key * SALT[i]) >>> 27);
+            }
+        }
+
+        /**
+         * Inserts the hashes of members {@code [0, count)}. A large batch is cut into one range per
+         * thread; the caller sets the bits of the first range in the filter itself, the others go
+         * to block arrays that are OR-merged into the filter once all of them are done.
+         */
+        private void addHashes(int count, IntToLongFunction hashAt) {
+            int threads = (int) Math.min(parallelism, Math.max(1L, count / MIN_MEMBERS_PER_THREAD));
+            if (threads == 1) {
+                for (int i = 0; i < count; i++) {
+                    addHash(hashAt.applyAsLong(i));
+                }
+                return;
+            }
+
+            int rangeSize = (count + threads - 1) / threads;
+            List<CompletableFuture<int[]>> others = new ArrayList<>(threads - 1);
+            for (int t = 1; t < threads; t++) {
+                int from = t * rangeSize;
+                int to = Math.min(count, from + rangeSize);
+                others.add(CompletableFuture.supplyAsync(() -> {
+                    int[] blockWords = new int[numBlocks * WORDS_PER_BLOCK];
+                    for (int i = from; i < to; i++) {
+                        addHash(blockWords, hashAt.applyAsLong(i));
+                    }
+                    return blockWords;
+                }));
+            }
+            for (int i = 0; i < rangeSize; i++) {
+                addHash(hashAt.applyAsLong(i));
+            }
+            for (CompletableFuture<int[]> other : others) {
+                int[] blockWords = other.join();
+                for (int w = 0; w < blockWords.length; w++) {
+                    if (blockWords[w] != 0) {
+                        words.put(w, words.get(w) | blockWords[w]);
+                    }
+                }
             }
         }
     }
@@ -24,6 +24,8 @@ import io.milvus.v2.exception.MilvusClientException;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
 
 /**
  * Builds a client-side roaring bitmap blob for the
@@ -136,6 +138,15 @@ public class RoaringBitmapUtils {
      */
     private static final long NO_PREVIOUS_VALUE = Long.MIN_VALUE;
 
+    /**
+     * From this many keys on, the sort is a radix sort over 16-bit digits instead of a comparison
+     * sort. Below it, the four 65536-entry histograms would cost more than they save.
+     */
+    private static final int RADIX_SORT_THRESHOLD = 1 << 16;
+
+    /** From this many keys on, a parallel {@link Builder} sorts on the fork-join common pool. */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 20;
+
     private RoaringBitmapUtils() {
     }
 
@@ -202,6 +213,18 @@ public class RoaringBitmapUtils {
         return build(keys, keys.length);
     }
 
+    /**
+     * Builds a bitmap over the members of the stream, without boxing them. A parallel stream is
+     * consumed sequentially.
+     *
+     * @param members the membership set; duplicates and unsorted input are allowed
+     * @return the MRB1 blob to pass as a filter template value
+     * @throws MilvusClientException if members is null or the bitmap exceeds a server limit
+     */
+    public static byte[] buildRoaringBitmap(LongStream members) {
+        return new Builder().addAll(members).build();
+    }
+
     /**
      * Incrementally collects members and serializes them into an MRB1 blob. Not thread-safe.
      *
@@ -217,6 +240,7 @@ public class RoaringBitmapUtils {
         private int count;
         /** Whether {@link #keys} is already in ascending unsigned order. */
         private boolean sorted = true;
+        private boolean parallel = false;
 
         /** Creates a builder with a default initial capacity. */
         public Builder() {
@@ -296,6 +320,44 @@ public class RoaringBitmapUtils {
             return this;
         }
 
+        /**
+         * Adds every member of the stream, without boxing them. A parallel stream is consumed
+         * sequentially.
+         */
+        public Builder addAll(LongStream members) {
+            if (members == null) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "Roaring bitmap members cannot be null.");
+            }
+            return addAll(members.iterator());
+        }
+
+        /**
+         * Adds every remaining member of the iterator, for example the values of a primary key
+         * column read batch by batch, so a large set streams into the builder without a
+         * {@code Set<Long>} in between.
+         */
+        public Builder addAll(PrimitiveIterator.OfLong members) {
+            if (members == null) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "Roaring bitmap members cannot be null.");
+            }
+            while (members.hasNext()) {
+                add(members.nextLong());
+            }
+            return this;
+        }
+
+        /**
+         * Sorts unsorted members on the fork-join common pool when the bitmap is built. Worth it
+         * for sets of millions of members; smaller sets are always sorted on the calling thread.
+         * Off by default.
+         */
+        public Builder parallel(boolean parallel) {
+            this.parallel = parallel;
+            return this;
+        }
+
         /** Returns the number of members added so far, duplicates included. */
         public int size() {
             return count;
@@ -309,7 +371,7 @@ public class RoaringBitmapUtils {
          */
         public byte[] build() {
             if (!sorted) {
-                sortUnsigned(keys, count);
+                sortUnsigned(keys, count, parallel);
                 sorted = true;
             }
             return serialize(keys, count);
@@ -349,7 +411,7 @@ public class RoaringBitmapUtils {
 
     /** Sorts, then serializes; {@code keys} is scratch owned by the caller and is reordered. */
     private static byte[] build(long[] keys, int length) {
-        sortUnsigned(keys, length);
+        sortUnsigned(keys, length, false);
         return serialize(keys, length);
     }
 
@@ -361,17 +423,94 @@ public class RoaringBitmapUtils {
      * primitive {@link Arrays#sort(long[], int, int)} do the work; sorting by
      * {@link Long#compareUnsigned} directly would need a {@code Comparator} and therefore a boxed
      * {@code Long} per member. The two orders are identical, and a test asserts it.
+     *
+     * <p>Input that is already sorted — a primary key column usually is — is detected in one pass
+     * and left as is. A large input is radix sorted instead, see {@link #radixSortUnsigned}.
      */
-    private static void sortUnsigned(long[] keys, int length) {
+    private static void sortUnsigned(long[] keys, int length, boolean parallel) {
+        sortUnsigned(keys, length, parallel, PARALLEL_SORT_THRESHOLD);
+    }
+
+    /** Visible for testing: the tests lower the parallel threshold to cover that path on a small input. */
+    static void sortUnsigned(long[] keys, int length, boolean parallel, int parallelThreshold) {
+        if (isSortedUnsigned(keys, length)) {
+            return;
+        }
+        if (length >= RADIX_SORT_THRESHOLD && !(parallel && length >= parallelThreshold)) {
+            radixSortUnsigned(keys, length);
+            return;
+        }
         for (int i = 0; i < length; i++) {
             keys[i] ^= Long.MIN_VALUE;
         }
-        Arrays.sort(keys, 0, length);
+        if (parallel) {
+            Arrays.parallelSort(keys, 0, length);
+        } else {
+            Arrays.sort(keys, 0, length);
+        }
         for (int i = 0; i < length; i++) {
             keys[i] ^= Long.MIN_VALUE;
         }
     }
 
+    private static boolean isSortedUnsigned(long[] keys, int length) {
+        for (int i = 1; i < length; i++) {
+            if (Long.compareUnsigned(keys[i - 1], keys[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Least-significant-digit radix sort over the four 16-bit digits of the unsigned keys. The
+     * digits are the bitmap's own partitioning — the lowest is the value inside a container, the
+     * next one the container key — so each pass scatters the keys into their container order.
+     *
+     * <p>A digit shared by every key moves nothing and its pass is skipped. Ids below 2^32, the
+     * common case, therefore cost two linear passes rather than an n·log(n) comparison sort. The
+     * passes ping-pong through one scratch array of the input's size.
+     */
+    private static void radixSortUnsigned(long[] keys, int length) {
+        int[][] counts = new int[4][1 << 16];
+        for (int i = 0; i < length; i++) {
+            long key = keys[i];
+            counts[0][(int) (key & 0xFFFF)]++;
+            counts[1][(int) ((key >>> 16) & 0xFFFF)]++;
+            counts[2][(int) ((key >>> 32) & 0xFFFF)]++;
+            counts[3][(int) (key >>> 48)]++;
+        }
+
+        long[] source = keys;
+        long[] target = null;
+        for (int digit = 0; digit < 4; digit++) {
+            int shift = digit * 16;
+            int[] count = counts[digit];
+            if (count[(int) ((keys[0] >>> shift) & 0xFFFF)] == length) {
+                continue;
+            }
+            if (target == null) {
+                target = new long[length];
+            }
+            int offset = 0;
+            for (int bucket = 0; bucket < count.length; bucket++) {
+                int bucketSize = count[bucket];
+                count[bucket] = offset;
+                offset += bucketSize;
+            }
+            for (int i = 0; i < length; i++) {
+                long key = source[i];
+                target[count[(int) ((key >>> shift) & 0xFFFF)]++] = key;
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != keys) {
+            System.arraycopy(source, 0, keys, 0, length);
+        }
+    }
+
     /** The container structure of one bitmap, measured before any body is allocated. */
     private static final class Layout {
         /** Upper 32 bits of each high container's key, ascending. */
@@ -0,0 +1,606 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.common.utils;
+
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the vectors of a <code>.fvecs</code>, <code>.bvecs</code> or <code>.npy</code> file through memory
+ * mapping, without loading the file in the heap.
+ * <p>
+ * The file is mapped by windows of about 1 GiB, so a file larger than 2 GB is read as well, a new window is
+ * mapped when a batch is out of the current one. A {@link Batch} is a slice of the mapped window: its vectors
+ * are read straight from the page cache, the OS loads and drops the pages as needed.
+ * <ul>
+ *     <li>.fvecs: each vector is its dimension as a little-endian int32 followed by its float32 values</li>
+ *     <li>.bvecs: each vector is its dimension as a little-endian int32 followed by its uint8 values</li>
+ *     <li>.npy: a 2-D C-order array of shape (rows, dimension), of dtype float32, float16, uint8 or int8</li>
+ * </ul>
+ * Example:
+ * <pre>{@code
+ * try (VectorFileSource source = VectorFileSource.open(Paths.get("/data/sift_base.fvecs"));
+ *      VectorFileSource.BatchIterator batches = source.batches(10000, 2)) {
+ *     while (batches.hasNext()) {
+ *         VectorFileSource.Batch batch = batches.next();
+ *         FloatBuffer vectors = batch.getFloatVectors();
+ *         ...
+ *     }
+ * }
+ * }</pre>
+ * The mapped windows stay valid after {@link #close()}, they are released when garbage collected.
+ */
+public class VectorFileSource implements Closeable {
+    public static final long DEFAULT_WINDOW_BYTES = 1L << 30;
+
+    private static final byte[] NPY_MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y'};
+    private static final Pattern NPY_DESCR = Pattern.compile("'descr'\\s*:\\s*'([^']*)'");
+    private static final Pattern NPY_FORTRAN_ORDER = Pattern.compile("'fortran_order'\\s*:\\s*(True|False)");
+    private static final Pattern NPY_SHAPE = Pattern.compile("'shape'\\s*:\\s*\\(([^)]*)\\)");
+    private static final int PAGE_SIZE = 4096;
+    // keeps the page reads of Batch.load() from being optimized away
+    private static volatile int loadedPages;
+
+    public enum Format {
+        FVECS,
+        BVECS,
+        NPY,
+    }
+
+    public enum ElementType {
+        FLOAT32(4),
+        FLOAT16(2),
+        UINT8(1),
+        INT8(1);
+
+        private final int bytes;
+
+        ElementType(int bytes) {
+            this.bytes = bytes;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    private final Path path;
+    private final Format format;
+    private final ElementType elementType;
+    private final int dimension;
+    private final long rowCount;
+    private final FileChannel channel;
+    // the offset of the first row, and the bytes from a row to the next one: a .fvecs/.bvecs row starts with
+    // its dimension, the vector follows
+    private final long dataOffset;
+    private final int rowBytes;
+    private final int vectorOffset;
+    private final long windowBytes;
+    private volatile Window window;
+
+    private VectorFileSource(Path path, Format format, ElementType elementType, int dimension, long rowCount,
+                             FileChannel channel, long dataOffset, int vectorOffset, long windowBytes) {
+        this.path = path;
+        this.format = format;
+        this.elementType = elementType;
+        this.dimension = dimension;
+        this.rowCount = rowCount;
+        this.channel = channel;
+        this.dataOffset = dataOffset;
+        this.vectorOffset = vectorOffset;
+        this.rowBytes = vectorOffset + dimension * elementType.getBytes();
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Opens a vector file, the format is given by the file extension.
+     */
+    public static VectorFileSource open(Path path) throws IOException {
+        String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (fileName.endsWith(".fvecs")) {
+            return open(path, Format.FVECS);
+        } else if (fileName.endsWith(".bvecs")) {
+            return open(path, Format.BVECS);
+        } else if (fileName.endsWith(".npy")) {
+            return open(path, Format.NPY);
+        }
+        throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                "Unknown vector file extension, expect .fvecs, .bvecs or .npy: " + path);
+    }
+
+    public static VectorFileSource open(Path path, Format format) throws IOException {
+        return open(path, format, DEFAULT_WINDOW_BYTES);
+    }
+
+    static VectorFileSource open(Path path, Format format, long windowBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (format == Format.NPY) {
+                return openNpy(path, channel, windowBytes);
+            }
+            return openVecs(path, format, channel, windowBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static VectorFileSource openVecs(Path path, Format format, FileChannel channel, long windowBytes)
+            throws IOException {
+        ElementType elementType = format == Format.FVECS ? ElementType.FLOAT32 : ElementType.UINT8;
+        long fileSize = channel.size();
+        if (fileSize < Integer.BYTES) {
+            throw invalidFile(path, "the file is empty");
+        }
+        int dimension = readHead(channel, Integer.BYTES).getInt(0);
+        if (dimension <= 0) {
+            throw invalidFile(path, "the dimension " + dimension + " is not positive");
+        }
+        long rowBytes = Integer.BYTES + (long) dimension * elementType.getBytes();
+        if (rowBytes > Integer.MAX_VALUE || fileSize % rowBytes != 0) {
+            throw invalidFile(path, String.format("the size %d is not a multiple of the row size %d of dimension %d",
+                    fileSize, rowBytes, dimension));
+        }
+        return new VectorFileSource(path, format, elementType, dimension, fileSize / rowBytes, channel,
+                0L, Integer.BYTES, windowBytes);
+    }
+
+    private static VectorFileSource openNpy(Path path, FileChannel channel, long windowBytes) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < 10) {
+            throw invalidFile(path, "the file is too short");
+        }
+        ByteBuffer head = readHead(channel, (int) Math.min(fileSize, 12));
+        for (int i = 0; i < NPY_MAGIC.length; i++) {
+            if (head.get(i) != NPY_MAGIC[i]) {
+                throw invalidFile(path, "the magic string is missing");
+            }
+        }
+        int major = head.get(6);
+        long headerStart = major == 1 ? 10 : 12;
+        long headerLength = major == 1 ? head.getShort(8) & 0xFFFF : head.getInt(8) & 0xFFFFFFFFL;
+        if (major < 1 || major > 3 || headerStart + headerLength > fileSize || headerLength > Integer.MAX_VALUE) {
+            throw invalidFile(path, "the header is malformed");
+        }
+        ByteBuffer headerBytes = ByteBuffer.allocate((int) headerLength);
+        readFully(channel, headerBytes, headerStart);
+        String header = new String(headerBytes.array(), StandardCharsets.ISO_8859_1);
+
+        Matcher fortranOrder = NPY_FORTRAN_ORDER.matcher(header);
+        if (fortranOrder.find() && fortranOrder.group(1).equals("True")) {
+            throw invalidFile(path, "a Fortran order array is not supported");
+        }
+        Matcher descr = NPY_DESCR.matcher(header);
+        if (!descr.find()) {
+            throw invalidFile(path, "the dtype is missing");
+        }
+        ElementType elementType = npyElementType(descr.group(1));
+        if (elementType == null) {
+            throw invalidFile(path, "the dtype '" + descr.group(1) + "' is not float32, float16, uint8 or int8");
+        }
+        Matcher shape = NPY_SHAPE.matcher(header);
+        String[] dims = shape.find() ? shape.group(1).split(",") : new String[0];
+        if (dims.length != 2 || dims[1].trim().isEmpty()) {
+            throw invalidFile(path, "the shape is not (rows, dimension)");
+        }
+        long rowCount = Long.parseLong(dims[0].trim());
+        long dimension = Long.parseLong(dims[1].trim());
+        long dataOffset = headerStart + headerLength;
+        if (dimension <= 0 || dimension * elementType.getBytes() > Integer.MAX_VALUE
+                || fileSize != dataOffset + rowCount * dimension * elementType.getBytes()) {
+            throw invalidFile(path, String.format("the size %d doesn't match the shape (%d, %d)",
+                    fileSize, rowCount, dimension));
+        }
+        return new VectorFileSource(path, Format.NPY, elementType, (int) dimension, rowCount, channel,
+                dataOffset, 0, windowBytes);
+    }
+
+    private static ElementType npyElementType(String descr) {
+        // a multi-byte type must be little-endian, a single byte type has no byte order
+        switch (descr) {
+            case "<f4":
+                return ElementType.FLOAT32;
+            case "<f2":
+                return ElementType.FLOAT16;
+            case "|u1":
+            case "<u1":
+            case "u1":
+                return ElementType.UINT8;
+            case "|i1":
+            case "<i1":
+            case "i1":
+                return ElementType.INT8;
+            default:
+                return null;
+        }
+    }
+
+    private static ByteBuffer readHead(FileChannel channel, int length) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, head, 0L);
+        return head;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + buffer.position());
+            if (count < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    private static MilvusClientException invalidFile(Path path, String reason) {
+        return new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                String.format("Invalid vector file %s: %s", path, reason));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public ElementType getElementType() {
+        return elementType;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the rows [firstRow, firstRow + count) of the file, mapping a new window if they are out of the
+     * current one. Can be called from many threads.
+     *
+     * @param firstRow the index of the first row
+     * @param count    the number of rows, the rows must fit in 2 GB
+     * @return {@link Batch}
+     */
+    public Batch read(long firstRow, int count) throws IOException {
+        if (firstRow < 0 || count <= 0 || firstRow + count > rowCount) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, String.format(
+                    "Rows [%d, %d) are out of the %d rows of %s", firstRow, firstRow + count, rowCount, path));
+        }
+        if ((long) count * rowBytes > Integer.MAX_VALUE) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, String.format(
+                    "A batch of %d rows of %d bytes exceeds 2 GB", count, rowBytes));
+        }
+
+        Window current = windowOf(firstRow, count);
+        ByteBuffer rows = current.buffer.duplicate();
+        int start = (int) ((firstRow - current.firstRow) * rowBytes);
+        rows.position(start).limit(start + count * rowBytes);
+        rows = rows.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (vectorOffset > 0) {
+            for (int i = 0; i < count; i++) {
+                int rowDimension = rows.getInt(i * rowBytes);
+                if (rowDimension != dimension) {
+                    throw invalidFile(path, String.format("row %d has dimension %d, expect %d",
+                            firstRow + i, rowDimension, dimension));
+                }
+            }
+        }
+        return new Batch(this, firstRow, count, rows);
+    }
+
+    private Window windowOf(long firstRow, int count) throws IOException {
+        Window current = window;
+        if (current != null && firstRow >= current.firstRow
+                && firstRow + count <= current.firstRow + current.rowCount) {
+            return current;
+        }
+        long windowRows = Math.max(count, Math.min(windowBytes, Integer.MAX_VALUE) / rowBytes);
+        windowRows = Math.min(windowRows, rowCount - firstRow);
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + firstRow * rowBytes,
+                windowRows * rowBytes);
+        current = new Window(firstRow, windowRows, buffer);
+        window = current;
+        return current;
+    }
+
+    /**
+     * Iterates over the file by batches of <code>batchSize</code> rows, the last batch may be smaller.
+     * <p>
+     * With a positive <code>readAhead</code>, a background thread maps the next batches and loads their pages
+     * while the current one is processed, up to <code>readAhead</code> batches ahead of the consumer.
+     *
+     * @param batchSize the number of rows of a batch
+     * @param readAhead the max number of batches read ahead, 0 to read each batch on demand
+     * @return {@link BatchIterator}, close it to stop the read-ahead thread
+     */
+    public BatchIterator batches(int batchSize, int readAhead) {
+        if (batchSize <= 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "Batch size must be positive");
+        }
+        return new BatchIterator(this, batchSize, Math.max(0, readAhead));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "VectorFileSource{" +
+                "path=" + path +
+                ", format=" + format +
+                ", elementType=" + elementType +
+                ", dimension=" + dimension +
+                ", rowCount=" + rowCount +
+                '}';
+    }
+
+    private static final class Window {
+        private final long firstRow;
+        private final long rowCount;
+        private final ByteBuffer buffer;
+
+        private Window(long firstRow, long rowCount, ByteBuffer buffer) {
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Consecutive rows of a vector file. The buffers returned are views of the mapped file, little-endian,
+     * read-only in practice: the file is mapped read-only.
+     */
+    public static final class Batch {
+        private final VectorFileSource source;
+        private final long firstRow;
+        private final int rowCount;
+        private final ByteBuffer rows;
+
+        private Batch(VectorFileSource source, long firstRow, int rowCount, ByteBuffer rows) {
+            this.source = source;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.rows = rows;
+        }
+
+        public long getFirstRow() {
+            return firstRow;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int getDimension() {
+            return source.dimension;
+        }
+
+        public ElementType getElementType() {
+            return source.elementType;
+        }
+
+        /**
+         * @param row the index of the row in the batch
+         * @return the bytes of a vector, a view of the mapped file
+         */
+        public ByteBuffer getVector(int row) {
+            if (row < 0 || row >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + row + " of a batch of " + rowCount + " rows");
+            }
+            int start = row * source.rowBytes + source.vectorOffset;
+            ByteBuffer vector = rows.duplicate();
+            vector.position(start).limit(start + source.rowBytes - source.vectorOffset);
+            return vector.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * @param row the index of the row in the batch
+         * @return the values of a float32 vector, a view of the mapped file
+         */
+        public FloatBuffer getFloatVector(int row) {
+            checkFloat32();
+            return getVector(row).asFloatBuffer();
+        }
+
+        /**
+         * Returns the vectors of the batch back to back. A .npy file stores them so, the buffer is then a view
+         * of the mapped file. A .fvecs/.bvecs file has the dimension before each vector, the vectors are then
+         * copied into a new buffer.
+         */
+        public ByteBuffer getVectors() {
+            if (source.vectorOffset == 0) {
+                return rows.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            }
+            int vectorBytes = source.rowBytes - source.vectorOffset;
+            ByteBuffer vectors = ByteBuffer.allocate(rowCount * vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < rowCount; i++) {
+                vectors.put(getVector(i));
+            }
+            vectors.flip();
+            return vectors;
+        }
+
+        /**
+         * @return the float32 vectors of the batch back to back, see {@link #getVectors()}
+         */
+        public FloatBuffer getFloatVectors() {
+            checkFloat32();
+            return getVectors().asFloatBuffer();
+        }
+
+        private void checkFloat32() {
+            if (source.elementType != ElementType.FLOAT32) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "The vectors of " + source.path + " are " + source.elementType + ", not FLOAT32");
+            }
+        }
+
+        // reads a byte of each page so that the OS loads them now, on the calling thread
+        private void load() {
+            int sum = 0;
+            for (int i = 0; i < rows.limit(); i += PAGE_SIZE) {
+                sum += rows.get(i);
+            }
+            loadedPages = sum;
+        }
+
+        @Override
+        public String toString() {
+            return "Batch{" +
+                    "firstRow=" + firstRow +
+                    ", rowCount=" + rowCount +
+                    '}';
+        }
+    }
+
+    /**
+     * Iterator over the batches of a {@link VectorFileSource}, see {@link #batches(int, int)}.
+     */
+    public static final class BatchIterator implements Iterator<Batch>, Closeable {
+        private static final Object END = new Object();
+
+        private final VectorFileSource source;
+        private final int batchSize;
+        private final BlockingQueue<Object> readAheadQueue;
+        private long nextRow = 0L;
+        private volatile boolean closed = false;
+        // the error of the read-ahead thread, thrown again by the next calls, the thread has ended
+        private RuntimeException failure = null;
+
+        private BatchIterator(VectorFileSource source, int batchSize, int readAhead) {
+            this.source = source;
+            this.batchSize = batchSize;
+            if (readAhead > 0 && source.rowCount > 0) {
+                this.readAheadQueue = new ArrayBlockingQueue<>(readAhead);
+                Thread thread = new Thread(this::readAhead, "vector-file-read-ahead-" + source.path.getFileName());
+                thread.setDaemon(true);
+                thread.start();
+            } else {
+                this.readAheadQueue = null;
+            }
+        }
+
+        private void readAhead() {
+            Object item = END;
+            try {
+                for (long row = 0; row < source.rowCount; row += batchSize) {
+                    Batch batch = source.read(row, (int) Math.min(batchSize, source.rowCount - row));
+                    batch.load();
+                    if (!enqueue(batch)) {
+                        return;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                item = e;
+            }
+            enqueue(item);
+        }
+
+        // the thread is not interrupted to stop it: an interrupt during a map() would close the file channel
+        private boolean enqueue(Object item) {
+            try {
+                while (!closed) {
+                    if (readAheadQueue.offer(item, 100L, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !closed && nextRow < source.rowCount;
+        }
+
+        @Override
+        public Batch next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            Batch batch;
+            if (readAheadQueue == null) {
+                try {
+                    batch = source.read(nextRow, (int) Math.min(batchSize, source.rowCount - nextRow));
+                } catch (IOException e) {
+                    throw new MilvusClientException(ErrorCode.CLIENT_ERROR,
+                            "Failed to read " + source.path + ": " + e.getMessage());
+                }
+            } else {
+                Object item;
+                try {
+                    item = readAheadQueue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MilvusClientException(ErrorCode.CLIENT_ERROR, "Interrupted while reading " + source.path);
+                }
+                if (item instanceof RuntimeException) {
+                    failure = (RuntimeException) item;
+                    throw failure;
+                } else if (item instanceof IOException) {
+                    failure = new MilvusClientException(ErrorCode.CLIENT_ERROR,
+                            "Failed to read " + source.path + ": " + ((IOException) item).getMessage());
+                    throw failure;
+                }
+                batch = (Batch) item;
+            }
+            nextRow += batch.getRowCount();
+            return batch;
+        }
+
+        /**
+         * Stops the read-ahead thread, the batches already returned stay valid.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            if (readAheadQueue != null) {
+                readAheadQueue.clear();
+            }
+        }
+    }
+}
@@ -19,6 +19,9 @@
 
 package io.milvus.common.utils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * XXH64 with seed 0 — the hash the Parquet Split-Block Bloom Filter spec mandates, and thus the
  * one {@link BloomFilterUtils} must reproduce bit-for-bit to stay interoperable with the Milvus
@@ -49,8 +52,26 @@ final class XXHash64 {
      * @return the 64-bit digest
      */
     static long hash(byte[] data) {
-        final int length = data.length;
-        int index = 0;
+        return hash(ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN), 0, data.length);
+    }
+
+    /**
+     * Returns XXH64(seed=0) of the given range of a little-endian buffer, without copying it.
+     *
+     * <p>The batch paths of {@link BloomFilterUtils} wrap a packed buffer once and hash each
+     * member in place. The reads are absolute, so the buffer's position is never touched and
+     * several threads may hash ranges of one buffer at the same time. The JIT turns
+     * {@link ByteBuffer#getLong(int)} on a little-endian heap buffer into one 8-byte load, where
+     * the byte-by-byte assembly it replaces took eight loads and seven shifts.
+     *
+     * @param data   the bytes, in {@link ByteOrder#LITTLE_ENDIAN} order
+     * @param offset where the range starts
+     * @param length the range length
+     * @return the 64-bit digest
+     */
+    static long hash(ByteBuffer data, int offset, int length) {
+        final int end = offset + length;
+        int index = offset;
         long result;
 
         if (length >= 32) {
@@ -58,12 +79,12 @@ final class XXHash64 {
             long v2 = PRIME64_2;
             long v3 = 0;
             long v4 = -PRIME64_1;
-            final int limit = length - 32;
+            final int limit = end - 32;
             while (index <= limit) {
-                v1 = round(v1, readLong(data, index));
-                v2 = round(v2, readLong(data, index + 8));
-                v3 = round(v3, readLong(data, index + 16));
-                v4 = round(v4, readLong(data, index + 24));
+                v1 = round(v1, data.getLong(index));
+                v2 = round(v2, data.getLong(index + 8));
+                v3 = round(v3, data.getLong(index + 16));
+                v4 = round(v4, data.getLong(index + 24));
                 index += 32;
             }
             result = Long.rotateLeft(v1, 1)
@@ -80,18 +101,18 @@ final class XXHash64 {
 
         result += length;
 
-        while (index + 8 <= length) {
-            result ^= round(0, readLong(data, index));
+        while (index + 8 <= end) {
+            result ^= round(0, data.getLong(index));
             result = Long.rotateLeft(result, 27) * PRIME64_1 + PRIME64_4;
             index += 8;
         }
-        if (index + 4 <= length) {
-            result ^= readInt(data, index) * PRIME64_1;
+        if (index + 4 <= end) {
+            result ^= (data.getInt(index) & 0xFFFFFFFFL) * PRIME64_1;
             result = Long.rotateLeft(result, 23) * PRIME64_2 + PRIME64_3;
             index += 4;
         }
-        while (index < length) {
-            result ^= (data[index] & 0xFFL) * PRIME64_5;
+        while (index < end) {
+            result ^= (data.get(index) & 0xFFL) * PRIME64_5;
             result = Long.rotateLeft(result, 11) * PRIME64_1;
             index++;
         }
@@ -137,24 +158,4 @@ final class XXHash64 {
         h ^= h >>> 32;
         return h;
     }
-
-    /** Reads a little-endian int64 at the given offset. */
-    private static long readLong(byte[] data, int index) {
-        return (data[index] & 0xFFL)
-                | (data[index + 1] & 0xFFL) << 8
-                | (data[index + 2] & 0xFFL) << 16
-                | (data[index + 3] & 0xFFL) << 24
-                | (data[index + 4] & 0xFFL) << 32
-                | (data[index + 5] & 0xFFL) << 40
-                | (data[index + 6] & 0xFFL) << 48
-                | (data[index + 7] & 0xFFL) << 56;
-    }
-
-    /** Reads a little-endian uint32 at the given offset, zero-extended to long. */
-    private static long readInt(byte[] data, int index) {
-        return (data[index] & 0xFFL)
-                | (data[index + 1] & 0xFFL) << 8
-                | (data[index + 2] & 0xFFL) << 16
-                | (data[index + 3] & 0xFFL) << 24;
-    }
 }
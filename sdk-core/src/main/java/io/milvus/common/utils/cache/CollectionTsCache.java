@@ -16,18 +16,45 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package io.milvus.common.utils.cache;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Records the timestamp of the latest write to each collection, which a session-consistent search/query
+ * passes as its guarantee timestamp.
+ * <p>
+ * Reads and writes are lock-free: the entries live in a {@link ConcurrentHashMap} and a write is a
+ * monotonic max update, so a stale timestamp never overwrites a newer one and writers of different
+ * collections never contend. The number of entries is bounded. When it exceeds the capacity, the entries
+ * with the oldest timestamps are evicted, those are the collections least recently written, whose writes
+ * are the most likely to be visible already. An evicted collection falls back to eventual consistency.
+ */
 public class CollectionTsCache {
+    public static final int DEFAULT_CAPACITY = 16384;
+    // an eviction trims the cache to this share of the capacity, so a scan is amortized over many inserts
+    private static final double EVICTION_TARGET_RATIO = 0.9;
+
     private static final CollectionTsCache INSTANCE = new CollectionTsCache();
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Map<CollectionCacheKey, Long> cache = new HashMap<>();
+    private final Map<CollectionCacheKey, Long> cache = new ConcurrentHashMap<>();
+    private final int capacity;
+    // only one thread evicts at a time, the others keep writing
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public CollectionTsCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CollectionTsCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be greater than zero");
+        }
+        this.capacity = capacity;
+    }
 
     public static CollectionTsCache getInstance() {
         return INSTANCE;
@@ -35,12 +62,7 @@ public class CollectionTsCache {
 
     public long get(String endpoint, String databaseName, String collectionName) {
         CollectionCacheKey key = CollectionCacheKey.create(endpoint, databaseName, collectionName);
-        lock.readLock().lock();
-        try {
-            return cache.getOrDefault(key, 0L);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return cache.getOrDefault(key, 0L);
     }
 
     public void set(String endpoint, String databaseName, String collectionName, long timestamp) {
@@ -49,33 +71,18 @@ public class CollectionTsCache {
         }
 
         CollectionCacheKey key = CollectionCacheKey.create(endpoint, databaseName, collectionName);
-        lock.writeLock().lock();
-        try {
-            cache.compute(key, (ignored, current) -> current == null || timestamp > current ? timestamp : current);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        raise(key, timestamp);
     }
 
     public void invalidate(String endpoint, String databaseName, String collectionName) {
         CollectionCacheKey key = CollectionCacheKey.create(endpoint, databaseName, collectionName);
-        lock.writeLock().lock();
-        try {
-            cache.remove(key);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        cache.remove(key);
     }
 
     public void invalidateDb(String endpoint, String databaseName) {
         CollectionCacheKey prefix = CollectionCacheKey.create(endpoint, databaseName, "");
-        lock.writeLock().lock();
-        try {
-            cache.keySet().removeIf(key -> key.getEndpoint().equals(prefix.getEndpoint())
-                    && key.getDatabaseName().equals(prefix.getDatabaseName()));
-        } finally {
-            lock.writeLock().unlock();
-        }
+        cache.keySet().removeIf(key -> key.getEndpoint().equals(prefix.getEndpoint())
+                && key.getDatabaseName().equals(prefix.getDatabaseName()));
     }
 
     /**
@@ -99,40 +106,72 @@ public class CollectionTsCache {
 
     private void transfer(CollectionCacheKey sourceKey, CollectionCacheKey targetKey,
                           boolean dropSource) {
-        lock.writeLock().lock();
+        if (sourceKey.equals(targetKey)) {
+            return;
+        }
+        Long sourceTimestamp = dropSource ? cache.remove(sourceKey) : cache.get(sourceKey);
+        if (sourceTimestamp != null) {
+            raise(targetKey, sourceTimestamp);
+        }
+    }
+
+    private void raise(CollectionCacheKey key, long timestamp) {
+        Long current = cache.get(key);
+        if (current == null) {
+            current = cache.putIfAbsent(key, timestamp);
+            if (current == null) {
+                evictIfNeeded();
+                return;
+            }
+        }
+        // most writes carry a newer timestamp, a stale one returns here without locking the bin
+        if (current < timestamp) {
+            cache.merge(key, timestamp, Math::max);
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (cache.size() <= capacity || !evictionLock.tryLock()) {
+            return;
+        }
         try {
-            if (sourceKey.equals(targetKey)) {
+            int excess = cache.size() - (int) (capacity * EVICTION_TARGET_RATIO);
+            if (excess <= 0) {
                 return;
             }
-            long latestTimestamp = Math.max(
-                    cache.getOrDefault(sourceKey, 0L), cache.getOrDefault(targetKey, 0L));
-            if (dropSource) {
-                cache.remove(sourceKey);
+            long[] timestamps = new long[cache.size() + 16];
+            int count = 0;
+            for (Long timestamp : cache.values()) {
+                if (count == timestamps.length) {
+                    break;
+                }
+                timestamps[count++] = timestamp;
             }
-            cache.remove(targetKey);
-            if (latestTimestamp != 0L) {
-                cache.put(targetKey, latestTimestamp);
+            if (count == 0) {
+                // emptied by a concurrent clear() or removal since the size was read
+                return;
+            }
+            Arrays.sort(timestamps, 0, count);
+            long threshold = timestamps[Math.min(excess, count) - 1];
+            // remove(key, value) keeps an entry whose timestamp was raised concurrently
+            for (Map.Entry<CollectionCacheKey, Long> entry : cache.entrySet()) {
+                if (excess <= 0) {
+                    break;
+                }
+                if (entry.getValue() <= threshold && cache.remove(entry.getKey(), entry.getValue())) {
+                    excess--;
+                }
             }
         } finally {
-            lock.writeLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     public void clear() {
-        lock.writeLock().lock();
-        try {
-            cache.clear();
-        } finally {
-            lock.writeLock().unlock();
-        }
+        cache.clear();
     }
 
     public int size() {
-        lock.readLock().lock();
-        try {
-            return cache.size();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return cache.size();
     }
 }
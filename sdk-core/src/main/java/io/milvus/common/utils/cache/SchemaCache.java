@@ -21,19 +21,39 @@ package io.milvus.common.utils.cache;
 
 import io.milvus.grpc.DescribeCollectionResponse;
 
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Process-wide cache of collection schemas, shared by all the clients.
+ * <p>
+ * Lookups are lock-free: the entries live in a {@link ConcurrentHashMap} and a hit is only recorded
+ * into a per-thread-striped, lossy read buffer. The eviction policy is W-TinyLFU: new entries enter a
+ * small LRU window, and an entry leaving the window is admitted to the segmented-LRU main space only
+ * if a frequency sketch estimates it is more popular than the main space's victim. Policy updates,
+ * insertions and removals are serialized by the eviction lock, and readers only take it with a
+ * tryLock when a read buffer is full, so eviction is O(1) and never blocks the read path.
+ * <p>
+ * A caller may pass a time-to-live. An expired entry is reloaded like a missing one, and a hit in the
+ * last 20% of the time-to-live starts one background refresh while the callers keep the cached schema.
+ * The refreshed schema replaces the cached one only when its update timestamp or collection ID changed,
+ * otherwise only the time-to-live of the entry is extended.
+ */
 public class SchemaCache {
     public static final int DEFAULT_CAPACITY = 4096;
+    // an entry is refreshed in the background once this share of its time-to-live has passed
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
 
     @FunctionalInterface
     public interface Loader {
@@ -47,13 +67,125 @@ public class SchemaCache {
 
     private static final SchemaCache INSTANCE = new SchemaCache();
 
-    private static final class Entry {
-        private DescribeCollectionResponse response;
-        private final AtomicLong lastAccess;
-
-        private Entry(DescribeCollectionResponse response, long lastAccess) {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int RETIRED = 3;
+
+    private static final class Node {
+        private final CollectionCacheKey key;
+        private volatile DescribeCollectionResponse response;
+        private volatile long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+        // guarded by evictionLock
+        private int queue = WINDOW;
+        private Node prev;
+        private Node next;
+
+        private Node(CollectionCacheKey key, DescribeCollectionResponse response, long loadedAt) {
+            this.key = key;
             this.response = response;
-            this.lastAccess = new AtomicLong(lastAccess);
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    // an intrusive access-ordered list, guarded by evictionLock
+    private static final class NodeDeque {
+        private Node head;
+        private Node tail;
+        private int size;
+
+        private void addLast(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        private void moveToLast(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        private Node peekFirst() {
+            return head;
+        }
+
+        private Node peekLast() {
+            return tail;
+        }
+
+        private void clear() {
+            for (Node node = head; node != null; ) {
+                Node next = node.next;
+                node.queue = RETIRED;
+                node.prev = null;
+                node.next = null;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    // A bounded multi-producer ring buffer of recent hits. Offers are dropped when it is full, the
+    // policy only needs a sample of the accesses. Polled by the owner of evictionLock.
+    private static final class ReadBuffer {
+        private static final int SIZE = 16;
+        private static final int MASK = SIZE - 1;
+
+        private final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+
+        // returns true when the buffer is full and should be drained
+        private boolean offer(Node node) {
+            long tail = writeCounter.get();
+            long size = tail - readCounter;
+            if (size >= SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & MASK), node);
+                return size + 1 >= SIZE;
+            }
+            return false;
+        }
+
+        private Node poll() {
+            long head = readCounter;
+            int index = (int) (head & MASK);
+            Node node = slots.get(index);
+            if (node == null) {
+                return null;
+            }
+            slots.lazySet(index, null);
+            readCounter = head + 1;
+            return node;
         }
     }
 
@@ -95,21 +227,41 @@ public class SchemaCache {
     }
 
     private final int capacity;
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final AtomicLong accessSequence = new AtomicLong();
-    private final Map<CollectionCacheKey, Entry> cache = new HashMap<>();
-    private final Object loadingLock = new Object();
-    private final Map<LoadKey, LoadState> loading = new HashMap<>();
+    private final LongSupplier ticker;
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final ConcurrentHashMap<CollectionCacheKey, Node> cache = new ConcurrentHashMap<>();
+    private final ReadBuffer[] readBuffers;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // guarded by evictionLock
+    private final FrequencySketch sketch;
+    private final NodeDeque window = new NodeDeque();
+    private final NodeDeque probation = new NodeDeque();
+    private final NodeDeque protectedQueue = new NodeDeque();
+    private final Map<LoadKey, LoadState> loading = new ConcurrentHashMap<>();
 
     public SchemaCache() {
         this(DEFAULT_CAPACITY);
     }
 
     public SchemaCache(int capacity) {
+        this(capacity, System::nanoTime);
+    }
+
+    SchemaCache(int capacity, LongSupplier ticker) {
         if (capacity <= 0) {
             throw new IllegalArgumentException("Cache capacity must be greater than zero");
         }
         this.capacity = capacity;
+        this.ticker = ticker;
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.protectedCapacity = (capacity - windowCapacity) * 80 / 100;
+        this.sketch = new FrequencySketch(capacity);
+        int stripes = Integer.highestOneBit(Math.min(64, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
     }
 
     public static SchemaCache getInstance() {
@@ -124,29 +276,39 @@ public class SchemaCache {
      */
     public DescribeCollectionResponse getOrLoad(String endpoint, String databaseName, String collectionName,
                                                 boolean forceUpdate, Object loadScope, Loader loader) {
+        return getOrLoad(endpoint, databaseName, collectionName, forceUpdate, loadScope, loader, 0L, null);
+    }
+
+    /**
+     * Same as {@link #getOrLoad(String, String, String, boolean, Object, Loader)}, but a cached schema
+     * older than <code>ttlMs</code> is treated as missing. When <code>refresher</code> is not null, a hit
+     * close to the expiry starts a background refresh with it and returns the cached schema. A failed
+     * background refresh is dropped, the entry is then reloaded by the loader once it has expired.
+     *
+     * @param ttlMs time-to-live of the cached schema in milliseconds, zero or negative to disable it
+     * @param refresher loads the schema in the background, may be null
+     */
+    public DescribeCollectionResponse getOrLoad(String endpoint, String databaseName, String collectionName,
+                                                boolean forceUpdate, Object loadScope, Loader loader,
+                                                long ttlMs, AsyncLoader refresher) {
         CollectionCacheKey key = CollectionCacheKey.create(endpoint, databaseName, collectionName);
-        DescribeCollectionResponse initial = getCached(key);
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0L));
+        DescribeCollectionResponse initial = getCached(key, ttlNanos, refresher);
         if (initial != null && !forceUpdate) {
             return initial;
         }
 
         LoadKey loadKey = new LoadKey(key, Objects.requireNonNull(loadScope, "loadScope cannot be null"));
         LoadState newState = new LoadState();
-        LoadState state;
-        synchronized (loadingLock) {
-            state = loading.get(loadKey);
-            if (state == null) {
-                retainWaiter(newState);
-                loading.put(loadKey, newState);
-            }
-        }
+        retainWaiter(newState);
+        LoadState state = loading.putIfAbsent(loadKey, newState);
         if (state != null) {
             return await(loadKey, state);
         }
         state = newState;
 
         try {
-            DescribeCollectionResponse current = getCached(key);
+            DescribeCollectionResponse current = getCached(key, ttlNanos, null);
             if (current != null && (!forceUpdate || current != initial)) {
                 publishLoadResult(loadKey, state, current, null);
                 return current;
@@ -174,29 +336,35 @@ public class SchemaCache {
     public CompletableFuture<DescribeCollectionResponse> getOrLoadAsync(
             String endpoint, String databaseName, String collectionName,
             boolean forceUpdate, Object loadScope, AsyncLoader loader) {
+        return getOrLoadAsync(endpoint, databaseName, collectionName, forceUpdate, loadScope, loader, 0L);
+    }
+
+    /**
+     * Same as {@link #getOrLoadAsync(String, String, String, boolean, Object, AsyncLoader)} with a
+     * time-to-live, see {@link #getOrLoad(String, String, String, boolean, Object, Loader, long, AsyncLoader)}.
+     * The loader is also used for the background refresh.
+     */
+    public CompletableFuture<DescribeCollectionResponse> getOrLoadAsync(
+            String endpoint, String databaseName, String collectionName,
+            boolean forceUpdate, Object loadScope, AsyncLoader loader, long ttlMs) {
         CollectionCacheKey key = CollectionCacheKey.create(endpoint, databaseName, collectionName);
-        DescribeCollectionResponse initial = getCached(key);
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0L));
+        DescribeCollectionResponse initial = getCached(key, ttlNanos, loader);
         if (initial != null && !forceUpdate) {
             return CompletableFuture.completedFuture(initial);
         }
 
         LoadKey loadKey = new LoadKey(key, Objects.requireNonNull(loadScope, "loadScope cannot be null"));
         LoadState newState = new LoadState();
-        LoadState state;
-        synchronized (loadingLock) {
-            state = loading.get(loadKey);
-            if (state == null) {
-                retainWaiter(newState);
-                loading.put(loadKey, newState);
-            }
-        }
+        retainWaiter(newState);
+        LoadState state = loading.putIfAbsent(loadKey, newState);
         if (state != null) {
             return dependentFuture(loadKey, state, false);
         }
         state = newState;
         CompletableFuture<DescribeCollectionResponse> dependent = dependentFuture(loadKey, state, true);
 
-        DescribeCollectionResponse current = getCached(key);
+        DescribeCollectionResponse current = getCached(key, ttlNanos, null);
         if (current != null && (!forceUpdate || current != initial)) {
             publishLoadResult(loadKey, state, current, null);
             return dependent;
@@ -230,7 +398,7 @@ public class SchemaCache {
     }
 
     public DescribeCollectionResponse get(String endpoint, String databaseName, String collectionName) {
-        return getCached(CollectionCacheKey.create(endpoint, databaseName, collectionName));
+        return getCached(CollectionCacheKey.create(endpoint, databaseName, collectionName), 0L, null);
     }
 
     public void set(String endpoint, String databaseName, String collectionName,
@@ -243,109 +411,168 @@ public class SchemaCache {
     public void invalidate(String endpoint, String databaseName, String collectionName) {
         CollectionCacheKey key = CollectionCacheKey.create(endpoint, databaseName, collectionName);
         invalidateLoad(key);
-        lock.writeLock().lock();
+        evictionLock.lock();
         try {
-            cache.remove(key);
+            Node node = cache.remove(key);
+            if (node != null) {
+                retire(node);
+            }
         } finally {
-            lock.writeLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     public void invalidateDb(String endpoint, String databaseName) {
         CollectionCacheKey prefix = CollectionCacheKey.create(endpoint, databaseName, "");
-        synchronized (loadingLock) {
-            loading.entrySet().removeIf(entry -> {
-                if (!sameDatabase(entry.getKey().collectionKey, prefix)) {
-                    return false;
-                }
-                entry.getValue().invalidated.set(true);
-                return true;
-            });
-        }
-        lock.writeLock().lock();
+        invalidateLoads(loadKey -> sameDatabase(loadKey.collectionKey, prefix));
+        evictionLock.lock();
         try {
-            cache.keySet().removeIf(key -> sameDatabase(key, prefix));
+            for (Node node : cache.values()) {
+                if (sameDatabase(node.key, prefix) && cache.remove(node.key, node)) {
+                    retire(node);
+                }
+            }
         } finally {
-            lock.writeLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     public void clear() {
-        synchronized (loadingLock) {
-            loading.values().forEach(state -> state.invalidated.set(true));
-            loading.clear();
-        }
-        lock.writeLock().lock();
+        invalidateLoads(loadKey -> true);
+        evictionLock.lock();
         try {
+            drainReadBuffers(false);
             cache.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+            sketch.clear();
         } finally {
-            lock.writeLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     public int size() {
-        lock.readLock().lock();
+        return cache.size();
+    }
+
+    private DescribeCollectionResponse getCached(CollectionCacheKey key, long ttlNanos, AsyncLoader refresher) {
+        Node node = cache.get(key);
+        if (node == null) {
+            return null;
+        }
+        ReadBuffer buffer = readBuffers[readBufferIndex()];
+        if (buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers(true);
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        DescribeCollectionResponse response = node.response;
+        if (ttlNanos > 0) {
+            long age = ticker.getAsLong() - node.loadedAt;
+            if (age >= ttlNanos) {
+                return null;
+            }
+            if (refresher != null && age >= (long) (ttlNanos * REFRESH_AHEAD_RATIO)) {
+                refreshAhead(node, response, refresher);
+            }
+        }
+        return response;
+    }
+
+    private void refreshAhead(Node node, DescribeCollectionResponse base, AsyncLoader refresher) {
+        if (!node.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture<DescribeCollectionResponse> refreshFuture;
         try {
-            return cache.size();
-        } finally {
-            lock.readLock().unlock();
+            refreshFuture = refresher.load();
+        } catch (Throwable ignored) {
+            node.refreshing.set(false);
+            return;
+        }
+        if (refreshFuture == null) {
+            node.refreshing.set(false);
+            return;
         }
+        refreshFuture.whenComplete((refreshed, throwable) -> {
+            try {
+                if (throwable == null && refreshed != null) {
+                    publishRefresh(node, base, refreshed);
+                }
+            } finally {
+                node.refreshing.set(false);
+            }
+        });
     }
 
-    private DescribeCollectionResponse getCached(CollectionCacheKey key) {
-        lock.readLock().lock();
+    private void publishRefresh(Node node, DescribeCollectionResponse base, DescribeCollectionResponse refreshed) {
+        evictionLock.lock();
         try {
-            Entry entry = cache.get(key);
-            if (entry == null) {
-                return null;
+            // skip it if the entry was invalidated, evicted or reloaded by another caller meanwhile
+            if (node.queue == RETIRED || cache.get(node.key) != node || node.response != base) {
+                return;
+            }
+            if (refreshed.getUpdateTimestamp() != base.getUpdateTimestamp()
+                    || refreshed.getCollectionID() != base.getCollectionID()) {
+                node.response = refreshed;
             }
-            touch(entry);
-            return entry.response;
+            node.loadedAt = ticker.getAsLong();
         } finally {
-            lock.readLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     private void setCached(CollectionCacheKey key, DescribeCollectionResponse response) {
-        lock.writeLock().lock();
+        evictionLock.lock();
         try {
             setCacheNoLocked(key, response);
         } finally {
-            lock.writeLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     private void setCachedIfValid(CollectionCacheKey key, DescribeCollectionResponse response, LoadState state) {
-        lock.writeLock().lock();
+        evictionLock.lock();
         try {
             if (!state.invalidated.get()) {
                 setCacheNoLocked(key, response);
             }
         } finally {
-            lock.writeLock().unlock();
+            evictionLock.unlock();
         }
     }
 
     private void setCacheNoLocked(CollectionCacheKey key, DescribeCollectionResponse response) {
-        Entry entry = cache.get(key);
-        if (entry != null) {
-            entry.response = response;
-            touch(entry);
-        } else {
-            cache.put(key, new Entry(response, nextAccess()));
-            evictIfNeeded();
+        drainReadBuffers(true);
+        Node node = cache.get(key);
+        if (node != null) {
+            node.response = response;
+            node.loadedAt = ticker.getAsLong();
+            onAccess(node);
+            return;
         }
+        node = new Node(key, response, ticker.getAsLong());
+        cache.put(key, node);
+        sketch.increment(key);
+        window.addLast(node);
+        evictIfNeeded();
     }
 
     private void invalidateLoad(CollectionCacheKey key) {
-        synchronized (loadingLock) {
-            loading.entrySet().removeIf(entry -> {
-                if (!entry.getKey().collectionKey.equals(key)) {
-                    return false;
-                }
+        invalidateLoads(loadKey -> loadKey.collectionKey.equals(key));
+    }
+
+    // Marks the in-flight loads as invalidated before removing them, so a load which already passed
+    // the check publishes before the cache entry is removed under the eviction lock.
+    private void invalidateLoads(Predicate<LoadKey> filter) {
+        for (Map.Entry<LoadKey, LoadState> entry : loading.entrySet()) {
+            if (filter.test(entry.getKey())) {
                 entry.getValue().invalidated.set(true);
-                return true;
-            });
+                loading.remove(entry.getKey(), entry.getValue());
+            }
         }
     }
 
@@ -473,11 +700,7 @@ public class SchemaCache {
     }
 
     private void removeLoad(LoadKey loadKey, LoadState state) {
-        synchronized (loadingLock) {
-            if (loading.get(loadKey) == state) {
-                loading.remove(loadKey);
-            }
-        }
+        loading.remove(loadKey, state);
     }
 
     private Throwable unwrapCompletionThrowable(Throwable throwable) {
@@ -504,21 +727,83 @@ public class SchemaCache {
                 && key.getDatabaseName().equals(prefix.getDatabaseName());
     }
 
-    private long nextAccess() {
-        return accessSequence.incrementAndGet();
+    private int readBufferIndex() {
+        long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (readBuffers.length - 1);
     }
 
-    private void touch(Entry entry) {
-        entry.lastAccess.accumulateAndGet(nextAccess(), Math::max);
+    private void drainReadBuffers(boolean record) {
+        for (ReadBuffer buffer : readBuffers) {
+            Node node;
+            while ((node = buffer.poll()) != null) {
+                if (record) {
+                    onAccess(node);
+                }
+            }
+        }
     }
 
-    private void evictIfNeeded() {
-        if (cache.size() <= capacity) {
+    private void onAccess(Node node) {
+        if (node.queue == RETIRED) {
             return;
         }
-        cache.entrySet().stream()
-                .min(Comparator.comparingLong(item -> item.getValue().lastAccess.get()))
-                .map(Map.Entry::getKey)
-                .ifPresent(cache::remove);
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToLast(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            node.queue = PROTECTED;
+            protectedQueue.addLast(node);
+            if (protectedQueue.size > protectedCapacity) {
+                Node demoted = protectedQueue.peekFirst();
+                protectedQueue.remove(demoted);
+                demoted.queue = PROBATION;
+                probation.addLast(demoted);
+            }
+        } else {
+            protectedQueue.moveToLast(node);
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (window.size > windowCapacity) {
+            Node node = window.peekFirst();
+            window.remove(node);
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+        while (window.size + probation.size + protectedQueue.size > capacity) {
+            // the candidate is the latest entry moved out of the window, the victim is the least
+            // recently used entry of the main space
+            Node candidate = probation.peekLast();
+            Node victim = probation.peekFirst();
+            if (victim == candidate) {
+                victim = protectedQueue.peekFirst();
+            }
+            if (candidate == null) {
+                candidate = window.peekFirst();
+            }
+            if (victim == null) {
+                evict(candidate);
+            } else {
+                evict(sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate);
+            }
+        }
+    }
+
+    private void evict(Node node) {
+        cache.remove(node.key, node);
+        retire(node);
+    }
+
+    private void retire(Node node) {
+        if (node.queue == WINDOW) {
+            window.remove(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+        } else if (node.queue == PROTECTED) {
+            protectedQueue.remove(node);
+        }
+        node.queue = RETIRED;
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.orm.iterator;
+
+import com.google.protobuf.MessageLite;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Read-ahead buffer of iterator pages.
+ * Each page request depends on the previous response (the primary key cursor of the query iterator, the
+ * last bound of the search iterator), so the requests are chained: a page is requested as soon as the
+ * previous one arrives, as long as less than <code>depth</code> pages are buffered or in flight and the
+ * buffered rows/bytes are under the limits. The consumer thread only blocks when the head page has not
+ * arrived yet.
+ *
+ * @param <T> the response message of one page
+ */
+final class BatchPrefetcher<T extends MessageLite> {
+    interface PageSource<T> {
+        /**
+         * Requests the page following <code>previous</code>, <code>previous</code> is null for the first page.
+         * Never called concurrently.
+         */
+        CompletableFuture<T> fetchAfter(T previous);
+
+        /**
+         * Records an arrived page, returns false if no page follows it. Called in the order the pages
+         * were requested.
+         */
+        boolean accept(T page);
+
+        long rowCount(T page);
+    }
+
+    private final PageSource<T> source;
+    private final int depth;
+    private final long maxBufferedRows;
+    private final long maxBufferedBytes;
+
+    // all the fields below are guarded by this
+    private final Deque<CompletableFuture<T>> pages = new ArrayDeque<>();
+    private T lastArrived = null;
+    private boolean inFlight = false;
+    private boolean finished = false;
+    private boolean closed = false;
+    private long bufferedRows = 0;
+    private long bufferedBytes = 0;
+
+    BatchPrefetcher(PageSource<T> source, int depth, long maxBufferedRows, long maxBufferedBytes) {
+        this.source = source;
+        this.depth = depth;
+        this.maxBufferedRows = maxBufferedRows;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    synchronized void start() {
+        if (!inFlight && pages.isEmpty() && lastArrived == null) {
+            issue();
+        }
+    }
+
+    /**
+     * Returns the next page, blocks until it arrives. Returns null if there are no more pages.
+     */
+    T take() {
+        CompletableFuture<T> head;
+        synchronized (this) {
+            head = pages.peekFirst();
+            if (head == null) {
+                return null;
+            }
+        }
+
+        T page;
+        try {
+            page = head.join();
+        } catch (CompletionException | CancellationException e) {
+            close();
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+
+        consumed(head, page);
+        return page;
+    }
+
+    /**
+     * Returns a future of the next page, the future is completed with null if there are no more pages.
+     * Never blocks, the returned future must be completed before calling it again.
+     */
+    CompletableFuture<T> takeAsync() {
+        CompletableFuture<T> head;
+        synchronized (this) {
+            head = pages.peekFirst();
+            if (head == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        return IteratorFutures.transform(head, page -> {
+            consumed(head, page);
+            return page;
+        });
+    }
+
+    private synchronized void consumed(CompletableFuture<T> head, T page) {
+        if (pages.peekFirst() == head) {
+            pages.pollFirst();
+            bufferedRows -= source.rowCount(page);
+            bufferedBytes -= page.getSerializedSize();
+        }
+        topUp();
+    }
+
+    /**
+     * Cancels the pending requests and drops the buffered pages.
+     */
+    synchronized void close() {
+        closed = true;
+        for (CompletableFuture<T> page : pages) {
+            page.cancel(false);
+        }
+        pages.clear();
+        bufferedRows = 0;
+        bufferedBytes = 0;
+        lastArrived = null;
+    }
+
+    private void issue() {
+        CompletableFuture<T> page;
+        try {
+            page = source.fetchAfter(lastArrived);
+        } catch (RuntimeException e) {
+            page = new CompletableFuture<>();
+            page.completeExceptionally(e);
+        }
+        inFlight = true;
+        pages.addLast(page);
+        page.whenComplete((value, throwable) -> onArrived(value, throwable));
+    }
+
+    private synchronized void onArrived(T page, Throwable throwable) {
+        inFlight = false;
+        if (closed) {
+            return;
+        }
+        if (throwable != null) {
+            // the failed page stays in the queue, the consumer receives the error from take()
+            finished = true;
+            return;
+        }
+
+        bufferedRows += source.rowCount(page);
+        bufferedBytes += page.getSerializedSize();
+        lastArrived = page;
+        if (!source.accept(page)) {
+            finished = true;
+            return;
+        }
+        topUp();
+    }
+
+    private void topUp() {
+        if (finished || inFlight || closed) {
+            return;
+        }
+        // always keep one page coming when the consumer has drained the buffer, even if a single page
+        // exceeds the limits
+        boolean withinLimits = pages.size() < depth
+                && (maxBufferedRows <= 0 || bufferedRows < maxBufferedRows)
+                && (maxBufferedBytes <= 0 || bufferedBytes < maxBufferedBytes);
+        if (pages.isEmpty() || withinLimits) {
+            issue();
+        }
+    }
+}
@@ -20,9 +20,27 @@
 package io.milvus.orm.iterator;
 
 import io.milvus.exception.ParamException;
+import io.milvus.exception.UnExpectedException;
 import io.milvus.response.QueryResultsWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,10 +48,43 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.milvus.param.Constant.NO_CACHE_ID;
 
+/**
+ * Cache of the over-fetched rows of an iterator.
+ * The methods are synchronized, an IteratorCache can be shared by the iterators of several threads.
+ * <p>
+ * Rows are kept as columnar pages: a page stores one array per field, primitive values are stored in
+ * primitive arrays, instead of one map per row. The rows are turned back into {@link QueryResultsWrapper.RowRecord}
+ * when they are drained.
+ * <p>
+ * With a memory budget, the pages exceeding the budget are written to a temp file if spilling is enabled,
+ * and read back when the consumer reaches them, the newest pages in memory are spilled to make room for them.
+ * The temp file is deleted when all its pages are read back or the cache is released. Without spilling, or if
+ * a page has a value which cannot be spilled, such as a JSON object, the budget is not enforced.
+ */
 public class IteratorCache {
+    private static final Logger logger = LoggerFactory.getLogger(IteratorCache.class);
+
+    private final long memoryBudgetBytes;
+    private final boolean spillEnabled;
     private final AtomicInteger cacheId = new AtomicInteger(0);
     private final Map<Integer, CacheEntry> cacheMap = new ConcurrentHashMap<>();
 
+    public IteratorCache() {
+        this(0L, false);
+    }
+
+    /**
+     * @param memoryBudgetBytes estimated bytes of the rows kept in memory, 0 means no budget
+     * @param spillEnabled      write the pages exceeding the budget to a temp file
+     */
+    public IteratorCache(long memoryBudgetBytes, boolean spillEnabled) {
+        if (memoryBudgetBytes < 0) {
+            throw new ParamException("Memory budget of iterator cache cannot be less than zero");
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.spillEnabled = spillEnabled;
+    }
+
     public synchronized int cache(int cacheId, List<QueryResultsWrapper.RowRecord> result) {
         if (result == null) {
             throw new ParamException("Cannot cache a null result");
@@ -41,7 +92,12 @@ public class IteratorCache {
         if (cacheId == NO_CACHE_ID) {
             cacheId = this.cacheId.incrementAndGet();
         }
-        cacheMap.put(cacheId, new CacheEntry(result));
+        CacheEntry entry = new CacheEntry();
+        entry.append(result);
+        CacheEntry previous = cacheMap.put(cacheId, entry);
+        if (previous != null) {
+            previous.release();
+        }
         return cacheId;
     }
 
@@ -83,52 +139,822 @@ public class IteratorCache {
         List<QueryResultsWrapper.RowRecord> result = cached.drain(count);
         if (cached.size() == 0) {
             cacheMap.remove(cacheId);
+            cached.release();
         }
         return result;
     }
 
     public synchronized void releaseCache(int cacheId) {
-        cacheMap.remove(cacheId);
+        CacheEntry cached = cacheMap.remove(cacheId);
+        if (cached != null) {
+            cached.release();
+        }
     }
 
-    private static final class CacheEntry {
-        private List<QueryResultsWrapper.RowRecord> rows;
-        private int offset;
+    /**
+     * Returns the estimated bytes of the rows kept in memory by a cache.
+     */
+    synchronized long memoryBytes(int cacheId) {
+        CacheEntry cached = cacheMap.get(cacheId);
+        return cached == null ? 0 : cached.memoryBytes;
+    }
 
-        private CacheEntry() {
-            this.rows = new ArrayList<>();
+    /**
+     * Returns the number of the pages of a cache which are spilled to the temp file.
+     */
+    synchronized int spilledPages(int cacheId) {
+        CacheEntry cached = cacheMap.get(cacheId);
+        if (cached == null) {
+            return 0;
         }
-
-        private CacheEntry(List<QueryResultsWrapper.RowRecord> rows) {
-            this.rows = new ArrayList<>(rows);
+        int count = 0;
+        for (PageSlot slot : cached.pages) {
+            if (slot.page == null) {
+                count++;
+            }
         }
+        return count;
+    }
+
+    /**
+     * Returns the temp file of the spilled pages of a cache, null if no page is spilled.
+     */
+    synchronized File spillPath(int cacheId) {
+        CacheEntry cached = cacheMap.get(cacheId);
+        return cached == null ? null : cached.spillPath;
+    }
+
+    private final class CacheEntry {
+        private final Deque<PageSlot> pages = new ArrayDeque<>();
+        private int size = 0;
+        private long memoryBytes = 0;
+        private int spilledCount = 0;
+        private RandomAccessFile spillFile = null;
+        private File spillPath = null;
 
         private int size() {
-            return rows.size() - offset;
+            return size;
         }
 
-        private void append(List<QueryResultsWrapper.RowRecord> result) {
-            rows.addAll(result);
+        private void append(List<QueryResultsWrapper.RowRecord> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            ColumnarPage page = ColumnarPage.of(rows);
+            size += page.rowCount;
+            long bytes = page.estimateBytes();
+            PageSlot slot = new PageSlot(page, bytes);
+            pages.addLast(slot);
+            boolean overBudget = memoryBudgetBytes > 0 && memoryBytes + bytes > memoryBudgetBytes;
+            // the newest page is consumed last, it is the first to be spilled
+            if (overBudget && spillEnabled && pages.size() > 1 && spill(slot)) {
+                return;
+            }
+            memoryBytes += bytes;
         }
 
         private List<QueryResultsWrapper.RowRecord> snapshot() {
-            return new ArrayList<>(rows.subList(offset, rows.size()));
+            List<QueryResultsWrapper.RowRecord> result = new ArrayList<>(size);
+            for (PageSlot slot : pages) {
+                // a spilled page is read for the copy only, it stays spilled
+                ColumnarPage page = slot.page == null ? read(slot) : slot.page;
+                page.copyRows(page.offset, page.rowCount, result);
+            }
+            return result;
         }
 
         private List<QueryResultsWrapper.RowRecord> drain(int count) {
             List<QueryResultsWrapper.RowRecord> result = new ArrayList<>(count);
-            int end = offset + count;
-            for (int i = offset; i < end; i++) {
-                result.add(rows.get(i));
-                rows.set(i, null);
+            while (result.size() < count) {
+                PageSlot slot = pages.peekFirst();
+                if (slot.page == null) {
+                    load(slot);
+                }
+                ColumnarPage page = slot.page;
+                int take = Math.min(count - result.size(), page.rowCount - page.offset);
+                page.copyRows(page.offset, page.offset + take, result);
+                page.offset += take;
+                size -= take;
+                if (page.offset == page.rowCount) {
+                    pages.pollFirst();
+                    memoryBytes -= slot.bytes;
+                }
+            }
+            return result;
+        }
+
+        // writes the page of a slot in memory to the temp file, the slot keeps its location
+        private boolean spill(PageSlot slot) {
+            byte[] bytes;
+            try {
+                bytes = slot.page.encode();
+            } catch (IOException e) {
+                // some values have no spill format, such as JSON objects
+                logger.debug("Iterator cache page cannot be spilled: " + e.getMessage());
+                return false;
             }
-            offset = end;
 
-            if (offset > 0 && offset >= rows.size() - offset) {
-                rows = new ArrayList<>(rows.subList(offset, rows.size()));
-                offset = 0;
+            try {
+                if (spillFile == null) {
+                    spillPath = File.createTempFile("milvus-iterator-cache-", ".tmp");
+                    spillFile = new RandomAccessFile(spillPath, "rw");
+                }
+                long position = spillFile.length();
+                spillFile.seek(position);
+                spillFile.write(bytes);
+                slot.page = null;
+                slot.spillPosition = position;
+                slot.spillLength = bytes.length;
+                spilledCount++;
+                return true;
+            } catch (IOException e) {
+                logger.warn("Failed to spill iterator cache page to temp file: " + e.getMessage());
+                return false;
             }
-            return result;
+        }
+
+        // reads back the spilled page at the head, the newest pages in memory are spilled first to make
+        // room for it, the temp file is deleted once none of its pages is needed
+        private void load(PageSlot slot) {
+            if (memoryBudgetBytes > 0) {
+                Iterator<PageSlot> newest = pages.descendingIterator();
+                while (memoryBytes + slot.bytes > memoryBudgetBytes && newest.hasNext()) {
+                    PageSlot other = newest.next();
+                    if (other != slot && other.page != null && spill(other)) {
+                        memoryBytes -= other.bytes;
+                    }
+                }
+            }
+            slot.page = read(slot);
+            memoryBytes += slot.bytes;
+            if (--spilledCount == 0) {
+                closeSpillFile();
+            }
+        }
+
+        private ColumnarPage read(PageSlot slot) {
+            try {
+                byte[] bytes = new byte[slot.spillLength];
+                spillFile.seek(slot.spillPosition);
+                spillFile.readFully(bytes);
+                return ColumnarPage.decode(bytes);
+            } catch (IOException e) {
+                throw new UnExpectedException("Failed to read iterator cache page from temp file: " + e.getMessage());
+            }
+        }
+
+        private void release() {
+            pages.clear();
+            size = 0;
+            memoryBytes = 0;
+            spilledCount = 0;
+            closeSpillFile();
+        }
+
+        private void closeSpillFile() {
+            if (spillFile == null) {
+                return;
+            }
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close iterator cache temp file: " + e.getMessage());
+            }
+            if (!spillPath.delete()) {
+                logger.warn("Failed to delete iterator cache temp file: " + spillPath);
+            }
+            spillFile = null;
+            spillPath = null;
+        }
+    }
+
+    // a page in memory, or the location of a spilled page in the temp file
+    private static final class PageSlot {
+        private ColumnarPage page;
+        private final long bytes;
+        private long spillPosition = -1;
+        private int spillLength = 0;
+
+        private PageSlot(ColumnarPage page, long bytes) {
+            this.page = page;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class ColumnarPage {
+        // the column kinds of the spill format
+        private static final byte LONG_COLUMN = 1;
+        private static final byte INT_COLUMN = 2;
+        private static final byte FLOAT_COLUMN = 3;
+        private static final byte DOUBLE_COLUMN = 4;
+        private static final byte BOOLEAN_COLUMN = 5;
+        private static final byte FLOAT_VECTOR_COLUMN = 6;
+        private static final byte BYTE_VECTOR_COLUMN = 7;
+        private static final byte OBJECT_COLUMN = 8;
+
+        // the value kinds of the spill format, for the values of object columns and of rows kept as they are
+        private static final byte NULL_VALUE = 0;
+        private static final byte LONG_VALUE = 1;
+        private static final byte INT_VALUE = 2;
+        private static final byte SHORT_VALUE = 3;
+        private static final byte BYTE_VALUE = 4;
+        private static final byte FLOAT_VALUE = 5;
+        private static final byte DOUBLE_VALUE = 6;
+        private static final byte BOOLEAN_VALUE = 7;
+        private static final byte STRING_VALUE = 8;
+        private static final byte BYTES_VALUE = 9;
+        private static final byte BYTE_BUFFER_VALUE = 10;
+        private static final byte LIST_VALUE = 11;
+
+        private final int rowCount;
+        private final String[] fieldNames;
+        // one array per field: long[], int[], float[], double[], boolean[], FloatVectorColumn,
+        // ByteVectorColumn or Object[]
+        private final Object[] columns;
+        // not null if the rows do not share the same fields, the rows are kept as they are
+        private final List<QueryResultsWrapper.RowRecord> rows;
+        private int offset = 0;
+
+        private ColumnarPage(int rowCount, String[] fieldNames, Object[] columns,
+                             List<QueryResultsWrapper.RowRecord> rows) {
+            this.rowCount = rowCount;
+            this.fieldNames = fieldNames;
+            this.columns = columns;
+            this.rows = rows;
+        }
+
+        private static ColumnarPage of(List<QueryResultsWrapper.RowRecord> rows) {
+            Map<String, Object> first = rows.get(0).getFieldValues();
+            String[] fieldNames = first.keySet().toArray(new String[0]);
+            for (QueryResultsWrapper.RowRecord row : rows) {
+                Map<String, Object> values = row.getFieldValues();
+                if (values.size() != fieldNames.length || !values.keySet().containsAll(first.keySet())) {
+                    return new ColumnarPage(rows.size(), new String[0], new Object[0], new ArrayList<>(rows));
+                }
+            }
+
+            Object[] columns = new Object[fieldNames.length];
+            for (int i = 0; i < fieldNames.length; i++) {
+                columns[i] = toColumn(rows, fieldNames[i]);
+            }
+            return new ColumnarPage(rows.size(), fieldNames, columns, null);
+        }
+
+        private static Object toColumn(List<QueryResultsWrapper.RowRecord> rows, String fieldName) {
+            Object first = rows.get(0).getFieldValues().get(fieldName);
+            if (first instanceof List) {
+                FloatVectorColumn column = FloatVectorColumn.of(rows, fieldName);
+                if (column != null) {
+                    return column;
+                }
+            } else if (first instanceof ByteBuffer) {
+                ByteVectorColumn column = ByteVectorColumn.of(rows, fieldName);
+                if (column != null) {
+                    return column;
+                }
+            }
+
+            Class<?> type = null;
+            for (QueryResultsWrapper.RowRecord row : rows) {
+                Object value = row.getFieldValues().get(fieldName);
+                Class<?> valueType = value == null ? null : value.getClass();
+                if (valueType == null || (type != null && type != valueType)) {
+                    type = Object.class;
+                    break;
+                }
+                type = valueType;
+            }
+
+            int count = rows.size();
+            if (type == Long.class) {
+                long[] column = new long[count];
+                for (int i = 0; i < count; i++) {
+                    column[i] = (Long) rows.get(i).getFieldValues().get(fieldName);
+                }
+                return column;
+            } else if (type == Integer.class) {
+                int[] column = new int[count];
+                for (int i = 0; i < count; i++) {
+                    column[i] = (Integer) rows.get(i).getFieldValues().get(fieldName);
+                }
+                return column;
+            } else if (type == Float.class) {
+                float[] column = new float[count];
+                for (int i = 0; i < count; i++) {
+                    column[i] = (Float) rows.get(i).getFieldValues().get(fieldName);
+                }
+                return column;
+            } else if (type == Double.class) {
+                double[] column = new double[count];
+                for (int i = 0; i < count; i++) {
+                    column[i] = (Double) rows.get(i).getFieldValues().get(fieldName);
+                }
+                return column;
+            } else if (type == Boolean.class) {
+                boolean[] column = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    column[i] = (Boolean) rows.get(i).getFieldValues().get(fieldName);
+                }
+                return column;
+            }
+            Object[] column = new Object[count];
+            for (int i = 0; i < count; i++) {
+                column[i] = rows.get(i).getFieldValues().get(fieldName);
+            }
+            return column;
+        }
+
+        private void copyRows(int from, int to, List<QueryResultsWrapper.RowRecord> target) {
+            if (rows != null) {
+                target.addAll(rows.subList(from, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                QueryResultsWrapper.RowRecord record = new QueryResultsWrapper.RowRecord();
+                for (int k = 0; k < fieldNames.length; k++) {
+                    record.put(fieldNames[k], valueAt(columns[k], i));
+                }
+                target.add(record);
+            }
+        }
+
+        private static Object valueAt(Object column, int index) {
+            if (column instanceof long[]) {
+                return ((long[]) column)[index];
+            } else if (column instanceof int[]) {
+                return ((int[]) column)[index];
+            } else if (column instanceof float[]) {
+                return ((float[]) column)[index];
+            } else if (column instanceof double[]) {
+                return ((double[]) column)[index];
+            } else if (column instanceof boolean[]) {
+                return ((boolean[]) column)[index];
+            } else if (column instanceof FloatVectorColumn) {
+                return ((FloatVectorColumn) column).get(index);
+            } else if (column instanceof ByteVectorColumn) {
+                return ((ByteVectorColumn) column).get(index);
+            }
+            return ((Object[]) column)[index];
+        }
+
+        /**
+         * Writes the page in the spill format: the row count and the field count, then the name, the kind and
+         * the values of each column. Primitive columns and packed vectors are written as one block of bytes,
+         * the values of an object column are written one by one with their kind. A page of rows which do not
+         * share the same fields has the field count -1 and is written row by row.
+         * Throws IOException if a value has no spill format.
+         */
+        private byte[] encode() throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(buffer);
+            output.writeInt(rowCount - offset);
+            if (rows != null) {
+                output.writeInt(-1);
+                for (QueryResultsWrapper.RowRecord row : rows.subList(offset, rowCount)) {
+                    Map<String, Object> values = row.getFieldValues();
+                    output.writeInt(values.size());
+                    for (Map.Entry<String, Object> value : values.entrySet()) {
+                        writeString(output, value.getKey());
+                        writeValue(output, value.getValue());
+                    }
+                }
+                output.flush();
+                return buffer.toByteArray();
+            }
+
+            output.writeInt(fieldNames.length);
+            for (int k = 0; k < fieldNames.length; k++) {
+                writeString(output, fieldNames[k]);
+                writeColumn(output, slice(columns[k], offset, rowCount));
+            }
+            output.flush();
+            return buffer.toByteArray();
+        }
+
+        private static ColumnarPage decode(byte[] bytes) throws IOException {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            int rowCount = input.readInt();
+            int fieldCount = input.readInt();
+            if (fieldCount < 0) {
+                List<QueryResultsWrapper.RowRecord> rows = new ArrayList<>(rowCount);
+                for (int i = 0; i < rowCount; i++) {
+                    QueryResultsWrapper.RowRecord row = new QueryResultsWrapper.RowRecord();
+                    int valueCount = input.readInt();
+                    for (int k = 0; k < valueCount; k++) {
+                        row.put(readString(input), readValue(input));
+                    }
+                    rows.add(row);
+                }
+                return new ColumnarPage(rowCount, new String[0], new Object[0], rows);
+            }
+
+            String[] fieldNames = new String[fieldCount];
+            Object[] columns = new Object[fieldCount];
+            for (int k = 0; k < fieldCount; k++) {
+                fieldNames[k] = readString(input);
+                columns[k] = readColumn(input, rowCount);
+            }
+            return new ColumnarPage(rowCount, fieldNames, columns, null);
+        }
+
+        // the rows of a column which are not consumed yet
+        private static Object slice(Object column, int from, int to) {
+            if (from == 0) {
+                return column;
+            } else if (column instanceof long[]) {
+                return Arrays.copyOfRange((long[]) column, from, to);
+            } else if (column instanceof int[]) {
+                return Arrays.copyOfRange((int[]) column, from, to);
+            } else if (column instanceof float[]) {
+                return Arrays.copyOfRange((float[]) column, from, to);
+            } else if (column instanceof double[]) {
+                return Arrays.copyOfRange((double[]) column, from, to);
+            } else if (column instanceof boolean[]) {
+                return Arrays.copyOfRange((boolean[]) column, from, to);
+            } else if (column instanceof FloatVectorColumn) {
+                FloatVectorColumn vectors = (FloatVectorColumn) column;
+                return new FloatVectorColumn(vectors.dim,
+                        Arrays.copyOfRange(vectors.data, from * vectors.dim, to * vectors.dim));
+            } else if (column instanceof ByteVectorColumn) {
+                ByteVectorColumn vectors = (ByteVectorColumn) column;
+                return new ByteVectorColumn(vectors.dim, vectors.position, vectors.littleEndian,
+                        Arrays.copyOfRange(vectors.data, from * vectors.dim, to * vectors.dim));
+            }
+            return Arrays.copyOfRange((Object[]) column, from, to);
+        }
+
+        private static void writeColumn(DataOutputStream output, Object column) throws IOException {
+            if (column instanceof long[]) {
+                long[] values = (long[]) column;
+                ByteBuffer block = ByteBuffer.allocate(8 * values.length);
+                block.asLongBuffer().put(values);
+                output.writeByte(LONG_COLUMN);
+                output.write(block.array());
+            } else if (column instanceof int[]) {
+                int[] values = (int[]) column;
+                ByteBuffer block = ByteBuffer.allocate(4 * values.length);
+                block.asIntBuffer().put(values);
+                output.writeByte(INT_COLUMN);
+                output.write(block.array());
+            } else if (column instanceof float[]) {
+                float[] values = (float[]) column;
+                ByteBuffer block = ByteBuffer.allocate(4 * values.length);
+                block.asFloatBuffer().put(values);
+                output.writeByte(FLOAT_COLUMN);
+                output.write(block.array());
+            } else if (column instanceof double[]) {
+                double[] values = (double[]) column;
+                ByteBuffer block = ByteBuffer.allocate(8 * values.length);
+                block.asDoubleBuffer().put(values);
+                output.writeByte(DOUBLE_COLUMN);
+                output.write(block.array());
+            } else if (column instanceof boolean[]) {
+                output.writeByte(BOOLEAN_COLUMN);
+                for (boolean value : (boolean[]) column) {
+                    output.writeBoolean(value);
+                }
+            } else if (column instanceof FloatVectorColumn) {
+                FloatVectorColumn vectors = (FloatVectorColumn) column;
+                ByteBuffer block = ByteBuffer.allocate(4 * vectors.data.length);
+                block.asFloatBuffer().put(vectors.data);
+                output.writeByte(FLOAT_VECTOR_COLUMN);
+                output.writeInt(vectors.dim);
+                output.write(block.array());
+            } else if (column instanceof ByteVectorColumn) {
+                ByteVectorColumn vectors = (ByteVectorColumn) column;
+                output.writeByte(BYTE_VECTOR_COLUMN);
+                output.writeInt(vectors.dim);
+                output.writeInt(vectors.position);
+                output.writeBoolean(vectors.littleEndian);
+                output.write(vectors.data);
+            } else {
+                output.writeByte(OBJECT_COLUMN);
+                for (Object value : (Object[]) column) {
+                    writeValue(output, value);
+                }
+            }
+        }
+
+        private static Object readColumn(DataInputStream input, int rowCount) throws IOException {
+            byte kind = input.readByte();
+            switch (kind) {
+                case LONG_COLUMN: {
+                    long[] values = new long[rowCount];
+                    readBlock(input, 8 * rowCount).asLongBuffer().get(values);
+                    return values;
+                }
+                case INT_COLUMN: {
+                    int[] values = new int[rowCount];
+                    readBlock(input, 4 * rowCount).asIntBuffer().get(values);
+                    return values;
+                }
+                case FLOAT_COLUMN: {
+                    float[] values = new float[rowCount];
+                    readBlock(input, 4 * rowCount).asFloatBuffer().get(values);
+                    return values;
+                }
+                case DOUBLE_COLUMN: {
+                    double[] values = new double[rowCount];
+                    readBlock(input, 8 * rowCount).asDoubleBuffer().get(values);
+                    return values;
+                }
+                case BOOLEAN_COLUMN: {
+                    boolean[] values = new boolean[rowCount];
+                    for (int i = 0; i < rowCount; i++) {
+                        values[i] = input.readBoolean();
+                    }
+                    return values;
+                }
+                case FLOAT_VECTOR_COLUMN: {
+                    int dim = input.readInt();
+                    float[] data = new float[dim * rowCount];
+                    readBlock(input, 4 * data.length).asFloatBuffer().get(data);
+                    return new FloatVectorColumn(dim, data);
+                }
+                case BYTE_VECTOR_COLUMN: {
+                    int dim = input.readInt();
+                    int position = input.readInt();
+                    boolean littleEndian = input.readBoolean();
+                    byte[] data = new byte[dim * rowCount];
+                    input.readFully(data);
+                    return new ByteVectorColumn(dim, position, littleEndian, data);
+                }
+                case OBJECT_COLUMN: {
+                    Object[] values = new Object[rowCount];
+                    for (int i = 0; i < rowCount; i++) {
+                        values[i] = readValue(input);
+                    }
+                    return values;
+                }
+                default:
+                    throw new IOException("Unknown column kind " + kind);
+            }
+        }
+
+        private static ByteBuffer readBlock(DataInputStream input, int length) throws IOException {
+            byte[] block = new byte[length];
+            input.readFully(block);
+            return ByteBuffer.wrap(block);
+        }
+
+        private static void writeValue(DataOutputStream output, Object value) throws IOException {
+            if (value == null) {
+                output.writeByte(NULL_VALUE);
+            } else if (value instanceof Long) {
+                output.writeByte(LONG_VALUE);
+                output.writeLong((Long) value);
+            } else if (value instanceof Integer) {
+                output.writeByte(INT_VALUE);
+                output.writeInt((Integer) value);
+            } else if (value instanceof Short) {
+                output.writeByte(SHORT_VALUE);
+                output.writeShort((Short) value);
+            } else if (value instanceof Byte) {
+                output.writeByte(BYTE_VALUE);
+                output.writeByte((Byte) value);
+            } else if (value instanceof Float) {
+                output.writeByte(FLOAT_VALUE);
+                output.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                output.writeByte(DOUBLE_VALUE);
+                output.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                output.writeByte(BOOLEAN_VALUE);
+                output.writeBoolean((Boolean) value);
+            } else if (value instanceof String) {
+                output.writeByte(STRING_VALUE);
+                writeString(output, (String) value);
+            } else if (value instanceof byte[]) {
+                output.writeByte(BYTES_VALUE);
+                output.writeInt(((byte[]) value).length);
+                output.write((byte[]) value);
+            } else if (value instanceof ByteBuffer) {
+                ByteBuffer buffer = (ByteBuffer) value;
+                ByteBuffer content = buffer.duplicate();
+                content.clear();
+                byte[] bytes = new byte[content.capacity()];
+                content.get(bytes);
+                output.writeByte(BYTE_BUFFER_VALUE);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                output.writeInt(buffer.limit());
+                output.writeInt(buffer.position());
+                output.writeBoolean(buffer.order() == ByteOrder.LITTLE_ENDIAN);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                output.writeByte(LIST_VALUE);
+                output.writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(output, element);
+                }
+            } else {
+                throw new IOException("No spill format for " + value.getClass().getName());
+            }
+        }
+
+        private static Object readValue(DataInputStream input) throws IOException {
+            byte kind = input.readByte();
+            switch (kind) {
+                case NULL_VALUE:
+                    return null;
+                case LONG_VALUE:
+                    return input.readLong();
+                case INT_VALUE:
+                    return input.readInt();
+                case SHORT_VALUE:
+                    return input.readShort();
+                case BYTE_VALUE:
+                    return input.readByte();
+                case FLOAT_VALUE:
+                    return input.readFloat();
+                case DOUBLE_VALUE:
+                    return input.readDouble();
+                case BOOLEAN_VALUE:
+                    return input.readBoolean();
+                case STRING_VALUE:
+                    return readString(input);
+                case BYTES_VALUE: {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    return bytes;
+                }
+                case BYTE_BUFFER_VALUE: {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    buffer.limit(input.readInt());
+                    buffer.position(input.readInt());
+                    buffer.order(input.readBoolean() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+                    return buffer;
+                }
+                case LIST_VALUE: {
+                    int size = input.readInt();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue(input));
+                    }
+                    return list;
+                }
+                default:
+                    throw new IOException("Unknown value kind " + kind);
+            }
+        }
+
+        // unlike writeUTF(), the length of a string is not limited to 64KB
+        private static void writeString(DataOutputStream output, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        private static String readString(DataInputStream input) throws IOException {
+            byte[] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // a rough estimation of the heap size, good enough for the memory budget
+        private long estimateBytes() {
+            if (rows != null) {
+                long bytes = 0;
+                for (QueryResultsWrapper.RowRecord row : rows) {
+                    bytes += 64;
+                    for (Object value : row.getFieldValues().values()) {
+                        bytes += 48 + estimateBytes(value);
+                    }
+                }
+                return bytes;
+            }
+
+            long bytes = 0;
+            for (Object column : columns) {
+                if (column instanceof long[] || column instanceof double[]) {
+                    bytes += 8L * rowCount;
+                } else if (column instanceof int[] || column instanceof float[]) {
+                    bytes += 4L * rowCount;
+                } else if (column instanceof boolean[]) {
+                    bytes += rowCount;
+                } else if (column instanceof FloatVectorColumn) {
+                    bytes += 4L * ((FloatVectorColumn) column).data.length;
+                } else if (column instanceof ByteVectorColumn) {
+                    bytes += ((ByteVectorColumn) column).data.length;
+                } else {
+                    for (Object value : (Object[]) column) {
+                        bytes += 8 + estimateBytes(value);
+                    }
+                }
+            }
+            return bytes;
+        }
+
+        private static long estimateBytes(Object value) {
+            if (value == null) {
+                return 0;
+            } else if (value instanceof String) {
+                return 40 + 2L * ((String) value).length();
+            } else if (value instanceof ByteBuffer) {
+                return 48 + ((ByteBuffer) value).capacity();
+            } else if (value instanceof byte[]) {
+                return 16 + ((byte[]) value).length;
+            } else if (value instanceof Collection) {
+                // the elements of vectors and arrays are boxed values
+                return 40 + 24L * ((Collection<?>) value).size();
+            } else if (value instanceof Map) {
+                return 48 + 48L * ((Map<?, ?>) value).size();
+            }
+            return 16;
+        }
+    }
+
+    // float vectors of the same dimension, packed in one array with a stride of dim
+    private static final class FloatVectorColumn {
+        private final int dim;
+        private final float[] data;
+
+        private FloatVectorColumn(int dim, float[] data) {
+            this.dim = dim;
+            this.data = data;
+        }
+
+        // returns null if the values are not lists of Float with the same size
+        private static FloatVectorColumn of(List<QueryResultsWrapper.RowRecord> rows, String fieldName) {
+            Object first = rows.get(0).getFieldValues().get(fieldName);
+            int dim = ((List<?>) first).size();
+            if (dim == 0) {
+                return null;
+            }
+            float[] data = new float[dim * rows.size()];
+            int offset = 0;
+            for (QueryResultsWrapper.RowRecord row : rows) {
+                Object value = row.getFieldValues().get(fieldName);
+                if (!(value instanceof List) || ((List<?>) value).size() != dim) {
+                    return null;
+                }
+                for (Object element : (List<?>) value) {
+                    if (!(element instanceof Float)) {
+                        return null;
+                    }
+                    data[offset++] = (Float) element;
+                }
+            }
+            return new FloatVectorColumn(dim, data);
+        }
+
+        private List<Float> get(int index) {
+            List<Float> vector = new ArrayList<>(dim);
+            for (int i = index * dim; i < (index + 1) * dim; i++) {
+                vector.add(data[i]);
+            }
+            return vector;
+        }
+    }
+
+    // binary, float16, bfloat16 and int8 vectors of the same size, packed in one array with a stride of dim bytes
+    private static final class ByteVectorColumn {
+        private final int dim;
+        private final int position;
+        private final boolean littleEndian;
+        private final byte[] data;
+
+        private ByteVectorColumn(int dim, int position, boolean littleEndian, byte[] data) {
+            this.dim = dim;
+            this.position = position;
+            this.littleEndian = littleEndian;
+            this.data = data;
+        }
+
+        // returns null if the buffers differ in size, position or byte order
+        private static ByteVectorColumn of(List<QueryResultsWrapper.RowRecord> rows, String fieldName) {
+            ByteBuffer first = (ByteBuffer) rows.get(0).getFieldValues().get(fieldName);
+            int dim = first.capacity();
+            int position = first.position();
+            ByteOrder order = first.order();
+            byte[] data = new byte[dim * rows.size()];
+            int offset = 0;
+            for (QueryResultsWrapper.RowRecord row : rows) {
+                Object value = row.getFieldValues().get(fieldName);
+                if (!(value instanceof ByteBuffer)) {
+                    return null;
+                }
+                ByteBuffer buffer = (ByteBuffer) value;
+                if (buffer.capacity() != dim || buffer.limit() != dim || buffer.position() != position
+                        || buffer.order() != order) {
+                    return null;
+                }
+                ByteBuffer content = buffer.duplicate();
+                content.clear();
+                content.get(data, offset, dim);
+                offset += dim;
+            }
+            return new ByteVectorColumn(dim, position, order == ByteOrder.LITTLE_ENDIAN, data);
+        }
+
+        private ByteBuffer get(int index) {
+            ByteBuffer buffer = ByteBuffer.allocate(dim);
+            buffer.order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            buffer.put(data, index * dim, dim);
+            buffer.position(position);
+            return buffer;
         }
     }
 }
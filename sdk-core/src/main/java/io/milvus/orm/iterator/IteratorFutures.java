@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.orm.iterator;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Future helpers of the iterators. Unlike {@link CompletableFuture#thenApply} and
+ * {@link CompletableFuture#thenCompose}, cancelling a returned future also cancels the source future,
+ * so the in-flight RPC is cancelled.
+ */
+final class IteratorFutures {
+    private IteratorFutures() {
+    }
+
+    static <S, R> CompletableFuture<R> toCompletableFuture(ListenableFuture<S> source, Function<S, R> converter) {
+        CompletableFuture<R> target = cancelling(source);
+        Futures.addCallback(source, new FutureCallback<S>() {
+            @Override
+            public void onSuccess(S result) {
+                completeWith(target, converter, result);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+                target.completeExceptionally(throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return target;
+    }
+
+    static <S, R> CompletableFuture<R> transform(CompletableFuture<S> source, Function<S, R> converter) {
+        CompletableFuture<R> target = cancelling(source);
+        source.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                target.completeExceptionally(unwrap(throwable));
+            } else {
+                completeWith(target, converter, result);
+            }
+        });
+        return target;
+    }
+
+    static <S, R> CompletableFuture<R> compose(CompletableFuture<S> source,
+                                               Function<S, CompletableFuture<R>> next) {
+        AtomicReference<Future<?>> current = new AtomicReference<>(source);
+        CompletableFuture<R> target = new CompletableFuture<R>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    current.get().cancel(mayInterruptIfRunning);
+                }
+                return cancelled;
+            }
+        };
+        source.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                target.completeExceptionally(unwrap(throwable));
+                return;
+            }
+            CompletableFuture<R> nextFuture;
+            try {
+                nextFuture = next.apply(result);
+            } catch (Throwable e) {
+                target.completeExceptionally(e);
+                return;
+            }
+            current.set(nextFuture);
+            if (target.isCancelled()) {
+                nextFuture.cancel(false);
+                return;
+            }
+            nextFuture.whenComplete((value, error) -> {
+                if (error != null) {
+                    target.completeExceptionally(unwrap(error));
+                } else {
+                    target.complete(value);
+                }
+            });
+        });
+        return target;
+    }
+
+    static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    private static <R> CompletableFuture<R> cancelling(Future<?> source) {
+        return new CompletableFuture<R>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    source.cancel(mayInterruptIfRunning);
+                }
+                return cancelled;
+            }
+        };
+    }
+
+    private static <S, R> void completeWith(CompletableFuture<R> target, Function<S, R> converter, S result) {
+        if (target.isDone()) {
+            return;
+        }
+        try {
+            target.complete(converter.apply(result));
+        } catch (Throwable throwable) {
+            target.completeExceptionally(throwable);
+        }
+    }
+}
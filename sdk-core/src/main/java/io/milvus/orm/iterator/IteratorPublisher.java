@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.orm.iterator;
+
+import io.milvus.response.QueryResultsWrapper;
+import io.milvus.v2.service.vector.response.SearchResp;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A reactive-streams {@link Publisher} of the batches of a {@link QueryIterator} or a {@link SearchIteratorV2}.
+ * Each <code>onNext</code> signal delivers one batch. A batch is requested from the server only when the
+ * subscriber has outstanding demand, the RPCs run on the future stub so no thread is blocked while waiting
+ * for the server. Cancelling the subscription cancels the in-flight RPC and closes the iterator.
+ * <p>
+ * The publisher owns the iterator and can only be subscribed once. On Java 9+ it can be converted to a
+ * <code>java.util.concurrent.Flow.Publisher</code> by <code>org.reactivestreams.FlowAdapters.toFlowPublisher()</code>.
+ * <pre>
+ * Publisher&lt;List&lt;QueryResultsWrapper.RowRecord&gt;&gt; publisher =
+ *         IteratorPublisher.of(client.queryIterator(request));
+ * </pre>
+ *
+ * @param <T> type of the entities in a batch
+ */
+public final class IteratorPublisher<T> implements Publisher<List<T>> {
+    private final Supplier<CompletableFuture<List<T>>> nextBatch;
+    private final Runnable closer;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    private IteratorPublisher(Supplier<CompletableFuture<List<T>>> nextBatch, Runnable closer) {
+        this.nextBatch = nextBatch;
+        this.closer = closer;
+    }
+
+    public static IteratorPublisher<QueryResultsWrapper.RowRecord> of(QueryIterator iterator) {
+        return new IteratorPublisher<>(iterator::nextAsync, iterator::close);
+    }
+
+    public static IteratorPublisher<SearchResp.SearchResult> of(SearchIteratorV2 iterator) {
+        return new IteratorPublisher<>(iterator::nextAsync, iterator::close);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super List<T>> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("IteratorPublisher can only be subscribed once"));
+            return;
+        }
+        IteratorSubscription subscription = new IteratorSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    // All the signals to the subscriber are sent from drain(), which is never run concurrently. A batch
+    // which is completed synchronously is picked up by the running drain loop instead of a nested call,
+    // so the stack does not grow with the number of batches.
+    private final class IteratorSubscription implements Subscription {
+        private final Subscriber<? super List<T>> subscriber;
+        private final AtomicLong demand = new AtomicLong(0);
+        private final AtomicInteger wip = new AtomicInteger(0);
+        private volatile boolean cancelled = false;
+        private volatile CompletableFuture<List<T>> inFlight = null;
+        private volatile Throwable invalidRequest = null;
+        // only accessed by drain()
+        private boolean fetching = false;
+        private boolean done = false;
+
+        private IteratorSubscription(Subscriber<? super List<T>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested count must be positive, got " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = demand.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!demand.compareAndSet(current, next));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            while (true) {
+                if (!done) {
+                    step();
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void step() {
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (invalidRequest != null) {
+                terminate();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            CompletableFuture<List<T>> batch = inFlight;
+            if (batch != null && batch.isDone()) {
+                inFlight = null;
+                fetching = false;
+                List<T> result;
+                try {
+                    result = batch.join();
+                } catch (Throwable e) {
+                    terminate();
+                    subscriber.onError(IteratorFutures.unwrap(e));
+                    return;
+                }
+                if (result == null || result.isEmpty()) {
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+                subscriber.onNext(result);
+            }
+
+            if (!fetching && !cancelled && demand.get() > 0) {
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                fetching = true;
+                CompletableFuture<List<T>> next;
+                try {
+                    next = nextBatch.get();
+                } catch (Throwable e) {
+                    next = new CompletableFuture<>();
+                    next.completeExceptionally(e);
+                }
+                inFlight = next;
+                next.whenComplete((result, throwable) -> drain());
+            }
+        }
+
+        private void terminate() {
+            done = true;
+            CompletableFuture<List<T>> batch = inFlight;
+            inFlight = null;
+            if (batch != null) {
+                batch.cancel(false);
+            }
+            closer.run();
+        }
+    }
+}
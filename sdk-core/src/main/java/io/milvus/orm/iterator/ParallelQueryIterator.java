@@ -0,0 +1,478 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.orm.iterator;
+
+import io.milvus.exception.ParamException;
+import io.milvus.exception.UnExpectedException;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
+import io.milvus.param.collection.FieldType;
+import io.milvus.response.QueryResultsWrapper;
+import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import io.milvus.v2.service.vector.request.QueryIteratorReq;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.milvus.param.Constant.UNLIMITED;
+
+/**
+ * Scans a whole collection with several {@link QueryIterator}s in parallel.
+ * The primary key space is split into ranges, and each range (of each partition, if partition names are
+ * specified in the request) is read by its own iterator. All the iterators read at the same snapshot
+ * timestamp, so the union of the ranges is a consistent view of the collection.
+ * <p>
+ * For Int64 primary keys the ranges are equal-width between the minimum and maximum primary keys.
+ * For VarChar primary keys the ranges are split by the distinct prefixes of the primary keys, the prefixes are
+ * made longer until there are enough of them, so the primary keys sharing a prefix ("doc_...") are split as well.
+ * The bounds are found by a few cheap probe queries, the first and the last range are open-ended so
+ * no entity is missed even if the probes are not exact.
+ * <p>
+ * Offset and limit of the request are not supported.
+ */
+public class ParallelQueryIterator {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelQueryIterator.class);
+    // upper bound of the probe queries for the distinct prefixes of VarChar primary keys
+    private static final int MAX_PREFIX_PROBES = 256;
+    // upper bound of the prefix length, in code points
+    private static final int MAX_PREFIX_DEPTH = 16;
+
+    private final QueryIteratorReq queryIteratorReq;
+    private final RpcStubWrapper blockingStub;
+    private final FieldType primaryField;
+    private final long collectionId;
+    private final String clusterId;
+    private final long sessionTs;
+    private final List<String> rangeExprs;
+    private final List<ScanRange> ranges = new ArrayList<>();
+
+    public ParallelQueryIterator(QueryIteratorReq queryIteratorReq,
+                                 RpcStubWrapper blockingStub,
+                                 CreateCollectionReq.FieldSchema primaryField,
+                                 long collectionId,
+                                 String clusterId,
+                                 int splitCount) {
+        if (splitCount <= 0) {
+            throw new ParamException("Split count must be a positive number");
+        }
+        if (queryIteratorReq.getOffset() > 0 || queryIteratorReq.getLimit() != UNLIMITED) {
+            throw new ParamException("Offset and limit are not supported by parallel query iterator");
+        }
+        this.queryIteratorReq = queryIteratorReq;
+        this.blockingStub = blockingStub;
+        this.primaryField = IteratorAdapterV2.convertV2Field(primaryField);
+        this.collectionId = collectionId;
+        this.clusterId = clusterId;
+
+        // the first probe sets up the snapshot shared by all the iterators, and returns the minimum primary key
+        QueryIterator probe = new QueryIterator(probeRequest(""), blockingStub, this.primaryField,
+                collectionId, clusterId, 0L);
+        Object minId;
+        try {
+            this.sessionTs = probe.getSessionTs();
+            minId = firstPrimaryKey(probe.nextBatch());
+        } finally {
+            probe.close();
+        }
+
+        if (minId == null || splitCount == 1) {
+            this.rangeExprs = Collections.singletonList("");
+        } else if (this.primaryField.getDataType() == DataType.VarChar) {
+            this.rangeExprs = splitByPrefix((String) minId, splitCount);
+        } else {
+            this.rangeExprs = splitByValue((Long) minId, splitCount);
+        }
+
+        List<String> partitionNames = queryIteratorReq.getPartitionNames();
+        for (String rangeExpr : rangeExprs) {
+            if (partitionNames == null || partitionNames.isEmpty()) {
+                ranges.add(new ScanRange(rangeExpr, new ArrayList<>()));
+                continue;
+            }
+            for (String partitionName : partitionNames) {
+                ranges.add(new ScanRange(rangeExpr, Collections.singletonList(partitionName)));
+            }
+        }
+        logger.debug("Parallel query iterator split into " + ranges.size() + " ranges: " + rangeExprs);
+    }
+
+    /**
+     * Returns the primary key range expressions, an empty expression means the whole primary key space.
+     */
+    public List<String> getRangeExprs() {
+        return rangeExprs;
+    }
+
+    /**
+     * Returns the number of the scan units, that is, the number of ranges multiplied by the number of partitions.
+     */
+    public int getScanUnitCount() {
+        return ranges.size();
+    }
+
+    public long getSessionTs() {
+        return sessionTs;
+    }
+
+    /**
+     * Returns a {@link Spliterator} of all the entities. Splitting the spliterator distributes the scan units,
+     * each scan unit is read by its own iterator, so a parallel stream runs one query per worker thread.
+     */
+    public Spliterator<QueryResultsWrapper.RowRecord> spliterator() {
+        return new ScanSpliterator(0, ranges.size());
+    }
+
+    /**
+     * Returns a parallel stream of all the entities. The order of the entities is not defined.
+     */
+    public Stream<QueryResultsWrapper.RowRecord> stream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Reads all the scan units with <code>parallelism</code> threads and passes each batch to the consumer.
+     * The consumer is called concurrently from the worker threads, and a worker does not fetch its next batch
+     * until the consumer returns, so at most <code>parallelism</code> batches are held in memory.
+     * If a worker fails, the other workers are interrupted and the error is thrown as soon as it happens.
+     *
+     * @param parallelism number of the worker threads
+     * @param consumer thread-safe consumer of the batches
+     */
+    public void forEachBatch(int parallelism, Consumer<List<QueryResultsWrapper.RowRecord>> consumer) {
+        if (parallelism <= 0) {
+            throw new ParamException("Parallelism must be a positive number");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()));
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        try {
+            for (ScanRange range : ranges) {
+                completionService.submit(() -> {
+                    if (failed.get()) {
+                        return null;
+                    }
+                    QueryIterator iterator = createIterator(range);
+                    try {
+                        while (!failed.get() && !Thread.currentThread().isInterrupted()) {
+                            List<QueryResultsWrapper.RowRecord> batch = iterator.next();
+                            if (batch.isEmpty()) {
+                                break;
+                            }
+                            consumer.accept(batch);
+                        }
+                    } finally {
+                        iterator.close();
+                    }
+                    return null;
+                });
+            }
+            // the ranges are awaited in completion order, the first failure stops the scan
+            for (int i = 0; i < ranges.size(); i++) {
+                completionService.take().get();
+            }
+        } catch (InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            throw new UnExpectedException("Parallel query iterator is interrupted");
+        } catch (ExecutionException e) {
+            failed.set(true);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UnExpectedException(e.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private QueryIterator createIterator(ScanRange range) {
+        QueryIteratorReq request = copyRequest(queryIteratorReq, range.partitionNames,
+                joinExpr(range.expr, queryIteratorReq.getExpr()))
+                .outputFields(queryIteratorReq.getOutputFields())
+                .batchSize(queryIteratorReq.getBatchSize())
+                .prefetchDepth(queryIteratorReq.getPrefetchDepth())
+                .prefetchMaxBufferedRows(queryIteratorReq.getPrefetchMaxBufferedRows())
+                .prefetchMaxBufferedBytes(queryIteratorReq.getPrefetchMaxBufferedBytes())
+                .build();
+        return new QueryIterator(request, blockingStub, primaryField, collectionId, clusterId, sessionTs);
+    }
+
+    // a query for the smallest primary key matching the expression, the iterator returns entities ordered
+    // by primary key
+    private QueryIteratorReq probeRequest(String expr) {
+        return copyRequest(queryIteratorReq, queryIteratorReq.getPartitionNames(), expr)
+                .outputFields(new ArrayList<>())
+                .batchSize(1L)
+                .limit(1L)
+                .build();
+    }
+
+    private Object probe(String expr) {
+        QueryIterator iterator = new QueryIterator(probeRequest(expr), blockingStub, primaryField,
+                collectionId, clusterId, sessionTs);
+        try {
+            return firstPrimaryKey(iterator.nextBatch());
+        } finally {
+            iterator.close();
+        }
+    }
+
+    private List<String> splitByValue(long minId, int splitCount) {
+        // binary search for the maximum primary key, each probe returns the smallest primary key
+        // not less than the middle value, which can move the lower bound further
+        long low = minId;
+        long high = Long.MAX_VALUE;
+        while (low < high) {
+            long middle = low + ((high - low) >>> 1) + 1;
+            Object found = probe(primaryField.getName() + " >= " + middle);
+            if (found == null) {
+                high = middle - 1;
+            } else {
+                low = (Long) found;
+            }
+        }
+        long maxId = low;
+
+        BigInteger width = BigInteger.valueOf(maxId).subtract(BigInteger.valueOf(minId));
+        List<Long> bounds = new ArrayList<>();
+        for (int i = 1; i < splitCount; i++) {
+            long bound = BigInteger.valueOf(minId)
+                    .add(width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(splitCount)))
+                    .longValue();
+            if (bound > minId && (bounds.isEmpty() || bound > bounds.get(bounds.size() - 1))) {
+                bounds.add(bound);
+            }
+        }
+        List<String> literals = new ArrayList<>();
+        for (Long bound : bounds) {
+            literals.add(String.valueOf(bound));
+        }
+        return rangeExprs(literals);
+    }
+
+    private List<String> splitByPrefix(String minId, int splitCount) {
+        // skip scan over the distinct prefixes of the primary keys, one code point longer each round until
+        // there are enough of them or no primary key is longer than the prefixes
+        List<String> prefixes = Collections.singletonList(firstCodePoints(minId, 1));
+        int probes = 0;
+        for (int depth = 1; depth <= MAX_PREFIX_DEPTH && probes < MAX_PREFIX_PROBES; depth++) {
+            List<String> found = new ArrayList<>();
+            boolean longer = false;
+            String current = minId;
+            while (current != null && probes < MAX_PREFIX_PROBES) {
+                String prefix = firstCodePoints(current, depth);
+                found.add(prefix);
+                String next;
+                if (prefix.length() < current.length()) {
+                    // the next prefix is the smallest string greater than all the keys starting with this one
+                    longer = true;
+                    String successor = successor(prefix);
+                    next = successor == null ? null : primaryField.getName() + " >= " + quote(successor);
+                } else {
+                    // the key is the prefix itself, a longer key starting with it comes next
+                    next = primaryField.getName() + " > " + quote(current);
+                }
+                if (next == null) {
+                    break;
+                }
+                current = (String) probe(next);
+                probes++;
+            }
+            if (found.size() >= prefixes.size()) {
+                prefixes = found;
+            }
+            if (prefixes.size() >= splitCount || !longer) {
+                break;
+            }
+        }
+
+        // the distinct prefixes are distributed into contiguous groups, a group starts a range
+        List<String> literals = new ArrayList<>();
+        int groupCount = Math.min(splitCount, prefixes.size());
+        for (int i = 1; i < groupCount; i++) {
+            literals.add(quote(prefixes.get(i * prefixes.size() / groupCount)));
+        }
+        return rangeExprs(literals);
+    }
+
+    private static String firstCodePoints(String value, int count) {
+        if (value.codePointCount(0, value.length()) <= count) {
+            return value;
+        }
+        return value.substring(0, value.offsetByCodePoints(0, count));
+    }
+
+    // the smallest string greater than all the strings starting with the prefix and of the same code point
+    // count, null if there is none. The surrogate block is skipped, a lone surrogate is not a valid literal
+    private static String successor(String prefix) {
+        int[] codePoints = prefix.codePoints().toArray();
+        for (int i = codePoints.length - 1; i >= 0; i--) {
+            if (codePoints[i] < Character.MAX_CODE_POINT) {
+                int next = codePoints[i] + 1;
+                if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+                    next = Character.MAX_SURROGATE + 1;
+                }
+                codePoints[i] = next;
+                return new String(codePoints, 0, i + 1);
+            }
+        }
+        return null;
+    }
+
+    private List<String> rangeExprs(List<String> boundLiterals) {
+        if (boundLiterals.isEmpty()) {
+            return Collections.singletonList("");
+        }
+        String name = primaryField.getName();
+        List<String> exprs = new ArrayList<>();
+        exprs.add(name + " < " + boundLiterals.get(0));
+        for (int i = 1; i < boundLiterals.size(); i++) {
+            exprs.add(name + " >= " + boundLiterals.get(i - 1) + " and " + name + " < " + boundLiterals.get(i));
+        }
+        exprs.add(name + " >= " + boundLiterals.get(boundLiterals.size() - 1));
+        return exprs;
+    }
+
+    private Object firstPrimaryKey(QueryResults response) {
+        for (FieldData fieldData : response.getFieldsDataList()) {
+            if (!fieldData.getFieldName().equals(primaryField.getName())) {
+                continue;
+            }
+            ScalarField scalars = fieldData.getScalars();
+            if (primaryField.getDataType() == DataType.VarChar) {
+                return scalars.getStringData().getDataCount() > 0 ? scalars.getStringData().getData(0) : null;
+            }
+            return scalars.getLongData().getDataCount() > 0 ? scalars.getLongData().getData(0) : null;
+        }
+        return null;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static String joinExpr(String rangeExpr, String expr) {
+        if (StringUtils.isEmpty(rangeExpr)) {
+            return expr;
+        }
+        if (StringUtils.isEmpty(expr)) {
+            return rangeExpr;
+        }
+        return rangeExpr + " and (" + expr + ")";
+    }
+
+    private static QueryIteratorReq.QueryIteratorReqBuilder copyRequest(QueryIteratorReq request,
+                                                                        List<String> partitionNames,
+                                                                        String expr) {
+        return QueryIteratorReq.builder()
+                .databaseName(request.getDatabaseName())
+                .collectionName(request.getCollectionName())
+                .partitionNames(partitionNames)
+                .expr(expr)
+                .consistencyLevel(request.getConsistencyLevel())
+                .ignoreGrowing(request.isIgnoreGrowing())
+                .timezone(request.getTimezone())
+                .reduceStopForBest(request.isReduceStopForBest())
+                .filterTemplateValues(request.getFilterTemplateValues());
+    }
+
+    private static class ScanRange {
+        private final String expr;
+        private final List<String> partitionNames;
+
+        ScanRange(String expr, List<String> partitionNames) {
+            this.expr = expr;
+            this.partitionNames = partitionNames;
+        }
+    }
+
+    private class ScanSpliterator implements Spliterator<QueryResultsWrapper.RowRecord> {
+        private int from;
+        private final int to;
+        private QueryIterator current = null;
+        private Iterator<QueryResultsWrapper.RowRecord> batch = Collections.emptyIterator();
+
+        ScanSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super QueryResultsWrapper.RowRecord> action) {
+            while (!batch.hasNext()) {
+                if (current == null) {
+                    if (from >= to) {
+                        return false;
+                    }
+                    current = createIterator(ranges.get(from++));
+                }
+                List<QueryResultsWrapper.RowRecord> records = current.next();
+                if (records.isEmpty()) {
+                    current.close();
+                    current = null;
+                }
+                batch = records.iterator();
+            }
+            action.accept(batch.next());
+            return true;
+        }
+
+        @Override
+        public Spliterator<QueryResultsWrapper.RowRecord> trySplit() {
+            // a scan unit being read is not split
+            int remaining = to - from;
+            if (current != null || remaining < 2) {
+                return null;
+            }
+            int middle = from + remaining / 2;
+            Spliterator<QueryResultsWrapper.RowRecord> prefix = new ScanSpliterator(from, middle);
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+}
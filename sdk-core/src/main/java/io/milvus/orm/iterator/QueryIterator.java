@@ -21,9 +21,11 @@ package io.milvus.orm.iterator;
 
 import io.milvus.exception.ParamException;
 import io.milvus.grpc.DataType;
+import io.milvus.grpc.FieldData;
 import io.milvus.grpc.KeyValuePair;
 import io.milvus.grpc.QueryRequest;
 import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
 import io.milvus.param.Constant;
 import io.milvus.param.collection.FieldType;
 import io.milvus.param.dml.QueryIteratorParam;
@@ -39,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static io.milvus.param.Constant.*;
 
@@ -63,6 +66,8 @@ public class QueryIterator {
     private final VectorUtils vectorUtils;
     private final String clusterId;
     private long sessionTs = 0;
+    private BatchPrefetcher<QueryResults> prefetcher = null;
+    private List<QueryResultsWrapper.RowRecord> prefetchedRecords = new ArrayList<>();
 
     public QueryIterator(QueryIteratorParam queryIteratorParam,
                          RpcStubWrapper blockingStub,
@@ -101,10 +106,22 @@ public class QueryIterator {
                          CreateCollectionReq.FieldSchema primaryField,
                          long collectionId,
                          String clusterId) {
+        this(queryIteratorReq, blockingStub, IteratorAdapterV2.convertV2Field(primaryField), collectionId,
+                clusterId, 0L);
+    }
+
+    // sessionTs > 0 means the iterator reads at a snapshot shared with other iterators,
+    // otherwise the snapshot is set up by a query
+    QueryIterator(QueryIteratorReq queryIteratorReq,
+                  RpcStubWrapper blockingStub,
+                  FieldType primaryField,
+                  long collectionId,
+                  String clusterId,
+                  long sessionTs) {
         this.iteratorCache = new IteratorCache();
         this.blockingStub = blockingStub;
         this.queryIteratorReq = queryIteratorReq;
-        this.primaryField = IteratorAdapterV2.convertV2Field(primaryField);
+        this.primaryField = primaryField;
         this.collectionID = collectionId;
 
         this.batchSize = (int) queryIteratorReq.getBatchSize();
@@ -118,8 +135,45 @@ public class QueryIterator {
         this.vectorUtils.setEndpoint(blockingStub.getEndpoint());
         this.vectorUtils.setCurrentDbName(blockingStub.getDatabaseName());
 
-        setupTsByRequest();
+        checkPrefetchParams();
+        if (sessionTs > 0) {
+            this.sessionTs = sessionTs;
+        } else {
+            setupTsByRequest();
+        }
         seek();
+        setupPrefetcher();
+    }
+
+    private void checkPrefetchParams() {
+        if (queryIteratorReq.getPrefetchDepth() < 0) {
+            throw new ParamException("Prefetch depth cannot be less than zero");
+        }
+        if (queryIteratorReq.getPrefetchMaxBufferedRows() < 0) {
+            throw new ParamException("Max prefetch buffered rows cannot be less than zero");
+        }
+        if (queryIteratorReq.getPrefetchMaxBufferedBytes() < 0) {
+            throw new ParamException("Max prefetch buffered bytes cannot be less than zero");
+        }
+    }
+
+    // start fetching the following batches in background if prefetching is enabled
+    private void setupPrefetcher() {
+        int depth = queryIteratorReq.getPrefetchDepth();
+        if (depth <= 0 || batchSize <= 0) {
+            return;
+        }
+        if (elementFilterIterator) {
+            logger.warn("Prefetching is not supported by element_filter query iterator, fall back to synchronous mode");
+            return;
+        }
+        if (!blockingStub.hasFutureStub()) {
+            logger.warn("Prefetching requires an asynchronous stub, fall back to synchronous mode");
+            return;
+        }
+        prefetcher = new BatchPrefetcher<>(new QueryPageSource(nextId), depth,
+                queryIteratorReq.getPrefetchMaxBufferedRows(), queryIteratorReq.getPrefetchMaxBufferedBytes());
+        prefetcher.start();
     }
 
     // perform a query to get the first time stamp check point
@@ -161,8 +215,12 @@ public class QueryIterator {
     public List<QueryResultsWrapper.RowRecord> next() {
         if (limit != UNLIMITED && returnedCount >= limit) {
             iteratorCache.releaseCache(cacheIdInUse);
+            closePrefetcher();
             return new ArrayList<>();
         }
+        if (prefetcher != null) {
+            return nextPrefetched();
+        }
 
         List<QueryResultsWrapper.RowRecord> ret;
         if (iteratorCache.size(cacheIdInUse) >= batchSize) {
@@ -185,8 +243,156 @@ public class QueryIterator {
         return ret;
     }
 
+    /**
+     * Fetches the next batch as the columnar {@link QueryResults} returned by the server, without converting
+     * it into row records. The cursor is shared with {@link #next()}, but the two methods should not be mixed
+     * on one iterator. An empty result (no fields data) means the iterator is exhausted.
+     * Element-level iteration (an <code>element_filter</code> expression) is not supported by this method.
+     *
+     * @return {@link QueryResults} of the next batch
+     */
+    public QueryResults nextBatch() {
+        if (elementFilterIterator) {
+            throw new ParamException("nextBatch() does not support element_filter expressions, use next() instead");
+        }
+        long batchLimit = batchSize;
+        if (limit != UNLIMITED) {
+            batchLimit = Math.min(batchLimit, limit - returnedCount);
+        }
+        if (batchLimit <= 0) {
+            closePrefetcher();
+            return QueryResults.getDefaultInstance();
+        }
+        if (prefetcher != null) {
+            QueryResults response = prefetcher.take();
+            if (response == null) {
+                return QueryResults.getDefaultInstance();
+            }
+            returnedCount += countRows(response);
+            return response;
+        }
+
+        String currentExpr = setupNextExpr();
+        logger.debug("Query iterator next batch expression: " + currentExpr);
+        QueryResults response = executeQuery(currentExpr, offset, batchLimit, this.sessionTs, QueryPhase.NEXT);
+        returnedCount += updateCursor(response);
+        return response;
+    }
+
     public void close() {
         iteratorCache.releaseCache(cacheIdInUse);
+        closePrefetcher();
+    }
+
+    long getSessionTs() {
+        return sessionTs;
+    }
+
+    /**
+     * Fetches the next batch without blocking the calling thread, the RPC is issued on the future stub.
+     * Used by {@link IteratorPublisher}, the returned future must be completed before calling it again,
+     * and it should not be mixed with {@link #next()}. Cancelling the returned future cancels the RPC.
+     */
+    CompletableFuture<List<QueryResultsWrapper.RowRecord>> nextAsync() {
+        if ((limit != UNLIMITED && returnedCount >= limit) || batchSize <= 0) {
+            close();
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        if (prefetcher != null) {
+            if (!prefetchedRecords.isEmpty()) {
+                return CompletableFuture.completedFuture(drainPrefetchedRecords());
+            }
+            return IteratorFutures.transform(prefetcher.takeAsync(), response -> {
+                if (response != null) {
+                    prefetchedRecords = new ArrayList<>(extractRowRecords(response));
+                }
+                return drainPrefetchedRecords();
+            });
+        }
+
+        long batchLimit = batchSize;
+        if (limit != UNLIMITED) {
+            batchLimit = Math.min(batchLimit, limit - returnedCount);
+        }
+        String currentExpr = setupNextExpr();
+        logger.debug("Query iterator next async expression: " + currentExpr);
+        return IteratorFutures.transform(executeQueryAsync(currentExpr, batchLimit, this.sessionTs), response -> {
+            List<QueryResultsWrapper.RowRecord> ret = checkReachedLimit(extractRowRecords(response));
+            updateCursor(ret);
+            returnedCount += ret.size();
+            return new ArrayList<>(ret);
+        });
+    }
+
+    private List<QueryResultsWrapper.RowRecord> nextPrefetched() {
+        if (prefetchedRecords.isEmpty()) {
+            QueryResults response = prefetcher.take();
+            if (response != null) {
+                prefetchedRecords = new ArrayList<>(extractRowRecords(response));
+            }
+        }
+        return drainPrefetchedRecords();
+    }
+
+    private List<QueryResultsWrapper.RowRecord> drainPrefetchedRecords() {
+        // a response is normally one batch, the server might return more rows than requested
+        List<QueryResultsWrapper.RowRecord> head =
+                prefetchedRecords.subList(0, Math.min(batchSize, prefetchedRecords.size()));
+        List<QueryResultsWrapper.RowRecord> ret = checkReachedLimit(new ArrayList<>(head));
+        head.clear();
+        returnedCount += ret.size();
+        if (ret.isEmpty() || (limit != UNLIMITED && returnedCount >= limit)) {
+            closePrefetcher();
+        }
+        return ret;
+    }
+
+    private void closePrefetcher() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+        prefetchedRecords.clear();
+    }
+
+    private long updateCursor(QueryResults response) {
+        Object lastId = lastPrimaryKey(response);
+        if (lastId != null) {
+            nextId = lastId;
+        }
+        return countRows(response);
+    }
+
+    private ScalarField primaryKeyScalars(QueryResults response) {
+        for (FieldData fieldData : response.getFieldsDataList()) {
+            if (fieldData.getFieldName().equals(primaryField.getName())) {
+                return fieldData.getScalars();
+            }
+        }
+        return null;
+    }
+
+    private long countRows(QueryResults response) {
+        ScalarField scalars = primaryKeyScalars(response);
+        if (scalars == null) {
+            return 0;
+        }
+        if (primaryField.getDataType() == DataType.VarChar) {
+            return scalars.getStringData().getDataCount();
+        }
+        return scalars.getLongData().getDataCount();
+    }
+
+    private Object lastPrimaryKey(QueryResults response) {
+        ScalarField scalars = primaryKeyScalars(response);
+        if (scalars == null) {
+            return null;
+        }
+        if (primaryField.getDataType() == DataType.VarChar) {
+            int count = scalars.getStringData().getDataCount();
+            return count > 0 ? scalars.getStringData().getData(count - 1) : null;
+        }
+        int count = scalars.getLongData().getDataCount();
+        return count > 0 ? scalars.getLongData().getData(count - 1) : null;
     }
 
     private void updateCursor(List<QueryResultsWrapper.RowRecord> res) {
@@ -242,16 +448,20 @@ public class QueryIterator {
     }
 
     private String setupNextExpr() {
+        return setupNextExpr(nextId);
+    }
+
+    private String setupNextExpr(Object cursorId) {
         String currentExpr = expr;
-        if (nextId == null) {
+        if (cursorId == null) {
             return currentExpr;
         }
         String pkOperator = hasElementCursor() ? ">=" : ">";
         String filteredPKStr;
         if (primaryField.getDataType() == DataType.VarChar) {
-            filteredPKStr = primaryField.getName() + " " + pkOperator + " " + "\"" + nextId + "\"";
+            filteredPKStr = primaryField.getName() + " " + pkOperator + " " + "\"" + cursorId + "\"";
         } else {
-            filteredPKStr = primaryField.getName() + " " + pkOperator + " " + nextId;
+            filteredPKStr = primaryField.getName() + " " + pkOperator + " " + cursorId;
         }
         if (StringUtils.isEmpty(currentExpr)) {
             return filteredPKStr;
@@ -264,6 +474,25 @@ public class QueryIterator {
     }
 
     private QueryResults executeQuery(String expr, long offset, long limit, long ts, QueryPhase phase) {
+        QueryRequest request = buildQueryRequest(expr, offset, limit, ts, phase);
+        QueryResults response = rpcUtils.retry(() -> blockingStub.get().query(request));
+        String title = String.format("QueryRequest collectionName:%s", queryIteratorReq.getCollectionName());
+        rpcUtils.handleResponse(title, response.getStatus());
+        return response;
+    }
+
+    private CompletableFuture<QueryResults> executeQueryAsync(String expr, long limit, long ts) {
+        QueryRequest request = buildQueryRequest(expr, offset, limit, ts, QueryPhase.NEXT);
+        String title = String.format("QueryRequest collectionName:%s", queryIteratorReq.getCollectionName());
+        return rpcUtils.retryAsync(() -> IteratorFutures.toCompletableFuture(
+                blockingStub.getFuture().query(request),
+                response -> {
+                    rpcUtils.handleResponse(title, response.getStatus());
+                    return response;
+                }));
+    }
+
+    private QueryRequest buildQueryRequest(String expr, long offset, long limit, long ts, QueryPhase phase) {
         // Setting up the timestamp and seeking an offset do not need output fields.
         List<String> outputFields = new ArrayList<>();
         if (phase == QueryPhase.NEXT) {
@@ -329,10 +558,41 @@ public class QueryIterator {
         // set default consistency level
         builder.setUseDefaultConsistency(true);
 
-        QueryResults response = rpcUtils.retry(() -> blockingStub.get().query(builder.build()));
-        String title = String.format("QueryRequest collectionName:%s", queryIteratorReq.getCollectionName());
-        rpcUtils.handleResponse(title, response.getStatus());
-        return response;
+        return builder.build();
+    }
+
+    // chains the prefetched batches by the last primary key of the previous batch
+    private class QueryPageSource implements BatchPrefetcher.PageSource<QueryResults> {
+        private final Object firstCursorId;
+        private long fetchedCount = 0;
+
+        QueryPageSource(Object firstCursorId) {
+            this.firstCursorId = firstCursorId;
+        }
+
+        @Override
+        public CompletableFuture<QueryResults> fetchAfter(QueryResults previous) {
+            Object cursorId = previous == null ? firstCursorId : lastPrimaryKey(previous);
+            long batchLimit = batchSize;
+            if (limit != UNLIMITED) {
+                batchLimit = Math.min(batchLimit, limit - fetchedCount);
+            }
+            String currentExpr = setupNextExpr(cursorId);
+            logger.debug("Query iterator prefetch expression: " + currentExpr);
+            return executeQueryAsync(currentExpr, batchLimit, sessionTs);
+        }
+
+        @Override
+        public boolean accept(QueryResults page) {
+            long count = countRows(page);
+            fetchedCount += count;
+            return count > 0 && (limit == UNLIMITED || fetchedCount < limit);
+        }
+
+        @Override
+        public long rowCount(QueryResults page) {
+            return countRows(page);
+        }
     }
 
     private enum QueryPhase {
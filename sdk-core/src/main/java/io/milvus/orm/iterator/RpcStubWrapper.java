@@ -26,6 +26,8 @@ import java.util.concurrent.TimeUnit;
 
 public class RpcStubWrapper {
     private final MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub;
+    // optional, only required by the iterators when prefetching is enabled
+    private final MilvusServiceGrpc.MilvusServiceFutureStub futureStub;
 
     // rpcTimeoutMs of MilvusServiceBlockingStub.withDeadlineAfter() is "end of using time", not "timeout of per call",
     // we have to reset this value for each time QueryIterator calls the query() interface.
@@ -38,7 +40,16 @@ public class RpcStubWrapper {
                           long rpcDeadlineMs,
                           String endpoint,
                           String databaseName) {
+        this(blockingStub, null, rpcDeadlineMs, endpoint, databaseName);
+    }
+
+    public RpcStubWrapper(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub,
+                          MilvusServiceGrpc.MilvusServiceFutureStub futureStub,
+                          long rpcDeadlineMs,
+                          String endpoint,
+                          String databaseName) {
         this.blockingStub = Objects.requireNonNull(blockingStub, "blockingStub cannot be null");
+        this.futureStub = futureStub;
         this.rpcDeadlineMs = rpcDeadlineMs;
         if (endpoint == null || endpoint.trim().isEmpty()) {
             throw new IllegalArgumentException("Cache endpoint cannot be empty");
@@ -55,6 +66,21 @@ public class RpcStubWrapper {
         }
     }
 
+    public boolean hasFutureStub() {
+        return futureStub != null;
+    }
+
+    public MilvusServiceGrpc.MilvusServiceFutureStub getFuture() {
+        if (futureStub == null) {
+            throw new IllegalStateException("futureStub is not provided");
+        }
+        if (rpcDeadlineMs > 0) {
+            return futureStub.withDeadlineAfter(rpcDeadlineMs, TimeUnit.MILLISECONDS);
+        } else {
+            return futureStub;
+        }
+    }
+
     public String getEndpoint() {
         return endpoint;
     }
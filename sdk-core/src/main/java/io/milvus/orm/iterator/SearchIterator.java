@@ -110,7 +110,8 @@ public class SearchIterator {
                           RpcStubWrapper blockingStub,
                           CreateCollectionReq.FieldSchema primaryField,
                           String clusterId) {
-        this.iteratorCache = new IteratorCache();
+        this.iteratorCache = new IteratorCache(searchIteratorReq.getCacheMemoryBudgetBytes(),
+                searchIteratorReq.isCacheSpillEnabled());
         this.blockingStub = blockingStub;
         IteratorAdapterV2 adapter = new IteratorAdapterV2();
         this.searchIteratorParam = adapter.convertV2Req(searchIteratorReq);
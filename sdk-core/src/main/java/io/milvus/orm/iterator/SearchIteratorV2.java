@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import static io.milvus.param.Constant.MAX_BATCH_SIZE;
@@ -57,6 +58,7 @@ public class SearchIteratorV2 {
     private Long collectionID = null;
     private Function<List<SearchResp.SearchResult>, List<SearchResp.SearchResult>> externalFilterFunc = null;
     private List<SearchResp.SearchResult> cache = new ArrayList<>();
+    private BatchPrefetcher<SearchResults> prefetcher = null;
 
     // to support V2
     public SearchIteratorV2(SearchIteratorReqV2 searchIteratorReq,
@@ -81,6 +83,7 @@ public class SearchIteratorV2 {
         checkParams();
         setupCollectionID();
         probeForCompability();
+        setupPrefetcher();
     }
 
     private void checkParams() {
@@ -105,6 +108,29 @@ public class SearchIteratorV2 {
         if (searchIteratorReq.getLimit() != UNLIMITED) {
             this.leftResCnt = searchIteratorReq.getLimit();
         }
+
+        if (searchIteratorReq.getPrefetchDepth() < 0) {
+            ExceptionUtils.throwUnExpectedException("Prefetch depth cannot be less than zero");
+        } else if (searchIteratorReq.getPrefetchMaxBufferedRows() < 0) {
+            ExceptionUtils.throwUnExpectedException("Max prefetch buffered rows cannot be less than zero");
+        } else if (searchIteratorReq.getPrefetchMaxBufferedBytes() < 0) {
+            ExceptionUtils.throwUnExpectedException("Max prefetch buffered bytes cannot be less than zero");
+        }
+    }
+
+    // start fetching the following batches in background if prefetching is enabled
+    private void setupPrefetcher() {
+        int depth = searchIteratorReq.getPrefetchDepth();
+        if (depth <= 0 || batchSize <= 0) {
+            return;
+        }
+        if (!blockingStub.hasFutureStub()) {
+            logger.warn("Prefetching requires an asynchronous stub, fall back to synchronous mode");
+            return;
+        }
+        prefetcher = new BatchPrefetcher<>(new SearchPageSource(), depth,
+                searchIteratorReq.getPrefetchMaxBufferedRows(), searchIteratorReq.getPrefetchMaxBufferedBytes());
+        prefetcher.start();
     }
 
     private void setupCollectionID() {
@@ -122,6 +148,26 @@ public class SearchIteratorV2 {
     }
 
     private SearchResults executeSearch(int limit) {
+        SearchRequest request = buildSearchRequest(limit);
+        SearchResults response = rpcUtils.retry(() -> blockingStub.get().search(request));
+        String title = String.format("SearchRequest collectionName:%s", searchIteratorReq.getCollectionName());
+        rpcUtils.handleResponse(title, response.getStatus());
+
+        return response;
+    }
+
+    private CompletableFuture<SearchResults> executeSearchAsync(int limit) {
+        SearchRequest request = buildSearchRequest(limit);
+        String title = String.format("SearchRequest collectionName:%s", searchIteratorReq.getCollectionName());
+        return rpcUtils.retryAsync(() -> IteratorFutures.toCompletableFuture(
+                blockingStub.getFuture().search(request),
+                response -> {
+                    rpcUtils.handleResponse(title, response.getStatus());
+                    return response;
+                }));
+    }
+
+    private SearchRequest buildSearchRequest(int limit) {
         searchParams.put("search_iter_batch_size", limit);
         SearchReq request = SearchReq.builder()
                 .collectionName(searchIteratorReq.getCollectionName())
@@ -149,11 +195,7 @@ public class SearchIteratorV2 {
                     .setValue(clusterId)
                     .build());
         }
-        SearchResults response = rpcUtils.retry(() -> blockingStub.get().search(builder.build()));
-        String title = String.format("SearchRequest collectionName:%s", searchIteratorReq.getCollectionName());
-        rpcUtils.handleResponse(title, response.getStatus());
-
-        return response;
+        return builder.build();
     }
 
     private void probeForCompability() {
@@ -208,6 +250,64 @@ public class SearchIteratorV2 {
             }
         }
 
+        return takeFromCache(targetLen);
+    }
+
+    /**
+     * Fetches the next batch without blocking the calling thread, the RPCs are issued on the future stub.
+     * Used by {@link IteratorPublisher}, the returned future must be completed before calling it again,
+     * and it should not be mixed with {@link #next()}. Cancelling the returned future cancels the RPC.
+     */
+    CompletableFuture<List<SearchResp.SearchResult>> nextAsync() {
+        if (leftResCnt != null && leftResCnt <= 0) {
+            close();
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        if (externalFilterFunc == null) {
+            return IteratorFutures.transform(nextPageAsync(), this::wrapReturnRes);
+        }
+
+        int targetLen = batchSize;
+        if (leftResCnt != null && leftResCnt < targetLen) {
+            targetLen = leftResCnt.intValue();
+        }
+        int finalTargetLen = targetLen;
+        return IteratorFutures.transform(fillCacheAsync(targetLen), ignored -> takeFromCache(finalTargetLen));
+    }
+
+    private CompletableFuture<Void> fillCacheAsync(int targetLen) {
+        return IteratorFutures.compose(nextPageAsync(), hits -> {
+            if (hits == null || hits.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            cache.addAll(externalFilterFunc.apply(hits));
+            if (cache.size() >= targetLen) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return fillCacheAsync(targetLen);
+        });
+    }
+
+    private CompletableFuture<List<SearchResp.SearchResult>> nextPageAsync() {
+        if (prefetcher != null) {
+            return IteratorFutures.transform(prefetcher.takeAsync(), response -> {
+                if (response == null) {
+                    return new ArrayList<>();
+                }
+                checkTokenExists(response.getResults());
+                return new ConvertUtils().getEntities(response).get(0);
+            });
+        }
+
+        return IteratorFutures.transform(executeSearchAsync(batchSize), response -> {
+            checkTokenExists(response.getResults());
+            updateCursor(response);
+            return new ConvertUtils().getEntities(response).get(0);
+        });
+    }
+
+    private List<SearchResp.SearchResult> takeFromCache(int targetLen) {
         // create a list with elements from 0 to targetLen, and remove the elements from cache
         targetLen = Math.min(cache.size(), targetLen);
         List<SearchResp.SearchResult> subList = cache.subList(0, targetLen);
@@ -217,8 +317,25 @@ public class SearchIteratorV2 {
     }
 
     private List<SearchResp.SearchResult> _next() {
+        if (prefetcher != null) {
+            // the cursor has been moved forward by the prefetcher when the response arrived
+            SearchResults response = prefetcher.take();
+            if (response == null) {
+                return new ArrayList<>();
+            }
+            checkTokenExists(response.getResults());
+            return new ConvertUtils().getEntities(response).get(0);
+        }
+
         SearchResults response = executeSearch(batchSize);
         checkTokenExists(response.getResults());
+        updateCursor(response);
+
+        List<List<SearchResp.SearchResult>> res = new ConvertUtils().getEntities(response);
+        return res.get(0);
+    }
+
+    private void updateCursor(SearchResults response) {
         SearchIteratorV2Results iterInfo = response.getResults().getSearchIteratorV2Results();
         searchParams.put("search_iter_last_bound", iterInfo.getLastBound());
 
@@ -227,9 +344,14 @@ public class SearchIteratorV2 {
         }
 
         setupGuaranteeTimestamp(response);
+    }
 
-        List<List<SearchResp.SearchResult>> res = new ConvertUtils().getEntities(response);
-        return res.get(0);
+    private static long countHits(SearchResults response) {
+        long count = 0;
+        for (long topk : response.getResults().getTopksList()) {
+            count += topk;
+        }
+        return count;
     }
 
     private void setupGuaranteeTimestamp(SearchResults response) {
@@ -259,11 +381,52 @@ public class SearchIteratorV2 {
         leftResCnt = Math.max(0L, leftResCnt - res.size());
         if (leftResCnt == 0) {
             cache.clear();
+            closePrefetcher();
         }
         return res;
     }
 
     public void close() {
         cache.clear();
+        closePrefetcher();
+    }
+
+    private void closePrefetcher() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+    }
+
+    // chains the prefetched batches by the last bound of the previous batch, the search parameters
+    // are only touched by the prefetcher once it is started
+    private class SearchPageSource implements BatchPrefetcher.PageSource<SearchResults> {
+        private long fetchedCount = 0;
+
+        @Override
+        public CompletableFuture<SearchResults> fetchAfter(SearchResults previous) {
+            return executeSearchAsync(batchSize);
+        }
+
+        @Override
+        public boolean accept(SearchResults page) {
+            if (StringUtils.isEmpty(page.getResults().getSearchIteratorV2Results().getToken())) {
+                return false;
+            }
+            updateCursor(page);
+
+            long count = countHits(page);
+            fetchedCount += count;
+            if (count == 0) {
+                return false;
+            }
+            // the external filter might drop hits, keep fetching until it is exhausted
+            return externalFilterFunc != null || searchIteratorReq.getLimit() == UNLIMITED
+                    || fetchedCount < searchIteratorReq.getLimit();
+        }
+
+        @Override
+        public long rowCount(SearchResults page) {
+            return countHits(page);
+        }
     }
 }
@@ -2,9 +2,35 @@ package io.milvus.pool;
 
 import io.milvus.v2.client.ConnectConfig;
 import io.milvus.v2.client.MilvusClientV2;
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
+import io.milvus.v2.service.collection.request.WarmUpSchemaCacheReq;
+import io.milvus.v2.service.collection.response.WarmUpSchemaCacheResp;
 
 public class MilvusClientV2Pool extends ClientPool<ConnectConfig, MilvusClientV2> {
     public MilvusClientV2Pool(PoolConfig poolConfig, ConnectConfig connectConfig) throws ClassNotFoundException, NoSuchMethodException {
         super(poolConfig, new PoolClientFactory<ConnectConfig, MilvusClientV2>(connectConfig, MilvusClientV2.class.getName()));
     }
+
+    /**
+     * Create minIdlePerKey clients for the pool of the key, and preload the schema cache for the collections
+     * of the request, so that the first writes through the pooled clients don't need DescribeCollection calls.
+     * The schema cache is shared by all the clients of the same endpoint, one of the clients does the warm-up.
+     *
+     * @param key     the key of a group where the client belong
+     * @param request warm up schema cache request
+     * @return WarmUpSchemaCacheResp
+     */
+    public WarmUpSchemaCacheResp preparePool(String key, WarmUpSchemaCacheReq request) {
+        preparePool(key);
+        MilvusClientV2 client = getClient(key);
+        if (client == null) {
+            throw new MilvusClientException(ErrorCode.CLIENT_ERROR, "Not able to get a client for key: " + key);
+        }
+        try {
+            return client.warmUpSchemaCache(request);
+        } finally {
+            returnClient(key, client);
+        }
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import javax.net.ssl.SSLContext;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
@@ -53,6 +54,9 @@ public class ConnectConfig {
     private Boolean secure = false;
     private long idleTimeoutMs = TimeUnit.MILLISECONDS.convert(24, TimeUnit.HOURS);
     private boolean enablePrecheck = false;  // default value is false
+    private long schemaCacheTtlMs = 0; // cached schemas never expire
+    private boolean warmUpSchemaCache = false;
+    private List<String> warmUpCollectionNames;
     private Map<String, String> option = new HashMap<>();
 
     private SSLContext sslContext;
@@ -86,6 +90,9 @@ public class ConnectConfig {
         this.sslContext = builder.sslContext;
         this.clientRequestId = builder.clientRequestId;
         this.enablePrecheck = builder.enablePrecheck;
+        this.schemaCacheTtlMs = builder.schemaCacheTtlMs;
+        this.warmUpSchemaCache = builder.warmUpSchemaCache;
+        this.warmUpCollectionNames = builder.warmUpCollectionNames;
         this.option = builder.option;
     }
 
@@ -174,6 +181,18 @@ public class ConnectConfig {
         return enablePrecheck;
     }
 
+    public long getSchemaCacheTtlMs() {
+        return schemaCacheTtlMs;
+    }
+
+    public boolean isWarmUpSchemaCache() {
+        return warmUpSchemaCache;
+    }
+
+    public List<String> getWarmUpCollectionNames() {
+        return warmUpCollectionNames;
+    }
+
     public Map<String, String> getOption() {
         return option;
     }
@@ -261,6 +280,18 @@ public class ConnectConfig {
         this.idleTimeoutMs = idleTimeoutMs;
     }
 
+    public void setSchemaCacheTtlMs(long schemaCacheTtlMs) {
+        this.schemaCacheTtlMs = schemaCacheTtlMs;
+    }
+
+    public void setWarmUpSchemaCache(boolean warmUpSchemaCache) {
+        this.warmUpSchemaCache = warmUpSchemaCache;
+    }
+
+    public void setWarmUpCollectionNames(List<String> warmUpCollectionNames) {
+        this.warmUpCollectionNames = warmUpCollectionNames;
+    }
+
     public void setSslContext(SSLContext sslContext) {
         this.sslContext = sslContext;
     }
@@ -326,6 +357,9 @@ public class ConnectConfig {
                 ", secure=" + secure +
                 ", enablePrecheck=" + enablePrecheck +
                 ", idleTimeoutMs=" + idleTimeoutMs +
+                ", schemaCacheTtlMs=" + schemaCacheTtlMs +
+                ", warmUpSchemaCache=" + warmUpSchemaCache +
+                ", warmUpCollectionNames=" + warmUpCollectionNames +
                 ", sslContext=" + sslContext +
                 ", clientRequestId=" + clientRequestId +
                 '}';
@@ -353,6 +387,9 @@ public class ConnectConfig {
         private SSLContext sslContext;
         private ThreadLocal<String> clientRequestId;
         private boolean enablePrecheck = false;
+        private long schemaCacheTtlMs = 0;
+        private boolean warmUpSchemaCache = false;
+        private List<String> warmUpCollectionNames;
         private Map<String, String> option = new HashMap<>();
 
         public ConnectConfigBuilder uri(String uri) {
@@ -456,6 +493,45 @@ public class ConnectConfig {
             return this;
         }
 
+        /**
+         * Sets how long a cached collection schema is trusted, in milliseconds. Zero, the default, keeps
+         * a schema until it is invalidated by a DDL call or a schema mismatch error. When it is positive,
+         * a schema used in the last 20% of this period is refreshed in the background, so a schema
+         * altered by another process is picked up without a failed request.
+         *
+         * @param schemaCacheTtlMs time-to-live of cached schemas in milliseconds
+         * @return this builder
+         */
+        public ConnectConfigBuilder schemaCacheTtlMs(long schemaCacheTtlMs) {
+            this.schemaCacheTtlMs = schemaCacheTtlMs;
+            return this;
+        }
+
+        /**
+         * Preloads the schema cache when the client is created, so the first write to each collection
+         * doesn't need a DescribeCollection call. The schemas are fetched by batched describe calls in
+         * parallel before the constructor returns. A failure is logged and doesn't fail the connection.
+         *
+         * @param warmUpSchemaCache whether to preload the schema cache, default value is false
+         * @return this builder
+         */
+        public ConnectConfigBuilder warmUpSchemaCache(boolean warmUpSchemaCache) {
+            this.warmUpSchemaCache = warmUpSchemaCache;
+            return this;
+        }
+
+        /**
+         * The collections preloaded by {@link #warmUpSchemaCache(boolean)}. If it is null or empty, all the
+         * collections of the connected database are preloaded.
+         *
+         * @param warmUpCollectionNames names of the collections to preload
+         * @return this builder
+         */
+        public ConnectConfigBuilder warmUpCollectionNames(List<String> warmUpCollectionNames) {
+            this.warmUpCollectionNames = warmUpCollectionNames;
+            return this;
+        }
+
         public ConnectConfigBuilder sslContext(SSLContext sslContext) {
             this.sslContext = sslContext;
             return this;
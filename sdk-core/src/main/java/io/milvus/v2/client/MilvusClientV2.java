@@ -28,6 +28,7 @@ import io.milvus.grpc.ClientInfo;
 import io.milvus.grpc.ConnectRequest;
 import io.milvus.grpc.ConnectResponse;
 import io.milvus.grpc.MilvusServiceGrpc;
+import io.milvus.orm.iterator.ParallelQueryIterator;
 import io.milvus.orm.iterator.QueryIterator;
 import io.milvus.orm.iterator.RpcStubWrapper;
 import io.milvus.orm.iterator.SearchIterator;
@@ -47,6 +48,7 @@ import io.milvus.v2.service.collection.response.DescribeReplicasResp;
 import io.milvus.v2.service.collection.response.GetCollectionStatsResp;
 import io.milvus.v2.service.collection.response.GetLoadStateResp;
 import io.milvus.v2.service.collection.response.ListCollectionsResp;
+import io.milvus.v2.service.collection.response.WarmUpSchemaCacheResp;
 import io.milvus.v2.service.database.DatabaseService;
 import io.milvus.v2.service.database.request.*;
 import io.milvus.v2.service.database.response.DescribeDatabaseResp;
@@ -92,6 +94,7 @@ import io.milvus.v2.exception.MilvusClientException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 import static io.milvus.common.utils.RedactCredential.redactUriUserInfo;
@@ -143,6 +146,9 @@ public class MilvusClientV2 {
             connect(connectConfig);
 
             initServices(connectConfig.getDbName());
+            if (connectConfig.isWarmUpSchemaCache()) {
+                warmUpSchemaCacheOnStartup();
+            }
         }
     }
 
@@ -178,6 +184,9 @@ public class MilvusClientV2 {
         this.rgroupService.setCurrentDbName(dbName);
         this.snapshotService.setCurrentDbName(dbName);
         this.utilityService.setCurrentDbName(dbName);
+        if (connectConfig != null && connectConfig.getSchemaCacheTtlMs() > 0) {
+            this.vectorService.setSchemaCacheTtl(connectConfig.getSchemaCacheTtlMs(), this::getFutureRpcStub);
+        }
     }
 
     /**
@@ -639,6 +648,32 @@ public class MilvusClientV2 {
         return rpcUtils.retry(() -> collectionService.batchDescribeCollections(this.getRpcStub(), request));
     }
 
+    /**
+     * Preloads the schema cache for a list of collections, or all the collections of a database, by batched
+     * describe calls in parallel. Collections already cached are skipped. The cache is shared by all the clients
+     * connected to the same endpoint, so it is enough to warm up one of them.
+     *
+     * @param request warm up schema cache request
+     * @return WarmUpSchemaCacheResp
+     */
+    public WarmUpSchemaCacheResp warmUpSchemaCache(WarmUpSchemaCacheReq request) {
+        // a failed batch is reported in the response, not thrown, there is nothing to retry
+        return collectionService.warmUpSchemaCache(this::getRpcStub, request);
+    }
+
+    private void warmUpSchemaCacheOnStartup() {
+        try {
+            WarmUpSchemaCacheResp resp = warmUpSchemaCache(WarmUpSchemaCacheReq.builder()
+                    .collectionNames(connectConfig.getWarmUpCollectionNames())
+                    .build());
+            logger.info("Schema cache warmed up, loaded: {}, skipped: {}, failed: {}",
+                    resp.getLoadedCollectionNames().size(), resp.getSkippedCollectionNames().size(),
+                    resp.getFailedCollectionNames().size());
+        } catch (Exception e) {
+            logger.warn("Failed to warm up schema cache: {}", e.getMessage());
+        }
+    }
+
     /**
      * get collection stats for a collection in Milvus.
      *
@@ -878,7 +913,8 @@ public class MilvusClientV2 {
      * @return DeleteResp
      */
     public DeleteResp delete(DeleteReq request) {
-        return rpcUtils.retry(() -> vectorService.delete(this.getRpcStub(), request));
+        // a delete by ids is sent in chunks, each chunk is retried on its own
+        return vectorService.delete(this::getRpcStub, request, rpcUtils);
     }
 
     /**
@@ -888,13 +924,32 @@ public class MilvusClientV2 {
      * @return GetResp
      */
     public GetResp get(GetReq request) {
-        return rpcUtils.retry(() -> vectorService.get(this.getRpcStub(), request));
+        return get(request, null);
     }
 
     GetResp get(GetReq request, String clusterId) {
+        if (request.getIds() != null && request.getIds().size() > VectorService.ID_CHUNK_SIZE) {
+            // a huge lookup is split into chunks, which the async path fetches in parallel
+            return joinFuture(getAsync(request, clusterId));
+        }
         return rpcUtils.retry(() -> vectorService.get(this.getRpcStub(), request, clusterId));
     }
 
+    private static <T> T joinFuture(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new MilvusClientException(ErrorCode.CLIENT_ERROR, cause);
+        }
+    }
+
     /**
      * Gets vectors in a collection in Milvus asynchronously.
      *
@@ -948,10 +1003,14 @@ public class MilvusClientV2 {
      * @return SearchResp
      */
     public SearchResp search(SearchReq request) {
-        return rpcUtils.retry(() -> vectorService.search(this.getRpcStub(), request));
+        return search(request, null);
     }
 
     SearchResp search(SearchReq request, String clusterId) {
+        if (VectorService.needsNqSplit(request)) {
+            // a search with many queries is split into batches, which the async path sends in parallel
+            return joinFuture(searchAsync(request, clusterId));
+        }
         return rpcUtils.retry(() -> vectorService.search(this.getRpcStub(), request, clusterId));
     }
 
@@ -971,6 +1030,30 @@ public class MilvusClientV2 {
                 () -> getFutureRpcStub(clientRequestId), request, clusterId, rpcUtils);
     }
 
+    /**
+     * Runs one search on many collections or partitions and merges the hits by score.
+     *
+     * @param request fan-out search request
+     * @return FanOutSearchResp
+     */
+    public FanOutSearchResp fanOutSearch(FanOutSearchReq request) {
+        return joinFuture(fanOutSearchAsync(request));
+    }
+
+    /**
+     * Runs one search on many collections or partitions asynchronously and merges the hits by score.
+     * The targets are searched concurrently, up to the parallelism of the request.
+     *
+     * @param request fan-out search request
+     * @return a future completed with FanOutSearchResp when every target answered or timed out,
+     * or exceptionally when a target fails
+     */
+    public CompletableFuture<FanOutSearchResp> fanOutSearchAsync(FanOutSearchReq request) {
+        String clientRequestId = captureClientRequestId();
+        return vectorService.fanOutSearchAsync(
+                () -> getFutureRpcStub(clientRequestId), request, rpcUtils);
+    }
+
     /**
      * Conducts multi vector similarity search with a ranker for rearrangement.
      *
@@ -1017,6 +1100,23 @@ public class MilvusClientV2 {
         return rpcUtils.retry(() -> vectorService.queryIterator(stub, request, clusterId));
     }
 
+    /**
+     * Get a parallel query iterator which scans the collection by several primary key ranges concurrently.
+     * All the ranges are read at the same snapshot. Offset and limit of the request are not supported.
+     *
+     * @param request query iterator request
+     * @param splitCount number of primary key ranges
+     * @return ParallelQueryIterator
+     */
+    public ParallelQueryIterator parallelQueryIterator(QueryIteratorReq request, int splitCount) {
+        return parallelQueryIterator(request, splitCount, null);
+    }
+
+    ParallelQueryIterator parallelQueryIterator(QueryIteratorReq request, int splitCount, String clusterId) {
+        RpcStubWrapper stub = createIteratorRpcStub(request.getDatabaseName());
+        return rpcUtils.retry(() -> vectorService.parallelQueryIterator(stub, request, splitCount, clusterId));
+    }
+
     /**
      * Get searchIterator based on a vector field. Use expression to do filtering before search.
      *
@@ -1050,7 +1150,7 @@ public class MilvusClientV2 {
     private RpcStubWrapper createIteratorRpcStub(String requestDatabaseName) {
         String databaseName = StringUtils.isNotEmpty(requestDatabaseName)
                 ? requestDatabaseName : connectConfig.getDbName();
-        return new RpcStubWrapper(this.getRpcStub(), connectConfig.getRpcDeadlineMs(),
+        return new RpcStubWrapper(this.getRpcStub(), this.futureStub, connectConfig.getRpcDeadlineMs(),
                 cacheEndpoint, databaseName);
     }
 
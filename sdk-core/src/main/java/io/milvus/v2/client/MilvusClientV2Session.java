@@ -19,6 +19,7 @@
 
 package io.milvus.v2.client;
 
+import io.milvus.orm.iterator.ParallelQueryIterator;
 import io.milvus.orm.iterator.QueryIterator;
 import io.milvus.orm.iterator.SearchIterator;
 import io.milvus.orm.iterator.SearchIteratorV2;
@@ -80,6 +81,11 @@ public class MilvusClientV2Session {
         return parent.queryIterator(request, clusterId);
     }
 
+    public ParallelQueryIterator parallelQueryIterator(QueryIteratorReq request, int splitCount) {
+        ensureOpen();
+        return parent.parallelQueryIterator(request, splitCount, clusterId);
+    }
+
     public SearchIterator searchIterator(SearchIteratorReq request) {
         ensureOpen();
         return parent.searchIterator(request, clusterId);
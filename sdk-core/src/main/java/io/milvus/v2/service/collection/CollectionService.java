@@ -22,6 +22,7 @@ package io.milvus.v2.service.collection;
 import io.grpc.StatusRuntimeException;
 import io.milvus.common.clientenum.FunctionType;
 import io.milvus.common.utils.cache.CollectionTsCache;
+import io.milvus.common.utils.cache.SchemaCache;
 import io.milvus.common.utils.JsonUtils;
 import io.milvus.grpc.*;
 import io.milvus.param.Constant;
@@ -36,6 +37,7 @@ import io.milvus.v2.service.collection.response.DescribeReplicasResp;
 import io.milvus.v2.service.collection.response.GetCollectionStatsResp;
 import io.milvus.v2.service.collection.response.GetLoadStateResp;
 import io.milvus.v2.service.collection.response.ListCollectionsResp;
+import io.milvus.v2.service.collection.response.WarmUpSchemaCacheResp;
 import io.milvus.v2.service.index.IndexService;
 import io.milvus.v2.service.index.request.CreateIndexReq;
 import io.milvus.v2.utils.SchemaUtils;
@@ -45,12 +47,27 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class CollectionService extends BaseService {
     private static final String ALLOW_INSERT_AUTO_ID = "allow_insert_auto_id";
+    // shared by the warm-ups of all clients, an idle thread ends after a minute
+    private static final ExecutorService WARM_UP_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "milvus-schema-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public IndexService indexService = new IndexService();
 
@@ -515,6 +532,125 @@ public class CollectionService extends BaseService {
         return convertUtils.convertDescCollectionsResp(response);
     }
 
+    /**
+     * Preloads the schema cache with batched describe calls, so that the first insert/upsert/search on each
+     * collection doesn't pay for a DescribeCollection. Collections already cached are skipped. The warm-up is
+     * best-effort: a failed batch is logged and reported, its collections are described on first use as before.
+     * The stub supplier is called per RPC since the deadline of a stub starts at its creation.
+     */
+    public WarmUpSchemaCacheResp warmUpSchemaCache(Supplier<MilvusServiceGrpc.MilvusServiceBlockingStub> stubSupplier,
+                                                   WarmUpSchemaCacheReq request) {
+        if (request.getBatchSize() <= 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "Warm-up batch size must be positive");
+        }
+        if (request.getParallelism() <= 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "Warm-up parallelism must be positive");
+        }
+
+        String dbName = request.getDatabaseName();
+        List<String> collectionNames = request.getCollectionNames();
+        if (CollectionUtils.isEmpty(collectionNames)) {
+            collectionNames = listCollections(stubSupplier.get(), dbName).getCollectionNames();
+        }
+
+        String endpoint = getEndpoint();
+        String cacheDbName = actualDbName(dbName);
+        SchemaCache cache = SchemaCache.getInstance();
+        List<String> skipped = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        for (String name : new LinkedHashSet<>(collectionNames)) {
+            if (cache.get(endpoint, cacheDbName, name) != null) {
+                skipped.add(name);
+            } else {
+                pending.add(name);
+            }
+        }
+
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < pending.size(); i += request.getBatchSize()) {
+            batches.add(pending.subList(i, Math.min(i + request.getBatchSize(), pending.size())));
+        }
+        List<String> loaded = Collections.synchronizedList(new ArrayList<>());
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        int threads = Math.min(request.getParallelism(), batches.size());
+        if (threads <= 1) {
+            for (List<String> batch : batches) {
+                warmUpBatch(stubSupplier, dbName, endpoint, cacheDbName, batch, loaded, failed);
+            }
+        } else {
+            // "threads" workers of the shared pool take the batches one by one
+            AtomicInteger nextBatch = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            try {
+                for (int i = 0; i < threads; i++) {
+                    futures.add(WARM_UP_EXECUTOR.submit(() -> {
+                        int index;
+                        while ((index = nextBatch.getAndIncrement()) < batches.size()) {
+                            warmUpBatch(stubSupplier, dbName, endpoint, cacheDbName, batches.get(index),
+                                    loaded, failed);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                throw new MilvusClientException(ErrorCode.CLIENT_ERROR, "Schema cache warm-up is interrupted");
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new MilvusClientException(ErrorCode.CLIENT_ERROR, e.getCause());
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            logger.warn("Schema cache warm-up failed for {} of {} collections in database: '{}'",
+                    failed.size(), pending.size(), cacheDbName);
+        }
+        return WarmUpSchemaCacheResp.builder()
+                .loadedCollectionNames(new ArrayList<>(loaded))
+                .skippedCollectionNames(skipped)
+                .failedCollectionNames(new ArrayList<>(failed))
+                .build();
+    }
+
+    private void warmUpBatch(Supplier<MilvusServiceGrpc.MilvusServiceBlockingStub> stubSupplier, String dbName,
+                             String endpoint, String cacheDbName, List<String> batch,
+                             List<String> loaded, List<String> failed) {
+        String title = String.format("Warm up schemas of %d collections in database: '%s'", batch.size(), dbName);
+        BatchDescribeCollectionRequest.Builder builder = BatchDescribeCollectionRequest.newBuilder()
+                .addAllCollectionName(batch);
+        if (StringUtils.isNotEmpty(dbName)) {
+            builder.setDbName(dbName);
+        }
+        Set<String> remaining = new HashSet<>(batch);
+        try {
+            BatchDescribeCollectionResponse response = stubSupplier.get().batchDescribeCollection(builder.build());
+            rpcUtils.handleResponse(title, response.getStatus());
+            List<DescribeCollectionResponse> describes = response.getResponsesList();
+            // the responses are in the order of the requested names, a name may be an alias, so the response
+            // is cached under the requested name, which the later lookups use
+            boolean inOrder = describes.size() == batch.size();
+            for (int i = 0; i < describes.size(); i++) {
+                DescribeCollectionResponse describe = describes.get(i);
+                Status status = describe.getStatus();
+                if (status.getCode() != 0 || status.getErrorCode() != io.milvus.grpc.ErrorCode.Success) {
+                    continue;
+                }
+                String name = inOrder ? batch.get(i) : describe.getCollectionName();
+                // the response of a collection is cached as is, like a lazily loaded DescribeCollection
+                if (remaining.remove(name)) {
+                    SchemaCache.getInstance().set(endpoint, cacheDbName, name, describe);
+                    loaded.add(name);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("{} failed: {}", title, e.getMessage());
+        }
+        failed.addAll(remaining);
+    }
+
     public Void renameCollection(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub, RenameCollectionReq request) {
         String dbName = request.getDatabaseName();
         String collectionName = request.getCollectionName();
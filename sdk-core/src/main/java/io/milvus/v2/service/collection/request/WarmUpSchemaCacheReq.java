@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.milvus.v2.service.collection.request;
+
+import java.util.List;
+
+public class WarmUpSchemaCacheReq {
+    private String databaseName;
+    private List<String> collectionNames;
+    private int batchSize;
+    private int parallelism;
+
+    // Private constructor for builder
+    private WarmUpSchemaCacheReq(WarmUpSchemaCacheReqBuilder builder) {
+        this.databaseName = builder.databaseName;
+        this.collectionNames = builder.collectionNames;
+        this.batchSize = builder.batchSize;
+        this.parallelism = builder.parallelism;
+    }
+
+    // Static method to create builder
+    public static WarmUpSchemaCacheReqBuilder builder() {
+        return new WarmUpSchemaCacheReqBuilder();
+    }
+
+    // Getter methods
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public List<String> getCollectionNames() {
+        return collectionNames;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // Setter methods
+    public void setDatabaseName(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    public void setCollectionNames(List<String> collectionNames) {
+        this.collectionNames = collectionNames;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpSchemaCacheReq{" +
+                "databaseName='" + databaseName + '\'' +
+                ", collectionNames=" + collectionNames +
+                ", batchSize=" + batchSize +
+                ", parallelism=" + parallelism +
+                '}';
+    }
+
+    // Builder class
+    public static class WarmUpSchemaCacheReqBuilder {
+        private String databaseName;
+        private List<String> collectionNames;
+        private int batchSize = 100;
+        private int parallelism = 4;
+
+        public WarmUpSchemaCacheReqBuilder databaseName(String databaseName) {
+            this.databaseName = databaseName;
+            return this;
+        }
+
+        /**
+         * The collections whose schemas are loaded. If it is null or empty, all the collections of the
+         * database are loaded.
+         *
+         * @param collectionNames names of the collections
+         * @return this builder
+         */
+        public WarmUpSchemaCacheReqBuilder collectionNames(List<String> collectionNames) {
+            this.collectionNames = collectionNames;
+            return this;
+        }
+
+        /**
+         * The number of collections described by one BatchDescribeCollection call. Default value is 100.
+         *
+         * @param batchSize number of collections per call
+         * @return this builder
+         */
+        public WarmUpSchemaCacheReqBuilder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * The maximum number of BatchDescribeCollection calls in flight. Default value is 4.
+         *
+         * @param parallelism number of concurrent calls
+         * @return this builder
+         */
+        public WarmUpSchemaCacheReqBuilder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public WarmUpSchemaCacheReq build() {
+            return new WarmUpSchemaCacheReq(this);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.milvus.v2.service.collection.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class WarmUpSchemaCacheResp {
+    private List<String> loadedCollectionNames;
+    private List<String> skippedCollectionNames;
+    private List<String> failedCollectionNames;
+
+    private WarmUpSchemaCacheResp(WarmUpSchemaCacheRespBuilder builder) {
+        this.loadedCollectionNames = builder.loadedCollectionNames != null ? builder.loadedCollectionNames : new ArrayList<>();
+        this.skippedCollectionNames = builder.skippedCollectionNames != null ? builder.skippedCollectionNames : new ArrayList<>();
+        this.failedCollectionNames = builder.failedCollectionNames != null ? builder.failedCollectionNames : new ArrayList<>();
+    }
+
+    public static WarmUpSchemaCacheRespBuilder builder() {
+        return new WarmUpSchemaCacheRespBuilder();
+    }
+
+    // Getters
+    // collections whose schemas were fetched and put into the cache
+    public List<String> getLoadedCollectionNames() {
+        return loadedCollectionNames;
+    }
+
+    // collections whose schemas were already cached
+    public List<String> getSkippedCollectionNames() {
+        return skippedCollectionNames;
+    }
+
+    // collections that could not be described, they are loaded on first use as before
+    public List<String> getFailedCollectionNames() {
+        return failedCollectionNames;
+    }
+
+    // Setters
+    public void setLoadedCollectionNames(List<String> loadedCollectionNames) {
+        this.loadedCollectionNames = loadedCollectionNames;
+    }
+
+    public void setSkippedCollectionNames(List<String> skippedCollectionNames) {
+        this.skippedCollectionNames = skippedCollectionNames;
+    }
+
+    public void setFailedCollectionNames(List<String> failedCollectionNames) {
+        this.failedCollectionNames = failedCollectionNames;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpSchemaCacheResp{" +
+                "loadedCollectionNames=" + loadedCollectionNames +
+                ", skippedCollectionNames=" + skippedCollectionNames +
+                ", failedCollectionNames=" + failedCollectionNames +
+                '}';
+    }
+
+    public static class WarmUpSchemaCacheRespBuilder {
+        private List<String> loadedCollectionNames;
+        private List<String> skippedCollectionNames;
+        private List<String> failedCollectionNames;
+
+        public WarmUpSchemaCacheRespBuilder loadedCollectionNames(List<String> loadedCollectionNames) {
+            this.loadedCollectionNames = loadedCollectionNames;
+            return this;
+        }
+
+        public WarmUpSchemaCacheRespBuilder skippedCollectionNames(List<String> skippedCollectionNames) {
+            this.skippedCollectionNames = skippedCollectionNames;
+            return this;
+        }
+
+        public WarmUpSchemaCacheRespBuilder failedCollectionNames(List<String> failedCollectionNames) {
+            this.failedCollectionNames = failedCollectionNames;
+            return this;
+        }
+
+        public WarmUpSchemaCacheResp build() {
+            return new WarmUpSchemaCacheResp(this);
+        }
+    }
+}
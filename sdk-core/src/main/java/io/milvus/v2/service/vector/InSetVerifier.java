@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.service.vector;
+
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.QueryRequest;
+import io.milvus.grpc.SearchRequest;
+import io.milvus.param.Constant;
+import io.milvus.v2.service.vector.request.filter.InSetFilter;
+import io.milvus.v2.service.vector.response.QueryResp;
+import io.milvus.v2.service.vector.response.SearchResp;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the rows or hits returned for an inexact in-set filter.
+ * <p>
+ * The server may return false positives, they take some of the limit. So the request is sent for the
+ * first <code>offset + limit</code> rows or hits without offset, the false positives are dropped, and the
+ * request is sent again with a window twice larger while the results are short and the server returned a
+ * full window, up to {@link Constant#MAX_BATCH_SIZE}. The offset and the limit are then applied to the
+ * verified results. The filter field is added to the output fields to verify the values, it is removed
+ * from the results if the caller didn't ask for it.
+ */
+final class InSetVerifier {
+    private final InSetFilter filter;
+    private final boolean stripField;
+    private final long offset;
+    private final long limit;
+
+    private InSetVerifier(InSetFilter filter, boolean stripField, long offset, long limit) {
+        this.filter = filter;
+        this.stripField = stripField;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * @param filter       the in-set filter of the request, can be null
+     * @param outputFields the output fields asked by the caller
+     * @param offset       the offset asked by the caller
+     * @param limit        the limit asked by the caller, 0 to verify the results without refilling them
+     * @return null if the filter is null or exact, nothing to verify
+     */
+    static InSetVerifier of(InSetFilter filter, List<String> outputFields, long offset, long limit) {
+        if (filter == null || filter.isExact()) {
+            return null;
+        }
+        boolean requested = outputFields != null
+                && (outputFields.contains(filter.getFieldName()) || outputFields.contains(Constant.ALL_OUTPUT_FIELDS));
+        return new InSetVerifier(filter, !requested, Math.max(offset, 0L), Math.max(limit, 0L));
+    }
+
+    /**
+     * @return the first window, the number of rows or hits asked to the server, 0 if there is no limit
+     */
+    long firstWindow() {
+        return limit > 0 ? offset + limit : 0L;
+    }
+
+    QueryRequest window(QueryRequest request, long window) {
+        if (window <= 0) {
+            return request;
+        }
+        QueryRequest.Builder builder = request.toBuilder().clearQueryParams();
+        for (KeyValuePair param : request.getQueryParamsList()) {
+            if (!Constant.OFFSET.equals(param.getKey()) && !Constant.LIMIT.equals(param.getKey())) {
+                builder.addQueryParams(param);
+            }
+        }
+        return builder.addQueryParams(KeyValuePair.newBuilder()
+                        .setKey(Constant.LIMIT)
+                        .setValue(String.valueOf(window))
+                        .build())
+                .build();
+    }
+
+    SearchRequest window(SearchRequest request, long window) {
+        if (window <= 0) {
+            return request;
+        }
+        SearchRequest.Builder builder = request.toBuilder().clearSearchParams();
+        for (KeyValuePair param : request.getSearchParamsList()) {
+            if (Constant.TOP_K.equals(param.getKey())) {
+                param = param.toBuilder().setValue(String.valueOf(window)).build();
+            } else if (Constant.OFFSET.equals(param.getKey())) {
+                param = param.toBuilder().setValue("0").build();
+            }
+            builder.addSearchParams(param);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Drops the false positives of a query response.
+     *
+     * @param resp   the response of a request sent with the window
+     * @param window the window of the request
+     * @return the next window to send the request with, or 0 if the response is final
+     */
+    long verify(QueryResp resp, long window) {
+        List<QueryResp.QueryResult> results = resp.getQueryResults();
+        int returned = results.size();
+        results.removeIf(result -> !filter.matches(result.getEntity().get(filter.getFieldName())));
+        return nextWindow(window, returned, results.size());
+    }
+
+    /**
+     * Drops the false positives of a search response.
+     *
+     * @param resp   the response of a request sent with the window
+     * @param window the window of the request
+     * @return the next window to send the request with, or 0 if the response is final
+     */
+    long verify(SearchResp resp, long window) {
+        String fieldName = filter.getFieldName();
+        long next = 0L;
+        for (List<SearchResp.SearchResult> results : resp.getSearchResults()) {
+            int returned = results.size();
+            results.removeIf(result -> {
+                Object value = result.getEntity() == null ? null : result.getEntity().get(fieldName);
+                if (value == null && fieldName.equals(result.getPrimaryKey())) {
+                    value = result.getId();
+                }
+                return !filter.matches(value);
+            });
+            next = Math.max(next, nextWindow(window, returned, results.size()));
+        }
+        return next;
+    }
+
+    private long nextWindow(long window, int returned, int verified) {
+        if (window <= 0 || verified >= offset + limit || returned < window || window >= Constant.MAX_BATCH_SIZE) {
+            return 0L;
+        }
+        return Math.min(window * 2, Constant.MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Applies the offset and the limit to the verified rows, removes the filter field if it was added.
+     *
+     * @param resp             the verified response
+     * @param primaryFieldName the primary key field, the server always returns it
+     * @return the response
+     */
+    QueryResp finish(QueryResp resp, String primaryFieldName) {
+        trim(resp.getQueryResults());
+        if (stripField && !filter.getFieldName().equals(primaryFieldName)) {
+            for (QueryResp.QueryResult result : resp.getQueryResults()) {
+                result.getEntity().remove(filter.getFieldName());
+            }
+        }
+        return resp;
+    }
+
+    /**
+     * Applies the offset and the limit to the verified hits of each query, removes the filter field if it
+     * was added.
+     *
+     * @param resp the verified response
+     * @return the response
+     */
+    SearchResp finish(SearchResp resp) {
+        for (List<SearchResp.SearchResult> results : resp.getSearchResults()) {
+            trim(results);
+            if (stripField) {
+                for (SearchResp.SearchResult result : results) {
+                    Map<String, Object> entity = result.getEntity();
+                    if (entity != null) {
+                        entity.remove(filter.getFieldName());
+                    }
+                }
+            }
+        }
+        return resp;
+    }
+
+    private void trim(List<?> results) {
+        if (limit <= 0) {
+            return;
+        }
+        int end = (int) Math.min(results.size(), offset + limit);
+        results.subList(end, results.size()).clear();
+        results.subList(0, (int) Math.min(offset, end)).clear();
+    }
+}
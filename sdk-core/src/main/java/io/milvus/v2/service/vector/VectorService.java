@@ -27,11 +27,15 @@ import com.google.protobuf.ByteString;
 import io.milvus.common.utils.JsonUtils;
 import io.milvus.common.utils.cache.SchemaCache;
 import io.milvus.grpc.*;
+import io.grpc.Deadline;
+import io.milvus.orm.iterator.ParallelQueryIterator;
 import io.milvus.orm.iterator.QueryIterator;
 import io.milvus.orm.iterator.RpcStubWrapper;
 import io.milvus.orm.iterator.SearchIterator;
 import io.milvus.orm.iterator.SearchIteratorV2;
 import io.milvus.param.Constant;
+import io.milvus.v2.client.RetryConfig;
+import io.milvus.v2.common.IndexParam;
 import io.milvus.v2.exception.DataNotMatchException;
 import io.milvus.v2.exception.ErrorCode;
 import io.milvus.v2.exception.MilvusClientException;
@@ -39,9 +43,12 @@ import io.milvus.v2.service.BaseService;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import io.milvus.v2.service.collection.response.DescribeCollectionResp;
 import io.milvus.v2.service.vector.request.*;
+import io.milvus.v2.service.vector.request.filter.InSetFilter;
 import io.milvus.v2.service.vector.response.*;
+import io.milvus.v2.service.vector.response.aggregation.AggregationBucket;
 import io.milvus.v2.utils.DataUtils;
 import io.milvus.v2.utils.RpcUtils;
+import io.milvus.v2.utils.VectorUtils;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -49,15 +56,42 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 public class VectorService extends BaseService {
+    // get/delete by ids split a longer id list into several requests, so that a huge lookup doesn't hit
+    // the message size limit, and the chunks of a get are fetched in parallel
+    public static final int ID_CHUNK_SIZE = 10000;
+    // the max number of get chunks in flight, so that a huge id list doesn't flood the proxy
+    public static final int ID_CHUNK_PARALLELISM = 4;
+
     Logger logger = LoggerFactory.getLogger(VectorService.class);
+    private long schemaCacheTtlMs = 0L;
+    private Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> schemaRefreshStub = null;
+
+    /**
+     * Sets the time-to-live of the cached schemas used by this service, and the future stub supplier
+     * which refreshes them in the background before they expire.
+     */
+    public void setSchemaCacheTtl(long ttlMs, Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> refreshStub) {
+        this.schemaCacheTtlMs = ttlMs;
+        this.schemaRefreshStub = refreshStub;
+    }
+
     private DescribeCollectionResponse describeCollection(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub,
                                                           String dbName, String collectionName) {
         String title = String.format("Describe collection '%s' in database: '%s'", collectionName, dbName);
@@ -95,8 +129,11 @@ public class VectorService extends BaseService {
     private DescribeCollectionResponse getCollectionInfo(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub,
                                                          String databaseName, String collectionName, boolean forceUpdate) {
         String dbName = actualDbName(databaseName);
+        Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> refreshStub = schemaRefreshStub;
+        SchemaCache.AsyncLoader refresher = refreshStub == null ? null
+                : () -> describeCollection(refreshStub.get(), dbName, collectionName);
         return SchemaCache.getInstance().getOrLoad(getEndpoint(), dbName, collectionName, forceUpdate, this,
-                () -> describeCollection(blockingStub, dbName, collectionName));
+                () -> describeCollection(blockingStub, dbName, collectionName), schemaCacheTtlMs, refresher);
     }
 
     private CompletableFuture<DescribeCollectionResponse> getCollectionInfoAsync(
@@ -105,7 +142,7 @@ public class VectorService extends BaseService {
         String dbName = actualDbName(databaseName);
         return SchemaCache.getInstance().getOrLoadAsync(
                 getEndpoint(), dbName, collectionName, forceUpdate, this,
-                () -> describeCollection(futureStub, dbName, collectionName));
+                () -> describeCollection(futureStub, dbName, collectionName), schemaCacheTtlMs);
     }
 
     private InsertRequest buildInsertRequest(InsertReq request, DescribeCollectionResponse descResp) {
@@ -242,13 +279,20 @@ public class VectorService extends BaseService {
         }
         QueryRequest queryRequest = buildBaseQueryRequest(request);
         if (descResp != null) {
-            queryRequest = queryRequest.toBuilder()
-                    .setExpr(vectorUtils.getExprById(getPrimaryKeyName(descResp), request.getIds()))
-                    .build();
+            queryRequest = withIdsExpr(queryRequest, descResp, request.getIds());
         }
         return queryRequest;
     }
 
+    // the ids travel as a template array value instead of a literal list in the expression, the
+    // expression stays short and identical across calls, so the server parses and plans it once
+    private QueryRequest withIdsExpr(QueryRequest queryRequest, DescribeCollectionResponse descResp, List<?> ids) {
+        return queryRequest.toBuilder()
+                .setExpr(vectorUtils.getTemplateExprById(getPrimaryKeyName(descResp)))
+                .putExprTemplateValues(VectorUtils.IDS_TEMPLATE_KEY, vectorUtils.getIdsTemplateValue(ids))
+                .build();
+    }
+
     public QueryResp query(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub, QueryReq request) {
         return query(blockingStub, request, null);
     }
@@ -258,8 +302,19 @@ public class VectorService extends BaseService {
         QueryRequest queryRequest = withQueryClusterId(buildQueryRequest(blockingStub, request), clusterId);
         String title = String.format("Query collection: '%s' in database: '%s'",
                 queryRequest.getCollectionName(), queryRequest.getDbName());
-        QueryResults response = blockingStub.query(queryRequest);
-        return convertQueryResponse(title, response);
+        InSetVerifier verifier = queryVerifier(request);
+        if (verifier == null) {
+            return convertQueryResponse(title, blockingStub.query(queryRequest));
+        }
+        long window = verifier.firstWindow();
+        while (true) {
+            QueryResults response = blockingStub.query(verifier.window(queryRequest, window));
+            QueryResp resp = convertQueryResponse(title, response);
+            window = verifier.verify(resp, window);
+            if (window <= 0) {
+                return verifier.finish(resp, response.getPrimaryFieldName());
+            }
+        }
     }
 
     public CompletableFuture<QueryResp> queryAsync(
@@ -276,13 +331,14 @@ public class VectorService extends BaseService {
             return failedFuture(throwable);
         }
 
+        final InSetVerifier verifier = queryVerifier(request);
         return retryUtils.retryAsync(() -> queryAsync(
-                futureStubSupplier.get(), baseRequest, ids));
+                futureStubSupplier.get(), baseRequest, ids, verifier));
     }
 
     private CompletableFuture<QueryResp> queryAsync(
             MilvusServiceGrpc.MilvusServiceFutureStub futureStub,
-            QueryRequest baseRequest, List<Object> ids) {
+            QueryRequest baseRequest, List<Object> ids, InSetVerifier verifier) {
         CompletableFuture<QueryRequest> requestFuture;
         if (ids == null) {
             requestFuture = CompletableFuture.completedFuture(baseRequest);
@@ -290,19 +346,48 @@ public class VectorService extends BaseService {
             requestFuture = transformFuture(
                     getCollectionInfoAsync(futureStub, baseRequest.getDbName(),
                             baseRequest.getCollectionName(), false),
-                    descResp -> baseRequest.toBuilder()
-                            .setExpr(vectorUtils.getExprById(getPrimaryKeyName(descResp), ids))
-                            .build());
+                    descResp -> withIdsExpr(baseRequest, descResp, ids));
         }
 
         return composeFuture(requestFuture, queryRequest -> {
             String title = String.format("Query collection: '%s' in database: '%s'",
                     queryRequest.getCollectionName(), queryRequest.getDbName());
-            return transformFuture(futureStub.query(queryRequest),
-                    response -> convertQueryResponse(title, response));
+            if (verifier == null) {
+                return transformFuture(futureStub.query(queryRequest),
+                        response -> convertQueryResponse(title, response));
+            }
+            return queryWindowAsync(futureStub, queryRequest, title, verifier, verifier.firstWindow());
         });
     }
 
+    // sends the query for a window of rows, sends it again with a larger window if the verified rows are short
+    private CompletableFuture<QueryResp> queryWindowAsync(
+            MilvusServiceGrpc.MilvusServiceFutureStub futureStub, QueryRequest queryRequest, String title,
+            InSetVerifier verifier, long window) {
+        CompletableFuture<QueryResults> responseFuture = transformFuture(
+                futureStub.query(verifier.window(queryRequest, window)), response -> response);
+        return composeFuture(responseFuture, response -> {
+            QueryResp resp = convertQueryResponse(title, response);
+            long next = verifier.verify(resp, window);
+            if (next <= 0) {
+                return CompletableFuture.completedFuture(verifier.finish(resp, response.getPrimaryFieldName()));
+            }
+            return queryWindowAsync(futureStub, queryRequest, title, verifier, next);
+        });
+    }
+
+    private static InSetVerifier queryVerifier(QueryReq request) {
+        return InSetVerifier.of(request.getInSetFilter(), request.getOutputFields(),
+                request.getOffset(), request.getLimit());
+    }
+
+    // the hits of a grouping search or a search aggregation are verified without refilling the limit
+    private static InSetVerifier searchVerifier(SearchReq request, long offset, long limit) {
+        boolean grouped = StringUtils.isNotEmpty(request.getGroupByFieldName())
+                || request.getSearchAggregation() != null;
+        return InSetVerifier.of(request.getInSetFilter(), request.getOutputFields(), offset, grouped ? 0L : limit);
+    }
+
     private String getPrimaryKeyName(DescribeCollectionResponse descResp) {
         for (FieldSchema field : descResp.getSchema().getFieldsList()) {
             if (field.getIsPrimaryKey()) {
@@ -320,9 +405,29 @@ public class VectorService extends BaseService {
     }
 
     private QueryRequest buildBaseQueryRequest(QueryReq request) {
-        return vectorUtils.ConvertToGrpcQueryRequest(request).toBuilder()
-                .setDbName(actualDbName(request.getDatabaseName()))
-                .build();
+        QueryRequest.Builder builder = vectorUtils.ConvertToGrpcQueryRequest(request).toBuilder()
+                .setDbName(actualDbName(request.getDatabaseName()));
+        InSetFilter inSetFilter = request.getInSetFilter();
+        if (needsVerification(inSetFilter)) {
+            if (builder.getOutputFieldsList().contains("count(*)")) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "count(*) doesn't allow an inexact in-set filter, use Filters.inSetExact() instead.");
+            }
+            if (!returnsField(builder.getOutputFieldsList(), inSetFilter.getFieldName())) {
+                builder.addOutputFields(inSetFilter.getFieldName());
+            }
+        }
+        return builder.build();
+    }
+
+    // the server may return false positives of an inexact in-set filter, they are dropped by InSetVerifier
+    // by the value of the filter field, which is added to the output fields for this purpose
+    private static boolean needsVerification(InSetFilter inSetFilter) {
+        return inSetFilter != null && !inSetFilter.isExact();
+    }
+
+    private static boolean returnsField(List<String> outputFields, String fieldName) {
+        return outputFields.contains(fieldName) || outputFields.contains("*");
     }
 
     private QueryResp convertQueryResponse(String title, QueryResults response) {
@@ -361,29 +466,393 @@ public class VectorService extends BaseService {
 
         // reset the db name so that the timestamp cache can set correct key for this collection
         request.setDatabaseName(actualDbName(dbName));
-        SearchRequest searchRequest = vectorUtils.ConvertToGrpcSearchRequest(request);
+        SearchRequest searchRequest = withInSetOutputField(vectorUtils.ConvertToGrpcSearchRequest(request),
+                request.getInSetFilter());
         SearchRequest effectiveRequest = withSearchClusterId(searchRequest, clusterId);
 
-        return convertSearchResponse(title, blockingStub.search(effectiveRequest), true);
+        InSetVerifier verifier = searchVerifier(request, request.getOffset(), request.getLimit());
+        if (verifier == null) {
+            return convertSearchResponse(title, blockingStub.search(effectiveRequest), true);
+        }
+        long window = verifier.firstWindow();
+        while (true) {
+            SearchResp resp = convertSearchResponse(title,
+                    blockingStub.search(verifier.window(effectiveRequest, window)), true);
+            window = verifier.verify(resp, window);
+            if (window <= 0) {
+                return verifier.finish(resp);
+            }
+        }
     }
 
     public CompletableFuture<SearchResp> searchAsync(
             Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> futureStubSupplier,
             SearchReq request, String clusterId, RpcUtils retryUtils) {
+        if (needsNqSplit(request)) {
+            return searchInBatchesAsync(futureStubSupplier, request, clusterId, retryUtils);
+        }
         final SearchRequest searchRequest;
         try {
-            searchRequest = vectorUtils.ConvertToGrpcSearchRequest(request).toBuilder()
+            searchRequest = withInSetOutputField(vectorUtils.ConvertToGrpcSearchRequest(request).toBuilder()
                     .setDbName(actualDbName(request.getDatabaseName()))
-                    .build();
+                    .build(), request.getInSetFilter());
         } catch (Throwable throwable) {
             return failedFuture(throwable);
         }
-        final SearchRequest effectiveRequest = withSearchClusterId(searchRequest, clusterId);
+        return searchAsync(futureStubSupplier, withSearchClusterId(searchRequest, clusterId),
+                searchVerifier(request, request.getOffset(), request.getLimit()), retryUtils);
+    }
+
+    // sends a converted search request, drops the false positives of an inexact in-set filter
+    private CompletableFuture<SearchResp> searchAsync(
+            Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> futureStubSupplier,
+            SearchRequest searchRequest, InSetVerifier verifier, RpcUtils retryUtils) {
         String title = String.format("Search collection: '%s' in database: '%s'",
-                effectiveRequest.getCollectionName(), effectiveRequest.getDbName());
-        return retryUtils.retryAsync(() -> transformFuture(
-                futureStubSupplier.get().search(effectiveRequest),
+                searchRequest.getCollectionName(), searchRequest.getDbName());
+        if (verifier == null) {
+            return retryUtils.retryAsync(() -> transformFuture(
+                    futureStubSupplier.get().search(searchRequest),
+                    response -> convertSearchResponse(title, response, true)));
+        }
+        return searchWindowAsync(futureStubSupplier, searchRequest, title, verifier, verifier.firstWindow(),
+                retryUtils);
+    }
+
+    // sends the search for a window of hits, sends it again with a larger window if the verified hits are short
+    private CompletableFuture<SearchResp> searchWindowAsync(
+            Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> futureStubSupplier, SearchRequest searchRequest,
+            String title, InSetVerifier verifier, long window, RpcUtils retryUtils) {
+        SearchRequest windowRequest = verifier.window(searchRequest, window);
+        CompletableFuture<SearchResp> responseFuture = retryUtils.retryAsync(() -> transformFuture(
+                futureStubSupplier.get().search(windowRequest),
                 response -> convertSearchResponse(title, response, true)));
+        return composeFuture(responseFuture, resp -> {
+            long next = verifier.verify(resp, window);
+            if (next <= 0) {
+                return CompletableFuture.completedFuture(verifier.finish(resp));
+            }
+            return searchWindowAsync(futureStubSupplier, searchRequest, title, verifier, next, retryUtils);
+        });
+    }
+
+    /**
+     * @param request search request
+     * @return true if the search has more queries than its nqBatchSize and is sent in batches
+     */
+    public static boolean needsNqSplit(SearchReq request) {
+        return request.getNqBatchSize() > 0 && VectorUtils.searchNq(request) > request.getNqBatchSize();
+    }
+
+    // the batches share the parameters and the guarantee timestamp of the first one, each batch is
+    // converted when it is sent and retried on its own, the results are in the order of the queries
+    private CompletableFuture<SearchResp> searchInBatchesAsync(
+            Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> futureStubSupplier,
+            SearchReq request, String clusterId, RpcUtils retryUtils) {
+        int nq = VectorUtils.searchNq(request);
+        int batchSize = request.getNqBatchSize();
+        final SearchRequest firstBatch;
+        try {
+            if (request.getNqParallelism() <= 0) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The nqParallelism must be positive.");
+            }
+            firstBatch = withSearchClusterId(withInSetOutputField(
+                    vectorUtils.ConvertToGrpcSearchBatch(request, null, 0, batchSize).toBuilder()
+                            .setDbName(actualDbName(request.getDatabaseName()))
+                            .build(), request.getInSetFilter()), clusterId);
+        } catch (Throwable throwable) {
+            return failedFuture(throwable);
+        }
+        InSetVerifier verifier = searchVerifier(request, request.getOffset(), request.getLimit());
+        int batchCount = (nq + batchSize - 1) / batchSize;
+        return transformFuture(boundedAllOf(batchCount, request.getNqParallelism(), batch -> {
+            SearchRequest batchRequest = batch == 0 ? firstBatch : vectorUtils.ConvertToGrpcSearchBatch(
+                    request, firstBatch, batch * batchSize, Math.min(nq, (batch + 1) * batchSize));
+            return searchAsync(futureStubSupplier, batchRequest, verifier, retryUtils);
+        }), VectorService::mergeSearchBatches);
+    }
+
+    static SearchResp mergeSearchBatches(List<SearchResp> batches) {
+        List<List<SearchResp.SearchResult>> searchResults = new ArrayList<>();
+        List<Float> recalls = new ArrayList<>();
+        List<List<AggregationBucket>> aggregationBuckets = new ArrayList<>();
+        long sessionTs = 1L;
+        long cost = 0L;
+        Long scannedRemoteBytes = null;
+        Long scannedTotalBytes = null;
+        float cacheHitRatioSum = 0f;
+        int cacheHitRatioCount = 0;
+        for (SearchResp batch : batches) {
+            searchResults.addAll(batch.getSearchResults());
+            if (batch.getRecalls() != null) {
+                recalls.addAll(batch.getRecalls());
+            }
+            if (batch.getAggregationBuckets() != null) {
+                aggregationBuckets.addAll(batch.getAggregationBuckets());
+            }
+            sessionTs = Math.max(sessionTs, batch.getSessionTs());
+            if (batch.getCost() != null) {
+                cost += batch.getCost();
+            }
+            if (batch.getScannedRemoteBytes() != null) {
+                scannedRemoteBytes = (scannedRemoteBytes == null ? 0L : scannedRemoteBytes)
+                        + batch.getScannedRemoteBytes();
+            }
+            if (batch.getScannedTotalBytes() != null) {
+                scannedTotalBytes = (scannedTotalBytes == null ? 0L : scannedTotalBytes)
+                        + batch.getScannedTotalBytes();
+            }
+            if (batch.getCacheHitRatio() != null) {
+                cacheHitRatioSum += batch.getCacheHitRatio();
+                cacheHitRatioCount++;
+            }
+        }
+        return SearchResp.builder()
+                .searchResults(searchResults)
+                .recalls(recalls)
+                .aggregationBuckets(aggregationBuckets)
+                .sessionTs(sessionTs)
+                .cost(cost)
+                .scannedRemoteBytes(scannedRemoteBytes)
+                .scannedTotalBytes(scannedTotalBytes)
+                .cacheHitRatio(cacheHitRatioCount == 0 ? null : cacheHitRatioSum / cacheHitRatioCount)
+                .build();
+    }
+
+    public CompletableFuture<FanOutSearchResp> fanOutSearchAsync(
+            Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> futureStubSupplier,
+            FanOutSearchReq request, RpcUtils retryUtils) {
+        final SearchRequest baseRequest;
+        final boolean ascending;
+        try {
+            ascending = isDistanceMetric(validateFanOutSearch(request));
+            baseRequest = convertFanOutTemplate(request);
+        } catch (Throwable throwable) {
+            return failedFuture(throwable);
+        }
+        SearchReq template = request.getSearchReq();
+        List<FanOutSearchReq.SearchTarget> targets = request.getTargets();
+        AtomicReferenceArray<Boolean> timedOut = new AtomicReferenceArray<>(targets.size());
+        CompletableFuture<List<SearchResp>> responses = boundedAllOf(targets.size(), request.getParallelism(),
+                index -> searchTargetAsync(futureStubSupplier, request, baseRequest, index, timedOut, retryUtils));
+        return transformFuture(responses, answered -> {
+            List<FanOutSearchReq.SearchTarget> timedOutTargets = new ArrayList<>();
+            for (int i = 0; i < targets.size(); i++) {
+                if (timedOut.get(i) != null) {
+                    timedOutTargets.add(targets.get(i));
+                }
+            }
+            return FanOutSearchResp.builder()
+                    .hits(mergeFanOutHits(targets, answered, ascending, request.isDeduplicate(),
+                            template.getOffset(), template.getLimit()))
+                    .timedOutTargets(timedOutTargets)
+                    .build();
+        });
+    }
+
+    // returns the metric type the hits are merged by
+    private IndexParam.MetricType validateFanOutSearch(FanOutSearchReq request) {
+        SearchReq template = request.getSearchReq();
+        if (template == null) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The search request template cannot be null.");
+        }
+        if (CollectionUtils.isEmpty(request.getTargets())) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The search targets cannot be empty.");
+        }
+        for (FanOutSearchReq.SearchTarget target : request.getTargets()) {
+            if (target == null || StringUtils.isBlank(target.getCollectionName())) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "The collection name of a search target cannot be empty.");
+            }
+        }
+        if (request.getParallelism() <= 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The parallelism must be positive.");
+        }
+        if (request.getShardTimeoutMs() < 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The shard timeout cannot be negative.");
+        }
+        if (StringUtils.isNotEmpty(template.getGroupByFieldName()) || template.getSearchAggregation() != null) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "A fan-out search doesn't support grouping search or search aggregation.");
+        }
+        IndexParam.MetricType metricType = request.getMetricType() != null
+                ? request.getMetricType() : template.getMetricType();
+        if (metricType == null) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "The metric type of a fan-out search must be set to merge the results.");
+        }
+        if (template.getLimit() <= 0 || template.getOffset() < 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "The limit of a fan-out search must be positive and the offset cannot be negative.");
+        }
+        return metricType;
+    }
+
+    // every target returns its best offset + limit hits, the merge skips the first offset hits
+    private SearchRequest convertFanOutTemplate(FanOutSearchReq request) {
+        SearchReq template = request.getSearchReq();
+        FanOutSearchReq.SearchTarget first = request.getTargets().get(0);
+        SearchRequest converted = withInSetOutputField(vectorUtils.ConvertToGrpcSearchRequest(template,
+                fanOutDbName(template, first), first.getCollectionName()), template.getInSetFilter());
+        String topK = String.valueOf(template.getOffset() + template.getLimit());
+        SearchRequest.Builder builder = converted.toBuilder().clearSearchParams();
+        for (KeyValuePair param : converted.getSearchParamsList()) {
+            if (Constant.TOP_K.equals(param.getKey())) {
+                param = param.toBuilder().setValue(topK).build();
+            } else if (Constant.OFFSET.equals(param.getKey())) {
+                param = param.toBuilder().setValue("0").build();
+            }
+            builder.addSearchParams(param);
+        }
+        return builder.build();
+    }
+
+    private String fanOutDbName(SearchReq template, FanOutSearchReq.SearchTarget target) {
+        return actualDbName(StringUtils.isNotEmpty(target.getDatabaseName())
+                ? target.getDatabaseName() : template.getDatabaseName());
+    }
+
+    // a target failing after its deadline completes with null and is marked as timed out
+    private CompletableFuture<SearchResp> searchTargetAsync(
+            Supplier<MilvusServiceGrpc.MilvusServiceFutureStub> futureStubSupplier, FanOutSearchReq request,
+            SearchRequest baseRequest, int index, AtomicReferenceArray<Boolean> timedOut, RpcUtils retryUtils) {
+        SearchReq template = request.getSearchReq();
+        FanOutSearchReq.SearchTarget searchTarget = request.getTargets().get(index);
+        SearchRequest searchRequest = vectorUtils.retargetSearchRequest(baseRequest, template.getConsistencyLevel(),
+                fanOutDbName(template, searchTarget), searchTarget.getCollectionName(),
+                searchTarget.getPartitionNames());
+        // an absolute deadline, so the retries of the target don't extend it
+        long shardTimeoutMs = request.getShardTimeoutMs();
+        Deadline deadline = shardTimeoutMs > 0 ? Deadline.after(shardTimeoutMs, TimeUnit.MILLISECONDS) : null;
+        CompletableFuture<SearchResp> search = searchAsync(
+                () -> withShardDeadline(futureStubSupplier.get(), deadline),
+                searchRequest, searchVerifier(template, 0L, template.getOffset() + template.getLimit()), retryUtils);
+        if (deadline == null) {
+            return search;
+        }
+        CompletableFuture<SearchResp> target = new CompletableFuture<SearchResp>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    search.cancel(mayInterruptIfRunning);
+                }
+                return cancelled;
+            }
+        };
+        search.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                target.complete(response);
+            } else if (deadline.isExpired()) {
+                logger.warn("Fan-out search skips collection '{}', no answer within {}ms",
+                        searchRequest.getCollectionName(), shardTimeoutMs);
+                timedOut.set(index, Boolean.TRUE);
+                target.complete(null);
+            } else {
+                target.completeExceptionally(throwable);
+            }
+        });
+        return target;
+    }
+
+    private MilvusServiceGrpc.MilvusServiceFutureStub withShardDeadline(
+            MilvusServiceGrpc.MilvusServiceFutureStub stub, Deadline deadline) {
+        if (deadline == null) {
+            return stub;
+        }
+        Deadline current = stub.getCallOptions().getDeadline();
+        return stub.withDeadline(current == null ? deadline : current.minimum(deadline));
+    }
+
+    // true if a smaller score is a better hit
+    static boolean isDistanceMetric(IndexParam.MetricType metricType) {
+        switch (metricType) {
+            case L2:
+            case HAMMING:
+            case JACCARD:
+            case MHJACCARD:
+            case MAX_SIM_L2:
+            case MAX_SIM_HAMMING:
+            case MAX_SIM_JACCARD:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // merges the per-target hit lists of every query by a k-way heap, a tie goes to the earlier target
+    static List<List<FanOutSearchResp.FanOutHit>> mergeFanOutHits(
+            List<FanOutSearchReq.SearchTarget> targets, List<SearchResp> responses, boolean ascending,
+            boolean deduplicate, long offset, long limit) {
+        int nq = 0;
+        for (SearchResp response : responses) {
+            if (response != null) {
+                nq = Math.max(nq, response.getSearchResults().size());
+            }
+        }
+        Comparator<FanOutCursor> order = (a, b) -> {
+            int byScore = Float.compare(a.score(), b.score());
+            if (byScore != 0) {
+                return ascending ? byScore : -byScore;
+            }
+            return Integer.compare(a.target, b.target);
+        };
+
+        List<List<FanOutSearchResp.FanOutHit>> merged = new ArrayList<>(nq);
+        for (int q = 0; q < nq; q++) {
+            PriorityQueue<FanOutCursor> heap = new PriorityQueue<>(Math.max(1, responses.size()), order);
+            for (int t = 0; t < responses.size(); t++) {
+                SearchResp response = responses.get(t);
+                if (response != null && q < response.getSearchResults().size()
+                        && !response.getSearchResults().get(q).isEmpty()) {
+                    heap.add(new FanOutCursor(t, response.getSearchResults().get(q)));
+                }
+            }
+
+            List<FanOutSearchResp.FanOutHit> hits = new ArrayList<>((int) Math.min(limit, 1024));
+            Set<Object> seenIds = deduplicate ? new HashSet<>() : null;
+            long skipped = 0;
+            while (!heap.isEmpty() && hits.size() < limit) {
+                FanOutCursor cursor = heap.poll();
+                SearchResp.SearchResult hit = cursor.hits.get(cursor.position);
+                if (++cursor.position < cursor.hits.size()) {
+                    heap.add(cursor);
+                }
+                if (seenIds != null && hit.getId() != null && !seenIds.add(hit.getId())) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+                hits.add(new FanOutSearchResp.FanOutHit(targets.get(cursor.target), hit));
+            }
+            merged.add(hits);
+        }
+        return merged;
+    }
+
+    private static final class FanOutCursor {
+        private final int target;
+        private final List<SearchResp.SearchResult> hits;
+        private int position;
+
+        private FanOutCursor(int target, List<SearchResp.SearchResult> hits) {
+            this.target = target;
+            this.hits = hits;
+        }
+
+        private float score() {
+            return hits.get(position).getScore();
+        }
+    }
+
+
+    private SearchRequest withInSetOutputField(SearchRequest searchRequest, InSetFilter inSetFilter) {
+        if (!needsVerification(inSetFilter)
+                || returnsField(searchRequest.getOutputFieldsList(), inSetFilter.getFieldName())) {
+            return searchRequest;
+        }
+        return searchRequest.toBuilder().addOutputFields(inSetFilter.getFieldName()).build();
     }
 
     private SearchResp convertSearchResponse(String title, SearchResults response, boolean includeAggregations) {
@@ -646,6 +1115,17 @@ public class VectorService extends BaseService {
         return new SearchIterator(request, blockingStub, pkField, clusterId);
     }
 
+    public ParallelQueryIterator parallelQueryIterator(RpcStubWrapper blockingStub,
+                                                       QueryIteratorReq request, int splitCount,
+                                                       String clusterId) {
+        DescribeCollectionResponse descResp = getCollectionInfo(blockingStub.get(), request.getDatabaseName(),
+                request.getCollectionName(), false);
+        DescribeCollectionResp respR = convertUtils.convertDescCollectionResp(descResp);
+        CreateCollectionReq.FieldSchema pkField = respR.getCollectionSchema().getField(respR.getPrimaryFieldName());
+        return new ParallelQueryIterator(request, blockingStub, pkField, respR.getCollectionID(), clusterId,
+                splitCount);
+    }
+
     public SearchIteratorV2 searchIteratorV2(RpcStubWrapper blockingStub,
                                              SearchIteratorReqV2 request) {
         return searchIteratorV2(blockingStub, request, null);
@@ -657,6 +1137,14 @@ public class VectorService extends BaseService {
     }
 
     public DeleteResp delete(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub, DeleteReq request) {
+        // no retry here, the caller decides on it like before the chunks were retried one by one
+        RpcUtils noRetry = new RpcUtils();
+        noRetry.retryConfig(RetryConfig.builder().maxRetryTimes(1).build());
+        return delete(() -> blockingStub, request, noRetry);
+    }
+
+    public DeleteResp delete(Supplier<MilvusServiceGrpc.MilvusServiceBlockingStub> blockingStubSupplier,
+                             DeleteReq request, RpcUtils retryUtils) {
         String dbName = request.getDatabaseName();
         String collectionName = request.getCollectionName();
         String title = String.format("Delete entities of collection: '%s' in database: '%s'", collectionName, dbName);
@@ -665,23 +1153,64 @@ public class VectorService extends BaseService {
             throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "filter and ids can't be set at the same time");
         }
 
-        if (request.getFilter() == null) {
-            DescribeCollectionResponse descResp = getCollectionInfo(blockingStub, dbName, collectionName, false);
-            DescribeCollectionResp respR = convertUtils.convertDescCollectionResp(descResp);
-            request.setFilter(vectorUtils.getExprById(respR.getPrimaryFieldName(), request.getIds()));
+        if (request.getFilter() != null) {
+            DeleteRequest rpcRequest = dataUtils.ConvertToGrpcDeleteRequest(request);
+            MutationResult response = retryUtils.retry(() -> deleteOnce(blockingStubSupplier.get(), title,
+                    dbName, collectionName, rpcRequest));
+            return DeleteResp.builder()
+                    .deleteCnt(response.getDeleteCnt())
+                    .cost(getCost(response.getStatus()))
+                    .build();
+        }
+
+        if (request.getIds() == null) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "filter or ids must be set");
+        }
+        // delete by ids, each chunk is retried on its own so that a retry doesn't delete again the chunks before it
+        DescribeCollectionResponse descResp = retryUtils.retry(() -> getCollectionInfo(blockingStubSupplier.get(),
+                dbName, collectionName, false));
+        String filter = vectorUtils.getTemplateExprById(getPrimaryKeyName(descResp));
+        long deleteCnt = 0L;
+        long cost = 0L;
+        // chunks are deleted one by one, if a chunk fails after its retries the ones before it are deleted and
+        // the others are not
+        for (List<Object> chunk : splitIds(request.getIds())) {
+            DeleteReq chunkRequest = DeleteReq.builder()
+                    .databaseName(dbName)
+                    .collectionName(collectionName)
+                    .partitionName(request.getPartitionName())
+                    .filter(filter)
+                    .filterTemplateValues(Collections.singletonMap(VectorUtils.IDS_TEMPLATE_KEY, chunk))
+                    .build();
+            DeleteRequest rpcRequest = dataUtils.ConvertToGrpcDeleteRequest(chunkRequest);
+            MutationResult response = retryUtils.retry(() -> deleteOnce(blockingStubSupplier.get(), title,
+                    dbName, collectionName, rpcRequest));
+            deleteCnt += response.getDeleteCnt();
+            cost += getCost(response.getStatus());
         }
-        DeleteRequest rpcRequest = dataUtils.ConvertToGrpcDeleteRequest(request);
+        return DeleteResp.builder()
+                .deleteCnt(deleteCnt)
+                .cost(cost)
+                .build();
+    }
+
+    private MutationResult deleteOnce(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub, String title,
+                                      String dbName, String collectionName, DeleteRequest rpcRequest) {
         MutationResult response = blockingStub.delete(rpcRequest);
 
         rpcUtils.handleResponse(title, response.getStatus());
 
         // update the last write timestamp for SESSION consistency
         updateTsCache(dbName, collectionName, response.getTimestamp());
+        return response;
+    }
 
-        return DeleteResp.builder()
-                .deleteCnt(response.getDeleteCnt())
-                .cost(getCost(response.getStatus()))
-                .build();
+    private static List<List<Object>> splitIds(List<Object> ids) {
+        List<List<Object>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += ID_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + ID_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
     }
 
     public GetResp get(MilvusServiceGrpc.MilvusServiceBlockingStub blockingStub, GetReq request) {
@@ -715,12 +1244,114 @@ public class VectorService extends BaseService {
         } catch (Throwable throwable) {
             return failedFuture(throwable);
         }
-        // call queryAsync to get the result
-        return transformFuture(
-                queryAsync(futureStubSupplier, queryReq, clusterId, retryUtils),
-                queryResp -> GetResp.builder()
-                        .getResults(queryResp.getQueryResults())
-                        .build());
+        List<Object> ids = queryReq.getIds();
+        if (ids == null || ids.size() <= ID_CHUNK_SIZE) {
+            // call queryAsync to get the result
+            return transformFuture(
+                    queryAsync(futureStubSupplier, queryReq, clusterId, retryUtils),
+                    queryResp -> GetResp.builder()
+                            .getResults(queryResp.getQueryResults())
+                            .build());
+        }
+
+        // a huge id list is fetched by parallel queries, at most ID_CHUNK_PARALLELISM of them in flight,
+        // each one is retried on its own
+        List<List<Object>> chunks = splitIds(ids);
+        return transformFuture(boundedAllOf(chunks.size(), ID_CHUNK_PARALLELISM, index -> {
+            QueryReq chunkReq = toQueryReq(request);
+            chunkReq.setIds(chunks.get(index));
+            return queryAsync(futureStubSupplier, chunkReq, clusterId, retryUtils);
+        }), chunkResps -> {
+            List<QueryResp.QueryResult> results = new ArrayList<>();
+            for (QueryResp chunkResp : chunkResps) {
+                results.addAll(chunkResp.getQueryResults());
+            }
+            return GetResp.builder()
+                    .getResults(results)
+                    .build();
+        });
+    }
+
+    // completes with the results in the order of the indexes, or with the first failure, the futures are
+    // created by the task from their index, with at most "parallelism" of them in flight, each completion
+    // starts the next one, no task is started after a failure
+    private <T> CompletableFuture<List<T>> boundedAllOf(int count, int parallelism,
+                                                        IntFunction<CompletableFuture<T>> task) {
+        BoundedDispatch<T> dispatch = new BoundedDispatch<>(count, task);
+        if (count == 0) {
+            dispatch.target.complete(new ArrayList<>());
+        }
+        for (int i = 0; i < Math.min(parallelism, count); i++) {
+            dispatch.startNext();
+        }
+        return dispatch.target;
+    }
+
+    private static final class BoundedDispatch<T> {
+        private final int count;
+        private final IntFunction<CompletableFuture<T>> task;
+        private final AtomicReferenceArray<T> results;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final Set<CompletableFuture<T>> inFlight = ConcurrentHashMap.newKeySet();
+        private final CompletableFuture<List<T>> target = new CompletableFuture<List<T>>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancelled = super.cancel(mayInterruptIfRunning);
+                if (cancelled) {
+                    inFlight.forEach(future -> future.cancel(mayInterruptIfRunning));
+                }
+                return cancelled;
+            }
+        };
+
+        private BoundedDispatch(int count, IntFunction<CompletableFuture<T>> task) {
+            this.count = count;
+            this.task = task;
+            this.results = new AtomicReferenceArray<>(count);
+            this.remaining = new AtomicInteger(count);
+        }
+
+        private void startNext() {
+            int index = nextIndex.getAndIncrement();
+            if (index >= count || target.isDone()) {
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = task.apply(index);
+            } catch (Throwable throwable) {
+                fail(throwable);
+                return;
+            }
+            inFlight.add(future);
+            if (target.isDone()) {
+                future.cancel(false);
+            }
+            future.whenComplete((value, throwable) -> {
+                inFlight.remove(future);
+                if (throwable != null) {
+                    fail(throwable);
+                    return;
+                }
+                results.set(index, value);
+                if (remaining.decrementAndGet() == 0) {
+                    List<T> values = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        values.add(results.get(i));
+                    }
+                    target.complete(values);
+                } else {
+                    startNext();
+                }
+            });
+        }
+
+        private void fail(Throwable throwable) {
+            if (target.completeExceptionally(throwable)) {
+                inFlight.forEach(future -> future.cancel(false));
+            }
+        }
     }
 
     private QueryReq toQueryReq(GetReq request) {
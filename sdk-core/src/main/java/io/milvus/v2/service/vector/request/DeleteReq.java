@@ -19,6 +19,11 @@
 
 package io.milvus.v2.service.vector.request;
 
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
+import io.milvus.v2.service.vector.request.filter.Filters;
+import io.milvus.v2.service.vector.request.filter.InSetFilter;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +45,9 @@ public class DeleteReq {
     //     Boolean, Long, Double, String, List<Boolean>, List<Long>, List<Double>, List<String>
     private Map<String, Object> filterTemplateValues;
 
+    // combined with the filter by "and", see Filters
+    private InSetFilter inSetFilter;
+
     private DeleteReq(DeleteReqBuilder builder) {
         this.databaseName = builder.databaseName;
         this.collectionName = builder.collectionName;
@@ -47,6 +55,11 @@ public class DeleteReq {
         this.filter = builder.filter;
         this.ids = builder.ids;
         this.filterTemplateValues = builder.filterTemplateValues;
+        this.inSetFilter = builder.inSetFilter;
+        if (builder.inSetFilter != null) {
+            this.filter = builder.inSetFilter.andFilter(builder.filter);
+            this.filterTemplateValues = builder.inSetFilter.withTemplateValues(builder.filterTemplateValues);
+        }
     }
 
     public static DeleteReqBuilder builder() {
@@ -101,6 +114,10 @@ public class DeleteReq {
         this.filterTemplateValues = filterTemplateValues;
     }
 
+    public InSetFilter getInSetFilter() {
+        return inSetFilter;
+    }
+
     @Override
     public String toString() {
         return "DeleteReq{" +
@@ -120,6 +137,7 @@ public class DeleteReq {
         private String filter;
         private List<Object> ids;
         private Map<String, Object> filterTemplateValues = new HashMap<>();
+        private InSetFilter inSetFilter;
 
         public DeleteReqBuilder databaseName(String databaseName) {
             this.databaseName = databaseName;
@@ -151,6 +169,22 @@ public class DeleteReq {
             return this;
         }
 
+        /**
+         * Sets a "field value is one of these members" condition, combined with the filter by "and".
+         * Only an exact filter is allowed, a bloom filter could delete entities outside the set.
+         *
+         * @param inSetFilter the filter built by {@link Filters#inSetExact(String, long[])}
+         * @return DeleteReqBuilder
+         */
+        public DeleteReqBuilder inSetFilter(InSetFilter inSetFilter) {
+            if (inSetFilter != null && !inSetFilter.isExact()) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "Delete doesn't allow an inexact in-set filter, use Filters.inSetExact() instead.");
+            }
+            this.inSetFilter = inSetFilter;
+            return this;
+        }
+
         public DeleteReq build() {
             return new DeleteReq(this);
         }
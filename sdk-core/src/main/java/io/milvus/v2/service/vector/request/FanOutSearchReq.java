@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.service.vector.request;
+
+import io.milvus.v2.common.IndexParam;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs one search on many (collection, partitions) targets and merges the hits into one topK list
+ * per query vector.
+ * <p>
+ * The <code>searchReq</code> is a template: its collection name, database name and partition names
+ * are replaced by the ones of each target, everything else is sent as is. Each target returns up
+ * to <code>offset + limit</code> hits, the merged list skips the first <code>offset</code> hits.
+ * Grouping search and search aggregation are not supported, their results can't be merged by score.
+ * <p>
+ * The responses don't carry the metric type, the merge takes it from <code>metricType</code>, or
+ * from the template if not set. A distance metric (L2, HAMMING, JACCARD...) is merged ascending,
+ * a similarity metric (IP, COSINE, BM25...) is merged descending.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * FanOutSearchReq req = FanOutSearchReq.builder()
+ *         .searchReq(SearchReq.builder()
+ *                 .data(Collections.singletonList(new FloatVec(vector)))
+ *                 .metricType(IndexParam.MetricType.COSINE)
+ *                 .limit(10)
+ *                 .build())
+ *         .targets(Arrays.asList(
+ *                 FanOutSearchReq.SearchTarget.builder().collectionName("tenant_a").build(),
+ *                 FanOutSearchReq.SearchTarget.builder().collectionName("tenant_b")
+ *                         .partitionNames(Collections.singletonList("2024")).build()))
+ *         .shardTimeoutMs(500)
+ *         .build();
+ * }</pre>
+ */
+public class FanOutSearchReq {
+    private SearchReq searchReq;
+    private List<SearchTarget> targets;
+    // the max number of targets searched at the same time
+    private int parallelism;
+    // drop the hits whose primary key was already returned by a better hit, for targets that share rows
+    private boolean deduplicate;
+    // a target not answered within this time since it was sent is skipped, 0 means no limit
+    private long shardTimeoutMs;
+    private IndexParam.MetricType metricType;
+
+    private FanOutSearchReq(FanOutSearchReqBuilder builder) {
+        this.searchReq = builder.searchReq;
+        this.targets = builder.targets;
+        this.parallelism = builder.parallelism;
+        this.deduplicate = builder.deduplicate;
+        this.shardTimeoutMs = builder.shardTimeoutMs;
+        this.metricType = builder.metricType;
+    }
+
+    public static FanOutSearchReqBuilder builder() {
+        return new FanOutSearchReqBuilder();
+    }
+
+    public SearchReq getSearchReq() {
+        return searchReq;
+    }
+
+    public void setSearchReq(SearchReq searchReq) {
+        this.searchReq = searchReq;
+    }
+
+    public List<SearchTarget> getTargets() {
+        return targets;
+    }
+
+    public void setTargets(List<SearchTarget> targets) {
+        this.targets = targets;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public long getShardTimeoutMs() {
+        return shardTimeoutMs;
+    }
+
+    public void setShardTimeoutMs(long shardTimeoutMs) {
+        this.shardTimeoutMs = shardTimeoutMs;
+    }
+
+    public IndexParam.MetricType getMetricType() {
+        return metricType;
+    }
+
+    public void setMetricType(IndexParam.MetricType metricType) {
+        this.metricType = metricType;
+    }
+
+    @Override
+    public String toString() {
+        return "FanOutSearchReq{" +
+                "searchReq=" + searchReq +
+                ", targets=" + targets +
+                ", parallelism=" + parallelism +
+                ", deduplicate=" + deduplicate +
+                ", shardTimeoutMs=" + shardTimeoutMs +
+                ", metricType=" + metricType +
+                '}';
+    }
+
+    public static class FanOutSearchReqBuilder {
+        private SearchReq searchReq;
+        private List<SearchTarget> targets = new ArrayList<>(); // default value
+        private int parallelism = 8; // default value
+        private boolean deduplicate = false; // default value
+        private long shardTimeoutMs = 0L; // default value
+        private IndexParam.MetricType metricType;
+
+        private FanOutSearchReqBuilder() {
+        }
+
+        public FanOutSearchReqBuilder searchReq(SearchReq searchReq) {
+            this.searchReq = searchReq;
+            return this;
+        }
+
+        public FanOutSearchReqBuilder targets(List<SearchTarget> targets) {
+            this.targets = targets;
+            return this;
+        }
+
+        public FanOutSearchReqBuilder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public FanOutSearchReqBuilder deduplicate(boolean deduplicate) {
+            this.deduplicate = deduplicate;
+            return this;
+        }
+
+        public FanOutSearchReqBuilder shardTimeoutMs(long shardTimeoutMs) {
+            this.shardTimeoutMs = shardTimeoutMs;
+            return this;
+        }
+
+        public FanOutSearchReqBuilder metricType(IndexParam.MetricType metricType) {
+            this.metricType = metricType;
+            return this;
+        }
+
+        public FanOutSearchReq build() {
+            return new FanOutSearchReq(this);
+        }
+    }
+
+    /**
+     * A collection, optionally narrowed to some partitions, searched by a {@link FanOutSearchReq}.
+     */
+    public static class SearchTarget {
+        private String databaseName;
+        private String collectionName;
+        private List<String> partitionNames;
+
+        private SearchTarget(SearchTargetBuilder builder) {
+            this.databaseName = builder.databaseName;
+            this.collectionName = builder.collectionName;
+            this.partitionNames = builder.partitionNames;
+        }
+
+        public static SearchTargetBuilder builder() {
+            return new SearchTargetBuilder();
+        }
+
+        public String getDatabaseName() {
+            return databaseName;
+        }
+
+        public void setDatabaseName(String databaseName) {
+            this.databaseName = databaseName;
+        }
+
+        public String getCollectionName() {
+            return collectionName;
+        }
+
+        public void setCollectionName(String collectionName) {
+            this.collectionName = collectionName;
+        }
+
+        public List<String> getPartitionNames() {
+            return partitionNames;
+        }
+
+        public void setPartitionNames(List<String> partitionNames) {
+            this.partitionNames = partitionNames;
+        }
+
+        @Override
+        public String toString() {
+            return "SearchTarget{" +
+                    "databaseName='" + databaseName + '\'' +
+                    ", collectionName='" + collectionName + '\'' +
+                    ", partitionNames=" + partitionNames +
+                    '}';
+        }
+
+        public static class SearchTargetBuilder {
+            private String databaseName;
+            private String collectionName;
+            private List<String> partitionNames = new ArrayList<>(); // default value
+
+            private SearchTargetBuilder() {
+            }
+
+            public SearchTargetBuilder databaseName(String databaseName) {
+                this.databaseName = databaseName;
+                return this;
+            }
+
+            public SearchTargetBuilder collectionName(String collectionName) {
+                this.collectionName = collectionName;
+                return this;
+            }
+
+            public SearchTargetBuilder partitionNames(List<String> partitionNames) {
+                this.partitionNames = partitionNames;
+                return this;
+            }
+
+            public SearchTarget build() {
+                return new SearchTarget(this);
+            }
+        }
+    }
+}
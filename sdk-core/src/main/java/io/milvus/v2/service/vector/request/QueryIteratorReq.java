@@ -27,6 +27,14 @@ public class QueryIteratorReq {
     private long batchSize;
     private boolean reduceStopForBest;
 
+    // Read-ahead, the iterator fetches up to prefetchDepth batches in background while the caller
+    // is processing the current batch. 0 means disabled, every batch is fetched when next() is called.
+    // The buffered batches can be further bounded by prefetchMaxBufferedRows and prefetchMaxBufferedBytes,
+    // 0 means no bound.
+    private int prefetchDepth;
+    private long prefetchMaxBufferedRows;
+    private long prefetchMaxBufferedBytes;
+
     // Expression template, to improve expression parsing performance in complicated list
     // Assume user has a filter = "pk > 3 and city in ["beijing", "shanghai", ......]
     // The long list of city will increase the time cost to parse this expression.
@@ -51,6 +59,9 @@ public class QueryIteratorReq {
         this.timezone = builder.timezone;
         this.batchSize = builder.batchSize;
         this.reduceStopForBest = builder.reduceStopForBest;
+        this.prefetchDepth = builder.prefetchDepth;
+        this.prefetchMaxBufferedRows = builder.prefetchMaxBufferedRows;
+        this.prefetchMaxBufferedBytes = builder.prefetchMaxBufferedBytes;
         this.filterTemplateValues = builder.filterTemplateValues;
     }
 
@@ -168,6 +179,30 @@ public class QueryIteratorReq {
         this.reduceStopForBest = reduceStopForBest;
     }
 
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    public long getPrefetchMaxBufferedRows() {
+        return prefetchMaxBufferedRows;
+    }
+
+    public void setPrefetchMaxBufferedRows(long prefetchMaxBufferedRows) {
+        this.prefetchMaxBufferedRows = prefetchMaxBufferedRows;
+    }
+
+    public long getPrefetchMaxBufferedBytes() {
+        return prefetchMaxBufferedBytes;
+    }
+
+    public void setPrefetchMaxBufferedBytes(long prefetchMaxBufferedBytes) {
+        this.prefetchMaxBufferedBytes = prefetchMaxBufferedBytes;
+    }
+
     public Map<String, Object> getFilterTemplateValues() {
         return filterTemplateValues;
     }
@@ -188,6 +223,9 @@ public class QueryIteratorReq {
                 ", timezone='" + timezone + '\'' +
                 ", batchSize=" + batchSize +
                 ", reduceStopForBest=" + reduceStopForBest +
+                ", prefetchDepth=" + prefetchDepth +
+                ", prefetchMaxBufferedRows=" + prefetchMaxBufferedRows +
+                ", prefetchMaxBufferedBytes=" + prefetchMaxBufferedBytes +
                 '}';
     }
 
@@ -205,6 +243,9 @@ public class QueryIteratorReq {
         private String timezone = "";
         private long batchSize = 1000L;
         private boolean reduceStopForBest = true;
+        private int prefetchDepth = 0;
+        private long prefetchMaxBufferedRows = 0L;
+        private long prefetchMaxBufferedBytes = 0L;
         private Map<String, Object> filterTemplateValues = new HashMap<>();
 
         public QueryIteratorReqBuilder databaseName(String databaseName) {
@@ -277,6 +318,21 @@ public class QueryIteratorReq {
             return this;
         }
 
+        public QueryIteratorReqBuilder prefetchDepth(int prefetchDepth) {
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
+        public QueryIteratorReqBuilder prefetchMaxBufferedRows(long prefetchMaxBufferedRows) {
+            this.prefetchMaxBufferedRows = prefetchMaxBufferedRows;
+            return this;
+        }
+
+        public QueryIteratorReqBuilder prefetchMaxBufferedBytes(long prefetchMaxBufferedBytes) {
+            this.prefetchMaxBufferedBytes = prefetchMaxBufferedBytes;
+            return this;
+        }
+
         public QueryIteratorReqBuilder filterTemplateValues(Map<String, Object> filterTemplateValues) {
             this.filterTemplateValues = filterTemplateValues;
             return this;
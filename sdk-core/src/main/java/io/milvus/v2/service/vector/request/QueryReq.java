@@ -21,6 +21,8 @@ package io.milvus.v2.service.vector.request;
 
 import io.milvus.v2.common.ConsistencyLevel;
 import io.milvus.v2.service.vector.request.aggregation.OrderByField;
+import io.milvus.v2.service.vector.request.filter.Filters;
+import io.milvus.v2.service.vector.request.filter.InSetFilter;
 
 import java.util.*;
 
@@ -59,6 +61,9 @@ public class QueryReq {
     //     Boolean, Long, Double, String, List<Boolean>, List<Long>, List<Double>, List<String>
     private Map<String, Object> filterTemplateValues;
 
+    // combined with the filter by "and", see Filters
+    private InSetFilter inSetFilter;
+
     private QueryReq(QueryReqBuilder builder) {
         this.databaseName = builder.databaseName;
         this.collectionName = builder.collectionName;
@@ -74,6 +79,11 @@ public class QueryReq {
         this.orderByFields = builder.orderByFields;
         this.queryParams = builder.queryParams;
         this.filterTemplateValues = builder.filterTemplateValues;
+        this.inSetFilter = builder.inSetFilter;
+        if (builder.inSetFilter != null) {
+            this.filter = builder.inSetFilter.andFilter(builder.filter);
+            this.filterTemplateValues = builder.inSetFilter.withTemplateValues(builder.filterTemplateValues);
+        }
         this.timezone = builder.timezone;
     }
 
@@ -207,6 +217,10 @@ public class QueryReq {
         this.filterTemplateValues = filterTemplateValues;
     }
 
+    public InSetFilter getInSetFilter() {
+        return inSetFilter;
+    }
+
     @Override
     public String toString() {
         return "QueryReq{" +
@@ -244,6 +258,7 @@ public class QueryReq {
         private List<OrderByField> orderByFields = new ArrayList<>();
         private Map<String, Object> queryParams = new HashMap<>();
         private Map<String, Object> filterTemplateValues = new HashMap<>();
+        private InSetFilter inSetFilter;
 
         public QueryReqBuilder databaseName(String databaseName) {
             this.databaseName = databaseName;
@@ -325,6 +340,23 @@ public class QueryReq {
             return this;
         }
 
+        /**
+         * Sets a "field value is one of these members" condition, combined with the filter by "and".
+         * <p>
+         * The rows matched by the false positives of an inexact filter are dropped by the client. With a limit,
+         * the query is sent for the first <code>offset + limit</code> rows, and sent again with a larger limit
+         * while the verified rows are short, up to 16384 rows. The filter field is added to the output fields
+         * to verify the values, and removed from the rows if it is not one of the output fields.
+         * count(*) doesn't allow an inexact filter.
+         *
+         * @param inSetFilter the filter built by {@link Filters}
+         * @return QueryReqBuilder
+         */
+        public QueryReqBuilder inSetFilter(InSetFilter inSetFilter) {
+            this.inSetFilter = inSetFilter;
+            return this;
+        }
+
         public QueryReq build() {
             return new QueryReq(this);
         }
@@ -33,6 +33,11 @@ public class SearchIteratorReq {
     private String groupByFieldName;
     private long batchSize;
 
+    // Estimated bytes of the over-fetched rows the iterator keeps in memory, 0 means no budget.
+    // The rows exceeding the budget are written to a temp file if cacheSpillEnabled is true.
+    private long cacheMemoryBudgetBytes;
+    private boolean cacheSpillEnabled;
+
     private SearchIteratorReq(SearchIteratorReqBuilder builder) {
         this.databaseName = builder.databaseName;
         this.collectionName = builder.collectionName;
@@ -51,6 +56,8 @@ public class SearchIteratorReq {
         this.ignoreGrowing = builder.ignoreGrowing;
         this.groupByFieldName = builder.groupByFieldName;
         this.batchSize = builder.batchSize;
+        this.cacheMemoryBudgetBytes = builder.cacheMemoryBudgetBytes;
+        this.cacheSpillEnabled = builder.cacheSpillEnabled;
     }
 
     public static SearchIteratorReqBuilder builder() {
@@ -207,6 +214,22 @@ public class SearchIteratorReq {
         this.batchSize = batchSize;
     }
 
+    public long getCacheMemoryBudgetBytes() {
+        return cacheMemoryBudgetBytes;
+    }
+
+    public void setCacheMemoryBudgetBytes(long cacheMemoryBudgetBytes) {
+        this.cacheMemoryBudgetBytes = cacheMemoryBudgetBytes;
+    }
+
+    public boolean isCacheSpillEnabled() {
+        return cacheSpillEnabled;
+    }
+
+    public void setCacheSpillEnabled(boolean cacheSpillEnabled) {
+        this.cacheSpillEnabled = cacheSpillEnabled;
+    }
+
     @Override
     public String toString() {
         return "SearchIteratorReq{" +
@@ -227,6 +250,8 @@ public class SearchIteratorReq {
                 ", ignoreGrowing=" + ignoreGrowing +
                 ", groupByFieldName='" + groupByFieldName + '\'' +
                 ", batchSize=" + batchSize +
+                ", cacheMemoryBudgetBytes=" + cacheMemoryBudgetBytes +
+                ", cacheSpillEnabled=" + cacheSpillEnabled +
                 '}';
     }
 
@@ -248,6 +273,8 @@ public class SearchIteratorReq {
         private boolean ignoreGrowing = false;
         private String groupByFieldName = "";
         private long batchSize = 1000L;
+        private long cacheMemoryBudgetBytes = 0L;
+        private boolean cacheSpillEnabled = false;
 
         public SearchIteratorReqBuilder databaseName(String databaseName) {
             this.databaseName = databaseName;
@@ -343,6 +370,16 @@ public class SearchIteratorReq {
             return this;
         }
 
+        public SearchIteratorReqBuilder cacheMemoryBudgetBytes(long cacheMemoryBudgetBytes) {
+            this.cacheMemoryBudgetBytes = cacheMemoryBudgetBytes;
+            return this;
+        }
+
+        public SearchIteratorReqBuilder cacheSpillEnabled(boolean cacheSpillEnabled) {
+            this.cacheSpillEnabled = cacheSpillEnabled;
+            return this;
+        }
+
         public SearchIteratorReq build() {
             return new SearchIteratorReq(this);
         }
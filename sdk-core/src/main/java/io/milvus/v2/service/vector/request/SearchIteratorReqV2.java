@@ -39,6 +39,14 @@ public class SearchIteratorReqV2 {
     private long batchSize;
     private Function<List<SearchResp.SearchResult>, List<SearchResp.SearchResult>> externalFilterFunc;
 
+    // Read-ahead, the iterator fetches up to prefetchDepth batches in background while the caller
+    // is processing the current batch. 0 means disabled, every batch is fetched when next() is called.
+    // The buffered batches can be further bounded by prefetchMaxBufferedRows and prefetchMaxBufferedBytes,
+    // 0 means no bound.
+    private int prefetchDepth;
+    private long prefetchMaxBufferedRows;
+    private long prefetchMaxBufferedBytes;
+
     // Expression template, to improve expression parsing performance in complicated list
     // Assume user has a filter = "pk > 3 and city in ["beijing", "shanghai", ......]
     // The long list of city will increase the time cost to parse this expression.
@@ -69,6 +77,9 @@ public class SearchIteratorReqV2 {
         this.groupByFieldName = builder.groupByFieldName;
         this.batchSize = builder.batchSize;
         this.externalFilterFunc = builder.externalFilterFunc;
+        this.prefetchDepth = builder.prefetchDepth;
+        this.prefetchMaxBufferedRows = builder.prefetchMaxBufferedRows;
+        this.prefetchMaxBufferedBytes = builder.prefetchMaxBufferedBytes;
         this.filterTemplateValues = builder.filterTemplateValues;
     }
 
@@ -238,6 +249,30 @@ public class SearchIteratorReqV2 {
         this.externalFilterFunc = externalFilterFunc;
     }
 
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    public void setPrefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+    }
+
+    public long getPrefetchMaxBufferedRows() {
+        return prefetchMaxBufferedRows;
+    }
+
+    public void setPrefetchMaxBufferedRows(long prefetchMaxBufferedRows) {
+        this.prefetchMaxBufferedRows = prefetchMaxBufferedRows;
+    }
+
+    public long getPrefetchMaxBufferedBytes() {
+        return prefetchMaxBufferedBytes;
+    }
+
+    public void setPrefetchMaxBufferedBytes(long prefetchMaxBufferedBytes) {
+        this.prefetchMaxBufferedBytes = prefetchMaxBufferedBytes;
+    }
+
     public Map<String, Object> getFilterTemplateValues() {
         return filterTemplateValues;
     }
@@ -264,6 +299,9 @@ public class SearchIteratorReqV2 {
                 ", groupByFieldName='" + groupByFieldName + '\'' +
                 ", batchSize=" + batchSize +
                 ", externalFilterFunc=" + externalFilterFunc +
+                ", prefetchDepth=" + prefetchDepth +
+                ", prefetchMaxBufferedRows=" + prefetchMaxBufferedRows +
+                ", prefetchMaxBufferedBytes=" + prefetchMaxBufferedBytes +
                 '}';
     }
 
@@ -287,6 +325,9 @@ public class SearchIteratorReqV2 {
         private String groupByFieldName = "";
         private long batchSize = 1000L;
         private Function<List<SearchResp.SearchResult>, List<SearchResp.SearchResult>> externalFilterFunc = null;
+        private int prefetchDepth = 0;
+        private long prefetchMaxBufferedRows = 0L;
+        private long prefetchMaxBufferedBytes = 0L;
         private Map<String, Object> filterTemplateValues = new HashMap<>();
 
         public SearchIteratorReqV2Builder databaseName(String databaseName) {
@@ -393,6 +434,21 @@ public class SearchIteratorReqV2 {
             return this;
         }
 
+        public SearchIteratorReqV2Builder prefetchDepth(int prefetchDepth) {
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
+        public SearchIteratorReqV2Builder prefetchMaxBufferedRows(long prefetchMaxBufferedRows) {
+            this.prefetchMaxBufferedRows = prefetchMaxBufferedRows;
+            return this;
+        }
+
+        public SearchIteratorReqV2Builder prefetchMaxBufferedBytes(long prefetchMaxBufferedBytes) {
+            this.prefetchMaxBufferedBytes = prefetchMaxBufferedBytes;
+            return this;
+        }
+
         public SearchIteratorReqV2Builder filterTemplateValues(Map<String, Object> filterTemplateValues) {
             this.filterTemplateValues = filterTemplateValues;
             return this;
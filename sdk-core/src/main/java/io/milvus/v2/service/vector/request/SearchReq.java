@@ -21,10 +21,14 @@ package io.milvus.v2.service.vector.request;
 
 import io.milvus.v2.common.ConsistencyLevel;
 import io.milvus.v2.common.IndexParam;
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import io.milvus.v2.service.vector.request.aggregation.OrderByField;
 import io.milvus.v2.service.vector.request.aggregation.SearchAggregation;
 import io.milvus.v2.service.vector.request.data.BaseVector;
+import io.milvus.v2.service.vector.request.filter.Filters;
+import io.milvus.v2.service.vector.request.filter.InSetFilter;
 import io.milvus.v2.service.vector.request.highlighter.Highlighter;
 
 import java.util.ArrayList;
@@ -79,11 +83,19 @@ public class SearchReq {
     //     Boolean, Long, Double, String, List<Boolean>, List<Long>, List<Double>, List<String>
     private Map<String, Object> filterTemplateValues;
 
+    // combined with the filter by "and", see Filters
+    private InSetFilter inSetFilter;
+
     // milvus v2.6.9 supports highlighter for search results
     private Highlighter highlighter;
 
     private SearchAggregation searchAggregation;
 
+    // a search with more query vectors or ids than nqBatchSize is split into batches of this size,
+    // up to nqParallelism batches are searched at the same time, 0 means no split
+    private int nqBatchSize;
+    private int nqParallelism;
+
     private SearchReq(SearchReqBuilder builder) {
         this.databaseName = builder.databaseName;
         this.collectionName = builder.collectionName;
@@ -111,9 +123,16 @@ public class SearchReq {
         this.ranker = builder.ranker;
         this.functionScore = builder.functionScore;
         this.filterTemplateValues = builder.filterTemplateValues;
+        this.inSetFilter = builder.inSetFilter;
+        if (builder.inSetFilter != null) {
+            this.filter = builder.inSetFilter.andFilter(builder.filter);
+            this.filterTemplateValues = builder.inSetFilter.withTemplateValues(builder.filterTemplateValues);
+        }
         this.timezone = builder.timezone;
         this.highlighter = builder.highlighter;
         this.searchAggregation = builder.searchAggregation;
+        this.nqBatchSize = builder.nqBatchSize;
+        this.nqParallelism = builder.nqParallelism;
     }
 
     // Getters and Setters
@@ -339,6 +358,10 @@ public class SearchReq {
         this.filterTemplateValues = filterTemplateValues;
     }
 
+    public InSetFilter getInSetFilter() {
+        return inSetFilter;
+    }
+
     public Highlighter getHighlighter() {
         return highlighter;
     }
@@ -351,6 +374,22 @@ public class SearchReq {
         this.searchAggregation = searchAggregation;
     }
 
+    public int getNqBatchSize() {
+        return nqBatchSize;
+    }
+
+    public void setNqBatchSize(int nqBatchSize) {
+        this.nqBatchSize = nqBatchSize;
+    }
+
+    public int getNqParallelism() {
+        return nqParallelism;
+    }
+
+    public void setNqParallelism(int nqParallelism) {
+        this.nqParallelism = nqParallelism;
+    }
+
     @Override
     public String toString() {
         return "SearchReq{" +
@@ -381,6 +420,8 @@ public class SearchReq {
                 ", highlighter=" + (highlighter == null ? "null" : (highlighter.highlightType() + ":" + highlighter.getParams())) +
                 ", searchAggregation=" + searchAggregation +
                 ", functionScore=" + functionScore +
+                ", nqBatchSize=" + nqBatchSize +
+                ", nqParallelism=" + nqParallelism +
 //                ", filterTemplateValues=" + filterTemplateValues +
                 '}';
     }
@@ -417,8 +458,11 @@ public class SearchReq {
         private CreateCollectionReq.Function ranker;
         private FunctionScore functionScore;
         private Map<String, Object> filterTemplateValues = new HashMap<>(); // default value
+        private InSetFilter inSetFilter;
         private Highlighter highlighter;
         private SearchAggregation searchAggregation;
+        private int nqBatchSize = 0; // default value, no split
+        private int nqParallelism = 4; // default value
 
         private SearchReqBuilder() {
         }
@@ -567,6 +611,23 @@ public class SearchReq {
             return this;
         }
 
+        /**
+         * Sets a "field value is one of these members" condition, combined with the filter by "and".
+         * <p>
+         * The hits matched by the false positives of an inexact filter are dropped by the client. The search is
+         * sent for the first <code>offset + limit</code> hits, and sent again with a larger limit while the
+         * verified hits of a query are short, up to 16384 hits. A grouping search or a search aggregation is
+         * not sent again, it may return fewer hits than the limit. The filter field is added to the output
+         * fields to verify the values, and removed from the hits if it is not one of the output fields.
+         *
+         * @param inSetFilter the filter built by {@link Filters}
+         * @return SearchReqBuilder
+         */
+        public SearchReqBuilder inSetFilter(InSetFilter inSetFilter) {
+            this.inSetFilter = inSetFilter;
+            return this;
+        }
+
         public SearchReqBuilder highlighter(Highlighter highlighter) {
             this.highlighter = highlighter;
             return this;
@@ -577,6 +638,38 @@ public class SearchReq {
             return this;
         }
 
+        /**
+         * Splits a search with many query vectors or ids into batches of this size, the batches are
+         * searched concurrently and their results are returned in the order of the queries.
+         * Useful for offline batch scoring, a batch keeps the request and the result of each RPC small.
+         * The default 0 sends all queries in one request.
+         *
+         * @param nqBatchSize the max number of queries per request, 0 or positive
+         * @return SearchReqBuilder
+         */
+        public SearchReqBuilder nqBatchSize(int nqBatchSize) {
+            if (nqBatchSize < 0) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The nqBatchSize can't be negative.");
+            }
+            this.nqBatchSize = nqBatchSize;
+            return this;
+        }
+
+        /**
+         * The max number of batches searched at the same time if the search is split by nqBatchSize.
+         * The default is 4.
+         *
+         * @param nqParallelism the max number of batches in flight, must be positive
+         * @return SearchReqBuilder
+         */
+        public SearchReqBuilder nqParallelism(int nqParallelism) {
+            if (nqParallelism <= 0) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "The nqParallelism must be positive.");
+            }
+            this.nqParallelism = nqParallelism;
+            return this;
+        }
+
         public SearchReq build() {
             return new SearchReq(this);
         }
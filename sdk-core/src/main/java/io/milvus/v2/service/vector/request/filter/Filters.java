@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.service.vector.request.filter;
+
+import io.milvus.common.utils.BloomFilterUtils;
+import io.milvus.common.utils.RoaringBitmapUtils;
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Factory of {@link InSetFilter}, a "field value is one of these members" condition that picks the
+ * cheapest encoding of the set by its size and density:
+ * <ul>
+ *     <li>a small set is a template <code>in</code> list, the server parses the expression once;</li>
+ *     <li>an integer set whose roaring bitmap is smaller than the list is a <code>roaring_match</code>,
+ *     dense ids compress to a few bytes per thousand members;</li>
+ *     <li>a large sparse set is a <code>bloom_match</code> if the bloom filter is much smaller than
+ *     both, the client then drops the false positives from the results.</li>
+ * </ul>
+ * The <code>inSetExact()</code> methods never pick a bloom filter, use them for a delete.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * QueryReq req = QueryReq.builder()
+ *         .collectionName("docs")
+ *         .filter("category == 'news'")
+ *         .inSetFilter(Filters.inSet("user_id", userIds))
+ *         .outputFields(Collections.singletonList("title"))
+ *         .build();
+ * }</pre>
+ * Build the filter once and reuse it for many requests if the set doesn't change, encoding a large
+ * set costs more than sending it.
+ */
+public final class Filters {
+    /**
+     * A set up to this size is always sent as a template <code>in</code> list.
+     */
+    public static final int TEMPLATE_MAX_MEMBERS = 1024;
+
+    /**
+     * A bloom filter is picked only if it is at least this many times smaller than the best exact
+     * encoding, since its false positives are transferred and dropped by the client.
+     */
+    public static final int BLOOM_MIN_GAIN = 4;
+
+    // each roaring container costs at least its key and cardinality
+    private static final int ROARING_CONTAINER_MIN_BYTES = 4;
+
+    // the verification reads the value by field name, JSON paths can't be verified
+    private static final Pattern PLAIN_FIELD_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private Filters() {
+    }
+
+    /**
+     * Creates a filter matching the integer field values in the given members.
+     * A bloom filter may be picked for a large sparse set.
+     *
+     * @param fieldName an integer field, or an integer-valued JSON path
+     * @param members   the members, duplicates and unsorted input are allowed
+     * @return InSetFilter
+     */
+    public static InSetFilter inSet(String fieldName, long[] members) {
+        return inSet(fieldName, members, true);
+    }
+
+    /**
+     * Creates a filter matching the integer field values in the given members, never picks a bloom filter.
+     *
+     * @param fieldName an integer field, or an integer-valued JSON path
+     * @param members   the members, duplicates and unsorted input are allowed
+     * @return InSetFilter
+     */
+    public static InSetFilter inSetExact(String fieldName, long[] members) {
+        return inSet(fieldName, members, false);
+    }
+
+    /**
+     * Creates a filter matching the varchar field values in the given members.
+     * A bloom filter may be picked for a large set.
+     *
+     * @param fieldName a varchar field, or a string-valued JSON path
+     * @param members   the members, duplicates are allowed
+     * @return InSetFilter
+     */
+    public static InSetFilter inSet(String fieldName, String[] members) {
+        return inSet(fieldName, members, true);
+    }
+
+    /**
+     * Creates a filter matching the varchar field values in the given members, never picks a bloom filter.
+     *
+     * @param fieldName a varchar field, or a string-valued JSON path
+     * @param members   the members, duplicates are allowed
+     * @return InSetFilter
+     */
+    public static InSetFilter inSetExact(String fieldName, String[] members) {
+        return inSet(fieldName, members, false);
+    }
+
+    private static InSetFilter inSet(String fieldName, long[] members, boolean allowBloom) {
+        validate(fieldName, members == null ? -1 : members.length);
+        long[] sorted = Arrays.copyOf(members, members.length);
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        long[] distinct = Arrays.copyOf(sorted, count);
+        String templateKey = templateKey(fieldName);
+
+        if (count <= TEMPLATE_MAX_MEMBERS) {
+            return templateIn(fieldName, templateKey, distinct);
+        }
+
+        long templateBytes = 0;
+        long containers = 0;
+        for (int i = 0; i < count; i++) {
+            templateBytes += varintSize(distinct[i]);
+            if (i == 0 || (distinct[i] >> 16) != (distinct[i - 1] >> 16)) {
+                containers++;
+            }
+        }
+
+        // skip building the bitmap if its containers alone would be larger than the list
+        byte[] bitmap = null;
+        if (containers <= RoaringBitmapUtils.MAX_HIGH_CONTAINERS
+                && containers * ROARING_CONTAINER_MIN_BYTES < templateBytes) {
+            try {
+                bitmap = RoaringBitmapUtils.buildRoaringBitmap(distinct);
+            } catch (MilvusClientException e) {
+                // exceeds a server limit, fall back to another strategy
+                bitmap = null;
+            }
+        }
+        long exactBytes = bitmap != null ? Math.min(bitmap.length, templateBytes) : templateBytes;
+
+        if (allowBloom && canVerify(fieldName)
+                && bloomBytes(count) * BLOOM_MIN_GAIN <= exactBytes) {
+            byte[] bloom = BloomFilterUtils.buildInt64BloomFilter(distinct, BloomFilterUtils.DEFAULT_FPR);
+            return new InSetFilter(fieldName, InSetFilter.Strategy.BLOOM, templateKey, bloom,
+                    distinct, null);
+        }
+        if (bitmap != null && bitmap.length < templateBytes) {
+            return new InSetFilter(fieldName, InSetFilter.Strategy.ROARING, templateKey, bitmap,
+                    distinct, null);
+        }
+        return templateIn(fieldName, templateKey, distinct);
+    }
+
+    private static InSetFilter inSet(String fieldName, String[] members, boolean allowBloom) {
+        validate(fieldName, members == null ? -1 : members.length);
+        Set<String> distinct = new LinkedHashSet<>(members.length * 4 / 3 + 1);
+        for (String member : members) {
+            if (member == null) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                        "The members of an in-set filter cannot contain null.");
+            }
+            distinct.add(member);
+        }
+        Set<String> memberSet = Collections.unmodifiableSet(distinct);
+        String templateKey = templateKey(fieldName);
+
+        if (allowBloom && distinct.size() > TEMPLATE_MAX_MEMBERS && canVerify(fieldName)) {
+            long templateBytes = 0;
+            for (String member : distinct) {
+                int length = member.getBytes(StandardCharsets.UTF_8).length;
+                templateBytes += 1 + varintSize(length) + length;
+            }
+            if (bloomBytes(distinct.size()) * BLOOM_MIN_GAIN <= templateBytes) {
+                BloomFilterUtils.Builder builder = new BloomFilterUtils.Builder(distinct.size(),
+                        BloomFilterUtils.DEFAULT_FPR);
+                for (String member : distinct) {
+                    builder.addString(member);
+                }
+                return new InSetFilter(fieldName, InSetFilter.Strategy.BLOOM, templateKey, builder.build(),
+                        null, memberSet);
+            }
+        }
+        return new InSetFilter(fieldName, InSetFilter.Strategy.TEMPLATE_IN, templateKey,
+                Collections.unmodifiableList(new ArrayList<>(distinct)), null, memberSet);
+    }
+
+    private static InSetFilter templateIn(String fieldName, String templateKey, long[] distinct) {
+        List<Long> values = new ArrayList<>(distinct.length);
+        for (long member : distinct) {
+            values.add(member);
+        }
+        return new InSetFilter(fieldName, InSetFilter.Strategy.TEMPLATE_IN, templateKey,
+                Collections.unmodifiableList(values), distinct, null);
+    }
+
+    private static void validate(String fieldName, int memberCount) {
+        if (StringUtils.isBlank(fieldName)) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "The field name of an in-set filter cannot be empty.");
+        }
+        if (memberCount < 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "The members of an in-set filter cannot be null.");
+        }
+        if (memberCount == 0) {
+            throw new MilvusClientException(ErrorCode.INVALID_PARAMS,
+                    "The members of an in-set filter cannot be empty.");
+        }
+    }
+
+    private static boolean canVerify(String fieldName) {
+        return PLAIN_FIELD_NAME.matcher(fieldName).matches();
+    }
+
+    private static String templateKey(String fieldName) {
+        return "inset_" + fieldName.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+
+    private static long bloomBytes(int memberCount) {
+        return BloomFilterUtils.estimateBlobSize(memberCount, BloomFilterUtils.DEFAULT_FPR);
+    }
+
+    // the size of an int64 in a packed protobuf array, negative values take ten bytes
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
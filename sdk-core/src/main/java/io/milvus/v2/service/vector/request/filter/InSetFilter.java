@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.service.vector.request.filter;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A "field value is one of these members" condition, built by {@link Filters}. It carries the filter
+ * expression, the template value the expression refers to, and the strategy that was picked to
+ * encode the set.
+ * <p>
+ * Pass it to <code>QueryReq</code>, <code>SearchReq</code> or <code>DeleteReq</code> through the
+ * <code>inSetFilter()</code> builder method. It is combined with the <code>filter</code> of the
+ * request by "and", its template value is added to the <code>filterTemplateValues</code>.
+ * <p>
+ * An inexact filter (the {@link Strategy#BLOOM} strategy) may match values outside the set, so
+ * the client verifies every returned row or hit against the set and drops the false positives.
+ * A query or a search is sent again with a larger limit while the verified results are short, see
+ * the <code>inSetFilter()</code> builder methods.
+ */
+public final class InSetFilter {
+
+    public enum Strategy {
+        /**
+         * <code>field in {members}</code>, the members travel as a template array value.
+         */
+        TEMPLATE_IN,
+        /**
+         * <code>roaring_match(field, {members})</code>, an exact roaring bitmap of integer members.
+         */
+        ROARING,
+        /**
+         * <code>bloom_match(field, {members})</code>, a bloom filter verified by the client.
+         */
+        BLOOM
+    }
+
+    private final String fieldName;
+    private final Strategy strategy;
+    private final String templateKey;
+    private final Object templateValue;
+    private final int memberCount;
+    // sorted distinct members of an integer set, or null
+    private final long[] longMembers;
+    // distinct members of a string set, or null
+    private final Set<String> stringMembers;
+
+    InSetFilter(String fieldName, Strategy strategy, String templateKey, Object templateValue,
+                long[] longMembers, Set<String> stringMembers) {
+        this.fieldName = fieldName;
+        this.strategy = strategy;
+        this.templateKey = templateKey;
+        this.templateValue = templateValue;
+        this.longMembers = longMembers;
+        this.stringMembers = stringMembers;
+        this.memberCount = longMembers != null ? longMembers.length : stringMembers.size();
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    /**
+     * @return false if the server may return values outside the set
+     */
+    public boolean isExact() {
+        return strategy != Strategy.BLOOM;
+    }
+
+    public String getExpression() {
+        switch (strategy) {
+            case ROARING:
+                return String.format("roaring_match(%s, {%s})", fieldName, templateKey);
+            case BLOOM:
+                return String.format("bloom_match(%s, {%s})", fieldName, templateKey);
+            default:
+                return String.format("%s in {%s}", fieldName, templateKey);
+        }
+    }
+
+    /**
+     * @return the template values the expression refers to
+     */
+    public Map<String, Object> getTemplateValues() {
+        return Collections.singletonMap(templateKey, templateValue);
+    }
+
+    /**
+     * Combines the expression of this filter with another filter expression by "and".
+     *
+     * @param filter the other filter expression, can be null or empty
+     * @return the combined expression
+     */
+    public String andFilter(String filter) {
+        if (StringUtils.isBlank(filter)) {
+            return getExpression();
+        }
+        return "(" + filter + ") and " + getExpression();
+    }
+
+    /**
+     * Returns a new map with the template values of this filter added to the given ones.
+     *
+     * @param filterTemplateValues the other template values, can be null
+     * @return the merged template values
+     */
+    public Map<String, Object> withTemplateValues(Map<String, Object> filterTemplateValues) {
+        Map<String, Object> values = filterTemplateValues == null
+                ? new HashMap<>() : new HashMap<>(filterTemplateValues);
+        values.put(templateKey, templateValue);
+        return values;
+    }
+
+    /**
+     * Checks a returned field value against the set. Used to drop the false positives of an
+     * inexact filter.
+     *
+     * @param value the field value of a row or hit
+     * @return true if the value is a member of the set
+     */
+    public boolean matches(Object value) {
+        if (longMembers != null) {
+            if (!(value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte)) {
+                return false;
+            }
+            return Arrays.binarySearch(longMembers, ((Number) value).longValue()) >= 0;
+        }
+        return value instanceof String && stringMembers.contains(value);
+    }
+
+    @Override
+    public String toString() {
+        return "InSetFilter{" +
+                "fieldName='" + fieldName + '\'' +
+                ", strategy=" + strategy +
+                ", memberCount=" + memberCount +
+                '}';
+    }
+}
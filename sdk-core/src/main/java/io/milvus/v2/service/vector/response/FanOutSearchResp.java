@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.service.vector.response;
+
+import io.milvus.v2.service.vector.request.FanOutSearchReq;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The merged result of a {@link FanOutSearchReq}: one list of hits per query vector, best hit first,
+ * each hit knows the target it came from.
+ * <p>
+ * The targets that didn't answer within <code>shardTimeoutMs</code> are listed in
+ * <code>timedOutTargets</code>, their hits are missing from the merged lists.
+ */
+public class FanOutSearchResp {
+    private List<List<FanOutHit>> hits;
+    private List<FanOutSearchReq.SearchTarget> timedOutTargets;
+
+    private FanOutSearchResp(FanOutSearchRespBuilder builder) {
+        this.hits = builder.hits;
+        this.timedOutTargets = builder.timedOutTargets;
+    }
+
+    public static FanOutSearchRespBuilder builder() {
+        return new FanOutSearchRespBuilder();
+    }
+
+    public List<List<FanOutHit>> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<List<FanOutHit>> hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * @return the merged hits without their targets, in the same shape as {@link SearchResp#getSearchResults()}
+     */
+    public List<List<SearchResp.SearchResult>> getSearchResults() {
+        List<List<SearchResp.SearchResult>> results = new ArrayList<>(hits.size());
+        for (List<FanOutHit> queryHits : hits) {
+            List<SearchResp.SearchResult> queryResults = new ArrayList<>(queryHits.size());
+            for (FanOutHit hit : queryHits) {
+                queryResults.add(hit.getResult());
+            }
+            results.add(queryResults);
+        }
+        return results;
+    }
+
+    public List<FanOutSearchReq.SearchTarget> getTimedOutTargets() {
+        return timedOutTargets;
+    }
+
+    public void setTimedOutTargets(List<FanOutSearchReq.SearchTarget> timedOutTargets) {
+        this.timedOutTargets = timedOutTargets;
+    }
+
+    /**
+     * @return true if every target answered
+     */
+    public boolean isComplete() {
+        return timedOutTargets.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "FanOutSearchResp{" +
+                "hits=" + hits +
+                ", timedOutTargets=" + timedOutTargets +
+                '}';
+    }
+
+    public static class FanOutSearchRespBuilder {
+        private List<List<FanOutHit>> hits = new ArrayList<>();
+        private List<FanOutSearchReq.SearchTarget> timedOutTargets = new ArrayList<>();
+
+        private FanOutSearchRespBuilder() {
+        }
+
+        public FanOutSearchRespBuilder hits(List<List<FanOutHit>> hits) {
+            this.hits = hits;
+            return this;
+        }
+
+        public FanOutSearchRespBuilder timedOutTargets(List<FanOutSearchReq.SearchTarget> timedOutTargets) {
+            this.timedOutTargets = timedOutTargets;
+            return this;
+        }
+
+        public FanOutSearchResp build() {
+            return new FanOutSearchResp(this);
+        }
+    }
+
+    public static class FanOutHit {
+        private final FanOutSearchReq.SearchTarget target;
+        private final SearchResp.SearchResult result;
+
+        public FanOutHit(FanOutSearchReq.SearchTarget target, SearchResp.SearchResult result) {
+            this.target = target;
+            this.result = result;
+        }
+
+        public FanOutSearchReq.SearchTarget getTarget() {
+            return target;
+        }
+
+        public SearchResp.SearchResult getResult() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "FanOutHit{" +
+                    "collectionName='" + target.getCollectionName() + '\'' +
+                    ", result=" + result +
+                    '}';
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.protobuf.ByteString;
+import io.milvus.common.utils.VectorFileSource;
 import io.milvus.grpc.*;
 import io.milvus.exception.ParamException;
 import io.milvus.param.Constant;
@@ -38,9 +39,50 @@ import io.milvus.v2.service.vector.request.InsertReq;
 import io.milvus.v2.service.vector.request.UpsertReq;
 import org.apache.commons.lang3.StringUtils;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.*;
 
 public class DataUtils {
+    // the vector columns of the insert requests of VectorFileInserter, they are attached to a request while it is
+    // inserted, so that InsertReq doesn't expose them
+    private static final Map<InsertReq, Map<String, VectorColumn>> ATTACHED_VECTOR_COLUMNS =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * The vectors of a field packed back to back, a FloatBuffer or a ByteBuffer, with the element type of the
+     * vector file they are read from. The rows of the request don't hold this field.
+     */
+    static final class VectorColumn {
+        private final Buffer vectors;
+        private final VectorFileSource.ElementType elementType;
+
+        VectorColumn(Buffer vectors, VectorFileSource.ElementType elementType) {
+            this.vectors = vectors;
+            this.elementType = elementType;
+        }
+
+        Buffer getVectors() {
+            return vectors;
+        }
+
+        VectorFileSource.ElementType getElementType() {
+            return elementType;
+        }
+    }
+
+    static void attachVectorColumns(InsertReq request, Map<String, VectorColumn> vectorColumns) {
+        ATTACHED_VECTOR_COLUMNS.put(request, vectorColumns);
+    }
+
+    static void detachVectorColumns(InsertReq request) {
+        ATTACHED_VECTOR_COLUMNS.remove(request);
+    }
+
+    static Map<String, VectorColumn> attachedVectorColumns(InsertReq request) {
+        return ATTACHED_VECTOR_COLUMNS.getOrDefault(request, Collections.emptyMap());
+    }
 
     public static class InsertBuilderWrapper {
         private InsertRequest.Builder insertBuilder;
@@ -147,7 +189,7 @@ public class DataUtils {
 
             // convert insert data
             List<JsonObject> rowFields = requestParam.getData();
-            checkAndSetRowData(descColl, rowFields, requestParam.isPartialUpdate());
+            checkAndSetRowData(descColl, rowFields, Collections.emptyMap(), requestParam.isPartialUpdate());
         }
 
         private void fillFieldsData(InsertReq requestParam, DescribeCollectionResp descColl) {
@@ -158,7 +200,7 @@ public class DataUtils {
 
             // convert insert data
             List<JsonObject> rowFields = requestParam.getData();
-            checkAndSetRowData(descColl, rowFields, false);
+            checkAndSetRowData(descColl, rowFields, attachedVectorColumns(requestParam), false);
         }
 
         private static String combineStructFieldName(String structName, String subFieldName) {
@@ -166,7 +208,7 @@ public class DataUtils {
         }
 
         private void checkAndSetRowData(DescribeCollectionResp descColl, List<JsonObject> rows,
-                                        boolean partialUpdate) {
+                                        Map<String, VectorColumn> vectorColumns, boolean partialUpdate) {
             CreateCollectionReq.CollectionSchema collectionSchema = descColl.getCollectionSchema();
             List<CreateCollectionReq.Function> functionsList = collectionSchema.getFunctionList();
             Set<String> outputFieldNames = new HashSet<>();
@@ -202,6 +244,12 @@ public class DataUtils {
                 inputFields.add(providedAutoIdField);
                 inputFieldNames.add(providedAutoIdField.getName());
             }
+            for (String vectorFieldName : vectorColumns.keySet()) {
+                if (!inputFieldNames.contains(vectorFieldName)) {
+                    throw new DataNotMatchException(
+                            String.format("The field: %s is not defined in the collection schema.", vectorFieldName));
+                }
+            }
 
             // 1. for normal fields, InsertDataInfo is a list of object or list of list, for example:
             //      Int64Field, InsertDataInfo is a List<Long>
@@ -249,6 +297,10 @@ public class DataUtils {
                                 + "write the whole struct field `%s` instead", rowFieldName, structFieldName);
                         throw new DataNotMatchException(message);
                     }
+                    if (vectorColumns.containsKey(rowFieldName)) {
+                        throw new DataNotMatchException(
+                                String.format("The field: %s is provided by the vector columns, not by the rows.", rowFieldName));
+                    }
                     if (!inputFieldNames.contains(rowFieldName)
                             && !structFieldNames.contains(rowFieldName)
                             && !collectionSchema.isEnableDynamicField()) {
@@ -259,7 +311,9 @@ public class DataUtils {
 
                 // check and store value of normal fields into InsertDataInfo
                 for (CreateCollectionReq.FieldSchema field : inputFields) {
-                    processNormalFieldValues(row, field, normalInsertData, partialUpdate);
+                    if (!vectorColumns.containsKey(field.getName())) {
+                        processNormalFieldValues(row, field, normalInsertData, partialUpdate);
+                    }
                 }
 
                 // check and store value of struct fields into InsertDataInfo
@@ -301,6 +355,11 @@ public class DataUtils {
 
             // convert normal fields data from InsertDataInfo into grpc FieldData
             for (CreateCollectionReq.FieldSchema field : inputFields) {
+                VectorColumn vectors = vectorColumns.get(field.getName());
+                if (vectors != null) {
+                    this.addFieldsData(genPackedVectorFieldData(field, vectors, rows.size()));
+                    continue;
+                }
                 InsertDataInfo insertDataInfo = normalInsertData.get(field.getName());
                 if (insertDataInfo == null) {
                     continue;
@@ -639,6 +698,82 @@ public class DataUtils {
         return builder.build();
     }
 
+    // the FieldData of a vector field from its vectors packed back to back, the values are not boxed
+    private static FieldData genPackedVectorFieldData(CreateCollectionReq.FieldSchema field, VectorColumn column,
+                                                      int rowCount) {
+        DataType dataType = ConvertUtils.toProtoDataType(field.getDataType());
+        int dim = field.getDimension() == null ? 0 : field.getDimension();
+        // the raw elements are sent as they are, so they must have the type of the field: e.g. a uint8 value
+        // above 127 would turn into a negative int8 value
+        VectorFileSource.ElementType expectedType;
+        int valuesPerVector;
+        switch (dataType) {
+            case FloatVector:
+                expectedType = VectorFileSource.ElementType.FLOAT32;
+                valuesPerVector = dim;
+                break;
+            case Int8Vector:
+                expectedType = VectorFileSource.ElementType.INT8;
+                valuesPerVector = dim;
+                break;
+            case BinaryVector:
+                expectedType = VectorFileSource.ElementType.UINT8;
+                valuesPerVector = dim / 8;
+                break;
+            case Float16Vector:
+                expectedType = VectorFileSource.ElementType.FLOAT16;
+                valuesPerVector = dim * 2;
+                break;
+            default:
+                expectedType = null;
+                valuesPerVector = 0;
+                break;
+        }
+        if (column.getElementType() != expectedType) {
+            String msg = String.format("The vectors of field: %s of type %s cannot be read from %s elements",
+                    field.getName(), field.getDataType(), column.getElementType());
+            throw new DataNotMatchException(msg);
+        }
+        Buffer vectors = column.getVectors();
+        boolean isFloat = dataType == DataType.FloatVector;
+        if (valuesPerVector <= 0 || isFloat != (vectors instanceof FloatBuffer)
+                || vectors.remaining() != (long) valuesPerVector * rowCount) {
+            String msg = String.format("The vectors of field: %s of type %s have %d %s, expect %d vectors of dimension %d",
+                    field.getName(), field.getDataType(), vectors.remaining(), isFloat ? "floats" : "bytes",
+                    rowCount, dim);
+            throw new DataNotMatchException(msg);
+        }
+
+        VectorField.Builder vectorField = VectorField.newBuilder().setDim(dim);
+        if (isFloat) {
+            FloatBuffer source = ((FloatBuffer) vectors).duplicate();
+            FloatArray.Builder floats = FloatArray.newBuilder();
+            while (source.hasRemaining()) {
+                floats.addData(source.get());
+            }
+            vectorField.setFloatVector(floats);
+        } else {
+            ByteString bytes = ByteString.copyFrom(((ByteBuffer) vectors).duplicate());
+            if (dataType == DataType.BinaryVector) {
+                vectorField.setBinaryVector(bytes);
+            } else if (dataType == DataType.Float16Vector) {
+                vectorField.setFloat16Vector(bytes);
+            } else if (dataType == DataType.BFloat16Vector) {
+                vectorField.setBfloat16Vector(bytes);
+            } else {
+                vectorField.setInt8Vector(bytes);
+            }
+        }
+
+        FieldData.Builder builder = FieldData.newBuilder();
+        if (field.getIsNullable()) {
+            for (int i = 0; i < rowCount; i++) {
+                builder.addValidData(true);
+            }
+        }
+        return builder.setFieldName(field.getName()).setType(dataType).setVectors(vectorField).build();
+    }
+
     private static FieldData genFieldData(CreateCollectionReq.FieldSchema field, List<?> objects, boolean isDynamic) {
         String fieldName = field.getName();
         DataType dataType = ConvertUtils.toProtoDataType(field.getDataType());
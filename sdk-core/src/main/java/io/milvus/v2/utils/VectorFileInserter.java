@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.utils;
+
+import com.google.gson.JsonObject;
+import io.milvus.common.utils.VectorFileSource;
+import io.milvus.v2.client.MilvusClientV2;
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
+import io.milvus.v2.service.vector.request.InsertReq;
+import io.milvus.v2.service.vector.response.InsertResp;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inserts the vectors of a {@link VectorFileSource} into a collection, one insert request per batch of rows.
+ * <p>
+ * The batches are read from the mapped file with read-ahead, the memory used doesn't depend on the file size.
+ * The vectors of a batch are not converted to rows: the vector field of the request is built straight from the
+ * buffer of the batch. The other fields of a row, e.g. the primary key if it is not auto-id, are set by the
+ * <code>rowFiller</code>. The elements are sent as they are, so the element type of the file must match the field:
+ * a float32 file feeds a FloatVector field, a uint8 file (.bvecs or <code>|u1</code> .npy) a BinaryVector field,
+ * an int8 file an Int8Vector field and a float16 file a Float16Vector field. Other pairs are rejected with a
+ * DataNotMatchException, e.g. the uint8 values above 127 of a .bvecs file don't fit an Int8Vector field.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * try (VectorFileSource source = VectorFileSource.open(Paths.get("/data/sift_base.fvecs"))) {
+ *     long count = VectorFileInserter.builder()
+ *             .collectionName("sift")
+ *             .vectorFieldName("vector")
+ *             .rowFiller((row, data) -> data.addProperty("id", row))
+ *             .build()
+ *             .insert(client, source);
+ * }
+ * }</pre>
+ */
+public class VectorFileInserter {
+    private final String databaseName;
+    private final String collectionName;
+    private final String partitionName;
+    private final String vectorFieldName;
+    private final int batchSize;
+    private final int readAhead;
+    private final RowFiller rowFiller;
+
+    private VectorFileInserter(VectorFileInserterBuilder builder) {
+        this.databaseName = builder.databaseName;
+        this.collectionName = builder.collectionName;
+        this.partitionName = builder.partitionName;
+        this.vectorFieldName = builder.vectorFieldName;
+        this.batchSize = builder.batchSize;
+        this.readAhead = builder.readAhead;
+        this.rowFiller = builder.rowFiller;
+    }
+
+    public static VectorFileInserterBuilder builder() {
+        return new VectorFileInserterBuilder();
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public String getPartitionName() {
+        return partitionName;
+    }
+
+    public String getVectorFieldName() {
+        return vectorFieldName;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getReadAhead() {
+        return readAhead;
+    }
+
+    public RowFiller getRowFiller() {
+        return rowFiller;
+    }
+
+    /**
+     * Inserts all the vectors of the file, stops at the first failed insert request.
+     *
+     * @param client the client to insert with
+     * @param source the vector file
+     * @return the number of inserted rows
+     */
+    public long insert(MilvusClientV2 client, VectorFileSource source) {
+        long insertCount = 0L;
+        try (VectorFileSource.BatchIterator batches = source.batches(batchSize, readAhead)) {
+            while (batches.hasNext()) {
+                VectorFileSource.Batch batch = batches.next();
+                InsertReq request = InsertReq.builder()
+                        .databaseName(databaseName)
+                        .collectionName(collectionName)
+                        .partitionName(partitionName)
+                        .data(toRows(batch))
+                        .build();
+                DataUtils.attachVectorColumns(request,
+                        Collections.singletonMap(vectorFieldName, toVectorColumn(batch)));
+                try {
+                    InsertResp resp = client.insert(request);
+                    insertCount += resp.getInsertCnt();
+                } finally {
+                    DataUtils.detachVectorColumns(request);
+                }
+            }
+        }
+        return insertCount;
+    }
+
+    // the other fields of the rows, the vector field is sent as a vector column
+    List<JsonObject> toRows(VectorFileSource.Batch batch) {
+        List<JsonObject> rows = new ArrayList<>(batch.getRowCount());
+        for (int i = 0; i < batch.getRowCount(); i++) {
+            JsonObject row = new JsonObject();
+            if (rowFiller != null) {
+                rowFiller.fill(batch.getFirstRow() + i, row);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    static DataUtils.VectorColumn toVectorColumn(VectorFileSource.Batch batch) {
+        Buffer vectors = batch.getElementType() == VectorFileSource.ElementType.FLOAT32
+                ? batch.getFloatVectors() : batch.getVectors();
+        return new DataUtils.VectorColumn(vectors, batch.getElementType());
+    }
+
+    @Override
+    public String toString() {
+        return "VectorFileInserter{" +
+                "databaseName='" + databaseName + '\'' +
+                ", collectionName='" + collectionName + '\'' +
+                ", partitionName='" + partitionName + '\'' +
+                ", vectorFieldName='" + vectorFieldName + '\'' +
+                ", batchSize=" + batchSize +
+                ", readAhead=" + readAhead +
+                '}';
+    }
+
+    /**
+     * Sets the fields of a row other than the vector field.
+     */
+    @FunctionalInterface
+    public interface RowFiller {
+        /**
+         * @param row  the index of the row in the file
+         * @param data the row, without the vector field which is sent apart
+         */
+        void fill(long row, JsonObject data);
+    }
+
+    public static class VectorFileInserterBuilder {
+        private String databaseName = ""; // default value
+        private String collectionName;
+        private String partitionName = ""; // default value
+        private String vectorFieldName;
+        private int batchSize = 1000; // default value
+        private int readAhead = 2; // default value
+        private RowFiller rowFiller;
+
+        private VectorFileInserterBuilder() {
+        }
+
+        public VectorFileInserterBuilder databaseName(String databaseName) {
+            this.databaseName = databaseName;
+            return this;
+        }
+
+        public VectorFileInserterBuilder collectionName(String collectionName) {
+            this.collectionName = collectionName;
+            return this;
+        }
+
+        public VectorFileInserterBuilder partitionName(String partitionName) {
+            this.partitionName = partitionName;
+            return this;
+        }
+
+        public VectorFileInserterBuilder vectorFieldName(String vectorFieldName) {
+            this.vectorFieldName = vectorFieldName;
+            return this;
+        }
+
+        /**
+         * The number of rows of an insert request.
+         */
+        public VectorFileInserterBuilder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * The max number of batches read from the file ahead of the insert requests, 0 to disable.
+         */
+        public VectorFileInserterBuilder readAhead(int readAhead) {
+            this.readAhead = readAhead;
+            return this;
+        }
+
+        public VectorFileInserterBuilder rowFiller(RowFiller rowFiller) {
+            this.rowFiller = rowFiller;
+            return this;
+        }
+
+        public VectorFileInserter build() {
+            if (StringUtils.isEmpty(collectionName)) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "Collection name cannot be empty");
+            }
+            if (StringUtils.isEmpty(vectorFieldName)) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "Vector field name cannot be empty");
+            }
+            if (batchSize <= 0) {
+                throw new MilvusClientException(ErrorCode.INVALID_PARAMS, "Batch size must be positive");
+            }
+            return new VectorFileInserter(this);
+        }
+    }
+}
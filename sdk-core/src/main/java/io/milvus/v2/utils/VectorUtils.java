@@ -52,6 +52,9 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 public class VectorUtils {
+    // template placeholder carrying the primary keys of get/delete/query by ids
+    public static final String IDS_TEMPLATE_KEY = "ids";
+
     private String endpoint = "";
     private String currentDbName;
 
@@ -150,6 +153,27 @@ public class VectorUtils {
 
     }
 
+    /**
+     * Points a converted search request to another collection and partitions, without converting
+     * the target vectors again. The guarantee timestamp is computed again for the new collection.
+     */
+    public SearchRequest retargetSearchRequest(SearchRequest request, ConsistencyLevel consistencyLevel,
+                                               String dbName, String collectionName, List<String> partitionNames) {
+        SearchRequest.Builder builder = request.toBuilder()
+                .setCollectionName(collectionName)
+                .clearPartitionNames()
+                .setGuaranteeTimestamp(getGuaranteeTimestamp(consistencyLevel, dbName, collectionName));
+        if (partitionNames != null) {
+            builder.addAllPartitionNames(partitionNames);
+        }
+        if (StringUtils.isNotEmpty(dbName)) {
+            builder.setDbName(dbName);
+        } else {
+            builder.clearDbName();
+        }
+        return builder.build();
+    }
+
     private long getGuaranteeTimestamp(ConsistencyLevel consistencyLevel, String dbName, String collectionName) {
         String cacheDbName = StringUtils.isNotEmpty(dbName) ? dbName : currentDbName;
         if (consistencyLevel == null) {
@@ -204,12 +228,11 @@ public class VectorUtils {
         }
     }
 
-    private static void convertSearchTarget(SearchReq request, SearchRequest.Builder builder, boolean elementLevel) {
+    private static void convertSearchTarget(List<BaseVector> vectors, List<Object> ids,
+                                            SearchRequest.Builder builder, boolean elementLevel) {
         // prepare target, the input could be:
         // 1. vectors or string list for doc-in-doc-out
         // 2. ids list for search by primary keys
-        List<BaseVector> vectors = request.getData();
-        List<Object> ids = request.getIds();
         boolean vectorsIsEmpty = CollectionUtils.isEmpty(vectors);
         boolean idsIsEmpty = CollectionUtils.isEmpty(ids);
         if (vectorsIsEmpty && idsIsEmpty) {
@@ -263,9 +286,57 @@ public class VectorUtils {
         }
     }
 
+    /**
+     * @return the number of query vectors or ids of a search request
+     */
+    public static int searchNq(SearchReq request) {
+        return CollectionUtils.isNotEmpty(request.getData()) ? request.getData().size()
+                : CollectionUtils.size(request.getIds());
+    }
+
     public SearchRequest ConvertToGrpcSearchRequest(SearchReq request) {
-        String dbName = request.getDatabaseName();
-        String collectionName = request.getCollectionName();
+        return ConvertToGrpcSearchRequest(request, request.getDatabaseName(), request.getCollectionName());
+    }
+
+    // the fan-out search converts its template once for the first target, see retargetSearchRequest()
+    public SearchRequest ConvertToGrpcSearchRequest(SearchReq request, String dbName, String collectionName) {
+        return ConvertToGrpcSearchRequest(request, dbName, collectionName, request.getData(), request.getIds());
+    }
+
+    /**
+     * Converts the queries [fromQuery, toQuery) of a search request with many query vectors or ids.
+     * The first batch is converted in full, the other batches copy the parameters of the first one
+     * and only convert their own queries, so all batches read the same guarantee timestamp.
+     *
+     * @param request    the search request
+     * @param firstBatch the converted first batch, or null to convert the first batch
+     * @param fromQuery  the first query of the batch, inclusive
+     * @param toQuery    the last query of the batch, exclusive
+     * @return SearchRequest
+     */
+    public SearchRequest ConvertToGrpcSearchBatch(SearchReq request, SearchRequest firstBatch,
+                                                  int fromQuery, int toQuery) {
+        List<BaseVector> vectors = CollectionUtils.isEmpty(request.getData())
+                ? request.getData() : request.getData().subList(fromQuery, toQuery);
+        List<Object> ids = CollectionUtils.isEmpty(request.getIds())
+                ? request.getIds() : request.getIds().subList(fromQuery, toQuery);
+        if (firstBatch == null) {
+            return ConvertToGrpcSearchRequest(request, request.getDatabaseName(), request.getCollectionName(),
+                    vectors, ids);
+        }
+        SearchRequest.Builder builder = firstBatch.toBuilder()
+                .clearPlaceholderGroup()
+                .clearIds();
+        convertSearchTarget(vectors, ids, builder, isElementLevel(request.getFilter()));
+        return builder.build();
+    }
+
+    private static boolean isElementLevel(String filter) {
+        return filter != null && filter.contains("element_filter");
+    }
+
+    private SearchRequest ConvertToGrpcSearchRequest(SearchReq request, String dbName, String collectionName,
+                                                     List<BaseVector> vectors, List<Object> ids) {
         SearchRequest.Builder builder = SearchRequest.newBuilder()
                 .setCollectionName(collectionName);
         if (!request.getPartitionNames().isEmpty()) {
@@ -277,9 +348,7 @@ public class VectorUtils {
         }
 
         // target vectors or ids
-        String filter = request.getFilter();
-        boolean elementLevel = filter != null && filter.contains("element_filter");
-        convertSearchTarget(request, builder, elementLevel);
+        convertSearchTarget(vectors, ids, builder, isElementLevel(request.getFilter()));
 
         // search parameters
         // tries to fit the compatibility between v2.5.1 and older versions
@@ -760,6 +829,19 @@ public class VectorUtils {
         return builder.build();
     }
 
+    /**
+     * Returns the filter expression selecting entities by primary keys. The keys are not embedded in the
+     * expression, they are passed by {@link #getIdsTemplateValue(List)} under {@link #IDS_TEMPLATE_KEY},
+     * so the expression is the same for every call and the server can reuse its parsed plan.
+     */
+    public String getTemplateExprById(String primaryFieldName) {
+        return primaryFieldName + " in {" + IDS_TEMPLATE_KEY + "}";
+    }
+
+    public TemplateValue getIdsTemplateValue(List<?> ids) {
+        return deduceAndCreateTemplateValue(ids);
+    }
+
     public String getExprById(String primaryFieldName, List<?> ids) {
         StringBuilder sb = new StringBuilder();
         sb.append(primaryFieldName).append(" in [");
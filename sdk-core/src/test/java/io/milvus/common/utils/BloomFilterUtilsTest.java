@@ -155,6 +155,77 @@ class BloomFilterUtilsTest {
         }
     }
 
+    /** A range hashed in place, at any offset of a larger buffer, equals the hash of its copy. */
+    @Test
+    void testHashOfBufferRangeMatchesHashOfCopy() {
+        Random random = new Random(20260731L);
+        byte[] packed = new byte[200];
+        random.nextBytes(packed);
+        ByteBuffer view = ByteBuffer.wrap(packed).order(ByteOrder.LITTLE_ENDIAN);
+        for (int offset = 0; offset < 7; offset++) {
+            for (int length = 0; length <= 80; length++) {
+                Assertions.assertEquals(
+                        XXHash64.hash(Arrays.copyOfRange(packed, offset, offset + length)),
+                        XXHash64.hash(view, offset, length),
+                        "range hash diverged at offset " + offset + ", length " + length);
+            }
+        }
+    }
+
+    @Test
+    void testBatchInsertsMatchPerElementInserts() {
+        Random random = new Random(20260731L);
+        long[] values = new long[600_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+        }
+        BloomFilterUtils.Builder single = new BloomFilterUtils.Builder(values.length, 0.01);
+        for (long value : values) {
+            single.addInt64(value);
+        }
+        byte[] expected = single.build();
+        Assertions.assertArrayEquals(expected,
+                new BloomFilterUtils.Builder(values.length, 0.01).addInt64(values).build());
+        // the parallel build ORs per-thread block arrays, the result must not depend on it
+        Assertions.assertArrayEquals(expected, new BloomFilterUtils.Builder(values.length, 0.01)
+                .parallelism(4).addInt64(values).build());
+        Assertions.assertArrayEquals(expected, BloomFilterUtils.buildInt64BloomFilter(values, 0.01));
+
+        String[] strings = new String[3000];
+        byte[][] encoded = new byte[strings.length][];
+        int[] offsets = new int[strings.length + 1];
+        for (int i = 0; i < strings.length; i++) {
+            // lengths cross the 32-byte stripe and every tail, some members are multi-byte UTF-8
+            strings[i] = (i % 5 == 0 ? "向量" : "member-") + "x".repeat(i % 70) + i;
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+        byte[] packed = new byte[offsets[strings.length]];
+        for (int i = 0; i < strings.length; i++) {
+            System.arraycopy(encoded[i], 0, packed, offsets[i], encoded[i].length);
+        }
+        BloomFilterUtils.Builder perString = new BloomFilterUtils.Builder(strings.length, 0.01);
+        for (String value : strings) {
+            perString.addString(value);
+        }
+        Assertions.assertArrayEquals(perString.build(),
+                BloomFilterUtils.buildUtf8BloomFilter(packed, offsets, 0.01));
+    }
+
+    @Test
+    void testRejectsInvalidBatchInput() {
+        BloomFilterUtils.Builder builder = new BloomFilterUtils.Builder(10, 0.01);
+        Assertions.assertThrows(MilvusClientException.class, () -> builder.addInt64((long[]) null));
+        Assertions.assertThrows(MilvusClientException.class, () -> builder.addUtf8(new byte[4], null));
+        Assertions.assertThrows(MilvusClientException.class,
+                () -> builder.addUtf8(new byte[4], new int[]{0, 3, 2}));
+        Assertions.assertThrows(MilvusClientException.class,
+                () -> builder.addUtf8(new byte[4], new int[]{0, 5}));
+        Assertions.assertThrows(MilvusClientException.class, () -> builder.parallelism(0));
+        // nothing was inserted by the rejected batches
+        Assertions.assertEquals(0, builder.getDomains());
+    }
+
     @Test
     void testDomainsAreRecorded() {
         Assertions.assertEquals(BloomFilterUtils.DOMAIN_INT64,
@@ -49,6 +49,7 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.LongStream;
 
 class RoaringBitmapUtilsTest {
 
@@ -293,6 +294,78 @@ class RoaringBitmapUtilsTest {
                 new RoaringBitmapUtils.Builder(members.length).addAll(asLongs).build());
     }
 
+    @Test
+    void testStreamingOverloadsAgree() {
+        long[] members = {-2147483648L, -1L, 0L, 7L, 8L, 9L, 65535L, 65536L, 2147483647L};
+        byte[] expected = RoaringBitmapUtils.buildRoaringBitmap(members);
+
+        Assertions.assertArrayEquals(expected,
+                RoaringBitmapUtils.buildRoaringBitmap(LongStream.of(members)));
+        Assertions.assertArrayEquals(expected,
+                RoaringBitmapUtils.buildRoaringBitmap(LongStream.of(members).parallel()));
+        Assertions.assertArrayEquals(expected,
+                new RoaringBitmapUtils.Builder().addAll(LongStream.of(members).iterator()).build());
+        Assertions.assertThrows(MilvusClientException.class,
+                () -> RoaringBitmapUtils.buildRoaringBitmap((LongStream) null));
+    }
+
+    /**
+     * Large inputs go through the radix sort, or the parallel sort, and already sorted input skips
+     * sorting; all of them must produce the same bytes as a plain comparison sort.
+     */
+    @Test
+    void testLargeInputSortPathsAgree() {
+        Random random = new Random(20260714L);
+        long[] members = new long[300_000];
+        for (int i = 0; i < members.length; i++) {
+            // a mix of small dense ids, 40-bit ids and negative keys
+            switch (i % 3) {
+                case 0:
+                    members[i] = random.nextInt(1_000_000);
+                    break;
+                case 1:
+                    members[i] = random.nextLong() >>> 24;
+                    break;
+                default:
+                    members[i] = -1L - random.nextInt(1000);
+                    break;
+            }
+        }
+        long[] sorted = Arrays.copyOf(members, members.length);
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] ^= Long.MIN_VALUE;
+        }
+        byte[] expected = new RoaringBitmapUtils.Builder(sorted.length).addAll(sorted).build();
+
+        Assertions.assertArrayEquals(expected, RoaringBitmapUtils.buildRoaringBitmap(members));
+        Assertions.assertArrayEquals(expected,
+                new RoaringBitmapUtils.Builder().parallel(true).addAll(members).build());
+
+        // the input is below the parallel threshold, lower it so each path is sorted once
+        Assertions.assertTrue(members.length < RoaringBitmapUtils.PARALLEL_SORT_THRESHOLD);
+        long[] radixSorted = Arrays.copyOf(members, members.length);
+        RoaringBitmapUtils.sortUnsigned(radixSorted, radixSorted.length, false, members.length);
+        Assertions.assertArrayEquals(sorted, radixSorted);
+        long[] parallelSorted = Arrays.copyOf(members, members.length);
+        RoaringBitmapUtils.sortUnsigned(parallelSorted, parallelSorted.length, true, members.length);
+        Assertions.assertArrayEquals(sorted, parallelSorted);
+
+        // only the low digits differ, the skipped passes must not lose the order
+        long[] dense = new long[RoaringBitmapUtils.MAX_HIGH_CONTAINERS];
+        for (int i = 0; i < dense.length; i++) {
+            dense[i] = dense.length - i;
+        }
+        Assertions.assertEquals((long) dense.length,
+                cardinalityOf(RoaringBitmapUtils.buildRoaringBitmap(dense)));
+        Assertions.assertArrayEquals(RoaringBitmapUtils.buildRoaringBitmap(
+                        LongStream.rangeClosed(1, dense.length)),
+                RoaringBitmapUtils.buildRoaringBitmap(dense));
+    }
+
     /** The array the caller keeps must not be reordered or aliased under them. */
     @Test
     void testInputArrayIsNotMutatedAndBlobIsIndependent() {
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.common.utils;
+
+import io.milvus.v2.exception.MilvusClientException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorFileSourceTest {
+    private static final int DIM = 8;
+
+    @TempDir
+    Path tempDir;
+
+    private static float value(long row, int k) {
+        return row * 10 + k / 10.0f;
+    }
+
+    private Path writeFvecs(int rows) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(rows * (4 + DIM * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(DIM);
+            for (int k = 0; k < DIM; k++) {
+                buffer.putFloat(value(i, k));
+            }
+        }
+        return Files.write(tempDir.resolve("data.fvecs"), buffer.array());
+    }
+
+    private Path writeNpy(String name, String descr, int rows, byte[] data) throws IOException {
+        String header = String.format("{'descr': '%s', 'fortran_order': False, 'shape': (%d, %d), }", descr, rows, DIM);
+        int headerLength = ((10 + header.length() + 1 + 63) / 64) * 64 - 10;
+        StringBuilder padded = new StringBuilder(header);
+        while (padded.length() < headerLength - 1) {
+            padded.append(' ');
+        }
+        padded.append('\n');
+        ByteBuffer buffer = ByteBuffer.allocate(10 + headerLength + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put((byte) 0);
+        buffer.putShort((short) headerLength);
+        buffer.put(padded.toString().getBytes(StandardCharsets.US_ASCII));
+        buffer.put(data);
+        return Files.write(tempDir.resolve(name), buffer.array());
+    }
+
+    @Test
+    void testReadFvecsAcrossWindows() throws IOException {
+        Path path = writeFvecs(100);
+        // a window of 7 rows, the batches of 10 rows map a new window each time
+        try (VectorFileSource source = VectorFileSource.open(path, VectorFileSource.Format.FVECS, 7 * (4 + DIM * 4))) {
+            assertEquals(VectorFileSource.ElementType.FLOAT32, source.getElementType());
+            assertEquals(DIM, source.getDimension());
+            assertEquals(100, source.getRowCount());
+
+            for (long first : new long[]{0, 5, 33, 90}) {
+                VectorFileSource.Batch batch = source.read(first, 10);
+                FloatBuffer vectors = batch.getFloatVectors();
+                assertEquals(10 * DIM, vectors.remaining());
+                for (int i = 0; i < 10; i++) {
+                    FloatBuffer vector = batch.getFloatVector(i);
+                    assertEquals(DIM, vector.remaining());
+                    for (int k = 0; k < DIM; k++) {
+                        assertEquals(value(first + i, k), vector.get(k));
+                        assertEquals(value(first + i, k), vectors.get(i * DIM + k));
+                    }
+                }
+            }
+            assertThrows(MilvusClientException.class, () -> source.read(95, 10));
+            assertThrows(MilvusClientException.class, () -> source.read(-1, 1));
+        }
+    }
+
+    @Test
+    void testReadNpyWithoutCopy() throws IOException {
+        int rows = 20;
+        ByteBuffer data = ByteBuffer.allocate(rows * DIM * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows; i++) {
+            for (int k = 0; k < DIM; k++) {
+                data.putFloat(value(i, k));
+            }
+        }
+        Path path = writeNpy("data.npy", "<f4", rows, data.array());
+        try (VectorFileSource source = VectorFileSource.open(path)) {
+            assertEquals(VectorFileSource.Format.NPY, source.getFormat());
+            assertEquals(rows, source.getRowCount());
+            VectorFileSource.Batch batch = source.read(4, 6);
+            FloatBuffer vectors = batch.getFloatVectors();
+            // a view of the mapped file
+            assertTrue(vectors.isDirect());
+            for (int i = 0; i < 6; i++) {
+                for (int k = 0; k < DIM; k++) {
+                    assertEquals(value(4 + i, k), vectors.get(i * DIM + k));
+                }
+            }
+        }
+
+        byte[] bytes = new byte[rows * DIM];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Path bytePath = writeNpy("bytes.npy", "|u1", rows, bytes);
+        try (VectorFileSource source = VectorFileSource.open(bytePath)) {
+            assertEquals(VectorFileSource.ElementType.UINT8, source.getElementType());
+            ByteBuffer vector = source.read(3, 1).getVector(0);
+            for (int k = 0; k < DIM; k++) {
+                assertEquals((byte) (3 * DIM + k), vector.get(k));
+            }
+            assertThrows(MilvusClientException.class, () -> source.read(0, 1).getFloatVectors());
+        }
+    }
+
+    @Test
+    void testRejectsInvalidFiles() throws IOException {
+        Path truncated = writeFvecs(3);
+        Files.write(truncated, new byte[]{1}, StandardOpenOption.APPEND);
+        assertThrows(MilvusClientException.class, () -> VectorFileSource.open(truncated));
+
+        Path wrongShape = writeNpy("wrong.npy", "<f4", 5, new byte[4 * DIM * 4]);
+        assertThrows(MilvusClientException.class, () -> VectorFileSource.open(wrongShape));
+        Path wrongType = writeNpy("double.npy", "<f8", 1, new byte[DIM * 8]);
+        assertThrows(MilvusClientException.class, () -> VectorFileSource.open(wrongType));
+        assertThrows(MilvusClientException.class, () -> VectorFileSource.open(tempDir.resolve("data.txt")));
+
+        // a row with another dimension is found when it is read
+        ByteBuffer buffer = ByteBuffer.allocate(2 * (4 + DIM)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(DIM).put(new byte[DIM]).putInt(DIM + 1).put(new byte[DIM]);
+        Path bvecs = Files.write(tempDir.resolve("data.bvecs"), buffer.array());
+        try (VectorFileSource source = VectorFileSource.open(bvecs)) {
+            assertEquals(2, source.getRowCount());
+            assertNotNull(source.read(0, 1));
+            assertThrows(MilvusClientException.class, () -> source.read(0, 2));
+        }
+    }
+
+    @Test
+    void testBatchesWithReadAhead() throws IOException {
+        Path path = writeFvecs(1003);
+        try (VectorFileSource source = VectorFileSource.open(path)) {
+            for (int readAhead : new int[]{0, 1, 3}) {
+                long nextRow = 0;
+                try (VectorFileSource.BatchIterator batches = source.batches(100, readAhead)) {
+                    while (batches.hasNext()) {
+                        VectorFileSource.Batch batch = batches.next();
+                        assertEquals(nextRow, batch.getFirstRow());
+                        assertEquals(value(nextRow, 3), batch.getFloatVector(0).get(3));
+                        nextRow += batch.getRowCount();
+                    }
+                }
+                assertEquals(1003, nextRow);
+            }
+
+            // closed before the end, the read-ahead thread stops
+            VectorFileSource.BatchIterator batches = source.batches(10, 2);
+            batches.next();
+            batches.close();
+            assertFalse(batches.hasNext());
+        }
+    }
+
+    @Test
+    void testReadAheadErrorIsThrownAgain() throws IOException {
+        Path path = writeFvecs(100);
+        VectorFileSource source = VectorFileSource.open(path);
+        // the channel is closed before any window is mapped, the read-ahead thread fails on its first batch
+        source.close();
+        try (VectorFileSource.BatchIterator batches = source.batches(10, 2)) {
+            MilvusClientException first = assertThrows(MilvusClientException.class, batches::next);
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertSame(first, assertThrows(MilvusClientException.class, batches::next));
+            });
+        }
+    }
+}
@@ -21,7 +21,16 @@ package io.milvus.common.utils.cache;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CollectionTsCacheTest {
     @Test
@@ -108,4 +117,53 @@ class CollectionTsCacheTest {
         cache.clear();
         assertEquals(0, cache.size());
     }
+
+    @Test
+    void evictsOldestTimestampsBeyondCapacity() {
+        CollectionTsCache cache = new CollectionTsCache(10);
+        for (int i = 1; i <= 10; i++) {
+            cache.set("host:19530", "db", "c" + i, i * 10L);
+        }
+        // a collection written again moves ahead of the others
+        cache.set("host:19530", "db", "c1", 1000L);
+        cache.set("host:19530", "db", "c11", 110L);
+
+        assertEquals(9, cache.size());
+        assertEquals(1000L, cache.get("host:19530", "db", "c1"));
+        assertEquals(0L, cache.get("host:19530", "db", "c2"));
+        assertEquals(0L, cache.get("host:19530", "db", "c3"));
+        assertEquals(40L, cache.get("host:19530", "db", "c4"));
+        assertEquals(110L, cache.get("host:19530", "db", "c11"));
+    }
+
+    @Test
+    void concurrentWritesKeepMaximumTimestamp() throws Exception {
+        CollectionTsCache cache = new CollectionTsCache(64);
+        int threads = 8;
+        int writes = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < writes; i++) {
+                    cache.set("host:19530", "db", "shared", (long) i * threads + offset + 1);
+                    cache.set("host:19530", "db", "c" + offset + "_" + (i % 100), i + 1L);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals((long) writes * threads, cache.get("host:19530", "db", "shared"));
+        // an eviction skipped while another thread held the lock is caught up by the next insert
+        cache.set("host:19530", "db", "last", Long.MAX_VALUE);
+        assertTrue(cache.size() <= 64);
+    }
 }
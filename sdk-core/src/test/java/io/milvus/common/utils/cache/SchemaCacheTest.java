@@ -32,8 +32,9 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -103,27 +104,32 @@ class SchemaCacheTest {
         CompletableFuture<DescribeCollectionResponse> result = cache.getOrLoadAsync(
                 "host:19530", "db", "coll", false, loadScope, () -> loaderFuture);
 
-        java.lang.reflect.Field loadingLockField = SchemaCache.class.getDeclaredField("loadingLock");
-        loadingLockField.setAccessible(true);
-        Object loadingLock = loadingLockField.get(cache);
         java.lang.reflect.Field loadingField = SchemaCache.class.getDeclaredField("loading");
         loadingField.setAccessible(true);
-        Thread completer;
+        java.util.Map<?, ?> loading = (java.util.Map<?, ?>) loadingField.get(cache);
+        Object state = loading.values().iterator().next();
+        java.lang.reflect.Field completedField = state.getClass().getDeclaredField("completed");
+        completedField.setAccessible(true);
+        AtomicBoolean completedBeforeRemoval = new AtomicBoolean(false);
+        AtomicBoolean removedBeforeContinuation = new AtomicBoolean(false);
+        result.whenComplete((response, throwable) -> {
+            try {
+                synchronized (state) {
+                    completedBeforeRemoval.set(completedField.getBoolean(state));
+                }
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            removedBeforeContinuation.set(loading.isEmpty());
+        });
 
-        synchronized (loadingLock) {
-            java.util.Map<?, ?> loading = (java.util.Map<?, ?>) loadingField.get(cache);
-            Object state = loading.values().iterator().next();
-            completer = new Thread(() -> loaderFuture.complete(response(15L)));
-            completer.start();
+        assertEquals(1, loading.size());
+        assertFalse(result.isDone());
+        loaderFuture.complete(response(15L));
 
-            awaitCompleted(state);
-            assertEquals(1, loading.size());
-            assertFalse(result.isDone());
-        }
-
-        completer.join(TimeUnit.SECONDS.toMillis(5));
-        assertFalse(completer.isAlive());
         assertEquals(15L, result.get(5, TimeUnit.SECONDS).getCollectionID());
+        assertTrue(completedBeforeRemoval.get());
+        assertTrue(removedBeforeContinuation.get());
     }
 
     @Test
@@ -410,9 +416,9 @@ class SchemaCacheTest {
         CountDownLatch releaseLoader = new CountDownLatch(1);
         AtomicReference<Thread> loaderThread = new AtomicReference<>();
 
-        java.lang.reflect.Field lockField = SchemaCache.class.getDeclaredField("lock");
+        java.lang.reflect.Field lockField = SchemaCache.class.getDeclaredField("evictionLock");
         lockField.setAccessible(true);
-        ReentrantReadWriteLock cacheLock = (ReentrantReadWriteLock) lockField.get(cache);
+        ReentrantLock cacheLock = (ReentrantLock) lockField.get(cache);
 
         try {
             Future<DescribeCollectionResponse> future = executor.submit(() ->
@@ -424,13 +430,13 @@ class SchemaCacheTest {
                     }));
             assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
 
-            cacheLock.writeLock().lock();
+            cacheLock.lock();
             try {
                 releaseLoader.countDown();
                 awaitQueued(cacheLock, loaderThread.get());
                 cache.invalidate("host:19530", "db", "coll");
             } finally {
-                cacheLock.writeLock().unlock();
+                cacheLock.unlock();
             }
 
             assertEquals(13L, future.get(5, TimeUnit.SECONDS).getCollectionID());
@@ -576,6 +582,133 @@ class SchemaCacheTest {
         assertEquals(0, cache.size());
     }
 
+    @Test
+    void frequentlyReadEntriesSurviveScan() {
+        SchemaCache cache = new SchemaCache(100);
+        for (int i = 0; i < 50; i++) {
+            cache.set("host:19530", "db", "hot" + i, response(i));
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("host:19530", "db", "hot" + i);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.set("host:19530", "db", "scan" + i, response(1000L + i));
+        }
+
+        assertEquals(100, cache.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, cache.get("host:19530", "db", "hot" + i).getCollectionID());
+        }
+    }
+
+    @Test
+    void concurrentReadsAndWritesStayWithinCapacity() throws Exception {
+        SchemaCache cache = new SchemaCache(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        String name = "coll" + ((i * 31 + thread) % 256);
+                        long id = (i * 31 + thread) % 256;
+                        DescribeCollectionResponse loaded = cache.getOrLoad(
+                                "host:19530", "db", name, false, loadScope, () -> response(id));
+                        assertEquals(id, loaded.getCollectionID());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= 64);
+    }
+
+    @Test
+    void expiredEntryIsReloaded() {
+        AtomicLong now = new AtomicLong(0L);
+        SchemaCache cache = new SchemaCache(16, now::get);
+        AtomicInteger loads = new AtomicInteger();
+        SchemaCache.Loader loader = () -> response(loads.incrementAndGet());
+
+        assertEquals(1L, cache.getOrLoad("host:19530", "db", "coll", false, loadScope, loader, 1000L, null)
+                .getCollectionID());
+        now.set(TimeUnit.MILLISECONDS.toNanos(999L));
+        assertEquals(1L, cache.getOrLoad("host:19530", "db", "coll", false, loadScope, loader, 1000L, null)
+                .getCollectionID());
+        // a caller without time-to-live keeps using the entry
+        assertEquals(1L, cache.getOrLoad("host:19530", "db", "coll", false, loadScope, loader)
+                .getCollectionID());
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(1000L));
+        assertEquals(2L, cache.getOrLoad("host:19530", "db", "coll", false, loadScope, loader, 1000L, null)
+                .getCollectionID());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void refreshAheadServesCachedSchemaAndPublishesOnlyChanges() {
+        AtomicLong now = new AtomicLong(0L);
+        SchemaCache cache = new SchemaCache(16, now::get);
+        DescribeCollectionResponse original = response(1L, 100L);
+        cache.set("host:19530", "db", "coll", original);
+        List<CompletableFuture<DescribeCollectionResponse>> refreshes = new ArrayList<>();
+        SchemaCache.AsyncLoader refresher = () -> {
+            CompletableFuture<DescribeCollectionResponse> future = new CompletableFuture<>();
+            refreshes.add(future);
+            return future;
+        };
+        SchemaCache.Loader failingLoader = () -> {
+            throw new AssertionError("the cached schema should be served");
+        };
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(700L));
+        assertSame(original, cache.getOrLoad("host:19530", "db", "coll", false, loadScope,
+                failingLoader, 1000L, refresher));
+        assertTrue(refreshes.isEmpty());
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(850L));
+        assertSame(original, cache.getOrLoad("host:19530", "db", "coll", false, loadScope,
+                failingLoader, 1000L, refresher));
+        assertSame(original, cache.getOrLoad("host:19530", "db", "coll", false, loadScope,
+                failingLoader, 1000L, refresher));
+        assertEquals(1, refreshes.size());
+
+        // same update timestamp: the cached instance is kept and its time-to-live extended
+        refreshes.get(0).complete(response(1L, 100L));
+        now.set(TimeUnit.MILLISECONDS.toNanos(1500L));
+        assertSame(original, cache.getOrLoad("host:19530", "db", "coll", false, loadScope,
+                failingLoader, 1000L, null));
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(1700L));
+        cache.getOrLoad("host:19530", "db", "coll", false, loadScope, failingLoader, 1000L, refresher);
+        assertEquals(2, refreshes.size());
+        refreshes.get(1).complete(response(1L, 200L));
+        assertEquals(200L, cache.get("host:19530", "db", "coll").getUpdateTimestamp());
+    }
+
+    @Test
+    void refreshAfterInvalidationIsDropped() {
+        AtomicLong now = new AtomicLong(0L);
+        SchemaCache cache = new SchemaCache(16, now::get);
+        cache.set("host:19530", "db", "coll", response(1L, 100L));
+        CompletableFuture<DescribeCollectionResponse> refresh = new CompletableFuture<>();
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(900L));
+        cache.getOrLoad("host:19530", "db", "coll", false, loadScope, () -> response(2L), 1000L, () -> refresh);
+        cache.invalidate("host:19530", "db", "coll");
+        refresh.complete(response(1L, 200L));
+
+        assertNull(cache.get("host:19530", "db", "coll"));
+    }
+
     @Test
     void failedLoadIsNotCachedAndCanBeRetried() {
         SchemaCache cache = new SchemaCache();
@@ -600,6 +733,13 @@ class SchemaCacheTest {
         return DescribeCollectionResponse.newBuilder().setCollectionID(collectionId).build();
     }
 
+    private static DescribeCollectionResponse response(long collectionId, long updateTimestamp) {
+        return DescribeCollectionResponse.newBuilder()
+                .setCollectionID(collectionId)
+                .setUpdateTimestamp(updateTimestamp)
+                .build();
+    }
+
     private static void await(CountDownLatch latch) {
         try {
             latch.await();
@@ -609,7 +749,7 @@ class SchemaCacheTest {
         }
     }
 
-    private static void awaitQueued(ReentrantReadWriteLock lock, Thread thread) {
+    private static void awaitQueued(ReentrantLock lock, Thread thread) {
         long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
         while (!lock.hasQueuedThread(thread)) {
             if (System.nanoTime() >= deadline) {
@@ -629,23 +769,6 @@ class SchemaCacheTest {
         }
     }
 
-    private static void awaitCompleted(Object state) throws Exception {
-        java.lang.reflect.Field completedField = state.getClass().getDeclaredField("completed");
-        completedField.setAccessible(true);
-        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
-        while (true) {
-            synchronized (state) {
-                if (completedField.getBoolean(state)) {
-                    return;
-                }
-            }
-            if (System.nanoTime() >= deadline) {
-                throw new AssertionError("Load state was not completed before removal");
-            }
-            Thread.yield();
-        }
-    }
-
     private static Object getOnlyLoadState(SchemaCache cache) throws Exception {
         java.lang.reflect.Field loadingField = SchemaCache.class.getDeclaredField("loading");
         loadingField.setAccessible(true);
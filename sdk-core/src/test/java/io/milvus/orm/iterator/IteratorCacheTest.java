@@ -23,12 +23,22 @@ import io.milvus.exception.ParamException;
 import io.milvus.response.QueryResultsWrapper;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static io.milvus.param.Constant.NO_CACHE_ID;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -119,6 +129,197 @@ class IteratorCacheTest {
         assertEquals(Arrays.asList(1, 2), ids(cache.fetchCache(cacheId)));
     }
 
+    @Test
+    void columnarPagesRestoreValueTypesAndMixedRows() {
+        IteratorCache cache = new IteratorCache();
+        QueryResultsWrapper.RowRecord first = new QueryResultsWrapper.RowRecord();
+        first.put("id", 1L);
+        first.put("score", 0.5f);
+        first.put("name", "a");
+        first.put("vector", Arrays.asList(1.0f, 2.0f));
+        QueryResultsWrapper.RowRecord second = new QueryResultsWrapper.RowRecord();
+        second.put("id", 2L);
+        second.put("score", 0.25f);
+        second.put("name", null);
+        second.put("vector", Arrays.asList(3.0f, 4.0f));
+        QueryResultsWrapper.RowRecord other = record(3);
+
+        int cacheId = cache.cache(NO_CACHE_ID, Arrays.asList(first, second));
+        cache.append(cacheId, Arrays.asList(other, record(4)));
+        List<QueryResultsWrapper.RowRecord> drained = cache.drain(cacheId, 4);
+
+        assertEquals(first.getFieldValues(), drained.get(0).getFieldValues());
+        assertEquals(second.getFieldValues(), drained.get(1).getFieldValues());
+        assertEquals(Long.class, drained.get(0).get("id").getClass());
+        assertEquals(Float.class, drained.get(0).get("score").getClass());
+        assertEquals(Arrays.asList(3, 4), ids(drained.subList(2, 4)));
+    }
+
+    @Test
+    void vectorColumnsArePackedAndRestored() {
+        IteratorCache cache = new IteratorCache(1L, true);
+        List<QueryResultsWrapper.RowRecord> rows = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ByteBuffer binary = ByteBuffer.allocate(2);
+            binary.order(ByteOrder.LITTLE_ENDIAN);
+            binary.put(new byte[]{(byte) i, (byte) -i});
+            QueryResultsWrapper.RowRecord row = new QueryResultsWrapper.RowRecord();
+            row.put("id", (long) i);
+            row.put("float_vector", Arrays.asList((float) i, i + 0.5f, -i));
+            row.put("binary_vector", binary);
+            rows.add(row);
+        }
+
+        int cacheId = cache.cache(NO_CACHE_ID, rows.subList(0, 2));
+        cache.append(cacheId, rows.subList(2, 4));
+        assertEquals(1, cache.spilledPages(cacheId));
+        List<QueryResultsWrapper.RowRecord> drained = cache.drain(cacheId, 4);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(rows.get(i).getFieldValues(), drained.get(i).getFieldValues());
+            ByteBuffer binary = (ByteBuffer) drained.get(i).get("binary_vector");
+            assertEquals(ByteOrder.LITTLE_ENDIAN, binary.order());
+            assertEquals(2, binary.position());
+        }
+    }
+
+    @Test
+    void concurrentCachesGetDistinctIds() throws Exception {
+        IteratorCache cache = new IteratorCache();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(() -> {
+                    int cacheId = cache.cache(NO_CACHE_ID, records(1, 5));
+                    cache.append(cacheId, records(6, 10));
+                    assertEquals(ids(records(1, 4)), ids(cache.drain(cacheId, 4)));
+                    return cacheId;
+                }));
+            }
+            Set<Integer> cacheIds = new HashSet<>();
+            for (Future<Integer> future : futures) {
+                cacheIds.add(future.get());
+            }
+            assertEquals(100, cacheIds.size());
+            for (int cacheId : cacheIds) {
+                assertEquals(6, cache.size(cacheId));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void pagesOverBudgetAreSpilledAndReadBack() {
+        IteratorCache cache = new IteratorCache(100L, true);
+        int cacheId = cache.cache(NO_CACHE_ID, records(1, 10));
+        cache.append(cacheId, records(11, 20));
+        cache.append(cacheId, records(21, 30));
+
+        // each page of 10 int ids is 40 bytes, the third page exceeds the budget
+        assertEquals(1, cache.spilledPages(cacheId));
+        assertEquals(80L, cache.memoryBytes(cacheId));
+        assertEquals(30, cache.size(cacheId));
+        assertEquals(ids(records(1, 30)), ids(cache.fetchCache(cacheId)));
+
+        assertEquals(ids(records(1, 15)), ids(cache.drain(cacheId, 15)));
+        assertEquals(ids(records(16, 30)), ids(cache.drain(cacheId, 15)));
+        assertEquals(0, cache.size(cacheId));
+    }
+
+    @Test
+    void readingBackSpillsNewerPagesToKeepTheBudget() {
+        IteratorCache cache = new IteratorCache(100L, true);
+        int cacheId = cache.cache(NO_CACHE_ID, records(1, 10));
+        // 80 bytes, spilled
+        cache.append(cacheId, records(11, 30));
+        // 40 bytes, fits in memory
+        cache.append(cacheId, records(31, 40));
+        assertEquals(1, cache.spilledPages(cacheId));
+        assertEquals(ids(records(1, 10)), ids(cache.drain(cacheId, 10)));
+
+        // the second page is read back, the third one is spilled to make room for it
+        assertEquals(ids(records(11, 11)), ids(cache.drain(cacheId, 1)));
+        assertEquals(1, cache.spilledPages(cacheId));
+        assertEquals(80L, cache.memoryBytes(cacheId));
+        File spillPath = cache.spillPath(cacheId);
+        assertTrue(spillPath.exists());
+
+        // the temp file is deleted once its last page is read back
+        assertEquals(ids(records(12, 31)), ids(cache.drain(cacheId, 20)));
+        assertEquals(0, cache.spilledPages(cacheId));
+        assertNull(cache.spillPath(cacheId));
+        assertFalse(spillPath.exists());
+        assertEquals(ids(records(32, 40)), ids(cache.drain(cacheId, 9)));
+    }
+
+    @Test
+    void spilledPagesRestoreValueTypes() {
+        IteratorCache cache = new IteratorCache(1L, true);
+        List<QueryResultsWrapper.RowRecord> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            QueryResultsWrapper.RowRecord row = new QueryResultsWrapper.RowRecord();
+            row.put("id", (long) i);
+            row.put("name", i == 1 ? null : "name_" + i);
+            row.put("score", i * 0.5);
+            row.put("flag", i % 2 == 0);
+            row.put("tags", Arrays.asList("a" + i, "b"));
+            row.put("small", (short) i);
+            row.put("vector", Arrays.asList(1.0f, (float) i));
+            rows.add(row);
+        }
+        QueryResultsWrapper.RowRecord other = record(7);
+        other.put("extra", new byte[]{1, 2});
+
+        int cacheId = cache.cache(NO_CACHE_ID, records(1, 1));
+        cache.append(cacheId, rows);
+        cache.append(cacheId, Arrays.asList(record(5), other));
+        assertEquals(2, cache.spilledPages(cacheId));
+        List<QueryResultsWrapper.RowRecord> drained = cache.drain(cacheId, 6);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(rows.get(i).getFieldValues(), drained.get(i + 1).getFieldValues());
+        }
+        assertEquals(Double.class, drained.get(1).get("score").getClass());
+        assertEquals(Short.class, drained.get(1).get("small").getClass());
+        assertEquals(Arrays.asList(5, 7), ids(drained.subList(4, 6)));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) drained.get(5).get("extra"));
+    }
+
+    @Test
+    void pagesOverBudgetStayInMemoryWithoutSpilling() {
+        IteratorCache cache = new IteratorCache(100L, false);
+        int cacheId = cache.cache(NO_CACHE_ID, records(1, 10));
+        cache.append(cacheId, records(11, 20));
+        cache.append(cacheId, records(21, 30));
+
+        assertEquals(0, cache.spilledPages(cacheId));
+        assertEquals(120L, cache.memoryBytes(cacheId));
+        assertEquals(ids(records(1, 30)), ids(cache.drain(cacheId, 30)));
+    }
+
+    @Test
+    void releaseDropsSpilledPages() {
+        IteratorCache cache = new IteratorCache(1L, true);
+        int cacheId = cache.cache(NO_CACHE_ID, records(1, 2));
+        cache.append(cacheId, records(3, 4));
+        assertEquals(1, cache.spilledPages(cacheId));
+
+        cache.releaseCache(cacheId);
+        assertEquals(0, cache.size(cacheId));
+        assertNull(cache.fetchCache(cacheId));
+        assertThrows(ParamException.class, () -> new IteratorCache(-1L, false));
+    }
+
+    private static List<QueryResultsWrapper.RowRecord> records(int from, int to) {
+        List<QueryResultsWrapper.RowRecord> records = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            records.add(record(i));
+        }
+        return records;
+    }
+
     private static QueryResultsWrapper.RowRecord record(int id) {
         QueryResultsWrapper.RowRecord record = new QueryResultsWrapper.RowRecord();
         record.put("id", id);
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.orm.iterator;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import io.milvus.grpc.CollectionSchema;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DescribeCollectionRequest;
+import io.milvus.grpc.DescribeCollectionResponse;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FieldSchema;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.MilvusServiceGrpc;
+import io.milvus.grpc.QueryRequest;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchIteratorV2Results;
+import io.milvus.grpc.SearchRequest;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.SearchResults;
+import io.milvus.grpc.Status;
+import io.milvus.response.QueryResultsWrapper;
+import io.milvus.v2.common.IndexParam;
+import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import io.milvus.v2.service.vector.request.QueryIteratorReq;
+import io.milvus.v2.service.vector.request.SearchIteratorReqV2;
+import io.milvus.v2.service.vector.request.data.FloatVec;
+import io.milvus.v2.service.vector.response.SearchResp;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IteratorPublisherTest {
+    @Test
+    void queryPublisherFetchesOnlyOnDemand() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.query(any(QueryRequest.class))).thenReturn(queryResults(Collections.emptyList()));
+        MilvusServiceGrpc.MilvusServiceFutureStub futureStub = mock(MilvusServiceGrpc.MilvusServiceFutureStub.class);
+        when(futureStub.query(any(QueryRequest.class))).thenReturn(
+                Futures.immediateFuture(queryResults(Arrays.asList(1L, 2L))),
+                Futures.immediateFuture(queryResults(Collections.singletonList(3L))),
+                Futures.immediateFuture(queryResults(Collections.emptyList())));
+        QueryIterator iterator = new QueryIterator(
+                QueryIteratorReq.builder()
+                        .collectionName("test")
+                        .outputFields(Collections.singletonList("id"))
+                        .batchSize(2)
+                        .build(),
+                new RpcStubWrapper(stub, futureStub, 0L, "host:19530", "default"),
+                CreateCollectionReq.FieldSchema.builder()
+                        .name("id")
+                        .dataType(io.milvus.v2.common.DataType.Int64)
+                        .isPrimaryKey(true)
+                        .build(),
+                1001L);
+
+        RecordingSubscriber<QueryResultsWrapper.RowRecord> subscriber = new RecordingSubscriber<>();
+        IteratorPublisher.of(iterator).subscribe(subscriber);
+        verify(futureStub, times(0)).query(any(QueryRequest.class));
+
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.batches.size());
+        verify(futureStub, times(1)).query(any(QueryRequest.class));
+
+        subscriber.subscription.request(5);
+        assertEquals(2, subscriber.batches.size());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+        verify(futureStub, times(3)).query(any(QueryRequest.class));
+    }
+
+    @Test
+    void cancelCancelsInFlightCall() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.describeCollection(any(DescribeCollectionRequest.class))).thenReturn(describeCollectionResponse());
+        when(stub.search(any(SearchRequest.class))).thenReturn(searchResults());
+        MilvusServiceGrpc.MilvusServiceFutureStub futureStub = mock(MilvusServiceGrpc.MilvusServiceFutureStub.class);
+        SettableFuture<SearchResults> pending = SettableFuture.create();
+        when(futureStub.search(any(SearchRequest.class))).thenReturn(pending);
+        SearchIteratorV2 iterator = new SearchIteratorV2(searchRequest(),
+                new RpcStubWrapper(stub, futureStub, 0L, "host:19530", "default"));
+
+        RecordingSubscriber<SearchResp.SearchResult> subscriber = new RecordingSubscriber<>();
+        IteratorPublisher.of(iterator).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        subscriber.subscription.cancel();
+
+        assertTrue(pending.isCancelled());
+        assertTrue(subscriber.batches.isEmpty());
+        assertTrue(!subscriber.completed && subscriber.error == null);
+    }
+
+    @Test
+    void searchPublisherCompletesAfterEmptyPage() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.describeCollection(any(DescribeCollectionRequest.class))).thenReturn(describeCollectionResponse());
+        when(stub.search(any(SearchRequest.class))).thenReturn(searchResults());
+        MilvusServiceGrpc.MilvusServiceFutureStub futureStub = mock(MilvusServiceGrpc.MilvusServiceFutureStub.class);
+        when(futureStub.search(any(SearchRequest.class))).thenReturn(
+                Futures.immediateFuture(searchResults(1L, 2L)),
+                Futures.immediateFuture(searchResults(3L)),
+                Futures.immediateFuture(searchResults()));
+        SearchIteratorV2 iterator = new SearchIteratorV2(searchRequest(),
+                new RpcStubWrapper(stub, futureStub, 0L, "host:19530", "default"));
+
+        RecordingSubscriber<SearchResp.SearchResult> subscriber = new RecordingSubscriber<>();
+        IteratorPublisher<SearchResp.SearchResult> publisher = IteratorPublisher.of(iterator);
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(2, subscriber.batches.size());
+        assertEquals(2, subscriber.batches.get(0).size());
+        assertTrue(subscriber.completed);
+
+        // a publisher can only be subscribed once
+        RecordingSubscriber<SearchResp.SearchResult> second = new RecordingSubscriber<>();
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    void nonPositiveRequestIsAnError() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.describeCollection(any(DescribeCollectionRequest.class))).thenReturn(describeCollectionResponse());
+        when(stub.search(any(SearchRequest.class))).thenReturn(searchResults());
+        SearchIteratorV2 iterator = new SearchIteratorV2(searchRequest(),
+                new RpcStubWrapper(stub, 0L, "host:19530", "default"));
+
+        RecordingSubscriber<SearchResp.SearchResult> subscriber = new RecordingSubscriber<>();
+        IteratorPublisher.of(iterator).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private static class RecordingSubscriber<T> implements Subscriber<List<T>> {
+        private Subscription subscription;
+        private final List<List<T>> batches = new ArrayList<>();
+        private boolean completed = false;
+        private Throwable error = null;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(List<T> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static QueryResults queryResults(List<Long> ids) {
+        QueryResults.Builder builder = QueryResults.newBuilder()
+                .setStatus(successStatus())
+                .setSessionTs(100L);
+        if (!ids.isEmpty()) {
+            builder.addOutputFields("id")
+                    .addFieldsData(FieldData.newBuilder()
+                            .setFieldName("id")
+                            .setType(DataType.Int64)
+                            .setScalars(ScalarField.newBuilder()
+                                    .setLongData(LongArray.newBuilder().addAllData(ids).build())
+                                    .build())
+                            .build());
+        }
+        return builder.build();
+    }
+
+    private static SearchIteratorReqV2 searchRequest() {
+        return SearchIteratorReqV2.builder()
+                .collectionName("test")
+                .vectorFieldName("vector")
+                .metricType(IndexParam.MetricType.L2)
+                .vectors(Collections.singletonList(new FloatVec(Arrays.asList(1.0f, 2.0f))))
+                .batchSize(2)
+                .build();
+    }
+
+    private static DescribeCollectionResponse describeCollectionResponse() {
+        return DescribeCollectionResponse.newBuilder()
+                .setStatus(successStatus())
+                .setCollectionName("test")
+                .setCollectionID(100L)
+                .setSchema(CollectionSchema.newBuilder()
+                        .addFields(FieldSchema.newBuilder()
+                                .setName("id")
+                                .setDataType(DataType.Int64)
+                                .setIsPrimaryKey(true)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    private static SearchResults searchResults(Long... ids) {
+        SearchResultData.Builder resultBuilder = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(ids.length)
+                .addTopks(ids.length)
+                .setSearchIteratorV2Results(SearchIteratorV2Results.newBuilder()
+                        .setToken("token")
+                        .build());
+        if (ids.length > 0) {
+            resultBuilder.setIds(IDs.newBuilder()
+                    .setIntId(LongArray.newBuilder().addAllData(Arrays.asList(ids)).build())
+                    .build());
+            for (int i = 0; i < ids.length; i++) {
+                resultBuilder.addScores((float) i);
+            }
+        }
+        return SearchResults.newBuilder()
+                .setStatus(successStatus())
+                .setSessionTs(100L)
+                .setResults(resultBuilder.build())
+                .build();
+    }
+
+    private static Status successStatus() {
+        return Status.newBuilder().setCode(0).build();
+    }
+}
@@ -19,6 +19,7 @@
 
 package io.milvus.orm.iterator;
 
+import com.google.common.util.concurrent.Futures;
 import io.milvus.grpc.DataType;
 import io.milvus.grpc.ElementIndices;
 import io.milvus.grpc.FieldData;
@@ -99,6 +100,117 @@ class IteratorTest {
         verify(stub, times(2)).query(any(QueryRequest.class));
     }
 
+    @Test
+    void queryIteratorNextBatchChainsCursorAndHonorsLimit() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub =
+                mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.query(any(QueryRequest.class))).thenReturn(
+                queryResults(Collections.emptyList(), 100L),
+                queryResults(Arrays.asList(1L, 2L), 100L),
+                queryResults(Collections.singletonList(3L), 100L));
+
+        QueryIterator iterator = new QueryIterator(
+                QueryIteratorReq.builder()
+                        .collectionName("test")
+                        .outputFields(Collections.singletonList("id"))
+                        .batchSize(2)
+                        .limit(3)
+                        .build(),
+                testStubWrapper(stub),
+                primaryField(),
+                TEST_COLLECTION_ID);
+
+        assertEquals(2, iterator.nextBatch().getFieldsData(0).getScalars().getLongData().getDataCount());
+        assertEquals(1, iterator.nextBatch().getFieldsData(0).getScalars().getLongData().getDataCount());
+        assertEquals(0, iterator.nextBatch().getFieldsDataCount());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(stub, times(3)).query(captor.capture());
+        QueryRequest lastRequest = captor.getAllValues().get(2);
+        assertEquals("id > 2", lastRequest.getExpr());
+        assertEquals("1", queryParam(lastRequest, Constant.LIMIT));
+    }
+
+    @Test
+    void queryIteratorPrefetchChainsCursorOnFutureStub() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub =
+                mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.query(any(QueryRequest.class))).thenReturn(queryResults(Collections.emptyList(), 100L));
+        MilvusServiceGrpc.MilvusServiceFutureStub futureStub =
+                mock(MilvusServiceGrpc.MilvusServiceFutureStub.class);
+        when(futureStub.query(any(QueryRequest.class))).thenReturn(
+                Futures.immediateFuture(queryResults(Arrays.asList(1L, 2L), 100L)),
+                Futures.immediateFuture(queryResults(Arrays.asList(3L, 4L), 100L)),
+                Futures.immediateFuture(queryResults(Collections.singletonList(5L), 100L)),
+                Futures.immediateFuture(queryResults(Collections.emptyList(), 100L)));
+
+        QueryIterator iterator = new QueryIterator(
+                QueryIteratorReq.builder()
+                        .collectionName("test")
+                        .outputFields(Collections.singletonList("id"))
+                        .batchSize(2)
+                        .prefetchDepth(2)
+                        .build(),
+                new RpcStubWrapper(stub, futureStub, 0L, "host:19530", "default"),
+                primaryField(),
+                TEST_COLLECTION_ID);
+        // two batches are fetched ahead before the first next()
+        verify(futureStub, times(2)).query(any(QueryRequest.class));
+
+        assertEquals(Arrays.asList(1L, 2L), ids(iterator.next()));
+        assertEquals(Arrays.asList(3L, 4L), ids(iterator.next()));
+        assertEquals(Collections.singletonList(5L), ids(iterator.next()));
+        assertTrue(iterator.next().isEmpty());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(futureStub, times(4)).query(captor.capture());
+        assertEquals("", captor.getAllValues().get(0).getExpr());
+        assertEquals("id > 2", captor.getAllValues().get(1).getExpr());
+        assertEquals("id > 4", captor.getAllValues().get(2).getExpr());
+        assertEquals("id > 5", captor.getAllValues().get(3).getExpr());
+        assertEquals(100L, captor.getAllValues().get(3).getGuaranteeTimestamp());
+        // only the setup query goes through the blocking stub
+        verify(stub, times(1)).query(any(QueryRequest.class));
+    }
+
+    @Test
+    void queryIteratorPrefetchIsBoundedByBufferedRowsAndLimit() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub =
+                mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.query(any(QueryRequest.class))).thenReturn(queryResults(Collections.emptyList(), 100L));
+        MilvusServiceGrpc.MilvusServiceFutureStub futureStub =
+                mock(MilvusServiceGrpc.MilvusServiceFutureStub.class);
+        when(futureStub.query(any(QueryRequest.class))).thenReturn(
+                Futures.immediateFuture(queryResults(Arrays.asList(1L, 2L), 100L)),
+                Futures.immediateFuture(queryResults(Arrays.asList(3L, 4L), 100L)),
+                Futures.immediateFuture(queryResults(Collections.singletonList(5L), 100L)));
+
+        QueryIterator iterator = new QueryIterator(
+                QueryIteratorReq.builder()
+                        .collectionName("test")
+                        .outputFields(Collections.singletonList("id"))
+                        .batchSize(2)
+                        .limit(5)
+                        .prefetchDepth(4)
+                        .prefetchMaxBufferedRows(2)
+                        .build(),
+                new RpcStubWrapper(stub, futureStub, 0L, "host:19530", "default"),
+                primaryField(),
+                TEST_COLLECTION_ID);
+        verify(futureStub, times(1)).query(any(QueryRequest.class));
+
+        assertEquals(2, iterator.nextBatch().getFieldsData(0).getScalars().getLongData().getDataCount());
+        verify(futureStub, times(2)).query(any(QueryRequest.class));
+        assertEquals(2, iterator.nextBatch().getFieldsData(0).getScalars().getLongData().getDataCount());
+        assertEquals(1, iterator.nextBatch().getFieldsData(0).getScalars().getLongData().getDataCount());
+        assertEquals(0, iterator.nextBatch().getFieldsDataCount());
+
+        // the last batch is capped by the limit, and nothing is fetched after the limit is reached
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(futureStub, times(3)).query(captor.capture());
+        assertEquals("1", queryParam(captor.getAllValues().get(2), Constant.LIMIT));
+    }
+
     @Test
     void searchIteratorDrainsCachedResultsAndReleasesCacheAtLimit() throws ReflectiveOperationException {
         MilvusServiceGrpc.MilvusServiceBlockingStub stub =
@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.orm.iterator;
+
+import io.milvus.exception.ParamException;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.MilvusServiceGrpc;
+import io.milvus.grpc.QueryRequest;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.Status;
+import io.milvus.grpc.StringArray;
+import io.milvus.param.Constant;
+import io.milvus.response.QueryResultsWrapper;
+import io.milvus.v2.service.collection.request.CreateCollectionReq;
+import io.milvus.v2.service.vector.request.QueryIteratorReq;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParallelQueryIteratorTest {
+    private static final long SESSION_TS = 100L;
+    private static final Pattern CONDITION = Pattern.compile("id (>=|>|<) (\"((?:[^\"\\\\]|\\\\.)*)\"|-?\\d+)");
+
+    @Test
+    void int64RangesCoverCollectionAtSharedSnapshot() {
+        List<Comparable<?>> ids = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            ids.add(i * 10);
+        }
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(ids, DataType.Int64);
+
+        ParallelQueryIterator iterator = new ParallelQueryIterator(request(), testStubWrapper(stub),
+                primaryField(DataType.Int64), 1001L, null, 4);
+
+        assertEquals(Arrays.asList("id < 257", "id >= 257 and id < 505", "id >= 505 and id < 752", "id >= 752"),
+                iterator.getRangeExprs());
+        List<Long> scanned = iterator.stream()
+                .map(record -> (Long) record.get("id"))
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(ids, scanned);
+
+        // every query after the setup reads at the snapshot of the setup
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(stub, atLeastOnce()).query(captor.capture());
+        for (QueryRequest request : captor.getAllValues().subList(1, captor.getAllValues().size())) {
+            assertEquals(SESSION_TS, request.getGuaranteeTimestamp());
+        }
+    }
+
+    @Test
+    void varcharRangesAreSplitByLeadingCharacter() {
+        List<Comparable<?>> ids = new ArrayList<>();
+        for (char c : "abcdefgh".toCharArray()) {
+            for (int i = 0; i < 5; i++) {
+                ids.add(c + "-" + i);
+            }
+        }
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(ids, DataType.VarChar);
+
+        ParallelQueryIterator iterator = new ParallelQueryIterator(request(), testStubWrapper(stub),
+                primaryField(DataType.VarChar), 1001L, null, 3);
+
+        assertEquals(Arrays.asList("id < \"c\"", "id >= \"c\" and id < \"f\"", "id >= \"f\""),
+                iterator.getRangeExprs());
+        List<String> scanned = Collections.synchronizedList(new ArrayList<>());
+        iterator.forEachBatch(2, batch -> {
+            for (QueryResultsWrapper.RowRecord record : batch) {
+                scanned.add((String) record.get("id"));
+            }
+        });
+        Collections.sort(scanned);
+        assertEquals(ids, scanned);
+    }
+
+    @Test
+    void varcharKeysSharingPrefixAreSplitByLongerPrefix() {
+        List<Comparable<?>> ids = new ArrayList<>();
+        for (char c : "0123456789abcdef".toCharArray()) {
+            for (int i = 0; i < 3; i++) {
+                ids.add("doc_" + c + i);
+            }
+        }
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(ids, DataType.VarChar);
+
+        ParallelQueryIterator iterator = new ParallelQueryIterator(request(), testStubWrapper(stub),
+                primaryField(DataType.VarChar), 1001L, null, 4);
+
+        assertEquals(Arrays.asList("id < \"doc_4\"", "id >= \"doc_4\" and id < \"doc_8\"",
+                "id >= \"doc_8\" and id < \"doc_c\"", "id >= \"doc_c\""), iterator.getRangeExprs());
+        List<String> scanned = iterator.stream()
+                .map(record -> (String) record.get("id"))
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(ids, scanned);
+    }
+
+    @Test
+    void varcharPrefixSkipsSurrogateBlock() {
+        List<Comparable<?>> ids = Arrays.asList("\uD7FFa", "\uD7FFb", "\uE000a", "\uE001a");
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(ids, DataType.VarChar);
+
+        ParallelQueryIterator iterator = new ParallelQueryIterator(request(), testStubWrapper(stub),
+                primaryField(DataType.VarChar), 1001L, null, 3);
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(stub, atLeastOnce()).query(captor.capture());
+        for (QueryRequest request : captor.getAllValues()) {
+            for (char c : request.getExpr().toCharArray()) {
+                assertFalse(Character.isSurrogate(c), request.getExpr());
+            }
+        }
+        assertEquals(Arrays.asList("id < \"\uE000\"", "id >= \"\uE000\" and id < \"\uE001\"", "id >= \"\uE001\""),
+                iterator.getRangeExprs());
+    }
+
+    @Test
+    void failedRangeStopsScanAtOnce() {
+        List<Comparable<?>> ids = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            ids.add(i * 10);
+        }
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(ids, DataType.Int64);
+        ParallelQueryIterator iterator = new ParallelQueryIterator(request(), testStubWrapper(stub),
+                primaryField(DataType.Int64), 1001L, null, 4);
+        // the last range fails, the first one is stuck in the consumer until interrupted
+        RuntimeException error = new RuntimeException("range failed");
+        when(stub.query(argThat(request -> request != null && request.getExpr().startsWith("id >= 752"))))
+                .thenThrow(error);
+        CountDownLatch never = new CountDownLatch(1);
+
+        RuntimeException thrown = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThrows(RuntimeException.class, () -> iterator.forEachBatch(4, batch -> {
+                    if ((Long) batch.get(0).get("id") < 257) {
+                        try {
+                            never.await();
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                })));
+        assertTrue(thrown == error || thrown.getCause() == error || thrown.getMessage().contains("range failed"),
+                String.valueOf(thrown));
+    }
+
+    @Test
+    void partitionsAreScannedSeparately() {
+        List<Comparable<?>> ids = Arrays.asList(1L, 2L, 3L, 4L);
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(ids, DataType.Int64);
+        QueryIteratorReq req = request();
+        req.setPartitionNames(Arrays.asList("p1", "p2"));
+
+        ParallelQueryIterator iterator = new ParallelQueryIterator(req, testStubWrapper(stub),
+                primaryField(DataType.Int64), 1001L, null, 2);
+
+        assertEquals(2, iterator.getRangeExprs().size());
+        assertEquals(4, iterator.getScanUnitCount());
+    }
+
+    @Test
+    void limitIsRejected() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(Collections.emptyList(), DataType.Int64);
+        QueryIteratorReq req = request();
+        req.setLimit(10L);
+
+        assertThrows(ParamException.class, () -> new ParallelQueryIterator(req, testStubWrapper(stub),
+                primaryField(DataType.Int64), 1001L, null, 2));
+    }
+
+    @Test
+    void emptyCollectionIsOneRange() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = fakeCollection(Collections.emptyList(), DataType.Int64);
+
+        ParallelQueryIterator iterator = new ParallelQueryIterator(request(), testStubWrapper(stub),
+                primaryField(DataType.Int64), 1001L, null, 4);
+
+        assertEquals(Collections.singletonList(""), iterator.getRangeExprs());
+        assertTrue(iterator.stream().collect(Collectors.toList()).isEmpty());
+    }
+
+    private static QueryIteratorReq request() {
+        return QueryIteratorReq.builder()
+                .collectionName("test")
+                .outputFields(Collections.singletonList("id"))
+                .batchSize(7)
+                .build();
+    }
+
+    private static RpcStubWrapper testStubWrapper(MilvusServiceGrpc.MilvusServiceBlockingStub stub) {
+        return new RpcStubWrapper(stub, 0L, "host:19530", "default");
+    }
+
+    private static CreateCollectionReq.FieldSchema primaryField(DataType dataType) {
+        return CreateCollectionReq.FieldSchema.builder()
+                .name("id")
+                .dataType(io.milvus.v2.common.DataType.valueOf(dataType.name()))
+                .isPrimaryKey(true)
+                .maxLength(64)
+                .build();
+    }
+
+    // answers queries by evaluating the primary key conditions of the expression on a sorted id list
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static MilvusServiceGrpc.MilvusServiceBlockingStub fakeCollection(List<Comparable<?>> ids,
+                                                                              DataType dataType) {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.query(any(QueryRequest.class))).thenAnswer(invocation -> {
+            QueryRequest request = invocation.getArgument(0);
+            long limit = Long.parseLong(queryParam(request, Constant.LIMIT));
+            List<Comparable> matched = new ArrayList<>();
+            for (Comparable id : ids) {
+                if (matched.size() < limit && matches(request.getExpr(), id)) {
+                    matched.add(id);
+                }
+            }
+            ScalarField.Builder scalars = ScalarField.newBuilder();
+            if (dataType == DataType.VarChar) {
+                StringArray.Builder data = StringArray.newBuilder();
+                matched.forEach(id -> data.addData((String) id));
+                scalars.setStringData(data);
+            } else {
+                LongArray.Builder data = LongArray.newBuilder();
+                matched.forEach(id -> data.addData((Long) id));
+                scalars.setLongData(data);
+            }
+            QueryResults.Builder builder = QueryResults.newBuilder()
+                    .setStatus(Status.newBuilder().setCode(0).build())
+                    .setSessionTs(SESSION_TS);
+            if (!matched.isEmpty()) {
+                builder.addOutputFields("id")
+                        .addFieldsData(FieldData.newBuilder()
+                                .setFieldName("id")
+                                .setType(dataType)
+                                .setScalars(scalars)
+                                .build());
+            }
+            return builder.build();
+        });
+        return stub;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean matches(String expr, Comparable id) {
+        Matcher matcher = CONDITION.matcher(expr);
+        while (matcher.find()) {
+            Comparable value = matcher.group(3) != null
+                    ? matcher.group(3).replace("\\\"", "\"").replace("\\\\", "\\")
+                    : Long.valueOf(matcher.group(2));
+            int compare = id.compareTo(value);
+            String operator = matcher.group(1);
+            if ((operator.equals(">=") && compare < 0) || (operator.equals(">") && compare <= 0)
+                    || (operator.equals("<") && compare >= 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String queryParam(QueryRequest request, String key) {
+        for (KeyValuePair param : request.getQueryParamsList()) {
+            if (key.equals(param.getKey())) {
+                return param.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -19,12 +19,14 @@
 
 package io.milvus.orm.iterator;
 
+import com.google.common.util.concurrent.Futures;
 import io.milvus.grpc.CollectionSchema;
 import io.milvus.grpc.DataType;
 import io.milvus.grpc.DescribeCollectionRequest;
 import io.milvus.grpc.DescribeCollectionResponse;
 import io.milvus.grpc.FieldSchema;
 import io.milvus.grpc.IDs;
+import io.milvus.grpc.KeyValuePair;
 import io.milvus.grpc.LongArray;
 import io.milvus.grpc.MilvusServiceGrpc;
 import io.milvus.grpc.SearchIteratorV2Results;
@@ -160,6 +162,45 @@ class SearchIteratorV2Test {
         assertEquals(0, cacheSize(iterator));
     }
 
+    @Test
+    void prefetchChainsLastBoundOnFutureStub() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mockStub(
+                searchResults(12345678L), searchResults(22345678L));
+        MilvusServiceGrpc.MilvusServiceFutureStub futureStub =
+                mock(MilvusServiceGrpc.MilvusServiceFutureStub.class);
+        when(futureStub.search(any(SearchRequest.class))).thenReturn(
+                Futures.immediateFuture(searchResults(22345678L, 1L, 2L)),
+                Futures.immediateFuture(searchResults(22345678L, 3L)),
+                Futures.immediateFuture(searchResults(22345678L)));
+        SearchIteratorReqV2 req = request(new HashMap<>());
+        req.setPrefetchDepth(1);
+
+        SearchIteratorV2 iterator = new SearchIteratorV2(req,
+                new RpcStubWrapper(stub, futureStub, 0L, "host:19530", "default"));
+        verify(futureStub, times(1)).search(any(SearchRequest.class));
+
+        assertEquals(2, iterator.next().size());
+        assertEquals(1, iterator.next().size());
+        assertTrue(iterator.next().isEmpty());
+
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(futureStub, times(3)).search(captor.capture());
+        assertEquals("2.0", searchParam(captor.getAllValues().get(1), "search_iter_last_bound"));
+        assertEquals("token", searchParam(captor.getAllValues().get(1), "search_iter_id"));
+        assertEquals(12345678L, captor.getAllValues().get(2).getGuaranteeTimestamp());
+        // only the probe goes through the blocking stub
+        verify(stub, times(1)).search(any(SearchRequest.class));
+    }
+
+    private static String searchParam(SearchRequest request, String key) {
+        for (KeyValuePair param : request.getSearchParamsList()) {
+            if (key.equals(param.getKey())) {
+                return param.getValue();
+            }
+        }
+        return null;
+    }
+
     private static int cacheSize(SearchIteratorV2 iterator) throws ReflectiveOperationException {
         java.lang.reflect.Field cacheField = SearchIteratorV2.class.getDeclaredField("cache");
         cacheField.setAccessible(true);
@@ -227,6 +268,7 @@ class SearchIteratorV2Test {
                 .addTopks(ids.length)
                 .setSearchIteratorV2Results(SearchIteratorV2Results.newBuilder()
                         .setToken("token")
+                        .setLastBound(ids.length)
                         .build());
         if (ids.length > 0) {
             resultBuilder.setIds(IDs.newBuilder()
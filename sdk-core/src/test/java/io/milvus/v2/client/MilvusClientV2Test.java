@@ -756,15 +756,23 @@ public class MilvusClientV2Test extends BaseTest {
         VerifyClass(HybridSearchReq.class.getName(), config);
         VerifyClass(SearchIteratorReq.class.getName(), config);
         VerifyClass(SearchIteratorReqV2.class.getName(), config);
-        config.clearIgnoredMethods();
+        config.setIgnoredMethods(Arrays.asList("inSetFilter", "getInSetFilter"));
         VerifyClass(DeleteReq.class.getName(), config);
+        config.clearIgnoredMethods();
+        config.setIgnoredMethods(Arrays.asList("searchReq", "setSearchReq", "getSearchReq", "targets", "setTargets", "getTargets"));
+        VerifyClass(FanOutSearchReq.class.getName(), config);
+        config.clearIgnoredMethods();
+        VerifyClass(FanOutSearchReq.SearchTarget.class.getName(), config);
         VerifyClass(FunctionScore.class.getName(), config);
         VerifyClass(GetReq.class.getName(), config);
         VerifyClass(InsertReq.class.getName(), config);
         VerifyClass(QueryIteratorReq.class.getName(), config);
+        config.setIgnoredMethods(Arrays.asList("inSetFilter", "getInSetFilter"));
         VerifyClass(QueryReq.class.getName(), config);
+        config.clearIgnoredMethods();
         VerifyClass(RunAnalyzerReq.class.getName(), config);
-        config.setIgnoredMethods(Arrays.asList("topK", "setTopK", "getTopK", "searchAggregation", "setSearchAggregation", "getSearchAggregation"));
+        config.setIgnoredMethods(Arrays.asList("topK", "setTopK", "getTopK", "searchAggregation", "setSearchAggregation", "getSearchAggregation",
+                "inSetFilter", "getInSetFilter"));
         VerifyClass(SearchReq.class.getName(), config);
         config.clearIgnoredMethods();
         VerifyClass(UpsertReq.class.getName(), config);
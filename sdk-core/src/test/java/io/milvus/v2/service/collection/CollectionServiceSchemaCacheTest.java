@@ -19,11 +19,15 @@
 
 package io.milvus.v2.service.collection;
 
+import io.grpc.StatusRuntimeException;
 import io.milvus.common.utils.cache.CollectionTsCache;
 import io.milvus.common.utils.cache.SchemaCache;
+import io.milvus.grpc.BatchDescribeCollectionRequest;
+import io.milvus.grpc.BatchDescribeCollectionResponse;
 import io.milvus.grpc.DescribeCollectionResponse;
 import io.milvus.grpc.MilvusServiceGrpc;
 import io.milvus.grpc.SearchRequest;
+import io.milvus.grpc.ShowCollectionsResponse;
 import io.milvus.grpc.Status;
 import io.milvus.v2.common.ConsistencyLevel;
 import io.milvus.v2.service.collection.request.AlterCollectionFieldReq;
@@ -31,6 +35,8 @@ import io.milvus.v2.service.collection.request.AlterCollectionPropertiesReq;
 import io.milvus.v2.service.collection.request.CreateCollectionReq;
 import io.milvus.v2.service.collection.request.DropCollectionPropertiesReq;
 import io.milvus.v2.service.collection.request.RenameCollectionReq;
+import io.milvus.v2.service.collection.request.WarmUpSchemaCacheReq;
+import io.milvus.v2.service.collection.response.WarmUpSchemaCacheResp;
 import io.milvus.v2.service.vector.request.SearchReq;
 import io.milvus.v2.service.vector.request.data.FloatVec;
 import io.milvus.v2.utils.VectorUtils;
@@ -38,15 +44,21 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class CollectionServiceSchemaCacheTest {
@@ -179,4 +191,100 @@ class CollectionServiceSchemaCacheTest {
                 .build());
         assertEquals(100L, request.getGuaranteeTimestamp());
     }
+
+    @Test
+    void warmUpLoadsAllCollectionsOfDatabaseInBatches() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        Status success = Status.newBuilder().setCode(0).build();
+        when(stub.showCollections(any())).thenReturn(ShowCollectionsResponse.newBuilder()
+                .setStatus(success)
+                .addAllCollectionNames(Arrays.asList("c1", "c2", "c3", "c4", "c5", "missing"))
+                .build());
+        when(stub.batchDescribeCollection(any())).thenAnswer(invocation -> {
+            BatchDescribeCollectionRequest request = invocation.getArgument(0);
+            assertEquals(DATABASE, request.getDbName());
+            BatchDescribeCollectionResponse.Builder builder = BatchDescribeCollectionResponse.newBuilder()
+                    .setStatus(success);
+            for (String name : request.getCollectionNameList()) {
+                builder.addResponses(DescribeCollectionResponse.newBuilder()
+                        .setStatus(name.equals("missing") ? Status.newBuilder().setCode(100).build() : success)
+                        .setCollectionName(name)
+                        .setCollectionID(name.hashCode())
+                        .build());
+            }
+            return builder.build();
+        });
+
+        CollectionService service = new CollectionService();
+        service.setEndpoint(ENDPOINT);
+        service.setCurrentDbName("default");
+        DescribeCollectionResponse cached = DescribeCollectionResponse.newBuilder().setCollectionID(1L).build();
+        SchemaCache.getInstance().set(ENDPOINT, DATABASE, "c1", cached);
+
+        WarmUpSchemaCacheResp resp = service.warmUpSchemaCache(() -> stub, WarmUpSchemaCacheReq.builder()
+                .databaseName(DATABASE)
+                .batchSize(2)
+                .parallelism(2)
+                .build());
+
+        assertEquals(Collections.singletonList("c1"), resp.getSkippedCollectionNames());
+        assertEquals(new HashSet<>(Arrays.asList("c2", "c3", "c4", "c5")), new HashSet<>(resp.getLoadedCollectionNames()));
+        assertEquals(Collections.singletonList("missing"), resp.getFailedCollectionNames());
+        verify(stub, times(3)).batchDescribeCollection(any());
+        assertSame(cached, SchemaCache.getInstance().get(ENDPOINT, DATABASE, "c1"));
+        assertEquals("c3".hashCode(), SchemaCache.getInstance().get(ENDPOINT, DATABASE, "c3").getCollectionID());
+        assertNull(SchemaCache.getInstance().get(ENDPOINT, DATABASE, "missing"));
+    }
+
+    @Test
+    void warmUpCachesAliasUnderTheRequestedName() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        Status success = Status.newBuilder().setCode(0).build();
+        // the response of an alias names the collection behind it
+        when(stub.batchDescribeCollection(any())).thenReturn(BatchDescribeCollectionResponse.newBuilder()
+                .setStatus(success)
+                .addResponses(DescribeCollectionResponse.newBuilder()
+                        .setStatus(success)
+                        .setCollectionName("c1")
+                        .setCollectionID(1L)
+                        .build())
+                .addResponses(DescribeCollectionResponse.newBuilder()
+                        .setStatus(success)
+                        .setCollectionName("c1")
+                        .setCollectionID(1L)
+                        .build())
+                .build());
+
+        CollectionService service = new CollectionService();
+        service.setEndpoint(ENDPOINT);
+        service.setCurrentDbName(DATABASE);
+
+        WarmUpSchemaCacheResp resp = service.warmUpSchemaCache(() -> stub, WarmUpSchemaCacheReq.builder()
+                .collectionNames(Arrays.asList("alias_of_c1", "c1"))
+                .build());
+
+        assertEquals(Arrays.asList("alias_of_c1", "c1"), resp.getLoadedCollectionNames());
+        assertTrue(resp.getFailedCollectionNames().isEmpty());
+        assertEquals(1L, SchemaCache.getInstance().get(ENDPOINT, DATABASE, "alias_of_c1").getCollectionID());
+        assertEquals(1L, SchemaCache.getInstance().get(ENDPOINT, DATABASE, "c1").getCollectionID());
+    }
+
+    @Test
+    void warmUpReportsFailedBatchWithoutThrowing() {
+        MilvusServiceGrpc.MilvusServiceBlockingStub stub = mock(MilvusServiceGrpc.MilvusServiceBlockingStub.class);
+        when(stub.batchDescribeCollection(any())).thenThrow(new StatusRuntimeException(io.grpc.Status.UNIMPLEMENTED));
+
+        CollectionService service = new CollectionService();
+        service.setEndpoint(ENDPOINT);
+        service.setCurrentDbName(DATABASE);
+
+        WarmUpSchemaCacheResp resp = service.warmUpSchemaCache(() -> stub, WarmUpSchemaCacheReq.builder()
+                .collectionNames(Arrays.asList("c1", "c2", "c1"))
+                .build());
+
+        assertTrue(resp.getLoadedCollectionNames().isEmpty());
+        assertEquals(Arrays.asList("c1", "c2"), resp.getFailedCollectionNames());
+        verify(stub, never()).showCollections(any());
+        assertNull(SchemaCache.getInstance().get(ENDPOINT, DATABASE, "c1"));
+    }
 }
@@ -22,6 +22,7 @@ package io.milvus.v2.service.vector;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.gson.JsonObject;
+import io.grpc.CallOptions;
 import io.milvus.common.interceptor.ClientRequestInterceptor;
 import io.milvus.common.utils.JsonUtils;
 import io.milvus.common.utils.cache.SchemaCache;
@@ -42,7 +43,10 @@ import io.milvus.v2.service.vector.request.aggregation.OrderSpec;
 import io.milvus.v2.service.vector.request.aggregation.SearchAggregation;
 import io.milvus.v2.service.vector.request.aggregation.SortSpec;
 import io.milvus.v2.service.vector.request.aggregation.TopHitsSpec;
+import io.milvus.v2.service.vector.request.data.BaseVector;
 import io.milvus.v2.service.vector.request.data.FloatVec;
+import io.milvus.v2.service.vector.request.filter.Filters;
+import io.milvus.v2.service.vector.request.filter.InSetFilter;
 import io.milvus.v2.service.vector.response.*;
 import io.milvus.v2.service.vector.response.aggregation.AggregationBucket;
 import io.milvus.v2.service.vector.response.aggregation.AggregationHit;
@@ -58,7 +62,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.clearInvocations;
@@ -159,6 +165,307 @@ class VectorTest extends BaseTest {
         Assertions.assertEquals(456L, resp.getCost());
     }
 
+    @Test
+    void testDeleteByIdsPassesIdsAsTemplateInChunks() {
+        when(blockingStub.delete(any())).thenReturn(MutationResult.newBuilder()
+                .setDeleteCnt(3L)
+                .setStatus(Status.newBuilder().setCode(0).build())
+                .build());
+        List<Object> ids = new ArrayList<>();
+        for (long i = 0; i < VectorService.ID_CHUNK_SIZE * 2 + 5; i++) {
+            ids.add(i);
+        }
+        DeleteReq request = DeleteReq.builder()
+                .collectionName("test")
+                .ids(ids)
+                .build();
+
+        DeleteResp resp = client_v2.delete(request);
+
+        ArgumentCaptor<DeleteRequest> captor = ArgumentCaptor.forClass(DeleteRequest.class);
+        verify(blockingStub, times(3)).delete(captor.capture());
+        List<Long> sent = new ArrayList<>();
+        for (DeleteRequest deleteRequest : captor.getAllValues()) {
+            Assertions.assertEquals("id in {ids}", deleteRequest.getExpr());
+            sent.addAll(deleteRequest.getExprTemplateValuesOrThrow("ids").getArrayVal().getLongData().getDataList());
+        }
+        Assertions.assertEquals(ids, new ArrayList<Object>(sent));
+        Assertions.assertEquals(9L, resp.getDeleteCnt());
+        // the request is left untouched, so a retry sends the same ids
+        Assertions.assertNull(request.getFilter());
+    }
+
+    @Test
+    void testDeleteByIdsRetriesOnlyTheFailedChunk() {
+        client_v2.retryConfig(io.milvus.v2.client.RetryConfig.builder()
+                .maxRetryTimes(2)
+                .initialBackOffMs(0)
+                .maxBackOffMs(0)
+                .build());
+        MutationResult deleted = MutationResult.newBuilder()
+                .setDeleteCnt(3L)
+                .setStatus(Status.newBuilder().setCode(0).build())
+                .build();
+        when(blockingStub.delete(any()))
+                .thenReturn(deleted)
+                .thenThrow(io.grpc.Status.UNAVAILABLE.asRuntimeException())
+                .thenReturn(deleted);
+        List<Object> ids = new ArrayList<>();
+        for (long i = 0; i < VectorService.ID_CHUNK_SIZE * 2 + 5; i++) {
+            ids.add(i);
+        }
+
+        DeleteResp resp = client_v2.delete(DeleteReq.builder()
+                .collectionName("test")
+                .ids(ids)
+                .build());
+
+        // the first chunk is not sent again when the second one is retried
+        ArgumentCaptor<DeleteRequest> captor = ArgumentCaptor.forClass(DeleteRequest.class);
+        verify(blockingStub, times(4)).delete(captor.capture());
+        List<Long> sent = new ArrayList<>();
+        for (DeleteRequest deleteRequest : captor.getAllValues()) {
+            sent.add(deleteRequest.getExprTemplateValuesOrThrow("ids").getArrayVal().getLongData().getData(0));
+        }
+        Assertions.assertEquals(Arrays.asList(0L, (long) VectorService.ID_CHUNK_SIZE,
+                (long) VectorService.ID_CHUNK_SIZE, VectorService.ID_CHUNK_SIZE * 2L), sent);
+        Assertions.assertEquals(9L, resp.getDeleteCnt());
+    }
+
+    @Test
+    void testGetWithManyIdsQueriesChunksInParallel() throws Exception {
+        List<SettableFuture<QueryResults>> calls = new ArrayList<>();
+        List<List<Long>> callIds = new ArrayList<>();
+        AtomicBoolean completeImmediately = new AtomicBoolean(false);
+        when(futureStub.query(any())).thenAnswer(invocation -> {
+            QueryRequest queryRequest = invocation.getArgument(0);
+            callIds.add(queryRequest.getExprTemplateValuesOrThrow("ids").getArrayVal().getLongData().getDataList());
+            SettableFuture<QueryResults> future = SettableFuture.create();
+            calls.add(future);
+            if (completeImmediately.get()) {
+                future.set(idResults(callIds.get(callIds.size() - 1)));
+            }
+            return future;
+        });
+        List<Object> ids = new ArrayList<>();
+        for (long i = 0; i < VectorService.ID_CHUNK_SIZE + 10; i++) {
+            ids.add(i);
+        }
+        GetReq request = GetReq.builder()
+                .collectionName("test")
+                .ids(ids)
+                .build();
+
+        // both chunks are in flight before any of them completes
+        CompletableFuture<GetResp> future = client_v2.getAsync(request);
+        Assertions.assertEquals(2, calls.size());
+        Assertions.assertFalse(future.isDone());
+        calls.get(1).set(idResults(callIds.get(1)));
+        calls.get(0).set(idResults(callIds.get(0)));
+        GetResp resp = future.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(ids.size(), resp.getGetResults().size());
+        Assertions.assertEquals(0L, resp.getGetResults().get(0).getEntity().get("id"));
+        Assertions.assertEquals((long) VectorService.ID_CHUNK_SIZE + 9,
+                resp.getGetResults().get(ids.size() - 1).getEntity().get("id"));
+
+        // the blocking get takes the same path for a huge id list
+        completeImmediately.set(true);
+        Assertions.assertEquals(ids.size(), client_v2.get(request).getGetResults().size());
+        Assertions.assertEquals(4, calls.size());
+        verify(blockingStub, never()).query(any(QueryRequest.class));
+    }
+
+    @Test
+    void testGetWithManyIdsBoundsChunksInFlight() throws Exception {
+        List<SettableFuture<QueryResults>> calls = new ArrayList<>();
+        List<List<Long>> callIds = new ArrayList<>();
+        when(futureStub.query(any())).thenAnswer(invocation -> {
+            QueryRequest queryRequest = invocation.getArgument(0);
+            callIds.add(queryRequest.getExprTemplateValuesOrThrow("ids").getArrayVal().getLongData().getDataList());
+            SettableFuture<QueryResults> future = SettableFuture.create();
+            calls.add(future);
+            return future;
+        });
+        int chunkCount = VectorService.ID_CHUNK_PARALLELISM + 2;
+        List<Object> ids = new ArrayList<>();
+        for (long i = 0; i < (long) VectorService.ID_CHUNK_SIZE * chunkCount; i++) {
+            ids.add(i);
+        }
+
+        CompletableFuture<GetResp> future = client_v2.getAsync(GetReq.builder()
+                .collectionName("test")
+                .ids(ids)
+                .build());
+
+        // each completed chunk starts the next one
+        Assertions.assertEquals(VectorService.ID_CHUNK_PARALLELISM, calls.size());
+        for (int i = 0; i < chunkCount; i++) {
+            calls.get(i).set(idResults(callIds.get(i)));
+            Assertions.assertEquals(Math.min(chunkCount, VectorService.ID_CHUNK_PARALLELISM + i + 1), calls.size());
+        }
+        GetResp resp = future.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(ids.size(), resp.getGetResults().size());
+        Assertions.assertEquals((long) ids.size() - 1, resp.getGetResults().get(ids.size() - 1).getEntity().get("id"));
+    }
+
+    private static QueryResults idResults(List<Long> ids) {
+        return QueryResults.newBuilder()
+                .setStatus(Status.newBuilder().setCode(0).build())
+                .setPrimaryFieldName("id")
+                .addOutputFields("id")
+                .addFieldsData(FieldData.newBuilder()
+                        .setFieldName("id")
+                        .setType(DataType.Int64)
+                        .setScalars(ScalarField.newBuilder()
+                                .setLongData(LongArray.newBuilder().addAllData(ids).build())
+                                .build())
+                        .build())
+                .build();
+    }
+
+    @Test
+    void testQueryDropsFalsePositivesOfBloomInSetFilter() {
+        long[] members = new long[5000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = (i + 1) * 0x9E3779B97F4A7C15L;
+        }
+        InSetFilter inSetFilter = Filters.inSet("id", members);
+        Assertions.assertFalse(inSetFilter.isExact());
+        // the server returns two members and a false positive
+        when(blockingStub.query(any())).thenReturn(idResults(Arrays.asList(members[0], 12345L, members[9])));
+
+        QueryResp resp = client_v2.query(QueryReq.builder()
+                .collectionName("test")
+                .filter("tag == 1")
+                .inSetFilter(inSetFilter)
+                .outputFields(Collections.singletonList("tag"))
+                .build());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(blockingStub).query(captor.capture());
+        QueryRequest sent = captor.getValue();
+        Assertions.assertEquals("(tag == 1) and bloom_match(id, {inset_id})", sent.getExpr());
+        Assertions.assertTrue(sent.getExprTemplateValuesOrThrow("inset_id").hasBytesVal());
+        Assertions.assertEquals(Arrays.asList("tag", "id"), sent.getOutputFieldsList());
+        Assertions.assertEquals(2, resp.getQueryResults().size());
+        Assertions.assertEquals(members[0], resp.getQueryResults().get(0).getEntity().get("id"));
+        Assertions.assertEquals(members[9], resp.getQueryResults().get(1).getEntity().get("id"));
+    }
+
+    private static long[] bloomMembers() {
+        long[] members = new long[5000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = (i + 1) * 0x9E3779B97F4A7C15L;
+        }
+        return members;
+    }
+
+    private static QueryResults userResults(List<Long> userIds) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            ids.add((long) i);
+        }
+        return QueryResults.newBuilder()
+                .setStatus(Status.newBuilder().setCode(0).build())
+                .setPrimaryFieldName("id")
+                .addOutputFields("id")
+                .addOutputFields("user_id")
+                .addFieldsData(FieldData.newBuilder()
+                        .setFieldName("id")
+                        .setType(DataType.Int64)
+                        .setScalars(ScalarField.newBuilder()
+                                .setLongData(LongArray.newBuilder().addAllData(ids).build())
+                                .build())
+                        .build())
+                .addFieldsData(FieldData.newBuilder()
+                        .setFieldName("user_id")
+                        .setType(DataType.Int64)
+                        .setScalars(ScalarField.newBuilder()
+                                .setLongData(LongArray.newBuilder().addAllData(userIds).build())
+                                .build())
+                        .build())
+                .build();
+    }
+
+    // hits of the primary key "id", in decreasing scores
+    private static SearchResults idHits(long[] ids) {
+        float[] scores = new float[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            scores[i] = 1.0f - i / 10.0f;
+        }
+        SearchResults hits = searchHits(ids, scores);
+        return hits.toBuilder().setResults(hits.getResults().toBuilder().setPrimaryFieldName("id")).build();
+    }
+
+    private static String paramOf(List<KeyValuePair> params, String key) {
+        for (KeyValuePair param : params) {
+            if (param.getKey().equals(key)) {
+                return param.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void testQueryRefillsLimitOfBloomInSetFilter() {
+        long[] members = bloomMembers();
+        InSetFilter inSetFilter = Filters.inSet("user_id", members);
+        Assertions.assertFalse(inSetFilter.isExact());
+        // a full window of 3 rows holds a false positive, the query is sent again for 6 rows
+        when(blockingStub.query(any())).thenReturn(
+                userResults(Arrays.asList(members[0], 12345L, members[1])),
+                userResults(Arrays.asList(members[0], 12345L, members[1], members[2], 67890L, members[3])));
+
+        QueryResp resp = client_v2.query(QueryReq.builder()
+                .collectionName("test")
+                .inSetFilter(inSetFilter)
+                .outputFields(Collections.singletonList("id"))
+                .offset(1)
+                .limit(2)
+                .build());
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(blockingStub, times(2)).query(captor.capture());
+        Assertions.assertEquals("3", paramOf(captor.getAllValues().get(0).getQueryParamsList(), Constant.LIMIT));
+        Assertions.assertEquals("6", paramOf(captor.getAllValues().get(1).getQueryParamsList(), Constant.LIMIT));
+        Assertions.assertNull(paramOf(captor.getAllValues().get(1).getQueryParamsList(), Constant.OFFSET));
+        Assertions.assertEquals(Arrays.asList("id", "user_id"), captor.getAllValues().get(0).getOutputFieldsList());
+
+        // offset 1 and limit 2 of the verified rows, the added filter field is removed
+        Assertions.assertEquals(2, resp.getQueryResults().size());
+        Assertions.assertEquals(2L, resp.getQueryResults().get(0).getEntity().get("id"));
+        Assertions.assertEquals(3L, resp.getQueryResults().get(1).getEntity().get("id"));
+        Assertions.assertFalse(resp.getQueryResults().get(0).getEntity().containsKey("user_id"));
+    }
+
+    @Test
+    void testSearchRefillsLimitOfBloomInSetFilter() {
+        long[] members = bloomMembers();
+        InSetFilter inSetFilter = Filters.inSet("id", members);
+        when(blockingStub.search(any())).thenReturn(
+                idHits(new long[]{members[0], 12345L, members[1]}),
+                idHits(new long[]{members[0], 12345L, members[1], members[2], 67890L, members[3]}));
+
+        SearchResp resp = client_v2.search(SearchReq.builder()
+                .collectionName("test")
+                .data(Collections.singletonList(new FloatVec(new float[]{1.0f, 2.0f})))
+                .inSetFilter(inSetFilter)
+                .offset(1)
+                .limit(2)
+                .build());
+
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(blockingStub, times(2)).search(captor.capture());
+        Assertions.assertEquals("3", paramOf(captor.getAllValues().get(0).getSearchParamsList(), Constant.TOP_K));
+        Assertions.assertEquals("6", paramOf(captor.getAllValues().get(1).getSearchParamsList(), Constant.TOP_K));
+        Assertions.assertEquals("0", paramOf(captor.getAllValues().get(1).getSearchParamsList(), Constant.OFFSET));
+
+        List<SearchResp.SearchResult> hits = resp.getSearchResults().get(0);
+        Assertions.assertEquals(Arrays.asList(members[1], members[2]),
+                hits.stream().map(SearchResp.SearchResult::getId).collect(Collectors.toList()));
+        Assertions.assertFalse(hits.get(0).getEntity().containsKey("id"));
+    }
+
     @Test
     void testUpsertWithFieldOps() {
         JsonObject jsonObject = new JsonObject();
@@ -281,7 +588,9 @@ class VectorTest extends BaseTest {
             Assertions.assertNotNull(resultFuture.get(1, TimeUnit.SECONDS));
             ArgumentCaptor<QueryRequest> queryCaptor = ArgumentCaptor.forClass(QueryRequest.class);
             verify(futureStub).query(queryCaptor.capture());
-            Assertions.assertEquals("id in [1]", queryCaptor.getValue().getExpr());
+            Assertions.assertEquals("id in {ids}", queryCaptor.getValue().getExpr());
+            Assertions.assertEquals(Collections.singletonList(1L), queryCaptor.getValue()
+                    .getExprTemplateValuesOrThrow("ids").getArrayVal().getLongData().getDataList());
         } finally {
             SchemaCache.getInstance().clear();
         }
@@ -495,6 +804,257 @@ class VectorTest extends BaseTest {
         verify(blockingStub, never()).search(any(SearchRequest.class));
     }
 
+    @Test
+    void testSearchBuilderRejectsInvalidNqBatching() {
+        MilvusClientException negativeBatch = Assertions.assertThrows(MilvusClientException.class,
+                () -> SearchReq.builder().nqBatchSize(-1));
+        Assertions.assertEquals(ErrorCode.INVALID_PARAMS, negativeBatch.getErrorCode());
+        MilvusClientException zeroParallelism = Assertions.assertThrows(MilvusClientException.class,
+                () -> SearchReq.builder().nqParallelism(0));
+        Assertions.assertEquals(ErrorCode.INVALID_PARAMS, zeroParallelism.getErrorCode());
+        Assertions.assertThrows(MilvusClientException.class, () -> SearchReq.builder().nqParallelism(-2));
+        Assertions.assertEquals(0, SearchReq.builder().nqBatchSize(0).build().getNqBatchSize());
+    }
+
+    @Test
+    void testSearchSplitsLargeNqIntoParallelBatches() throws Exception {
+        List<SearchRequest> sent = new ArrayList<>();
+        List<SettableFuture<SearchResults>> calls = new ArrayList<>();
+        AtomicBoolean completeImmediately = new AtomicBoolean(false);
+        when(futureStub.search(any())).thenAnswer(invocation -> {
+            SearchRequest searchRequest = invocation.getArgument(0);
+            SettableFuture<SearchResults> future = SettableFuture.create();
+            if (completeImmediately.get()) {
+                future.set(batchHits(sent.size(), searchRequest.getNq()));
+            }
+            sent.add(searchRequest);
+            calls.add(future);
+            return future;
+        });
+        List<BaseVector> vectors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            vectors.add(new FloatVec(Arrays.asList((float) i, 1.0f)));
+        }
+        SearchReq request = SearchReq.builder()
+                .collectionName("test")
+                .data(vectors)
+                .limit(1)
+                .nqBatchSize(4)
+                .nqParallelism(2)
+                .build();
+
+        // two batches are in flight, the third one is sent when one of them completes
+        CompletableFuture<SearchResp> future = client_v2.searchAsync(request);
+        Assertions.assertEquals(2, calls.size());
+        calls.get(1).set(batchHits(1, 4));
+        Assertions.assertEquals(3, calls.size());
+        calls.get(2).set(batchHits(2, 2));
+        Assertions.assertFalse(future.isDone());
+        calls.get(0).set(batchHits(0, 4));
+        SearchResp resp = future.get(1, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(Arrays.asList(4L, 4L, 2L), Arrays.asList(
+                sent.get(0).getNq(), sent.get(1).getNq(), sent.get(2).getNq()));
+        // the batches share the parameters of the first one
+        Assertions.assertEquals(sent.get(0).getSearchParamsList(), sent.get(2).getSearchParamsList());
+        Assertions.assertEquals(sent.get(0).getGuaranteeTimestamp(), sent.get(2).getGuaranteeTimestamp());
+        Assertions.assertEquals(10, resp.getSearchResults().size());
+        for (int q = 0; q < 10; q++) {
+            Assertions.assertEquals((long) (q / 4 * 100 + q % 4), resp.getSearchResults().get(q).get(0).getId());
+        }
+        Assertions.assertEquals(3L, resp.getCost());
+
+        // the blocking search takes the same path
+        completeImmediately.set(true);
+        Assertions.assertEquals(10, client_v2.search(request).getSearchResults().size());
+        Assertions.assertEquals(6, calls.size());
+        verify(blockingStub, never()).search(any(SearchRequest.class));
+    }
+
+    // one hit per query, the id tells the batch and the query in the batch
+    private static SearchResults batchHits(int batch, long nq) {
+        SearchResultData.Builder data = SearchResultData.newBuilder()
+                .setNumQueries(nq)
+                .setTopK(1);
+        LongArray.Builder ids = LongArray.newBuilder();
+        for (int q = 0; q < nq; q++) {
+            data.addTopks(1).addScores(1.0f);
+            ids.addData(batch * 100L + q);
+        }
+        return SearchResults.newBuilder()
+                .setStatus(Status.newBuilder().setCode(0).putExtraInfo("report_value", "1").build())
+                .setResults(data.setIds(IDs.newBuilder().setIntId(ids)))
+                .build();
+    }
+
+    @Test
+    void testFanOutSearchMergesHitsOfAllTargets() throws Exception {
+        when(futureStub.getCallOptions()).thenReturn(CallOptions.DEFAULT);
+        when(futureStub.search(any())).thenAnswer(invocation -> {
+            SearchRequest searchRequest = invocation.getArgument(0);
+            if (searchRequest.getCollectionName().equals("tenant_a")) {
+                return Futures.immediateFuture(searchHits(new long[]{1, 2, 3}, new float[]{0.9f, 0.8f, 0.5f}));
+            }
+            return Futures.immediateFuture(searchHits(new long[]{4, 2, 5}, new float[]{0.8f, 0.7f, 0.6f}));
+        });
+        FanOutSearchReq request = FanOutSearchReq.builder()
+                .searchReq(SearchReq.builder()
+                        .data(Collections.singletonList(new FloatVec(Arrays.asList(1.0f, 2.0f))))
+                        .metricType(IndexParam.MetricType.COSINE)
+                        .offset(1)
+                        .limit(3)
+                        .build())
+                .targets(Arrays.asList(
+                        FanOutSearchReq.SearchTarget.builder().collectionName("tenant_a").build(),
+                        FanOutSearchReq.SearchTarget.builder().collectionName("tenant_b")
+                                .partitionNames(Collections.singletonList("p1")).build()))
+                .deduplicate(true)
+                .build();
+
+        FanOutSearchResp resp = client_v2.fanOutSearchAsync(request).get(1, TimeUnit.SECONDS);
+
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(futureStub, times(2)).search(captor.capture());
+        for (SearchRequest sent : captor.getAllValues()) {
+            Map<String, String> params = new HashMap<>();
+            sent.getSearchParamsList().forEach(param -> params.put(param.getKey(), param.getValue()));
+            // every target returns offset + limit hits, the merge applies the offset
+            Assertions.assertEquals("4", params.get(Constant.TOP_K));
+            Assertions.assertEquals("0", params.get(Constant.OFFSET));
+        }
+        Assertions.assertEquals(Collections.singletonList("p1"), captor.getAllValues().stream()
+                .filter(sent -> sent.getCollectionName().equals("tenant_b"))
+                .findFirst().get().getPartitionNamesList());
+
+        // descending by score, the tie at 0.8 goes to tenant_a, the worse duplicate of id 2 is dropped
+        Assertions.assertTrue(resp.isComplete());
+        List<FanOutSearchResp.FanOutHit> hits = resp.getHits().get(0);
+        Assertions.assertEquals(3, hits.size());
+        Assertions.assertEquals(2L, hits.get(0).getResult().getId());
+        Assertions.assertEquals("tenant_a", hits.get(0).getTarget().getCollectionName());
+        Assertions.assertEquals(4L, hits.get(1).getResult().getId());
+        Assertions.assertEquals(5L, hits.get(2).getResult().getId());
+        Assertions.assertEquals("tenant_b", hits.get(2).getTarget().getCollectionName());
+    }
+
+    @Test
+    void testFanOutMergeFollowsMetricDirection() {
+        List<FanOutSearchReq.SearchTarget> targets = Arrays.asList(
+                FanOutSearchReq.SearchTarget.builder().collectionName("a").build(),
+                FanOutSearchReq.SearchTarget.builder().collectionName("b").build(),
+                FanOutSearchReq.SearchTarget.builder().collectionName("c").build());
+        List<SearchResp> responses = Arrays.asList(
+                searchResp(new long[]{1, 2}, new float[]{0.1f, 0.4f}),
+                null,
+                searchResp(new long[]{1, 3}, new float[]{0.2f, 0.3f}));
+
+        Assertions.assertTrue(VectorService.isDistanceMetric(IndexParam.MetricType.L2));
+        Assertions.assertFalse(VectorService.isDistanceMetric(IndexParam.MetricType.IP));
+        List<FanOutSearchResp.FanOutHit> ascending = VectorService.mergeFanOutHits(
+                targets, responses, true, false, 0, 10).get(0);
+        Assertions.assertEquals(Arrays.asList(0.1f, 0.2f, 0.3f, 0.4f), scoresOf(ascending));
+        List<FanOutSearchResp.FanOutHit> deduplicated = VectorService.mergeFanOutHits(
+                targets, responses, true, true, 0, 10).get(0);
+        Assertions.assertEquals(Arrays.asList(0.1f, 0.3f, 0.4f), scoresOf(deduplicated));
+        List<FanOutSearchResp.FanOutHit> descending = VectorService.mergeFanOutHits(targets, Arrays.asList(
+                searchResp(new long[]{1, 2}, new float[]{0.4f, 0.1f}),
+                searchResp(new long[]{3}, new float[]{0.3f}),
+                null), false, false, 1, 2).get(0);
+        Assertions.assertEquals(Arrays.asList(0.3f, 0.1f), scoresOf(descending));
+        Assertions.assertEquals("b", descending.get(0).getTarget().getCollectionName());
+    }
+
+    @Test
+    void testFanOutSearchBoundsParallelismAndSkipsTimedOutTargets() throws Exception {
+        when(futureStub.getCallOptions()).thenReturn(CallOptions.DEFAULT);
+        when(futureStub.withDeadline(any())).thenReturn(futureStub);
+        List<SettableFuture<SearchResults>> calls = new ArrayList<>();
+        when(futureStub.search(any())).thenAnswer(invocation -> {
+            SettableFuture<SearchResults> future = SettableFuture.create();
+            calls.add(future);
+            return future;
+        });
+        List<FanOutSearchReq.SearchTarget> targets = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            targets.add(FanOutSearchReq.SearchTarget.builder().collectionName("shard_" + i).build());
+        }
+        FanOutSearchReq request = FanOutSearchReq.builder()
+                .searchReq(SearchReq.builder()
+                        .data(Collections.singletonList(new FloatVec(Arrays.asList(1.0f, 2.0f))))
+                        .metricType(IndexParam.MetricType.L2)
+                        .limit(2)
+                        .build())
+                .targets(targets)
+                .parallelism(2)
+                .shardTimeoutMs(20)
+                .build();
+
+        CompletableFuture<FanOutSearchResp> future = client_v2.fanOutSearchAsync(request);
+        Assertions.assertEquals(2, calls.size());
+        calls.get(1).set(searchHits(new long[]{7}, new float[]{0.5f}));
+        Assertions.assertEquals(3, calls.size());
+        calls.get(2).set(searchHits(new long[]{8}, new float[]{0.2f}));
+        Assertions.assertFalse(future.isDone());
+
+        // the first shard fails only after its deadline, it is reported instead of failing the search
+        Thread.sleep(50);
+        calls.get(0).setException(io.grpc.Status.DEADLINE_EXCEEDED.asRuntimeException());
+        FanOutSearchResp resp = future.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(Collections.singletonList(targets.get(0)), resp.getTimedOutTargets());
+        Assertions.assertEquals(Arrays.asList(0.2f, 0.5f), scoresOf(resp.getHits().get(0)));
+    }
+
+    @Test
+    void testFanOutSearchRejectsInvalidRequests() {
+        SearchReq template = SearchReq.builder()
+                .data(Collections.singletonList(new FloatVec(Arrays.asList(1.0f, 2.0f))))
+                .limit(2)
+                .build();
+        List<FanOutSearchReq.SearchTarget> targets = Collections.singletonList(
+                FanOutSearchReq.SearchTarget.builder().collectionName("a").build());
+
+        // the responses don't carry the metric type
+        MilvusClientException e = Assertions.assertThrows(MilvusClientException.class,
+                () -> client_v2.fanOutSearch(FanOutSearchReq.builder().searchReq(template).targets(targets).build()));
+        Assertions.assertEquals(ErrorCode.INVALID_PARAMS, e.getErrorCode());
+        Assertions.assertThrows(MilvusClientException.class, () -> client_v2.fanOutSearch(FanOutSearchReq.builder()
+                .searchReq(template).metricType(IndexParam.MetricType.IP).build()));
+        template.setGroupByFieldName("tag");
+        Assertions.assertThrows(MilvusClientException.class, () -> client_v2.fanOutSearch(FanOutSearchReq.builder()
+                .searchReq(template).targets(targets).metricType(IndexParam.MetricType.IP).build()));
+        verify(futureStub, never()).search(any(SearchRequest.class));
+    }
+
+    private static SearchResults searchHits(long[] ids, float[] scores) {
+        SearchResultData.Builder data = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(ids.length)
+                .addTopks(ids.length)
+                .setIds(IDs.newBuilder().setIntId(LongArray.newBuilder()
+                        .addAllData(Arrays.stream(ids).boxed().collect(Collectors.toList()))));
+        for (float score : scores) {
+            data.addScores(score);
+        }
+        return SearchResults.newBuilder()
+                .setStatus(Status.newBuilder().setCode(0).build())
+                .setResults(data)
+                .build();
+    }
+
+    private static SearchResp searchResp(long[] ids, float[] scores) {
+        List<SearchResp.SearchResult> hits = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            hits.add(SearchResp.SearchResult.builder().id(ids[i]).score(scores[i]).build());
+        }
+        return SearchResp.builder().searchResults(Collections.singletonList(hits)).build();
+    }
+
+    private static List<Float> scoresOf(List<FanOutSearchResp.FanOutHit> hits) {
+        List<Float> scores = new ArrayList<>();
+        hits.forEach(hit -> scores.add(hit.getResult().getScore()));
+        return scores;
+    }
+
     @Test
     void testSearchAsyncServerFailureCompletesExceptionally() {
         SearchResults failedResponse = SearchResults.newBuilder()
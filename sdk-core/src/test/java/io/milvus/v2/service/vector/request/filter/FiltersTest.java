@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.service.vector.request.filter;
+
+import io.milvus.v2.exception.ErrorCode;
+import io.milvus.v2.exception.MilvusClientException;
+import io.milvus.v2.service.vector.request.DeleteReq;
+import io.milvus.v2.service.vector.request.QueryReq;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+class FiltersTest {
+
+    private static long[] sparseMembers(int count) {
+        long[] members = new long[count];
+        for (int i = 0; i < count; i++) {
+            members[i] = (i + 1) * 0x9E3779B97F4A7C15L;
+        }
+        return members;
+    }
+
+    @Test
+    void smallSetIsTemplateInList() {
+        InSetFilter filter = Filters.inSet("user_id", new long[]{5, 3, 5, 1});
+        Assertions.assertEquals(InSetFilter.Strategy.TEMPLATE_IN, filter.getStrategy());
+        Assertions.assertTrue(filter.isExact());
+        Assertions.assertEquals("user_id in {inset_user_id}", filter.getExpression());
+        Assertions.assertEquals(Arrays.asList(1L, 3L, 5L), filter.getTemplateValues().get("inset_user_id"));
+        Assertions.assertEquals(3, filter.getMemberCount());
+    }
+
+    @Test
+    void denseIntegerSetIsRoaringBitmap() {
+        long[] members = new long[100_000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = 1_000_000L + i;
+        }
+        InSetFilter filter = Filters.inSet("user_id", members);
+        Assertions.assertEquals(InSetFilter.Strategy.ROARING, filter.getStrategy());
+        Assertions.assertTrue(filter.isExact());
+        Assertions.assertEquals("roaring_match(user_id, {inset_user_id})", filter.getExpression());
+        Assertions.assertTrue(((byte[]) filter.getTemplateValues().get("inset_user_id")).length < 1024);
+    }
+
+    @Test
+    void largeSparseSetIsVerifiedBloomFilter() {
+        long[] members = sparseMembers(5000);
+        InSetFilter filter = Filters.inSet("user_id", members);
+        Assertions.assertEquals(InSetFilter.Strategy.BLOOM, filter.getStrategy());
+        Assertions.assertFalse(filter.isExact());
+        Assertions.assertEquals("bloom_match(user_id, {inset_user_id})", filter.getExpression());
+        Assertions.assertTrue(filter.matches(members[42]));
+        Assertions.assertFalse(filter.matches(members[42] + 1));
+        Assertions.assertFalse(filter.matches(String.valueOf(members[42])));
+
+        // the exact variant never picks a bloom filter
+        Assertions.assertTrue(Filters.inSetExact("user_id", members).isExact());
+        // a JSON path can't be verified by the client
+        Assertions.assertTrue(Filters.inSet("meta[\"uid\"]", members).isExact());
+    }
+
+    @Test
+    void largeStringSetIsVerifiedBloomFilter() {
+        String[] members = new String[5000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = "document-" + i + "-of-the-archive";
+        }
+        InSetFilter filter = Filters.inSet("doc", members);
+        Assertions.assertEquals(InSetFilter.Strategy.BLOOM, filter.getStrategy());
+        Assertions.assertTrue(filter.matches("document-7-of-the-archive"));
+        Assertions.assertFalse(filter.matches("document-7"));
+
+        InSetFilter exact = Filters.inSetExact("doc", members);
+        Assertions.assertEquals(InSetFilter.Strategy.TEMPLATE_IN, exact.getStrategy());
+        Assertions.assertEquals(5000, exact.getMemberCount());
+    }
+
+    @Test
+    void invalidMembersAreRejected() {
+        MilvusClientException e = Assertions.assertThrows(MilvusClientException.class,
+                () -> Filters.inSet("user_id", new long[0]));
+        Assertions.assertEquals(ErrorCode.INVALID_PARAMS, e.getErrorCode());
+        Assertions.assertThrows(MilvusClientException.class, () -> Filters.inSet("", new long[]{1}));
+        Assertions.assertThrows(MilvusClientException.class, () -> Filters.inSet("doc", (String[]) null));
+        Assertions.assertThrows(MilvusClientException.class, () -> Filters.inSet("doc", new String[]{"a", null}));
+    }
+
+    @Test
+    void requestCombinesFilterAndTemplateValues() {
+        QueryReq request = QueryReq.builder()
+                .collectionName("docs")
+                .inSetFilter(Filters.inSet("user_id", new long[]{1, 2}))
+                .filter("age > {age}")
+                .filterTemplateValues(Collections.singletonMap("age", 18L))
+                .build();
+        Assertions.assertEquals("(age > {age}) and user_id in {inset_user_id}", request.getFilter());
+        Map<String, Object> values = request.getFilterTemplateValues();
+        Assertions.assertEquals(18L, values.get("age"));
+        Assertions.assertEquals(Arrays.asList(1L, 2L), values.get("inset_user_id"));
+    }
+
+    @Test
+    void deleteRejectsInexactFilter() {
+        InSetFilter bloom = Filters.inSet("user_id", sparseMembers(5000));
+        MilvusClientException e = Assertions.assertThrows(MilvusClientException.class,
+                () -> DeleteReq.builder().collectionName("docs").inSetFilter(bloom));
+        Assertions.assertEquals(ErrorCode.INVALID_PARAMS, e.getErrorCode());
+
+        DeleteReq request = DeleteReq.builder()
+                .collectionName("docs")
+                .inSetFilter(Filters.inSetExact("user_id", new long[]{7}))
+                .build();
+        Assertions.assertEquals("user_id in {inset_user_id}", request.getFilter());
+    }
+}
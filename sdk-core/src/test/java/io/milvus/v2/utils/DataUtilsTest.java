@@ -23,6 +23,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import io.milvus.common.utils.JsonUtils;
+import io.milvus.common.utils.VectorFileSource;
 import io.milvus.grpc.*;
 import io.milvus.param.Constant;
 import io.milvus.v2.common.DataType;
@@ -37,6 +38,8 @@ import io.milvus.v2.service.vector.request.UpsertReq;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -62,6 +65,83 @@ class DataUtilsTest {
         Assertions.assertEquals(Collections.singletonList("vector"), fieldNames(request.getFieldsDataList()));
     }
 
+    @Test
+    void testInsertBuildsVectorFieldFromPackedColumn() {
+        DescribeCollectionResp collection = describeCollection(false, false, false);
+        List<JsonObject> rows = new ArrayList<>();
+        for (long i = 0; i < 3; i++) {
+            JsonObject row = new JsonObject();
+            row.addProperty("id", i);
+            rows.add(row);
+        }
+        FloatBuffer vectors = FloatBuffer.wrap(new float[]{0.0f, 0.5f, 1.0f, 1.5f, 2.0f, 2.5f});
+        InsertReq insertReq = InsertReq.builder().collectionName("test").data(rows).build();
+        DataUtils.attachVectorColumns(insertReq, Collections.singletonMap("vector",
+                new DataUtils.VectorColumn(vectors, VectorFileSource.ElementType.FLOAT32)));
+        try {
+            InsertRequest request = new DataUtils.InsertBuilderWrapper().convertGrpcInsertRequest(insertReq, collection);
+
+            Assertions.assertEquals(Arrays.asList("id", "vector"), fieldNames(request.getFieldsDataList()));
+            VectorField vectorField = request.getFieldsData(1).getVectors();
+            Assertions.assertEquals(2, vectorField.getDim());
+            Assertions.assertEquals(Arrays.asList(0.0f, 0.5f, 1.0f, 1.5f, 2.0f, 2.5f),
+                    vectorField.getFloatVector().getDataList());
+            Assertions.assertEquals(6, vectors.remaining());
+
+            // wrong size, or the field given in the rows too
+            DataUtils.attachVectorColumns(insertReq, Collections.singletonMap("vector",
+                    new DataUtils.VectorColumn(FloatBuffer.allocate(5), VectorFileSource.ElementType.FLOAT32)));
+            Assertions.assertThrows(DataNotMatchException.class,
+                    () -> new DataUtils.InsertBuilderWrapper().convertGrpcInsertRequest(insertReq, collection));
+            rows.get(0).add("vector", JsonUtils.toJsonTree(Arrays.asList(1.0f, 2.0f)));
+            DataUtils.attachVectorColumns(insertReq, Collections.singletonMap("vector",
+                    new DataUtils.VectorColumn(vectors, VectorFileSource.ElementType.FLOAT32)));
+            Assertions.assertThrows(DataNotMatchException.class,
+                    () -> new DataUtils.InsertBuilderWrapper().convertGrpcInsertRequest(insertReq, collection));
+        } finally {
+            DataUtils.detachVectorColumns(insertReq);
+        }
+        Assertions.assertTrue(DataUtils.attachedVectorColumns(insertReq).isEmpty());
+    }
+
+    @Test
+    void testInsertRejectsPackedColumnOfOtherElementType() {
+        DescribeCollectionResp collection = describeCollection(false, false, false);
+        CreateCollectionReq.FieldSchema int8Vector = CreateCollectionReq.FieldSchema.builder()
+                .name("int8_vector").dataType(DataType.Int8Vector).dimension(2).build();
+        CreateCollectionReq.FieldSchema binaryVector = CreateCollectionReq.FieldSchema.builder()
+                .name("binary_vector").dataType(DataType.BinaryVector).dimension(16).build();
+        collection.getCollectionSchema().setFieldSchemaList(Arrays.asList(
+                collection.getCollectionSchema().getFieldSchemaList().get(0), int8Vector, binaryVector));
+        JsonObject row = new JsonObject();
+        row.addProperty("id", 1L);
+        InsertReq insertReq = InsertReq.builder().collectionName("test").data(Collections.singletonList(row)).build();
+        ByteBuffer bytes = ByteBuffer.wrap(new byte[]{(byte) 200, 1});
+
+        try {
+            // uint8 values above 127 would wrap to negative int8 values
+            Map<String, DataUtils.VectorColumn> columns = new HashMap<>();
+            columns.put("int8_vector", new DataUtils.VectorColumn(bytes, VectorFileSource.ElementType.UINT8));
+            columns.put("binary_vector", new DataUtils.VectorColumn(bytes, VectorFileSource.ElementType.UINT8));
+            DataUtils.attachVectorColumns(insertReq, columns);
+            DataNotMatchException e = Assertions.assertThrows(DataNotMatchException.class,
+                    () -> new DataUtils.InsertBuilderWrapper().convertGrpcInsertRequest(insertReq, collection));
+            Assertions.assertTrue(e.getMessage().contains("UINT8"));
+
+            columns.put("int8_vector", new DataUtils.VectorColumn(bytes, VectorFileSource.ElementType.INT8));
+            columns.put("binary_vector", new DataUtils.VectorColumn(bytes, VectorFileSource.ElementType.INT8));
+            e = Assertions.assertThrows(DataNotMatchException.class,
+                    () -> new DataUtils.InsertBuilderWrapper().convertGrpcInsertRequest(insertReq, collection));
+            Assertions.assertTrue(e.getMessage().contains("INT8"));
+
+            columns.put("binary_vector", new DataUtils.VectorColumn(bytes, VectorFileSource.ElementType.UINT8));
+            InsertRequest request = new DataUtils.InsertBuilderWrapper().convertGrpcInsertRequest(insertReq, collection);
+            Assertions.assertEquals(3, request.getFieldsDataCount());
+        } finally {
+            DataUtils.detachVectorColumns(insertReq);
+        }
+    }
+
     @Test
     void testInsertAcceptsProvidedAutoIdField() {
         DescribeCollectionResp collection = describeCollection(true, false, false);
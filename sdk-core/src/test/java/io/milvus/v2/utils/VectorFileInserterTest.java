@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.milvus.v2.utils;
+
+import com.google.gson.JsonObject;
+import io.milvus.common.utils.VectorFileSource;
+import io.milvus.v2.client.MilvusClientV2;
+import io.milvus.v2.exception.MilvusClientException;
+import io.milvus.v2.service.vector.request.InsertReq;
+import io.milvus.v2.service.vector.response.InsertResp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VectorFileInserterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testInsertsBatchesOfFile() throws Exception {
+        int dim = 4;
+        int rows = 25;
+        ByteBuffer buffer = ByteBuffer.allocate(rows * (4 + dim * 4)).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(dim);
+            for (int k = 0; k < dim; k++) {
+                buffer.putFloat(i + k / 10.0f);
+            }
+        }
+        Path path = Files.write(tempDir.resolve("data.fvecs"), buffer.array());
+
+        List<InsertReq> requests = new ArrayList<>();
+        List<DataUtils.VectorColumn> columns = new ArrayList<>();
+        MilvusClientV2 client = mock(MilvusClientV2.class);
+        when(client.insert(any(InsertReq.class))).thenAnswer(invocation -> {
+            InsertReq req = invocation.getArgument(0);
+            requests.add(req);
+            columns.add(DataUtils.attachedVectorColumns(req).get("vector"));
+            return InsertResp.builder().InsertCnt(req.getData().size()).build();
+        });
+
+        VectorFileInserter inserter = VectorFileInserter.builder()
+                .collectionName("sift")
+                .vectorFieldName("vector")
+                .batchSize(10)
+                .rowFiller((row, data) -> data.addProperty("id", row))
+                .build();
+        try (VectorFileSource source = VectorFileSource.open(path)) {
+            assertEquals(rows, inserter.insert(client, source));
+        }
+
+        assertEquals(3, requests.size());
+        assertEquals(5, requests.get(2).getData().size());
+        JsonObject row = requests.get(1).getData().get(3);
+        assertEquals(13L, row.get("id").getAsLong());
+        assertFalse(row.has("vector"));
+        // the vectors are sent as a packed column, not as values of the rows
+        assertEquals(VectorFileSource.ElementType.FLOAT32, columns.get(1).getElementType());
+        FloatBuffer vectors = (FloatBuffer) columns.get(1).getVectors();
+        assertEquals(10 * dim, vectors.remaining());
+        assertEquals(13.2f, vectors.get(3 * dim + 2));
+        assertEquals("sift", requests.get(0).getCollectionName());
+        // the columns are attached to a request while it is inserted only
+        assertTrue(DataUtils.attachedVectorColumns(requests.get(0)).isEmpty());
+    }
+
+    @Test
+    void testBuilderRejectsMissingNames() {
+        assertThrows(MilvusClientException.class, () -> VectorFileInserter.builder().vectorFieldName("v").build());
+        assertThrows(MilvusClientException.class, () -> VectorFileInserter.builder().collectionName("c").build());
+        assertThrows(MilvusClientException.class, () -> VectorFileInserter.builder()
+                .collectionName("c").vectorFieldName("v").batchSize(0).build());
+    }
+}